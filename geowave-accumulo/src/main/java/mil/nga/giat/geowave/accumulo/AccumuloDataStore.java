@@ -10,15 +10,19 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import mil.nga.giat.geowave.accumulo.metadata.AccumuloAdapterStore;
 import mil.nga.giat.geowave.accumulo.metadata.AccumuloDataStatisticsStore;
 import mil.nga.giat.geowave.accumulo.metadata.AccumuloIndexStore;
+import mil.nga.giat.geowave.accumulo.query.AccumuloAggregationQuery;
 import mil.nga.giat.geowave.accumulo.query.AccumuloConstraintsQuery;
 import mil.nga.giat.geowave.accumulo.query.AccumuloFilteredIndexQuery;
+import mil.nga.giat.geowave.accumulo.query.AccumuloQueryPlanner;
 import mil.nga.giat.geowave.accumulo.query.AccumuloRowIdQuery;
 import mil.nga.giat.geowave.accumulo.query.AccumuloRowPrefixQuery;
 import mil.nga.giat.geowave.accumulo.query.QueryFilterIterator;
+import mil.nga.giat.geowave.accumulo.query.QueryPlan;
 import mil.nga.giat.geowave.accumulo.query.SingleEntryFilterIterator;
 import mil.nga.giat.geowave.accumulo.util.AccumuloUtils;
 import mil.nga.giat.geowave.accumulo.util.AltIndexIngestCallback;
@@ -44,6 +48,7 @@ import mil.nga.giat.geowave.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsBuilder;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.store.adapter.statistics.IndexDensityStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.StatisticalDataAdapter;
 import mil.nga.giat.geowave.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.store.data.visibility.UnconstrainedVisibilityHandler;
@@ -52,6 +57,7 @@ import mil.nga.giat.geowave.store.filter.MultiIndexDedupeFilter;
 import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.store.index.IndexStore;
 import mil.nga.giat.geowave.store.query.Query;
+import mil.nga.giat.geowave.store.query.aggregate.Aggregation;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -94,6 +100,13 @@ public class AccumuloDataStore implements
 	protected final DataStatisticsStore statisticsStore;
 	protected final AccumuloOperations accumuloOperations;
 	protected final AccumuloOptions accumuloOptions;
+	protected final AccumuloQueryPlanner queryPlanner;
+	protected final WriterPool writerPool;
+
+	// the alternate index table decision of each index table and the locality
+	// groups known to exist are checked once for the life of the store
+	private final Map<String, Boolean> useAltIndexCache = new ConcurrentHashMap<String, Boolean>();
+	private final DataAdapterAndIndexCache localityGroupCache = new DataAdapterAndIndexCache();
 
 	public AccumuloDataStore(
 			final AccumuloOperations accumuloOperations ) {
@@ -145,6 +158,12 @@ public class AccumuloDataStore implements
 		this.statisticsStore = statisticsStore;
 		this.accumuloOperations = accumuloOperations;
 		this.accumuloOptions = accumuloOptions;
+		queryPlanner = new AccumuloQueryPlanner(
+				accumuloOperations,
+				statisticsStore,
+				accumuloOptions);
+		writerPool = new WriterPool(
+				accumuloOperations);
 	}
 
 	@Override
@@ -208,42 +227,27 @@ public class AccumuloDataStore implements
 		store(writableAdapter);
 		store(index);
 
-		Writer writer;
 		try {
 			final String indexName = StringUtils.stringFromBinary(index.getId().getBytes());
 			final String altIdxTableName = indexName + AccumuloUtils.ALT_INDEX_TABLE;
-			final byte[] adapterId = writableAdapter.getAdapterId().getBytes();
 
-			boolean useAltIndex = accumuloOptions.isUseAltIndex();
-
-			if (useAltIndex) {
-				if (accumuloOperations.tableExists(indexName)) {
-					if (!accumuloOperations.tableExists(altIdxTableName)) {
-						useAltIndex = false;
-						LOGGER.warn("Requested alternate index table [" + altIdxTableName + "] does not exist.");
-					}
-				}
-				else {
-					if (accumuloOperations.tableExists(altIdxTableName)) {
-						accumuloOperations.deleteTable(altIdxTableName);
-						LOGGER.warn("Deleting current alternate index table [" + altIdxTableName + "] as main table does not yet exist.");
-					}
-				}
-			}
+			final boolean useAltIndex = useAltIndex(
+					indexName,
+					altIdxTableName);
 
-			final List<DataStatisticsBuilder<T>> statisticsBuilders = getStatsBuilders(writableAdapter);
+			final List<DataStatisticsBuilder<T>> statisticsBuilders = getStatsBuilders(
+					writableAdapter,
+					index);
 
-			writer = accumuloOperations.createWriter(
+			// the writers are shared with every other entry ingested by this
+			// store and are not closed after each entry
+			final Writer writer = writerPool.getWriter(
 					indexName,
 					accumuloOptions.isCreateTable());
 
-			if (accumuloOptions.isUseLocalityGroups() && !accumuloOperations.localityGroupExists(
+			ensureLocalityGroup(
 					indexName,
-					adapterId)) {
-				accumuloOperations.addLocalityGroup(
-						indexName,
-						adapterId);
-			}
+					writableAdapter.getAdapterId());
 			if (writableAdapter instanceof AttachedIteratorDataAdapter) {
 				if (!DataAdapterAndIndexCache.getInstance(
 						AttachedIteratorDataAdapter.ATTACHED_ITERATOR_CACHE_ID).add(
@@ -262,10 +266,8 @@ public class AccumuloDataStore implements
 					writer,
 					customFieldVisibilityWriter);
 
-			writer.close();
-
 			if (useAltIndex) {
-				final Writer altIdxWriter = accumuloOperations.createWriter(
+				final Writer altIdxWriter = writerPool.getWriter(
 						altIdxTableName,
 						accumuloOptions.isCreateTable());
 
@@ -274,10 +276,10 @@ public class AccumuloDataStore implements
 						entryInfo,
 						entry,
 						altIdxWriter);
-
-				altIdxWriter.close();
 			}
 
+			// the statistics store merges the statistics of each entry in
+			// memory and writes them in batches
 			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
 				builder.entryIngested(
 						entryInfo,
@@ -287,6 +289,7 @@ public class AccumuloDataStore implements
 					statisticsStore.incorporateStatistics(s);
 				}
 			}
+			queryPlanner.statisticsChanged();
 
 			return entryInfo.getRowIds();
 		}
@@ -300,6 +303,7 @@ public class AccumuloDataStore implements
 
 	public CloseableIterator<?> query(
 			final AccumuloFilteredIndexQuery query ) {
+		writerPool.flush();
 		return query.query(
 				accumuloOperations,
 				adapterStore,
@@ -320,6 +324,91 @@ public class AccumuloDataStore implements
 		}
 	}
 
+	/**
+	 * Send the entries and statistics that have been ingested individually and
+	 * are buffered by this store
+	 */
+	public void flush() {
+		writerPool.flush();
+		if (statisticsStore != null) {
+			statisticsStore.flush();
+		}
+	}
+
+	/**
+	 * Close the writers retained by this store for ingesting individual
+	 * entries, sending the entries and statistics they buffer, and forget the
+	 * tables and locality groups known to exist. The store can continue to be
+	 * used and will open new writers as needed, so this should also be called
+	 * when the tables of the store are deleted without using the store.
+	 */
+	public void close() {
+		writerPool.close();
+		useAltIndexCache.clear();
+		localityGroupCache.clear();
+		if (statisticsStore != null) {
+			statisticsStore.flush();
+		}
+	}
+
+	private boolean useAltIndex(
+			final String tableName,
+			final String altIdxTableName ) {
+		if (!accumuloOptions.isUseAltIndex()) {
+			return false;
+		}
+		Boolean useAltIndex = useAltIndexCache.get(tableName);
+		if (useAltIndex == null) {
+			synchronized (useAltIndexCache) {
+				useAltIndex = useAltIndexCache.get(tableName);
+				if (useAltIndex == null) {
+					useAltIndex = true;
+					if (accumuloOperations.tableExists(tableName)) {
+						if (!accumuloOperations.tableExists(altIdxTableName)) {
+							useAltIndex = false;
+							LOGGER.warn("Requested alternate index table [" + altIdxTableName + "] does not exist.");
+						}
+					}
+					else {
+						if (accumuloOperations.tableExists(altIdxTableName)) {
+							accumuloOperations.deleteTable(altIdxTableName);
+							LOGGER.warn("Deleting current alternate index table [" + altIdxTableName + "] as main table does not yet exist.");
+						}
+					}
+					useAltIndexCache.put(
+							tableName,
+							useAltIndex);
+				}
+			}
+		}
+		return useAltIndex;
+	}
+
+	private void ensureLocalityGroup(
+			final String tableName,
+			final ByteArrayId adapterId )
+			throws AccumuloException,
+			TableNotFoundException,
+			AccumuloSecurityException {
+		if (!accumuloOptions.isUseLocalityGroups() || localityGroupCache.contains(
+				adapterId,
+				tableName)) {
+			return;
+		}
+		if (!accumuloOperations.localityGroupExists(
+				tableName,
+				adapterId.getBytes())) {
+			accumuloOperations.addLocalityGroup(
+					tableName,
+					adapterId.getBytes());
+		}
+		// only recorded once the locality group exists, so that a failed
+		// attempt is retried
+		localityGroupCache.add(
+				adapterId,
+				tableName);
+	}
+
 	@Override
 	public <T> void ingest(
 			final WritableDataAdapter<T> dataWriter,
@@ -392,42 +481,27 @@ public class AccumuloDataStore implements
 			final Iterator<T> entryIterator,
 			final IngestCallback<T> ingestCallback,
 			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		// entries ingested individually are sent before those of the bulk
+		// ingest
+		writerPool.flush();
 		try {
 			store(dataWriter);
 			store(index);
 
 			final String tableName = StringUtils.stringFromBinary(index.getId().getBytes());
 			final String altIdxTableName = tableName + AccumuloUtils.ALT_INDEX_TABLE;
-			final byte[] adapterId = dataWriter.getAdapterId().getBytes();
-
-			boolean useAltIndex = accumuloOptions.isUseAltIndex();
 
-			if (useAltIndex) {
-				if (accumuloOperations.tableExists(tableName)) {
-					if (!accumuloOperations.tableExists(altIdxTableName)) {
-						useAltIndex = false;
-						LOGGER.warn("Requested alternate index table [" + altIdxTableName + "] does not exist.");
-					}
-				}
-				else {
-					if (accumuloOperations.tableExists(altIdxTableName)) {
-						accumuloOperations.deleteTable(altIdxTableName);
-						LOGGER.warn("Deleting current alternate index table [" + altIdxTableName + "] as main table does not yet exist.");
-					}
-				}
-			}
+			final boolean useAltIndex = useAltIndex(
+					tableName,
+					altIdxTableName);
 			final String indexName = StringUtils.stringFromBinary(index.getId().getBytes());
 			final mil.nga.giat.geowave.accumulo.Writer writer = accumuloOperations.createWriter(
 					indexName,
 					accumuloOptions.isCreateTable());
 
-			if (accumuloOptions.isUseLocalityGroups() && !accumuloOperations.localityGroupExists(
+			ensureLocalityGroup(
 					tableName,
-					adapterId)) {
-				accumuloOperations.addLocalityGroup(
-						tableName,
-						adapterId);
-			}
+					dataWriter.getAdapterId());
 			if (dataWriter instanceof AttachedIteratorDataAdapter) {
 				if (!DataAdapterAndIndexCache.getInstance(
 						AttachedIteratorDataAdapter.ATTACHED_ITERATOR_CACHE_ID).add(
@@ -453,14 +527,9 @@ public class AccumuloDataStore implements
 			boolean persistStats = accumuloOptions.isPersistDataStatistics() && (dataWriter instanceof StatisticalDataAdapter) && (statisticsStore != null);
 			List<DataStatisticsBuilder<T>> statisticsBuilders = null;
 			if (persistStats) {
-				final ByteArrayId[] statisticsIds = ((StatisticalDataAdapter<T>) dataWriter).getSupportedStatisticsIds();
-				statisticsBuilders = new ArrayList<DataStatisticsBuilder<T>>(
-						statisticsIds.length);
-				for (final ByteArrayId id : statisticsIds) {
-					statisticsBuilders.add(new DataStatisticsBuilder<T>(
-							(StatisticalDataAdapter) dataWriter,
-							id));
-				}
+				statisticsBuilders = AccumuloUtils.createStatisticsBuilders(
+						(StatisticalDataAdapter<T>) dataWriter,
+						index);
 				if ((statisticsBuilders != null) && !statisticsBuilders.isEmpty()) {
 					callbacks.addAll(statisticsBuilders);
 				}
@@ -528,6 +597,10 @@ public class AccumuloDataStore implements
 						statisticsStore.incorporateStatistics(s);
 					}
 				}
+				// the statistics of a bulk ingest are written when it
+				// completes, like its data
+				statisticsStore.flush();
+				queryPlanner.statisticsChanged();
 			}
 		}
 		catch (final TableNotFoundException | AccumuloException | AccumuloSecurityException e) {
@@ -583,6 +656,7 @@ public class AccumuloDataStore implements
 	public <T> T getEntry(
 			final Index index,
 			final ByteArrayId rowId ) {
+		writerPool.flush();
 		final AccumuloRowIdQuery q = new AccumuloRowIdQuery(
 				index,
 				rowId);
@@ -598,6 +672,7 @@ public class AccumuloDataStore implements
 			final ByteArrayId dataId,
 			final ByteArrayId adapterId,
 			final String... additionalAuthorizations ) {
+		writerPool.flush();
 		final String altIdxTableName = index.getId().getString() + AccumuloUtils.ALT_INDEX_TABLE;
 
 		if (accumuloOptions.isUseAltIndex() && accumuloOperations.tableExists(altIdxTableName)) {
@@ -639,6 +714,7 @@ public class AccumuloDataStore implements
 			final ByteArrayId dataId,
 			final ByteArrayId adapterId,
 			final String... authorizations ) {
+		writerPool.flush();
 		final String tableName = index.getId().getString();
 		final String altIdxTableName = tableName + AccumuloUtils.ALT_INDEX_TABLE;
 		final boolean useAltIndex = accumuloOptions.isUseAltIndex() && accumuloOperations.tableExists(altIdxTableName);
@@ -662,7 +738,9 @@ public class AccumuloDataStore implements
 				tableName,
 				Arrays.asList(row),
 				createDecodingDeleteObserver(
-						getStatsBuilders(adapter),
+						getStatsBuilders(
+								adapter,
+								index),
 						adapter,
 						index),
 				authorizations);
@@ -870,6 +948,7 @@ public class AccumuloDataStore implements
 			final Index index,
 			final ByteArrayId rowPrefix,
 			final String... additionalAuthorizations ) {
+		writerPool.flush();
 		final AccumuloRowPrefixQuery q = new AccumuloRowPrefixQuery(
 				index,
 				rowPrefix,
@@ -994,16 +1073,27 @@ public class AccumuloDataStore implements
 			final AdapterStore adapterStore,
 			final Integer limit,
 			final String... authorizations ) {
-		// query the indices that are supported for this query object, and these
-		// data adapter Ids
+		// entries ingested by this store are readable once they are flushed
+		writerPool.flush();
+
+		// query the indices chosen by the planner among those that are
+		// supported for this query object, and these data adapter Ids
+		final QueryPlan plan = queryPlanner.planQuery(
+				adapterIds,
+				query,
+				indices,
+				adapterStore,
+				authorizations);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(plan);
+		}
 		final List<CloseableIterator<?>> results = new ArrayList<CloseableIterator<?>>();
-		int indexCount = 0;
 		// all queries will use the same instance of the dedupe filter for
 		// client side filtering because the filter needs to be applied across
 		// indices
-		final MultiIndexDedupeFilter clientDedupeFilter = new MultiIndexDedupeFilter();
-		while (indices.hasNext()) {
-			final Index index = indices.next();
+		final MultiIndexDedupeFilter clientDedupeFilter = new MultiIndexDedupeFilter(
+				accumuloOptions.getDedupeMode());
+		for (final Index index : plan.getIndices()) {
 			final AccumuloConstraintsQuery accumuloQuery;
 			if (query == null) {
 				accumuloQuery = new AccumuloConstraintsQuery(
@@ -1011,7 +1101,7 @@ public class AccumuloDataStore implements
 						index,
 						clientDedupeFilter);
 			}
-			else if (query.isSupported(index)) {
+			else {
 				// construct the query
 				accumuloQuery = new AccumuloConstraintsQuery(
 						adapterIds,
@@ -1020,21 +1110,23 @@ public class AccumuloDataStore implements
 						query.createFilters(index.getIndexModel()),
 						clientDedupeFilter,
 						authorizations);
-			}
-			else {
-				continue;
+				if (accumuloOptions.isPersistDataStatistics() && accumuloOptions.isUseIndexDensityClipping()) {
+					// statistics are only trusted to account for all of the
+					// data if they are maintained, and only if they are known
+					// to be written before the rows are queried
+					accumuloQuery.setIndexDensity(plan.getIndexDensity(index.getId()));
+				}
 			}
 			results.add(accumuloQuery.query(
 					accumuloOperations,
 					adapterStore,
 					limit,
 					true));
-			indexCount++;
 		}
 		// if there aren't multiple indices, the client-side dedupe filter can
 		// just cache rows that are duplicated within the index and not
 		// everything
-		clientDedupeFilter.setMultiIndexSupportEnabled(indexCount > 1);
+		clientDedupeFilter.setMultiIndexSupportEnabled(plan.getIndices().size() > 1);
 		// concatenate iterators
 		return new CloseableIteratorWrapper<Object>(
 				new Closeable() {
@@ -1049,6 +1141,90 @@ public class AccumuloDataStore implements
 				Iterators.concat(results.iterator()));
 	}
 
+	/**
+	 * Plan a query without running it, describing which indices would be
+	 * scanned for the query
+	 *
+	 * @param adapterIds
+	 *            the queried adapters, null for all adapters
+	 * @param query
+	 *            the query, null to query everything
+	 * @param authorizations
+	 *            additional authorizations to read the statistics
+	 * @return the plan
+	 */
+	public QueryPlan getQueryPlan(
+			final List<ByteArrayId> adapterIds,
+			final Query query,
+			final String... authorizations ) {
+		QueryPlan plan = null;
+		try (final CloseableIterator<Index> indices = indexStore.getIndices()) {
+			plan = queryPlanner.planQuery(
+					adapterIds,
+					query,
+					indices,
+					adapterStore,
+					authorizations);
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"unable to close index iterator for query plan",
+					e);
+		}
+		return plan;
+	}
+
+	/**
+	 * Split an index table so that each tablet holds approximately the same
+	 * number of rows, according to the density of the rows within the index.
+	 * This is intended to pre-split a table before a large ingest of data that
+	 * is distributed like the data already ingested.
+	 *
+	 * @param index
+	 *            the index
+	 * @param tabletCount
+	 *            the number of tablets
+	 * @param authorizations
+	 *            additional authorizations to read the statistics
+	 * @return true if the table was split, false if the density of the rows
+	 *         within the index is unknown
+	 */
+	public boolean splitIndexTable(
+			final Index index,
+			final int tabletCount,
+			final String... authorizations ) {
+		final List<ByteArrayId> adapterIds = new ArrayList<ByteArrayId>();
+		try (final CloseableIterator<DataAdapter<?>> adapters = adapterStore.getAdapters()) {
+			while (adapters.hasNext()) {
+				adapterIds.add(adapters.next().getAdapterId());
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close adapter iterator",
+					e);
+		}
+		final IndexDensityStatistics<?> indexDensity = queryPlanner.getIndexDensity(
+				adapterIds,
+				index,
+				authorizations);
+		if (indexDensity == null) {
+			return false;
+		}
+		try {
+			accumuloOperations.addSplits(
+					index.getId().getString(),
+					indexDensity.getSplitPoints(tabletCount));
+			return true;
+		}
+		catch (AccumuloException | TableNotFoundException | AccumuloSecurityException e) {
+			LOGGER.error(
+					"Unable to split index table",
+					e);
+		}
+		return false;
+	}
+
 	@Override
 	public CloseableIterator<?> query(
 			final Query query ) {
@@ -1167,6 +1343,30 @@ public class AccumuloDataStore implements
 				authorizations);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <R extends Aggregation> R aggregate(
+			final DataAdapter<?> adapter,
+			final Index index,
+			final Query query,
+			final R aggregation,
+			final String... authorizations ) {
+		if ((query != null) && !query.isSupported(index)) {
+			throw new IllegalArgumentException(
+					"Index does not support the query");
+		}
+		store(adapter);
+		writerPool.flush();
+
+		final AccumuloAggregationQuery aggregationQuery = new AccumuloAggregationQuery(
+				adapter,
+				index,
+				query,
+				aggregation,
+				authorizations);
+		return (R) aggregationQuery.aggregate(accumuloOperations);
+	}
+
 	public <T> void deleteEntries(
 			final DataAdapter<T> adapter,
 			final Index index,
@@ -1174,6 +1374,7 @@ public class AccumuloDataStore implements
 		final String tableName = index.getId().getString();
 		final String altIdxTableName = tableName + AccumuloUtils.ALT_INDEX_TABLE;
 		final String adapterId = StringUtils.stringFromBinary(adapter.getAdapterId().getBytes());
+		writerPool.flush();
 
 		final CloseableIterator<DataStatistics<?>> it = statisticsStore.getDataStatistics(adapter.getAdapterId());
 
@@ -1184,6 +1385,7 @@ public class AccumuloDataStore implements
 					stats.getStatisticsId(),
 					additionalAuthorizations);
 		}
+		queryPlanner.statisticsChanged();
 
 		deleteAll(
 				tableName,
@@ -1208,23 +1410,19 @@ public class AccumuloDataStore implements
 				statisticsStore.incorporateStatistics(s);
 			}
 		}
+		queryPlanner.statisticsChanged();
 	}
 
 	private <T> List<DataStatisticsBuilder<T>> getStatsBuilders(
-			final DataAdapter<T> adapter ) {
+			final DataAdapter<T> adapter,
+			final Index index ) {
 		final boolean persistStats = accumuloOptions.isPersistDataStatistics() && (adapter instanceof StatisticalDataAdapter) && (statisticsStore != null);
-		final List<DataStatisticsBuilder<T>> statisticsBuilders = new ArrayList<DataStatisticsBuilder<T>>();
 		if (persistStats) {
-			final ByteArrayId[] statisticsIds = ((StatisticalDataAdapter<T>) adapter).getSupportedStatisticsIds();
-			if ((statisticsIds != null) && (statisticsIds.length != 0)) {
-				for (final ByteArrayId id : statisticsIds) {
-					statisticsBuilders.add(new DataStatisticsBuilder<T>(
-							(StatisticalDataAdapter) adapter,
-							id));
-				}
-			}
+			return AccumuloUtils.createStatisticsBuilders(
+					(StatisticalDataAdapter<T>) adapter,
+					index);
 		}
-		return statisticsBuilders;
+		return new ArrayList<DataStatisticsBuilder<T>>();
 	}
 
 	private boolean deleteAll(
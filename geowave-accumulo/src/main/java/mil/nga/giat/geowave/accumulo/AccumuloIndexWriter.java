@@ -223,14 +223,10 @@ public class AccumuloIndexWriter implements
 				}
 				else {
 					if (writableAdapter instanceof StatisticalDataAdapter) {
-						final ByteArrayId[] statisticsIds = ((StatisticalDataAdapter<T>) writableAdapter).getSupportedStatisticsIds();
 						stats = new ArrayList<DataStatisticsBuilder>(
-								statisticsIds.length);
-						for (final ByteArrayId id : statisticsIds) {
-							stats.add(new DataStatisticsBuilder<T>(
-									(StatisticalDataAdapter) writableAdapter,
-									id));
-						}
+								AccumuloUtils.createStatisticsBuilders(
+										(StatisticalDataAdapter<T>) writableAdapter,
+										index));
 						if ((stats != null) && stats.isEmpty()) {
 							// if its an empty list, for simplicity just set it
 							// to null
@@ -282,6 +278,7 @@ public class AccumuloIndexWriter implements
 				for (final DataStatistics s : accumulatedStats) {
 					statsStore.incorporateStatistics(s);
 				}
+				statsStore.flush();
 			}
 		}
 	}
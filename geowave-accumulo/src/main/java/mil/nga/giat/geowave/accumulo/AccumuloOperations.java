@@ -219,6 +219,24 @@ public interface AccumuloOperations
 			TableNotFoundException,
 			AccumuloSecurityException;
 
+	/**
+	 * Adds split points to the table of the given name, so that its tablets
+	 * can be distributed across tablet servers before data is written to them
+	 * 
+	 * @param tableName
+	 *            The basic name of the table. Note that that basic
+	 *            implementation of the factory will allow for a table namespace
+	 *            to prefix this name
+	 * @param splits
+	 *            The row IDs to split the table at
+	 */
+	public void addSplits(
+			final String tableName,
+			final List<ByteArrayId> splits )
+			throws AccumuloException,
+			TableNotFoundException,
+			AccumuloSecurityException;
+
 	/**
 	 * Drops all tables in the given namespace. Returns whether any tables were
 	 * found and the operation completed successfully.
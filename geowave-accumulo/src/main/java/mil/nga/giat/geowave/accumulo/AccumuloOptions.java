@@ -1,5 +1,7 @@
 package mil.nga.giat.geowave.accumulo;
 
+import mil.nga.giat.geowave.store.filter.DedupeFilter.DedupeMode;
+
 /**
  * This class can be used to modify the behavior of the Accumulo Data Store.
  * 
@@ -12,6 +14,8 @@ public class AccumuloOptions
 	protected boolean createTable = true;
 	protected boolean useLocalityGroups = true;
 	protected boolean useAltIndex = true;
+	protected boolean useIndexDensityClipping = false;
+	protected DedupeMode dedupeMode = DedupeMode.EXACT;
 
 	public boolean isPersistDataStatistics() {
 		return persistDataStatistics;
@@ -66,4 +70,44 @@ public class AccumuloOptions
 			final boolean useAltIndex ) {
 		this.useAltIndex = useAltIndex;
 	}
+
+	public boolean isUseIndexDensityClipping() {
+		return useIndexDensityClipping;
+	}
+
+	/**
+	 * Skip the query ranges that contain no rows according to the density
+	 * statistics of the index. Statistics are buffered by the writer for up to
+	 * the flush interval and reused by the query planner for about a second,
+	 * so rows written by another store instance may be visible before the
+	 * statistics that count them. This should only be enabled if the data is
+	 * not written while it is queried, or if the statistics are flushed along
+	 * with the rows.
+	 *
+	 * @param useIndexDensityClipping
+	 *            whether to skip ranges the density statistics consider empty
+	 */
+	public void setUseIndexDensityClipping(
+			final boolean useIndexDensityClipping ) {
+		this.useIndexDensityClipping = useIndexDensityClipping;
+	}
+
+	public DedupeMode getDedupeMode() {
+		return dedupeMode;
+	}
+
+	/**
+	 * Choose how queries track the IDs of the entries they have returned to
+	 * remove duplicates. A query across multiple indices has to track every
+	 * entry it returns, and the hashed mode reduces the memory this takes at
+	 * the cost of a very small probability that a hash collision incorrectly
+	 * filters an entry.
+	 *
+	 * @param dedupeMode
+	 *            the mode used to de-duplicate query results
+	 */
+	public void setDedupeMode(
+			final DedupeMode dedupeMode ) {
+		this.dedupeMode = dedupeMode;
+	}
 }
@@ -1,8 +1,8 @@
 package mil.nga.giat.geowave.accumulo;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 
 /**
@@ -25,25 +25,46 @@ public class AccumuloRowId
 	public AccumuloRowId(
 			final Key key ) {
 		this(
-				key.getRow().copyBytes());
+				key.getRowData());
+	}
+
+	private AccumuloRowId(
+			final ByteSequence row ) {
+		this(
+				row.getBackingArray(),
+				row.offset(),
+				row.length());
 	}
 
 	public AccumuloRowId(
 			final byte[] accumuloRowId ) {
-		final byte[] metadata = Arrays.copyOfRange(
+		this(
 				accumuloRowId,
-				accumuloRowId.length - 12,
+				0,
 				accumuloRowId.length);
-		final ByteBuffer metadataBuf = ByteBuffer.wrap(metadata);
+	}
+
+	/**
+	 * Decode a row ID that is a slice of a larger byte array, such as the
+	 * backing array of a Text
+	 */
+	public AccumuloRowId(
+			final byte[] accumuloRowId,
+			final int offset,
+			final int length ) {
+		final ByteBuffer metadataBuf = ByteBuffer.wrap(
+				accumuloRowId,
+				(offset + length) - 12,
+				12);
 		final int adapterIdLength = metadataBuf.getInt();
 		final int dataIdLength = metadataBuf.getInt();
 		final int numberOfDuplicates = metadataBuf.getInt();
 
 		final ByteBuffer buf = ByteBuffer.wrap(
 				accumuloRowId,
-				0,
-				accumuloRowId.length - 12);
-		final byte[] indexId = new byte[accumuloRowId.length - 12 - adapterIdLength - dataIdLength];
+				offset,
+				length - 12);
+		final byte[] indexId = new byte[length - 12 - adapterIdLength - dataIdLength];
 		final byte[] adapterId = new byte[adapterIdLength];
 		final byte[] dataId = new byte[dataIdLength];
 		buf.get(indexId);
@@ -12,6 +12,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
 import mil.nga.giat.geowave.accumulo.util.AccumuloUtils;
@@ -483,6 +484,25 @@ public class BasicAccumuloOperations implements
 		return groupExists;
 	}
 
+	@Override
+	public void addSplits(
+			final String tableName,
+			final List<ByteArrayId> splits )
+			throws AccumuloException,
+			TableNotFoundException,
+			AccumuloSecurityException {
+		final SortedSet<Text> splitRows = new TreeSet<Text>();
+		for (final ByteArrayId split : splits) {
+			splitRows.add(new Text(
+					split.getBytes()));
+		}
+		if (!splitRows.isEmpty()) {
+			connector.tableOperations().addSplits(
+					getQualifiedTableName(tableName),
+					splitRows);
+		}
+	}
+
 	@Override
 	public void addLocalityGroup(
 			final String tableName,
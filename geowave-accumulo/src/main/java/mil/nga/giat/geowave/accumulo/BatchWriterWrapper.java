@@ -56,6 +56,19 @@ public class BatchWriterWrapper implements
 		}
 	}
 
+	@Override
+	public void flush() {
+		try {
+			batchWriter.flush();
+		}
+		catch (MutationsRejectedException e) {
+			// the caller is flushing to know the mutations have been written
+			throw new RuntimeException(
+					"Unable to flush batch writer",
+					e);
+		}
+	}
+
 	@Override
 	public void close() {
 		try {
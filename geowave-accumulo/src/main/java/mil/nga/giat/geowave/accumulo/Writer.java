@@ -16,5 +16,13 @@ public interface Writer
 	public void write(
 			Mutation mutation );
 
+	/**
+	 * Send any mutations that are buffered by the writer
+	 *
+	 * @throws RuntimeException
+	 *             if mutations written to the writer have been rejected
+	 */
+	public void flush();
+
 	public void close();
 }
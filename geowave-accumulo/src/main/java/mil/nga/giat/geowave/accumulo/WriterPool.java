@@ -0,0 +1,206 @@
+package mil.nga.giat.geowave.accumulo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Mutation;
+
+/**
+ * This class retains a single open writer per table so that entries which are
+ * written one at a time do not each require a writer to be created and closed.
+ * The writers are shared by every thread using the pool, and the writers
+ * created by the default implementation of AccumuloOperations send their
+ * mutations when their memory buffer is full or their latency has elapsed.
+ *
+ * The writers returned by the pool cannot be closed by the caller. The pooled
+ * writers are closed when the pool is closed, or when the JVM shuts down if
+ * the pool is still in use. The pools are only weakly referenced for the
+ * shutdown, so a pool that is no longer used can be garbage collected, but its
+ * owner should close it to send the mutations its writers buffer.
+ */
+public class WriterPool
+{
+	// the pools with open writers, which are closed on shutdown. The pool does
+	// not override equals and hashCode, so the pools are compared by identity.
+	private final static Set<WriterPool> OPEN_POOLS = Collections.newSetFromMap(new WeakHashMap<WriterPool, Boolean>());
+
+	static {
+		Runtime.getRuntime().addShutdownHook(
+				new Thread(
+						"GeoWave writer pool shutdown close") {
+					@Override
+					public void run() {
+						final List<WriterPool> pools;
+						synchronized (OPEN_POOLS) {
+							pools = new ArrayList<WriterPool>(
+									OPEN_POOLS);
+						}
+						for (final WriterPool pool : pools) {
+							pool.close();
+						}
+					}
+				});
+	}
+
+	private final AccumuloOperations accumuloOperations;
+	private final Map<String, PooledWriter> writers = new HashMap<String, PooledWriter>();
+	private volatile boolean dirty = false;
+
+	public WriterPool(
+			final AccumuloOperations accumuloOperations ) {
+		this.accumuloOperations = accumuloOperations;
+	}
+
+	/**
+	 * Get the shared writer of a table, creating it if this is the first
+	 * writer requested for the table
+	 *
+	 * @param tableName
+	 *            the table to write to
+	 * @param createTable
+	 *            whether to create the table if it does not exist
+	 * @return a writer whose close is a no-op, as the writer is owned by the
+	 *         pool
+	 * @throws TableNotFoundException
+	 */
+	public Writer getWriter(
+			final String tableName,
+			final boolean createTable )
+			throws TableNotFoundException {
+		PooledWriter writer;
+		synchronized (this) {
+			writer = writers.get(tableName);
+			if (writer == null) {
+				writer = new PooledWriter(
+						tableName,
+						accumuloOperations.createWriter(
+								tableName,
+								createTable));
+				if (writers.isEmpty()) {
+					synchronized (OPEN_POOLS) {
+						OPEN_POOLS.add(this);
+					}
+				}
+				writers.put(
+						tableName,
+						writer);
+			}
+		}
+		return writer;
+	}
+
+	/**
+	 * Send the mutations buffered by every writer of the pool, if any have
+	 * been written since the last flush. A writer that has rejected mutations
+	 * is removed from the pool, as it rejects every later write as well.
+	 *
+	 * @throws RuntimeException
+	 *             if a writer of the pool has rejected mutations, after every
+	 *             writer has been flushed
+	 */
+	public void flush() {
+		if (!dirty) {
+			return;
+		}
+		// mutations written while the writers are flushed mark the pool again
+		dirty = false;
+		RuntimeException failure = null;
+		for (final PooledWriter writer : getWriters()) {
+			try {
+				writer.flush();
+			}
+			catch (final RuntimeException e) {
+				discard(writer);
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Close every writer of the pool, sending the mutations they buffer. The
+	 * pool can continue to be used and will open new writers as needed.
+	 */
+	public void close() {
+		final List<PooledWriter> closedWriters;
+		synchronized (this) {
+			closedWriters = new ArrayList<PooledWriter>(
+					writers.values());
+			writers.clear();
+			dirty = false;
+			synchronized (OPEN_POOLS) {
+				OPEN_POOLS.remove(this);
+			}
+		}
+		for (final PooledWriter writer : closedWriters) {
+			writer.writer.close();
+		}
+	}
+
+	private void discard(
+			final PooledWriter writer ) {
+		synchronized (this) {
+			if (writers.get(writer.tableName) != writer) {
+				return;
+			}
+			writers.remove(writer.tableName);
+			if (writers.isEmpty()) {
+				synchronized (OPEN_POOLS) {
+					OPEN_POOLS.remove(this);
+				}
+			}
+		}
+		writer.writer.close();
+	}
+
+	private synchronized List<PooledWriter> getWriters() {
+		return new ArrayList<PooledWriter>(
+				writers.values());
+	}
+
+	private class PooledWriter implements
+			Writer
+	{
+		private final String tableName;
+		private final Writer writer;
+
+		private PooledWriter(
+				final String tableName,
+				final Writer writer ) {
+			this.tableName = tableName;
+			this.writer = writer;
+		}
+
+		@Override
+		public void write(
+				final Iterable<Mutation> mutations ) {
+			writer.write(mutations);
+			dirty = true;
+		}
+
+		@Override
+		public void write(
+				final Mutation mutation ) {
+			writer.write(mutation);
+			dirty = true;
+		}
+
+		@Override
+		public void flush() {
+			writer.flush();
+		}
+
+		@Override
+		public void close() {}
+	}
+}
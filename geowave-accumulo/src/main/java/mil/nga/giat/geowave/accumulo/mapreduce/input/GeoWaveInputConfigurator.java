@@ -24,7 +24,8 @@ public class GeoWaveInputConfigurator extends
 		QUERY,
 		AUTHORIZATION,
 		MIN_SPLITS,
-		MAX_SPLITS
+		MAX_SPLITS,
+		INDEX_DENSITY_CLIPPING
 	}
 
 	private static DistributableQuery getQueryInternal(
@@ -159,6 +160,27 @@ public class GeoWaveInputConfigurator extends
 		}
 	}
 
+	public static boolean isIndexDensityClipping(
+			final Class<?> implementingClass,
+			final JobContext context ) {
+		return getConfiguration(context).getBoolean(
+				enumToConfKey(
+						implementingClass,
+						InputConfig.INDEX_DENSITY_CLIPPING),
+				false);
+	}
+
+	public static void setIndexDensityClipping(
+			final Class<?> implementingClass,
+			final Job job,
+			final boolean indexDensityClipping ) {
+		job.getConfiguration().setBoolean(
+				enumToConfKey(
+						implementingClass,
+						InputConfig.INDEX_DENSITY_CLIPPING),
+				indexDensityClipping);
+	}
+
 	public static void addAuthorization(
 			final Class<?> implementingClass,
 			final Job job,
@@ -19,11 +19,15 @@ import mil.nga.giat.geowave.accumulo.mapreduce.GeoWaveConfiguratorBase;
 import mil.nga.giat.geowave.accumulo.mapreduce.JobContextAdapterStore;
 import mil.nga.giat.geowave.accumulo.mapreduce.JobContextIndexStore;
 import mil.nga.giat.geowave.accumulo.mapreduce.input.GeoWaveInputFormat.IntermediateSplitInfo.RangeLocationPair;
+import mil.nga.giat.geowave.accumulo.metadata.AccumuloDataStatisticsStore;
 import mil.nga.giat.geowave.accumulo.metadata.AccumuloIndexStore;
+import mil.nga.giat.geowave.accumulo.query.AccumuloQueryPlanner;
 import mil.nga.giat.geowave.accumulo.util.AccumuloUtils;
+import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.NumericIndexStrategy;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.store.adapter.statistics.IndexDensityStatistics;
 import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.store.query.DistributableQuery;
 
@@ -152,6 +156,26 @@ public class GeoWaveInputFormat extends
 				maxSplits);
 	}
 
+	/**
+	 * Skip the ranges that contain no rows according to the density
+	 * statistics of each index when splitting the input. This should only be
+	 * enabled if the statistics have been written for all of the input, as
+	 * rows not yet counted by the statistics would otherwise be skipped.
+	 *
+	 * @param job
+	 *            the job
+	 * @param indexDensityClipping
+	 *            whether to skip ranges the density statistics consider empty
+	 */
+	public static void setIndexDensityClipping(
+			final Job job,
+			final boolean indexDensityClipping ) {
+		GeoWaveInputConfigurator.setIndexDensityClipping(
+				CLASS,
+				job,
+				indexDensityClipping);
+	}
+
 	public static void setQuery(
 			final Job job,
 			final DistributableQuery query ) {
@@ -292,6 +316,13 @@ public class GeoWaveInputFormat extends
 				context);
 	}
 
+	protected static boolean isIndexDensityClipping(
+			final JobContext context ) {
+		return GeoWaveInputConfigurator.isIndexDensityClipping(
+				CLASS,
+				context);
+	}
+
 	protected static Integer getMinimumSplitCount(
 			final JobContext context ) {
 		return GeoWaveInputConfigurator.getMinimumSplitCount(
@@ -389,17 +420,32 @@ public class GeoWaveInputFormat extends
 			final TreeSet<Range> ranges;
 			if (query != null) {
 				final MultiDimensionalNumericData indexConstraints = query.getIndexConstraints(indexStrategy);
+				List<ByteArrayRange> byteArrayRanges;
 				if ((maxSplits != null) && (maxSplits > 0)) {
-					ranges = AccumuloUtils.byteArrayRangesToAccumuloRanges(AccumuloUtils.constraintsToByteArrayRanges(
+					byteArrayRanges = AccumuloUtils.constraintsToByteArrayRanges(
 							indexConstraints,
 							indexStrategy,
-							maxSplits));
+							maxSplits);
 				}
 				else {
-					ranges = AccumuloUtils.byteArrayRangesToAccumuloRanges(AccumuloUtils.constraintsToByteArrayRanges(
+					byteArrayRanges = AccumuloUtils.constraintsToByteArrayRanges(
 							indexConstraints,
-							indexStrategy));
+							indexStrategy);
+				}
+				if (!byteArrayRanges.isEmpty() && isIndexDensityClipping(context)) {
+					// skip the ranges that do not contain any rows so that
+					// splits are not spent on empty key space
+					final IndexDensityStatistics<?> indexDensity = getIndexDensity(
+							context,
+							index);
+					if (indexDensity != null) {
+						byteArrayRanges = indexDensity.clip(byteArrayRanges);
+						if (byteArrayRanges.isEmpty()) {
+							continue;
+						}
+					}
 				}
+				ranges = AccumuloUtils.byteArrayRangesToAccumuloRanges(byteArrayRanges);
 			}
 			else {
 				ranges = new TreeSet<Range>();
@@ -494,6 +540,29 @@ public class GeoWaveInputFormat extends
 		return splits;
 	}
 
+	private static IndexDensityStatistics<?> getIndexDensity(
+			final JobContext context,
+			final Index index ) {
+		try {
+			final AccumuloOperations accumuloOperations = getAccumuloOperations(context);
+			return new AccumuloQueryPlanner(
+					accumuloOperations,
+					new AccumuloDataStatisticsStore(
+							accumuloOperations)).getCompleteIndexDensity(
+					getDataAdapterStore(
+							context,
+							accumuloOperations).getAdapterIds(),
+					index,
+					getAuthorizations(context));
+		}
+		catch (AccumuloException | AccumuloSecurityException e) {
+			LOGGER.warn(
+					"Unable to read the density of index '" + index.getId().getString() + "'",
+					e);
+		}
+		return null;
+	}
+
 	protected static class IntermediateSplitInfo implements
 			Comparable<IntermediateSplitInfo>
 	{
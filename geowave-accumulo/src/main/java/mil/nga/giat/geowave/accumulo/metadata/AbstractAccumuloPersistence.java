@@ -167,8 +167,25 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 
 	protected void addObject(
 			final T object) {
-		final ByteArrayId id = getPrimaryId(object);
-		addObjectToCache(object);
+		addObjects(Collections.singletonList(object));
+	}
+
+	/**
+	 * Add the objects to the table with a single writer
+	 *
+	 * @param objects
+	 *            the objects to add
+	 * @throws RuntimeException
+	 *             if the writes were rejected
+	 */
+	protected void addObjects(
+			final Collection<T> objects ) {
+		if (objects.isEmpty()) {
+			return;
+		}
+		for (final T object : objects) {
+			addObjectToCache(object);
+		}
 		try {
 
 			final Writer writer = accumuloOperations.createWriter(
@@ -187,30 +204,39 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 				}
 			}
 
-			final Mutation mutation = new Mutation(
-					new Text(
-							id.getBytes()));
 			final Text cf = getSafeText(getAccumuloColumnFamily());
-			final Text cq = getSafeText(getAccumuloColumnQualifier(object));
-			final byte[] visibility = getAccumuloVisibility(object);
-			if (visibility != null) {
-				mutation.put(
-						cf,
-						cq,
-						new ColumnVisibility(
-								visibility),
-						new Value(
-								PersistenceUtils.toBinary(object)));
+			for (final T object : objects) {
+				final ByteArrayId id = getPrimaryId(object);
+				final Mutation mutation = new Mutation(
+						new Text(
+								id.getBytes()));
+				final Text cq = getSafeText(getAccumuloColumnQualifier(object));
+				final byte[] visibility = getAccumuloVisibility(object);
+				if (visibility != null) {
+					mutation.put(
+							cf,
+							cq,
+							new ColumnVisibility(
+									visibility),
+							new Value(
+									PersistenceUtils.toBinary(object)));
+				}
+				else {
+					mutation.put(
+							cf,
+							cq,
+							new Value(
+									PersistenceUtils.toBinary(object)));
+				}
+				writer.write(mutation);
 			}
-			else {
-				mutation.put(
-						cf,
-						cq,
-						new Value(
-								PersistenceUtils.toBinary(object)));
+			try {
+				// closing the writer only logs rejected mutations
+				writer.flush();
+			}
+			finally {
+				writer.close();
 			}
-			writer.write(mutation);
-			writer.close();
 		}
 		catch (final TableNotFoundException e) {
 			LOGGER.error(
@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.accumulo.metadata;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map.Entry;
@@ -21,6 +22,7 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.Combiner;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
 import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
 
 /**
  * This class will persist Index objects within an Accumulo table for GeoWave
@@ -30,34 +32,93 @@ import org.apache.hadoop.io.Text;
  * updates is not practical - it assumes the objects are not updated often or at
  * all. The objects are stored in their own table.
  * 
+ * Incorporated statistics are merged in memory and written in batches by a
+ * DataStatisticsAccumulator. They are written before statistics are read or
+ * removed through this store, but other stores will not see them until they
+ * are flushed.
+ * 
  **/
 public class AccumuloDataStatisticsStore extends
 		AbstractAccumuloPersistence<DataStatistics<?>> implements
 		DataStatisticsStore
 {
+	private final static Logger LOGGER = Logger.getLogger(AccumuloDataStatisticsStore.class);
 	// this is fairly arbitrary at the moment because it is the only custom
 	// iterator added
 	private static final int STATS_COMBINER_PRIORITY = 10;
 	private static final int STATS_MULTI_VISIBILITY_COMBINER_PRIORITY = 15;
 	private static final String STATISTICS_CF = "STATS";
 
+	private final DataStatisticsAccumulator accumulator;
+
 	public AccumuloDataStatisticsStore(
 			final AccumuloOperations accumuloOperations ) {
+		this(
+				accumuloOperations,
+				DataStatisticsAccumulator.DEFAULT_MAX_PENDING_UPDATES,
+				DataStatisticsAccumulator.DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * @param accumuloOperations
+	 *            the operations for the metadata table
+	 * @param maxPendingUpdates
+	 *            the number of incorporated statistics that are merged in
+	 *            memory before they are written, 1 writes each immediately
+	 * @param flushIntervalMillis
+	 *            the maximum time incorporated statistics are held in memory
+	 */
+	public AccumuloDataStatisticsStore(
+			final AccumuloOperations accumuloOperations,
+			final int maxPendingUpdates,
+			final long flushIntervalMillis ) {
 		super(
 				accumuloOperations);
+		accumulator = new DataStatisticsAccumulator(
+				this,
+				maxPendingUpdates,
+				flushIntervalMillis);
 	}
 
 	@Override
 	public void incorporateStatistics(
 			final DataStatistics<?> statistics ) {
-		// because we're using the combiner, we should simply be able to add the
-		// object
-		addObject(statistics);
+		// because we're using the combiner, the statistics merged in memory
+		// can simply be added as another object
 
 		// TODO if we do allow caching after we add a statistic to Accumulo we
 		// do need to make sure we update our cache, but for now we aren't using
 		// the cache at all
+		accumulator.add(statistics);
+	}
+
+	/**
+	 * Write the statistics held in memory
+	 *
+	 * @throws RuntimeException
+	 *             if the statistics could not be written, in which case they
+	 *             remain in memory to be written again
+	 */
+	@Override
+	public void flush() {
+		accumulator.flush();
+	}
+
+	private void flushBeforeRead() {
+		try {
+			flush();
+		}
+		catch (final RuntimeException e) {
+			// the statistics that were written are still read
+			LOGGER.warn(
+					"Unable to write statistics held in memory before reading statistics",
+					e);
+		}
+	}
 
+	protected void writeStatistics(
+			final Collection<DataStatistics<?>> statistics ) {
+		addObjects(statistics);
 	}
 
 	@Override
@@ -130,6 +191,8 @@ public class AccumuloDataStatisticsStore extends
 			final ByteArrayId adapterId,
 			final ByteArrayId statisticsId,
 			String... authorizations ) {
+		// statistics held in memory are written so they are included
+		flushBeforeRead();
 		return getObject(
 				statisticsId,
 				adapterId,
@@ -174,6 +237,7 @@ public class AccumuloDataStatisticsStore extends
 	@Override
 	public CloseableIterator<DataStatistics<?>> getAllDataStatistics(
 			String... authorizations ) {
+		flushBeforeRead();
 		return getObjects(authorizations);
 	}
 
@@ -182,6 +246,8 @@ public class AccumuloDataStatisticsStore extends
 			final ByteArrayId adapterId,
 			final ByteArrayId statisticsId,
 			String... authorizations ) {
+		// statistics held in memory are written so they are removed as well
+		flush();
 		return deleteObject(
 				statisticsId,
 				adapterId,
@@ -192,6 +258,7 @@ public class AccumuloDataStatisticsStore extends
 	public CloseableIterator<DataStatistics<?>> getDataStatistics(
 			final ByteArrayId adapterId,
 			String... authorizations ) {
+		flushBeforeRead();
 		return getAllObjectsWithSecondaryId(
 				adapterId,
 				authorizations);
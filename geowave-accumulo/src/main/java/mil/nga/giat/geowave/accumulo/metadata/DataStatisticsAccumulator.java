@@ -0,0 +1,259 @@
+package mil.nga.giat.geowave.accumulo.metadata;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class merges statistics in memory before they are written to the
+ * statistics store, so that ingesting an entry does not require a write to the
+ * metadata table for each of its statistics. Statistics are merged per adapter,
+ * statistic and visibility, which is how the statistics are combined in the
+ * metadata table.
+ *
+ * The merged statistics are written when the number of updates since the last
+ * write exceeds a threshold, when the oldest update is older than the flush
+ * interval, when the accumulator is flushed, and when the JVM shuts down. If
+ * the write fails the statistics remain pending, merged with any updates added
+ * meanwhile, and are written again with the next write.
+ */
+public class DataStatisticsAccumulator
+{
+	private final static Logger LOGGER = Logger.getLogger(DataStatisticsAccumulator.class);
+	public final static int DEFAULT_MAX_PENDING_UPDATES = 1000;
+	public final static long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+	// a single daemon thread flushes every accumulator after its interval
+	private final static ScheduledExecutorService FLUSH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(
+				final Runnable runnable ) {
+			final Thread thread = new Thread(
+					runnable,
+					"GeoWave statistics flush");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	// the accumulators with pending statistics, which are flushed on shutdown
+	private final static Set<DataStatisticsAccumulator> PENDING_ACCUMULATORS = Collections.newSetFromMap(new IdentityHashMap<DataStatisticsAccumulator, Boolean>());
+
+	static {
+		Runtime.getRuntime().addShutdownHook(
+				new Thread(
+						"GeoWave statistics shutdown flush") {
+					@Override
+					public void run() {
+						final List<DataStatisticsAccumulator> accumulators;
+						synchronized (PENDING_ACCUMULATORS) {
+							accumulators = new ArrayList<DataStatisticsAccumulator>(
+									PENDING_ACCUMULATORS);
+						}
+						for (final DataStatisticsAccumulator accumulator : accumulators) {
+							try {
+								accumulator.flush();
+							}
+							catch (final RuntimeException e) {
+								LOGGER.error(
+										"Unable to write statistics on shutdown",
+										e);
+							}
+						}
+					}
+				});
+	}
+
+	private final AccumuloDataStatisticsStore statisticsStore;
+	private final int maxPendingUpdates;
+	private final long flushIntervalMillis;
+	private final Map<ByteArrayId, DataStatistics<?>> pendingStatistics = new HashMap<ByteArrayId, DataStatistics<?>>();
+	private int pendingUpdates = 0;
+	// held while pending statistics are written, so that a flush does not
+	// return while statistics taken by another flush are still being written
+	private final Object flushLock = new Object();
+
+	/**
+	 * @param statisticsStore
+	 *            the store the merged statistics are written to
+	 * @param maxPendingUpdates
+	 *            the number of updates that are merged before the statistics
+	 *            are written
+	 * @param flushIntervalMillis
+	 *            the maximum time an update is held before the statistics are
+	 *            written
+	 */
+	public DataStatisticsAccumulator(
+			final AccumuloDataStatisticsStore statisticsStore,
+			final int maxPendingUpdates,
+			final long flushIntervalMillis ) {
+		this.statisticsStore = statisticsStore;
+		this.maxPendingUpdates = maxPendingUpdates;
+		this.flushIntervalMillis = flushIntervalMillis;
+	}
+
+	/**
+	 * Merge the statistics with the pending statistics of the same adapter,
+	 * statistic and visibility
+	 *
+	 * @param statistics
+	 *            the statistics, which are copied so the caller may continue
+	 *            to update them
+	 */
+	public void add(
+			final DataStatistics<?> statistics ) {
+		final ByteArrayId key = getKey(statistics);
+		final boolean full;
+		synchronized (this) {
+			final DataStatistics<?> pending = pendingStatistics.get(key);
+			if (pending == null) {
+				pendingStatistics.put(
+						key,
+						copy(statistics));
+			}
+			else {
+				pending.merge(statistics);
+			}
+			if (pendingUpdates++ == 0) {
+				schedule();
+			}
+			full = pendingUpdates >= maxPendingUpdates;
+		}
+		if (full) {
+			flush();
+		}
+	}
+
+	/**
+	 * Write the pending statistics to the statistics store. If another flush
+	 * is writing statistics this waits for it to finish, so every statistic
+	 * added before the flush has been written when it returns.
+	 *
+	 * @throws RuntimeException
+	 *             if the statistics could not be written, in which case they
+	 *             remain pending
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			final Map<ByteArrayId, DataStatistics<?>> statistics;
+			synchronized (this) {
+				if (pendingStatistics.isEmpty()) {
+					return;
+				}
+				statistics = new HashMap<ByteArrayId, DataStatistics<?>>(
+						pendingStatistics);
+				pendingStatistics.clear();
+				pendingUpdates = 0;
+				synchronized (PENDING_ACCUMULATORS) {
+					PENDING_ACCUMULATORS.remove(this);
+				}
+			}
+			// statistics added while these are written are pending again, the
+			// combiner of the metadata table merges both writes. They are not
+			// written until this write has finished, but adding them does not
+			// wait for it.
+			try {
+				statisticsStore.writeStatistics(statistics.values());
+			}
+			catch (final RuntimeException e) {
+				restore(statistics);
+				throw e;
+			}
+		}
+	}
+
+	private synchronized void restore(
+			final Map<ByteArrayId, DataStatistics<?>> statistics ) {
+		// the statistics are deltas, so they are merged with the updates added
+		// while they were written. If the write was partially applied the
+		// rejected statistics can not be told apart, so all are retried.
+		for (final Entry<ByteArrayId, DataStatistics<?>> entry : statistics.entrySet()) {
+			final DataStatistics<?> pending = pendingStatistics.get(entry.getKey());
+			if (pending == null) {
+				pendingStatistics.put(
+						entry.getKey(),
+						entry.getValue());
+			}
+			else {
+				pending.merge(entry.getValue());
+			}
+		}
+		if (pendingUpdates == 0) {
+			schedule();
+		}
+		pendingUpdates += statistics.size();
+	}
+
+	private void schedule() {
+		synchronized (PENDING_ACCUMULATORS) {
+			PENDING_ACCUMULATORS.add(this);
+		}
+		try {
+			FLUSH_EXECUTOR.schedule(
+					new Runnable() {
+						@Override
+						public void run() {
+							try {
+								flush();
+							}
+							catch (final RuntimeException e) {
+								LOGGER.error(
+										"Unable to write statistics, they will be written again with the next write",
+										e);
+							}
+						}
+					},
+					flushIntervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+		catch (final RuntimeException e) {
+			// the statistics are still written when the threshold is reached or
+			// on shutdown
+			LOGGER.warn(
+					"Unable to schedule statistics flush",
+					e);
+		}
+	}
+
+	private static ByteArrayId getKey(
+			final DataStatistics<?> statistics ) {
+		final byte[] adapterId = statistics.getDataAdapterId().getBytes();
+		final byte[] statisticsId = statistics.getStatisticsId().getBytes();
+		final byte[] visibility = statistics.getVisibility() != null ? statistics.getVisibility() : new byte[0];
+		final ByteBuffer buffer = ByteBuffer.allocate(8 + adapterId.length + statisticsId.length + visibility.length);
+		buffer.putInt(adapterId.length);
+		buffer.putInt(statisticsId.length);
+		buffer.put(adapterId);
+		buffer.put(statisticsId);
+		buffer.put(visibility);
+		return new ByteArrayId(
+				buffer.array());
+	}
+
+	private static DataStatistics<?> copy(
+			final DataStatistics<?> statistics ) {
+		// the adapter ID and visibility are not part of the persisted
+		// statistics
+		final DataStatistics<?> copy = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(statistics),
+				DataStatistics.class);
+		copy.setDataAdapterId(statistics.getDataAdapterId());
+		copy.setVisibility(statistics.getVisibility());
+		return copy;
+	}
+}
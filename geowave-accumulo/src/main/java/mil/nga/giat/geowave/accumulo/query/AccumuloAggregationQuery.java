@@ -0,0 +1,185 @@
+package mil.nga.giat.geowave.accumulo.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import mil.nga.giat.geowave.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.accumulo.util.AccumuloUtils;
+import mil.nga.giat.geowave.index.ByteArrayUtils;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.store.filter.DistributableFilterList;
+import mil.nga.giat.geowave.store.filter.FilterList;
+import mil.nga.giat.geowave.store.filter.QueryFilter;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.query.Query;
+import mil.nga.giat.geowave.store.query.aggregate.Aggregation;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.log4j.Logger;
+
+/**
+ * This class extends a constraints query to compute an aggregation within the
+ * tablet servers instead of returning the matching entries. The partial
+ * aggregations are merged on the client along with the entries that are
+ * duplicated within the index, which must be de-duplicated on the client. If
+ * the query has filters that cannot be distributed, the whole rows are
+ * returned and the aggregation is computed on the client.
+ */
+public class AccumuloAggregationQuery extends
+		AccumuloConstraintsQuery
+{
+	private final static Logger LOGGER = Logger.getLogger(AccumuloAggregationQuery.class);
+	protected final DataAdapter<?> adapter;
+	protected final Aggregation aggregation;
+
+	public AccumuloAggregationQuery(
+			final DataAdapter<?> adapter,
+			final Index index,
+			final Query query,
+			final Aggregation aggregation,
+			final String... authorizations ) {
+		super(
+				Arrays.asList(adapter.getAdapterId()),
+				index,
+				query != null ? query.getIndexConstraints(index.getIndexStrategy()) : null,
+				query != null ? query.createFilters(index.getIndexModel()) : null,
+				authorizations);
+		this.adapter = adapter;
+		this.aggregation = aggregation;
+	}
+
+	/**
+	 * Whether the aggregation can be computed within the tablet servers, which
+	 * requires that all filters other than de-duplication are distributable
+	 *
+	 * @return true if the aggregation is distributed
+	 */
+	protected boolean isAggregationDistributed() {
+		// the client filters always start with the dedupe filter
+		return clientFilters.size() <= 1;
+	}
+
+	@Override
+	protected void addScanIteratorSettings(
+			final ScannerBase scanner ) {
+		if (!isAggregationDistributed()) {
+			super.addScanIteratorSettings(scanner);
+			return;
+		}
+		final IteratorSetting iteratorSettings = new IteratorSetting(
+				AggregationIterator.AGGREGATION_ITERATOR_PRIORITY,
+				AggregationIterator.AGGREGATION_ITERATOR_NAME,
+				getIteratorClass());
+		addAggregationIteratorOptions(iteratorSettings);
+		scanner.addScanIterator(iteratorSettings);
+	}
+
+	protected Class<? extends AggregationIterator> getIteratorClass() {
+		return AggregationIterator.class;
+	}
+
+	protected void addAggregationIteratorOptions(
+			final IteratorSetting iteratorSettings ) {
+		if ((distributableFilters != null) && !distributableFilters.isEmpty()) {
+			iteratorSettings.addOption(
+					AggregationIterator.FILTER,
+					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(new DistributableFilterList(
+							distributableFilters))));
+		}
+		iteratorSettings.addOption(
+				AggregationIterator.MODEL,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexModel())));
+		iteratorSettings.addOption(
+				AggregationIterator.DATA_ADAPTER,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(adapter)));
+		iteratorSettings.addOption(
+				AggregationIterator.AGGREGATION,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(aggregation)));
+	}
+
+	/**
+	 * Run the query and merge all of the results into the aggregation of this
+	 * query
+	 *
+	 * @param accumuloOperations
+	 *            the operations to access accumulo
+	 * @return the aggregation
+	 */
+	public Aggregation aggregate(
+			final AccumuloOperations accumuloOperations ) {
+		if (!accumuloOperations.tableExists(StringUtils.stringFromBinary(index.getId().getBytes()))) {
+			LOGGER.warn("Table does not exist " + StringUtils.stringFromBinary(index.getId().getBytes()));
+			return aggregation;
+		}
+		// the aggregation is serialized to the iterator before any results
+		// are merged into it
+		final ScannerBase scanner = getScanner(
+				accumuloOperations,
+				null);
+		if (scanner == null) {
+			return aggregation;
+		}
+		addScanIteratorSettings(scanner);
+		final List<QueryFilter> filters = new ArrayList<QueryFilter>(
+				clientFilters);
+		filters.add(new AggregatingFilter(
+				aggregation));
+		final QueryFilter clientFilter = new FilterList<QueryFilter>(
+				filters);
+		try {
+			final Iterator<Entry<Key, Value>> it = scanner.iterator();
+			while (it.hasNext()) {
+				final Entry<Key, Value> entry = it.next();
+				if (AggregationIterator.isAggregationKey(entry.getKey())) {
+					aggregation.merge(PersistenceUtils.fromBinary(
+							entry.getValue().get(),
+							Aggregation.class));
+				}
+				else {
+					// the aggregating filter rejects every row once it is
+					// aggregated so the entry is never fully decoded
+					AccumuloUtils.decodeRow(
+							entry.getKey(),
+							entry.getValue(),
+							adapter,
+							clientFilter,
+							index);
+				}
+			}
+		}
+		finally {
+			scanner.close();
+		}
+		return aggregation;
+	}
+
+	private static class AggregatingFilter implements
+			QueryFilter
+	{
+		private final Aggregation aggregation;
+
+		public AggregatingFilter(
+				final Aggregation aggregation ) {
+			this.aggregation = aggregation;
+		}
+
+		@Override
+		public boolean accept(
+				final IndexedPersistenceEncoding persistenceEncoding ) {
+			if (persistenceEncoding instanceof IndexedAdapterPersistenceEncoding) {
+				aggregation.aggregate((IndexedAdapterPersistenceEncoding) persistenceEncoding);
+			}
+			return false;
+		}
+	}
+}
@@ -3,13 +3,18 @@ package mil.nga.giat.geowave.accumulo.query;
 import java.util.ArrayList;
 import java.util.List;
 
+import mil.nga.giat.geowave.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.accumulo.util.AccumuloUtils;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.store.CloseableIterator;
+import mil.nga.giat.geowave.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.store.adapter.statistics.IndexDensityStatistics;
 import mil.nga.giat.geowave.store.filter.DedupeFilter;
+import mil.nga.giat.geowave.store.filter.DedupeFilter.DedupeMode;
 import mil.nga.giat.geowave.store.filter.DistributableFilterList;
 import mil.nga.giat.geowave.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.store.filter.QueryFilter;
@@ -29,6 +34,8 @@ public class AccumuloConstraintsQuery extends
 {
 	protected final MultiDimensionalNumericData constraints;
 	protected final List<DistributableQueryFilter> distributableFilters;
+	private IndexDensityStatistics<?> indexDensity;
+	private List<ByteArrayRange> clippedRanges;
 
 	public AccumuloConstraintsQuery(
 			final Index index,
@@ -126,10 +133,11 @@ public class AccumuloConstraintsQuery extends
 		distributableFilters = lists.distributableFilters;
 		// we are assuming we always have to ensure no duplicates
 		// and that the deduplication is the least expensive filter so we add it
-		// first
+		// first, using the same mode as the client dedupe filter
 		distributableFilters.add(
 				0,
-				new DedupeFilter());
+				new DedupeFilter(
+						clientDedupeFilter != null ? clientDedupeFilter.getMode() : DedupeMode.EXACT));
 
 	}
 
@@ -161,11 +169,52 @@ public class AccumuloConstraintsQuery extends
 		}
 	}
 
+	/**
+	 * Skip the ranges that do not contain any rows according to the density of
+	 * the queried rows within the index. The density must account for every
+	 * entry of the queried adapters, otherwise ranges containing entries
+	 * written while the density was not maintained would be skipped.
+	 *
+	 * @param indexDensity
+	 *            the density of the queried rows within the index
+	 */
+	public void setIndexDensity(
+			final IndexDensityStatistics<?> indexDensity ) {
+		this.indexDensity = indexDensity;
+		clippedRanges = null;
+	}
+
+	@Override
+	public CloseableIterator<?> query(
+			final AccumuloOperations accumuloOperations,
+			final AdapterStore adapterStore,
+			final Integer limit,
+			final boolean withKeys ) {
+		// an empty list of ranges implies a full table scan, so the query is
+		// skipped if every range has been removed
+		if ((indexDensity != null) && (constraints != null) && !constraints.isEmpty() && getRanges().isEmpty()) {
+			return new CloseableIterator.Empty<Object>();
+		}
+		return super.query(
+				accumuloOperations,
+				adapterStore,
+				limit,
+				withKeys);
+	}
+
 	@Override
 	protected List<ByteArrayRange> getRanges() {
-		return AccumuloUtils.constraintsToByteArrayRanges(
-				constraints,
-				index.getIndexStrategy());
+		if (indexDensity == null) {
+			return AccumuloUtils.constraintsToByteArrayRanges(
+					constraints,
+					index.getIndexStrategy());
+		}
+		if (clippedRanges == null) {
+			clippedRanges = indexDensity.clip(AccumuloUtils.constraintsToByteArrayRanges(
+					constraints,
+					index.getIndexStrategy()));
+		}
+		return clippedRanges;
 	}
 
 	private static SplitFilterLists splitList(
@@ -0,0 +1,725 @@
+package mil.nga.giat.geowave.accumulo.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import mil.nga.giat.geowave.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.accumulo.AccumuloOptions;
+import mil.nga.giat.geowave.accumulo.util.AccumuloUtils;
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.UnboundedDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.store.CloseableIterator;
+import mil.nga.giat.geowave.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.store.adapter.statistics.BoundingBoxDataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.store.adapter.statistics.IndexDensityStatistics;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.query.Query;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class chooses the indices to scan for a query. A single index is used
+ * if the statistics show that it holds every entry of the queried adapters,
+ * otherwise every supported index is scanned and the results are
+ * de-duplicated. Among several such indices the one with the lowest estimated
+ * cost is chosen, counting the rows scanned and a fixed cost for each range.
+ * The rows are estimated from the index density when it is known, or from the
+ * row count, bounding box and selectivity of the constraints otherwise. If
+ * index density clipping is enabled in the options, the plan also carries the
+ * density of each scanned index whose statistics account for every entry, so
+ * that ranges without rows can be skipped.
+ */
+public class AccumuloQueryPlanner
+{
+	private final static Logger LOGGER = Logger.getLogger(AccumuloQueryPlanner.class);
+	/**
+	 * the cost of seeking to the start of a range, relative to the cost of
+	 * scanning a single row
+	 */
+	protected static final double RANGE_SEEK_COST = 10;
+	/**
+	 * the row count assumed for adapters without a count statistic
+	 */
+	protected static final long DEFAULT_ROW_COUNT = 1000000;
+	/**
+	 * the time for which the statistics of an adapter are reused by later
+	 * plans, unless they are changed through this planner's store
+	 */
+	protected static final long STATISTICS_CACHE_MILLIS = 1000;
+
+	private final AccumuloOperations accumuloOperations;
+	private final DataStatisticsStore statisticsStore;
+	private final AccumuloOptions accumuloOptions;
+	private final Map<StatisticsKey, CachedStatistics> statisticsCache = new HashMap<StatisticsKey, CachedStatistics>();
+	private final AtomicLong statisticsVersion = new AtomicLong();
+
+	public AccumuloQueryPlanner(
+			final AccumuloOperations accumuloOperations,
+			final DataStatisticsStore statisticsStore ) {
+		this(
+				accumuloOperations,
+				statisticsStore,
+				new AccumuloOptions());
+	}
+
+	public AccumuloQueryPlanner(
+			final AccumuloOperations accumuloOperations,
+			final DataStatisticsStore statisticsStore,
+			final AccumuloOptions accumuloOptions ) {
+		this.accumuloOperations = accumuloOperations;
+		this.statisticsStore = statisticsStore;
+		this.accumuloOptions = accumuloOptions;
+	}
+
+	/**
+	 * Discard the statistics cached by this planner, this should be called
+	 * whenever the statistics are changed through the planner's store so that
+	 * the next plan reads them again
+	 */
+	public void statisticsChanged() {
+		statisticsVersion.incrementAndGet();
+	}
+
+	/**
+	 * Plan a query
+	 *
+	 * @param adapterIds
+	 *            the queried adapters, null for all of the adapters in the
+	 *            adapter store
+	 * @param query
+	 *            the query, null to query everything
+	 * @param indices
+	 *            the available indices
+	 * @param adapterStore
+	 *            the adapter store
+	 * @param authorizations
+	 *            authorizations to read the statistics
+	 * @return the plan
+	 */
+	public QueryPlan planQuery(
+			final List<ByteArrayId> adapterIds,
+			final Query query,
+			final CloseableIterator<Index> indices,
+			final AdapterStore adapterStore,
+			final String... authorizations ) {
+		final List<Index> candidates = new ArrayList<Index>();
+		while (indices.hasNext()) {
+			final Index index = indices.next();
+			if ((query == null) || query.isSupported(index)) {
+				candidates.add(index);
+			}
+		}
+		final Map<ByteArrayId, Double> estimatedCosts = new LinkedHashMap<ByteArrayId, Double>();
+		final Map<ByteArrayId, IndexDensityStatistics<?>> indexDensities = new HashMap<ByteArrayId, IndexDensityStatistics<?>>();
+		// the density is only needed to narrow the ranges of constraints
+		final boolean useIndexDensity = (query != null) && accumuloOptions.isPersistDataStatistics() && accumuloOptions.isUseIndexDensityClipping();
+		if ((candidates.size() <= 1) && !useIndexDensity) {
+			// there is no choice to make, so the statistics are not read
+			return new QueryPlan(
+					candidates,
+					estimatedCosts,
+					indexDensities,
+					false);
+		}
+		final List<ByteArrayId> queriedAdapterIds = getAdapterIds(
+				adapterIds,
+				adapterStore);
+		final Map<ByteArrayId, Map<ByteArrayId, Long>> entryCountsPerAdapter = new HashMap<ByteArrayId, Map<ByteArrayId, Long>>();
+		if (candidates.size() <= 1) {
+			if (isComplete(
+					queriedAdapterIds,
+					entryCountsPerAdapter,
+					authorizations)) {
+				for (final Index index : candidates) {
+					addIndexDensity(
+							indexDensities,
+							query,
+							queriedAdapterIds,
+							index,
+							authorizations);
+				}
+			}
+			return new QueryPlan(
+					candidates,
+					estimatedCosts,
+					indexDensities,
+					false);
+		}
+		final List<Index> coveringIndices = new ArrayList<Index>();
+		for (final Index index : candidates) {
+			if (containsAdapters(
+					index,
+					queriedAdapterIds,
+					entryCountsPerAdapter,
+					authorizations)) {
+				coveringIndices.add(index);
+			}
+		}
+		if (coveringIndices.isEmpty()) {
+			// no single index is known to contain all of the data
+			if (useIndexDensity && isComplete(
+					queriedAdapterIds,
+					entryCountsPerAdapter,
+					authorizations)) {
+				for (final Index index : candidates) {
+					addIndexDensity(
+							indexDensities,
+							query,
+							queriedAdapterIds,
+							index,
+							authorizations);
+				}
+			}
+			return new QueryPlan(
+					candidates,
+					estimatedCosts,
+					indexDensities,
+					true);
+		}
+		Index bestIndex = coveringIndices.get(0);
+		if ((coveringIndices.size() > 1) && (query != null)) {
+			final long rowCount = getRowCount(
+					queriedAdapterIds,
+					authorizations);
+			final BoundingBoxDataStatistics<?> bbox = getBoundingBox(
+					queriedAdapterIds,
+					authorizations);
+			double bestCost = Double.MAX_VALUE;
+			for (final Index index : coveringIndices) {
+				addIndexDensity(
+						indexDensities,
+						query,
+						queriedAdapterIds,
+						index,
+						authorizations);
+				final double cost = estimateCost(
+						index,
+						query,
+						rowCount,
+						bbox,
+						indexDensities.get(index.getId()));
+				estimatedCosts.put(
+						index.getId(),
+						cost);
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestIndex = index;
+				}
+			}
+		}
+		final List<Index> plannedIndices = new ArrayList<Index>();
+		plannedIndices.add(bestIndex);
+		if (useIndexDensity) {
+			// a covering index is only known once the statistics account for
+			// every entry, so its density can be used to skip empty ranges
+			addIndexDensity(
+					indexDensities,
+					query,
+					queriedAdapterIds,
+					bestIndex,
+					authorizations);
+			indexDensities.keySet().retainAll(
+					Collections.singleton(bestIndex.getId()));
+		}
+		else {
+			indexDensities.clear();
+		}
+		return new QueryPlan(
+				plannedIndices,
+				estimatedCosts,
+				indexDensities,
+				false);
+	}
+
+	protected double estimateCost(
+			final Index index,
+			final Query query,
+			final long rowCount,
+			final BoundingBoxDataStatistics<?> bbox,
+			final IndexDensityStatistics<?> indexDensity ) {
+		final NumericIndexStrategy indexStrategy = index.getIndexStrategy();
+		final MultiDimensionalNumericData constraints = query.getIndexConstraints(indexStrategy);
+		if ((constraints == null) || constraints.isEmpty()) {
+			// the whole table is scanned
+			return indexDensity != null ? indexDensity.getTotalCount() : rowCount;
+		}
+		if (indexDensity != null) {
+			final List<ByteArrayRange> ranges = indexDensity.clip(AccumuloUtils.constraintsToByteArrayRanges(
+					constraints,
+					indexStrategy));
+			return indexDensity.getEstimatedRowCount(ranges) + (ranges.size() * RANGE_SEEK_COST);
+		}
+		final NumericDimensionDefinition[] dimensions = indexStrategy.getOrderedDimensionDefinitions();
+		final NumericData[] dataPerDimension = constraints.getDataPerDimension();
+		double selectivity = 1;
+		for (int d = 0; (d < dimensions.length) && (d < dataPerDimension.length); d++) {
+			selectivity *= getSelectivity(
+					dimensions[d],
+					dataPerDimension[d],
+					bbox);
+		}
+		final int rangeCount = AccumuloUtils.constraintsToByteArrayRanges(
+				constraints,
+				indexStrategy).size();
+		return (rowCount * selectivity) + (rangeCount * RANGE_SEEK_COST);
+	}
+
+	private static double getSelectivity(
+			final NumericDimensionDefinition dimension,
+			final NumericData constraint,
+			final BoundingBoxDataStatistics<?> bbox ) {
+		double min;
+		double max;
+		if ((bbox != null) && (dimension instanceof LongitudeDefinition)) {
+			min = bbox.getMinX();
+			max = bbox.getMaxX();
+		}
+		else if ((bbox != null) && (dimension instanceof LatitudeDefinition)) {
+			min = bbox.getMinY();
+			max = bbox.getMaxY();
+		}
+		else if (dimension instanceof UnboundedDimensionDefinition) {
+			final NumericData fullRange = dimension.getFullRange();
+			min = fullRange.getMin();
+			max = fullRange.getMax();
+		}
+		else {
+			min = dimension.getBounds().getMin();
+			max = dimension.getBounds().getMax();
+		}
+		final double overlap = Math.min(
+				max,
+				constraint.getMax()) - Math.max(
+				min,
+				constraint.getMin());
+		if (overlap < 0) {
+			return 0;
+		}
+		if (max <= min) {
+			// the data is a single value within this dimension
+			return 1;
+		}
+		return Math.min(
+				1,
+				overlap / (max - min));
+	}
+
+	private boolean containsAdapters(
+			final Index index,
+			final List<ByteArrayId> adapterIds,
+			final Map<ByteArrayId, Map<ByteArrayId, Long>> entryCountsPerAdapter,
+			final String... authorizations ) {
+		if (adapterIds.isEmpty()) {
+			return false;
+		}
+		final String tableName = StringUtils.stringFromBinary(index.getId().getBytes());
+		if (!accumuloOperations.tableExists(tableName)) {
+			return false;
+		}
+		for (final ByteArrayId adapterId : adapterIds) {
+			final Map<ByteArrayId, Long> entryCounts = getIndexEntryCounts(
+					adapterId,
+					entryCountsPerAdapter,
+					authorizations);
+			if (entryCounts == null) {
+				return false;
+			}
+			final Long entryCount = entryCounts.get(index.getId());
+			if ((entryCount == null) || (entryCount <= 0)) {
+				return false;
+			}
+			for (final Long otherEntryCount : entryCounts.values()) {
+				// an index holding fewer entries of the adapter may be
+				// missing some, and one holding more is certainly missing
+				// some from this index
+				if ((otherEntryCount > 0) && !otherEntryCount.equals(entryCount)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean isComplete(
+			final List<ByteArrayId> adapterIds,
+			final Map<ByteArrayId, Map<ByteArrayId, Long>> entryCountsPerAdapter,
+			final String... authorizations ) {
+		if (adapterIds.isEmpty()) {
+			return false;
+		}
+		for (final ByteArrayId adapterId : adapterIds) {
+			if (getIndexEntryCounts(
+					adapterId,
+					entryCountsPerAdapter,
+					authorizations) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Map<ByteArrayId, Long> getIndexEntryCounts(
+			final ByteArrayId adapterId,
+			final Map<ByteArrayId, Map<ByteArrayId, Long>> entryCountsPerAdapter,
+			final String... authorizations ) {
+		if (entryCountsPerAdapter.containsKey(adapterId)) {
+			return entryCountsPerAdapter.get(adapterId);
+		}
+		final Map<ByteArrayId, Long> entryCounts = getIndexEntryCounts(
+				adapterId,
+				authorizations);
+		entryCountsPerAdapter.put(
+				adapterId,
+				entryCounts);
+		return entryCounts;
+	}
+
+	/**
+	 * The index densities of an adapter account for all of its entries if the
+	 * entry counts of the densities add up to the count statistic of the
+	 * adapter. The count statistic counts each entry written to each index,
+	 * and a density of an index only counts the entries written while the
+	 * density was maintained. So the densities fall short if the adapter has
+	 * entries in an index without a density, or entries written before the
+	 * densities were introduced.
+	 *
+	 * @param adapterId
+	 *            the adapter
+	 * @param authorizations
+	 *            authorizations to read the statistics
+	 * @return the number of entries of the adapter within each of its indices
+	 *         by index ID, or null if the densities do not account for every
+	 *         entry of the adapter
+	 */
+	protected Map<ByteArrayId, Long> getIndexEntryCounts(
+			final ByteArrayId adapterId,
+			final String... authorizations ) {
+		Long count = null;
+		long densityEntryCount = 0;
+		final Map<ByteArrayId, Long> entryCounts = new HashMap<ByteArrayId, Long>();
+		for (final DataStatistics<?> stats : getStatistics(
+				adapterId,
+				authorizations).values()) {
+			if ((stats instanceof CountDataStatistics) && ((CountDataStatistics<?>) stats).isSet()) {
+				count = ((CountDataStatistics<?>) stats).getCount();
+			}
+			else if (stats instanceof IndexDensityStatistics) {
+				final IndexDensityStatistics<?> indexDensity = (IndexDensityStatistics<?>) stats;
+				densityEntryCount += indexDensity.getEntryCount();
+				entryCounts.put(
+						indexDensity.getIndexId(),
+						indexDensity.getEntryCount());
+			}
+		}
+		if ((count == null) || (count != densityEntryCount)) {
+			return null;
+		}
+		return entryCounts;
+	}
+
+	/**
+	 * Every statistic of an adapter is read in a single scan and reused by the
+	 * plans that follow within a short time, as a plan reads several
+	 * statistics of each queried adapter for each candidate index.
+	 *
+	 * @param adapterId
+	 *            the adapter
+	 * @param authorizations
+	 *            authorizations to read the statistics
+	 * @return the statistics of the adapter by statistics ID, which must not
+	 *         be modified
+	 */
+	private Map<ByteArrayId, DataStatistics<?>> getStatistics(
+			final ByteArrayId adapterId,
+			final String... authorizations ) {
+		if (statisticsStore == null) {
+			return Collections.emptyMap();
+		}
+		final StatisticsKey key = new StatisticsKey(
+				adapterId,
+				authorizations);
+		// the version is read first so that statistics changed while they are
+		// read are read again by the next plan
+		final long version = statisticsVersion.get();
+		final long time = System.currentTimeMillis();
+		synchronized (statisticsCache) {
+			final CachedStatistics cachedStatistics = statisticsCache.get(key);
+			if ((cachedStatistics != null) && cachedStatistics.isValid(
+					version,
+					time)) {
+				return cachedStatistics.statistics;
+			}
+		}
+		final Map<ByteArrayId, DataStatistics<?>> statistics = new HashMap<ByteArrayId, DataStatistics<?>>();
+		try (CloseableIterator<DataStatistics<?>> it = statisticsStore.getDataStatistics(
+				adapterId,
+				authorizations)) {
+			if (it != null) {
+				while (it.hasNext()) {
+					final DataStatistics<?> stats = it.next();
+					statistics.put(
+							stats.getStatisticsId(),
+							stats);
+				}
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close statistics iterator",
+					e);
+		}
+		synchronized (statisticsCache) {
+			final Iterator<CachedStatistics> it = statisticsCache.values().iterator();
+			while (it.hasNext()) {
+				if (!it.next().isValid(
+						version,
+						time)) {
+					it.remove();
+				}
+			}
+			statisticsCache.put(
+					key,
+					new CachedStatistics(
+							Collections.unmodifiableMap(statistics),
+							version,
+							time));
+		}
+		return Collections.unmodifiableMap(statistics);
+	}
+
+	private static List<ByteArrayId> getAdapterIds(
+			final List<ByteArrayId> adapterIds,
+			final AdapterStore adapterStore ) {
+		if (adapterIds != null) {
+			return adapterIds;
+		}
+		final List<ByteArrayId> allAdapterIds = new ArrayList<ByteArrayId>();
+		try (CloseableIterator<DataAdapter<?>> adapters = adapterStore.getAdapters()) {
+			while (adapters.hasNext()) {
+				allAdapterIds.add(adapters.next().getAdapterId());
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close adapter iterator",
+					e);
+		}
+		return allAdapterIds;
+	}
+
+	private long getRowCount(
+			final List<ByteArrayId> adapterIds,
+			final String... authorizations ) {
+		long rowCount = 0;
+		for (final ByteArrayId adapterId : adapterIds) {
+			final DataStatistics<?> stats = getStatistics(
+					adapterId,
+					authorizations).get(
+					CountDataStatistics.STATS_ID);
+			if ((stats instanceof CountDataStatistics) && ((CountDataStatistics<?>) stats).isSet()) {
+				rowCount += ((CountDataStatistics<?>) stats).getCount();
+			}
+			else {
+				rowCount += DEFAULT_ROW_COUNT;
+			}
+		}
+		return rowCount;
+	}
+
+	private void addIndexDensity(
+			final Map<ByteArrayId, IndexDensityStatistics<?>> indexDensities,
+			final Query query,
+			final List<ByteArrayId> adapterIds,
+			final Index index,
+			final String... authorizations ) {
+		// the density is only needed to narrow the ranges of constraints
+		if ((query == null) || indexDensities.containsKey(index.getId())) {
+			return;
+		}
+		final IndexDensityStatistics<?> indexDensity = getIndexDensity(
+				adapterIds,
+				index,
+				authorizations);
+		if (indexDensity != null) {
+			indexDensities.put(
+					index.getId(),
+					indexDensity);
+		}
+	}
+
+	/**
+	 * The density may not account for rows written while it was not
+	 * maintained, so it is only suitable for estimates.
+	 *
+	 * @param adapterIds
+	 *            the adapters
+	 * @param index
+	 *            the index
+	 * @param authorizations
+	 *            authorizations to read the statistics
+	 * @return the combined density of the adapters' rows within the index, or
+	 *         null if it is not known for every adapter
+	 */
+	public IndexDensityStatistics<?> getIndexDensity(
+			final List<ByteArrayId> adapterIds,
+			final Index index,
+			final String... authorizations ) {
+		if ((statisticsStore == null) || adapterIds.isEmpty()) {
+			return null;
+		}
+		final ByteArrayId statisticsId = IndexDensityStatistics.composeId(index.getId());
+		IndexDensityStatistics<?> indexDensity = null;
+		for (final ByteArrayId adapterId : adapterIds) {
+			final DataStatistics<?> stats = getStatistics(
+					adapterId,
+					authorizations).get(
+					statisticsId);
+			if (!(stats instanceof IndexDensityStatistics)) {
+				// the rows of this adapter are unaccounted for
+				return null;
+			}
+			if (indexDensity == null) {
+				// the statistics are cached for later plans, so they are
+				// merged into a new density rather than modified
+				indexDensity = new IndexDensityStatistics<Object>(
+						null,
+						index.getId(),
+						((IndexDensityStatistics<?>) stats).getCellKeyLength());
+			}
+			indexDensity.merge(stats);
+		}
+		return indexDensity;
+	}
+
+	/**
+	 * @param adapterIds
+	 *            the adapters
+	 * @param index
+	 *            the index
+	 * @param authorizations
+	 *            authorizations to read the statistics
+	 * @return the combined density of the adapters' rows within the index, or
+	 *         null if the statistics do not account for every entry of the
+	 *         adapters, in which case the density can not be used to skip
+	 *         ranges that do not contain any rows
+	 */
+	public IndexDensityStatistics<?> getCompleteIndexDensity(
+			final List<ByteArrayId> adapterIds,
+			final Index index,
+			final String... authorizations ) {
+		if (!isComplete(
+				adapterIds,
+				new HashMap<ByteArrayId, Map<ByteArrayId, Long>>(),
+				authorizations)) {
+			return null;
+		}
+		return getIndexDensity(
+				adapterIds,
+				index,
+				authorizations);
+	}
+
+	private BoundingBoxDataStatistics<?> getBoundingBox(
+			final List<ByteArrayId> adapterIds,
+			final String... authorizations ) {
+		// the extent is only used if it is known for a single adapter
+		if (adapterIds.size() != 1) {
+			return null;
+		}
+		final DataStatistics<?> stats = getStatistics(
+				adapterIds.get(0),
+				authorizations).get(
+				BoundingBoxDataStatistics.STATS_ID);
+		if ((stats instanceof BoundingBoxDataStatistics) && ((BoundingBoxDataStatistics<?>) stats).isSet()) {
+			return (BoundingBoxDataStatistics<?>) stats;
+		}
+		return null;
+	}
+
+	private static class StatisticsKey
+	{
+		private final ByteArrayId adapterId;
+		private final String[] authorizations;
+
+		private StatisticsKey(
+				final ByteArrayId adapterId,
+				final String[] authorizations ) {
+			this.adapterId = adapterId;
+			this.authorizations = authorizations;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + ((adapterId == null) ? 0 : adapterId.hashCode());
+			result = (prime * result) + Arrays.hashCode(authorizations);
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final StatisticsKey other = (StatisticsKey) obj;
+			if (adapterId == null) {
+				if (other.adapterId != null) {
+					return false;
+				}
+			}
+			else if (!adapterId.equals(other.adapterId)) {
+				return false;
+			}
+			return Arrays.equals(
+					authorizations,
+					other.authorizations);
+		}
+	}
+
+	private static class CachedStatistics
+	{
+		private final Map<ByteArrayId, DataStatistics<?>> statistics;
+		private final long version;
+		private final long readTime;
+
+		private CachedStatistics(
+				final Map<ByteArrayId, DataStatistics<?>> statistics,
+				final long version,
+				final long readTime ) {
+			this.statistics = statistics;
+			this.version = version;
+			this.readTime = readTime;
+		}
+
+		private boolean isValid(
+				final long currentVersion,
+				final long currentTime ) {
+			return (version == currentVersion) && ((currentTime - readTime) < STATISTICS_CACHE_MILLIS);
+		}
+	}
+}
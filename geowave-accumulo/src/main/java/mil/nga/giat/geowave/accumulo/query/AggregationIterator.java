@@ -0,0 +1,291 @@
+package mil.nga.giat.geowave.accumulo.query;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.giat.geowave.accumulo.AccumuloRowId;
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayUtils;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.store.adapter.AbstractDataAdapter;
+import mil.nga.giat.geowave.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.LazyPersistentDataset;
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+import mil.nga.giat.geowave.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.CommonIndexValueReader;
+import mil.nga.giat.geowave.store.query.aggregate.Aggregation;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.hadoop.io.Text;
+
+/**
+ * This iterator computes an aggregation over the rows of each scanned range
+ * within the tablet server. Rows are filtered by the optional distributable
+ * filter and accepted rows are added to an aggregation which is deserialized
+ * from the "aggregation" option. The index model ("model" option) and
+ * optionally the data adapter ("data_adapter" option) are used to interpret
+ * the row, and fields are only decoded if the filter or the aggregation
+ * accesses them.
+ *
+ * Rows of entries that are duplicated within the index cannot be aggregated
+ * independently by each tablet, so they are returned as whole rows for the
+ * client to de-duplicate and aggregate. The partial aggregation is returned,
+ * keyed by the last aggregated row within the "aggregation" column family,
+ * before any subsequent whole row and at the end of the range. This keeps the
+ * returned keys sorted so the scan can be resumed after any returned key. A
+ * scan resumed after a partial aggregation continues with the row following
+ * the last aggregated row, as the row has been aggregated entirely.
+ */
+public class AggregationIterator extends
+		WholeRowIterator
+{
+	public static final String AGGREGATION_ITERATOR_NAME = "GEOWAVE_AGGREGATION_ITERATOR";
+	public static final int AGGREGATION_ITERATOR_PRIORITY = 10;
+	public static final String FILTER = "filter";
+	public static final String MODEL = "model";
+	public static final String DATA_ADAPTER = "data_adapter";
+	public static final String AGGREGATION = "aggregation";
+	public static final String AGGREGATION_COLUMN_FAMILY = "aggregation";
+	private static final Text AGGREGATION_COLUMN_FAMILY_TEXT = new Text(
+			AGGREGATION_COLUMN_FAMILY);
+	private static final ByteSequence AGGREGATION_COLUMN_FAMILY_SEQUENCE = new ArrayByteSequence(
+			AGGREGATION_COLUMN_FAMILY);
+	private DistributableQueryFilter filter;
+	protected CommonIndexModel model;
+	protected DataAdapter<?> dataAdapter;
+	private byte[] aggregationBinary;
+	private Aggregation aggregation;
+	private final Text lastAggregatedRow = new Text();
+	private boolean aggregated = false;
+
+	/**
+	 * Determine whether a key returned by this iterator holds a partial
+	 * aggregation rather than a whole row
+	 *
+	 * @param key
+	 *            the returned key
+	 * @return true if the key is for a partial aggregation
+	 */
+	public static boolean isAggregationKey(
+			final Key key ) {
+		return key.getColumnFamilyData().compareTo(
+				AGGREGATION_COLUMN_FAMILY_SEQUENCE) == 0;
+	}
+
+	@Override
+	protected boolean filter(
+			final Text currentRow,
+			final List<Key> keys,
+			final List<Value> values ) {
+		final IndexedAdapterPersistenceEncoding encoding = getEncoding(
+				currentRow,
+				keys,
+				values);
+		if ((filter != null) && !filter.accept(encoding)) {
+			return false;
+		}
+		if (!accept(encoding)) {
+			return false;
+		}
+		if (encoding.isDuplicated()) {
+			// the client will de-duplicate and aggregate this row
+			return true;
+		}
+		aggregation.aggregate(encoding);
+		lastAggregatedRow.set(currentRow);
+		aggregated = true;
+		return false;
+	}
+
+	/**
+	 * Subclasses may apply additional acceptance criteria to an entry that
+	 * has passed the distributable filter
+	 *
+	 * @param encoding
+	 *            the entry
+	 * @return whether the entry should be aggregated
+	 */
+	protected boolean accept(
+			final IndexedAdapterPersistenceEncoding encoding ) {
+		return true;
+	}
+
+	protected IndexedAdapterPersistenceEncoding getEncoding(
+			final Text currentRow,
+			final List<Key> keys,
+			final List<Value> values ) {
+		// the backing array of the text may be longer than the row
+		final AccumuloRowId rowId = new AccumuloRowId(
+				currentRow.getBytes(),
+				0,
+				currentRow.getLength());
+		// fields are only decoded if they are accessed
+		final LazyPersistentDataset<CommonIndexValue> commonData = new LazyPersistentDataset<CommonIndexValue>(
+				model.getFieldOrdinals());
+		final LazyPersistentDataset<Object> extendedData = (dataAdapter instanceof AbstractDataAdapter) ? new LazyPersistentDataset<Object>(
+				((AbstractDataAdapter<?>) dataAdapter).getNativeFieldOrdinals()) : new LazyPersistentDataset<Object>();
+		for (int i = 0; (i < keys.size()) && (i < values.size()); i++) {
+			final Key key = keys.get(i);
+			final ByteSequence qualifier = key.getColumnQualifierData();
+			final ByteArrayId fieldId = new ByteArrayId(
+					qualifier.getBackingArray(),
+					qualifier.offset(),
+					qualifier.length());
+			final FieldReader<? extends CommonIndexValue> reader = model.getReader(fieldId);
+			if (reader != null) {
+				commonData.addEncodedValue(
+						fieldId,
+						values.get(
+								i).get(),
+						new CommonIndexValueReader(
+								reader,
+								key.getColumnVisibilityData().getBackingArray()));
+			}
+			else if (dataAdapter != null) {
+				final FieldReader<?> extReader = dataAdapter.getReader(fieldId);
+				if (extReader != null) {
+					extendedData.addEncodedValue(
+							fieldId,
+							values.get(
+									i).get(),
+							extReader);
+				}
+			}
+		}
+		return new IndexedAdapterPersistenceEncoding(
+				new ByteArrayId(
+						rowId.getAdapterId()),
+				new ByteArrayId(
+						rowId.getDataId()),
+				new ByteArrayId(
+						rowId.getIndexId()),
+				rowId.getNumberOfDuplicates(),
+				commonData,
+				extendedData);
+	}
+
+	@Override
+	public boolean hasTop() {
+		return aggregated || super.hasTop();
+	}
+
+	@Override
+	public Key getTopKey() {
+		if (aggregated) {
+			return new Key(
+					lastAggregatedRow,
+					AGGREGATION_COLUMN_FAMILY_TEXT);
+		}
+		return super.getTopKey();
+	}
+
+	@Override
+	public Value getTopValue() {
+		if (aggregated) {
+			return new Value(
+					PersistenceUtils.toBinary(aggregation));
+		}
+		return super.getTopValue();
+	}
+
+	@Override
+	public void next()
+			throws IOException {
+		if (aggregated) {
+			// the partial aggregation has been returned, start a new one
+			resetAggregation();
+		}
+		else {
+			super.next();
+		}
+	}
+
+	@Override
+	public void seek(
+			final Range range,
+			final Collection<ByteSequence> columnFamilies,
+			final boolean inclusive )
+			throws IOException {
+		resetAggregation();
+		super.seek(
+				getResumedRange(range),
+				columnFamilies,
+				inclusive);
+	}
+
+	private static Range getResumedRange(
+			final Range range ) {
+		final Key startKey = range.getStartKey();
+		if ((startKey == null) || range.isStartKeyInclusive() || !isAggregationKey(startKey)) {
+			return range;
+		}
+		// the whole row iterator only skips the rest of the row for a start
+		// key of just the row, otherwise the columns of the row sorting after
+		// the aggregation key would be aggregated again
+		return new Range(
+				new Key(
+						startKey.getRow()),
+				false,
+				range.getEndKey(),
+				range.isEndKeyInclusive());
+	}
+
+	private void resetAggregation() {
+		aggregation = PersistenceUtils.fromBinary(
+				aggregationBinary,
+				Aggregation.class);
+		aggregated = false;
+	}
+
+	@Override
+	public void init(
+			final SortedKeyValueIterator<Key, Value> source,
+			final Map<String, String> options,
+			final IteratorEnvironment env )
+			throws IOException {
+		super.init(
+				source,
+				options,
+				env);
+
+		if (options == null) {
+			throw new IllegalArgumentException(
+					"Arguments must be set for " + AggregationIterator.class.getName());
+		}
+		try {
+			final String filterStr = options.get(FILTER);
+			if (filterStr != null) {
+				filter = PersistenceUtils.fromBinary(
+						ByteArrayUtils.byteArrayFromString(filterStr),
+						DistributableQueryFilter.class);
+			}
+			model = PersistenceUtils.fromBinary(
+					ByteArrayUtils.byteArrayFromString(options.get(MODEL)),
+					CommonIndexModel.class);
+			final String dataAdapterStr = options.get(DATA_ADAPTER);
+			if (dataAdapterStr != null) {
+				dataAdapter = PersistenceUtils.fromBinary(
+						ByteArrayUtils.byteArrayFromString(dataAdapterStr),
+						DataAdapter.class);
+			}
+			aggregationBinary = ByteArrayUtils.byteArrayFromString(options.get(AGGREGATION));
+			resetAggregation();
+		}
+		catch (final Exception e) {
+			throw new IllegalArgumentException(
+					e);
+		}
+	}
+}
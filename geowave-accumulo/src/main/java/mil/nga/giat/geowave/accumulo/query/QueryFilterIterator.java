@@ -9,13 +9,14 @@ import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
-import mil.nga.giat.geowave.store.data.PersistentDataset;
-import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.data.LazyPersistentDataset;
 import mil.nga.giat.geowave.store.data.field.FieldReader;
 import mil.nga.giat.geowave.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.store.index.CommonIndexModel;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.CommonIndexValueReader;
 
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
@@ -49,23 +50,32 @@ public class QueryFilterIterator extends
 			final List<Key> keys,
 			final List<Value> values ) {
 		if ((filter != null) && (model != null)) {
+			// the backing array of the text may be longer than the row
 			final AccumuloRowId rowId = new AccumuloRowId(
-					currentRow.getBytes());
-			final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+					currentRow.getBytes(),
+					0,
+					currentRow.getLength());
+			// fields are only decoded if the filter accesses them
+			final LazyPersistentDataset<CommonIndexValue> commonData = new LazyPersistentDataset<CommonIndexValue>(
+					model.getFieldOrdinals());
 			for (int i = 0; (i < keys.size()) && (i < values.size()); i++) {
 				final Key key = keys.get(i);
+				final ByteSequence qualifier = key.getColumnQualifierData();
 				final ByteArrayId fieldId = new ByteArrayId(
-						key.getColumnQualifierData().getBackingArray());
+						qualifier.getBackingArray(),
+						qualifier.offset(),
+						qualifier.length());
 				final FieldReader<? extends CommonIndexValue> reader = model.getReader(fieldId);
 				if (reader == null) {
 					continue;
 				}
-				final CommonIndexValue fieldValue = reader.readField(values.get(
-						i).get());
-				fieldValue.setVisibility(key.getColumnVisibilityData().getBackingArray());
-				commonData.addValue(new PersistentValue<CommonIndexValue>(
+				commonData.addEncodedValue(
 						fieldId,
-						fieldValue));
+						values.get(
+								i).get(),
+						new CommonIndexValueReader(
+								reader,
+								key.getColumnVisibilityData().getBackingArray()));
 			}
 			final IndexedPersistenceEncoding encoding = new IndexedPersistenceEncoding(
 					new ByteArrayId(
@@ -0,0 +1,99 @@
+package mil.nga.giat.geowave.accumulo.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.store.adapter.statistics.IndexDensityStatistics;
+import mil.nga.giat.geowave.store.index.Index;
+
+/**
+ * This class describes how a query will be executed, namely which indices will
+ * be scanned. If a single index is known to contain all of the queried data it
+ * is used on its own, otherwise the results of each supported index are
+ * combined and de-duplicated. The estimated cost of each candidate index is
+ * retained so that the plan can be logged, along with the density of the
+ * queried rows within each scanned index when the statistics account for
+ * every entry of the queried adapters.
+ */
+public class QueryPlan
+{
+	private final List<Index> indices;
+	private final Map<ByteArrayId, Double> estimatedCosts;
+	private final Map<ByteArrayId, IndexDensityStatistics<?>> indexDensities;
+	private final boolean union;
+
+	public QueryPlan(
+			final List<Index> indices,
+			final Map<ByteArrayId, Double> estimatedCosts,
+			final boolean union ) {
+		this(
+				indices,
+				estimatedCosts,
+				new HashMap<ByteArrayId, IndexDensityStatistics<?>>(),
+				union);
+	}
+
+	public QueryPlan(
+			final List<Index> indices,
+			final Map<ByteArrayId, Double> estimatedCosts,
+			final Map<ByteArrayId, IndexDensityStatistics<?>> indexDensities,
+			final boolean union ) {
+		this.indices = indices;
+		this.estimatedCosts = estimatedCosts;
+		this.indexDensities = indexDensities;
+		this.union = union;
+	}
+
+	/**
+	 * @return the indices that will be scanned
+	 */
+	public List<Index> getIndices() {
+		return indices;
+	}
+
+	/**
+	 * @return the estimated cost of each candidate index by index ID, which
+	 *         may be empty if there was no choice to make
+	 */
+	public Map<ByteArrayId, Double> getEstimatedCosts() {
+		return Collections.unmodifiableMap(estimatedCosts);
+	}
+
+	/**
+	 * @param indexId
+	 *            the ID of a scanned index
+	 * @return the density of the queried rows within the index, or null if the
+	 *         statistics do not account for every entry of the queried
+	 *         adapters
+	 */
+	public IndexDensityStatistics<?> getIndexDensity(
+			final ByteArrayId indexId ) {
+		return indexDensities.get(indexId);
+	}
+
+	/**
+	 * @return true if the results of several indices must be combined
+	 */
+	public boolean isUnion() {
+		return union;
+	}
+
+	@Override
+	public String toString() {
+		final List<String> indexIds = new ArrayList<String>();
+		for (final Index index : indices) {
+			indexIds.add(StringUtils.stringFromBinary(index.getId().getBytes()));
+		}
+		final List<String> costs = new ArrayList<String>();
+		for (final Entry<ByteArrayId, Double> cost : estimatedCosts.entrySet()) {
+			costs.add(StringUtils.stringFromBinary(cost.getKey().getBytes()) + "=" + cost.getValue());
+		}
+		return "QueryPlan [indices=" + indexIds + ", union=" + union + ", estimatedCosts=" + costs + "]";
+	}
+}
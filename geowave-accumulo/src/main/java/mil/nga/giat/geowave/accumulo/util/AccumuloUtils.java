@@ -19,12 +19,17 @@ import mil.nga.giat.geowave.index.NumericIndexStrategy;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.store.IngestEntryInfo;
 import mil.nga.giat.geowave.store.IngestEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.store.adapter.AbstractDataAdapter;
 import mil.nga.giat.geowave.store.adapter.AdapterPersistenceEncoding;
 import mil.nga.giat.geowave.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
 import mil.nga.giat.geowave.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsBuilder;
+import mil.nga.giat.geowave.store.adapter.statistics.IndexDensityStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.StatisticalDataAdapter;
 import mil.nga.giat.geowave.store.data.DataWriter;
+import mil.nga.giat.geowave.store.data.LazyPersistentDataset;
 import mil.nga.giat.geowave.store.data.PersistentDataset;
 import mil.nga.giat.geowave.store.data.PersistentValue;
 import mil.nga.giat.geowave.store.data.VisibilityWriter;
@@ -36,6 +41,7 @@ import mil.nga.giat.geowave.store.data.visibility.UniformVisibilityWriter;
 import mil.nga.giat.geowave.store.filter.QueryFilter;
 import mil.nga.giat.geowave.store.index.CommonIndexModel;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.CommonIndexValueReader;
 import mil.nga.giat.geowave.store.index.Index;
 
 import org.apache.accumulo.core.data.ByteSequence;
@@ -93,7 +99,9 @@ public class AccumuloUtils
 			return range;
 		}
 		final TreeSet<Range> accumuloRanges = new TreeSet<Range>();
-		for (final ByteArrayRange byteArrayRange : byteArrayRanges) {
+		// intersecting and adjacent ranges are merged so that each is only a
+		// single seek
+		for (final ByteArrayRange byteArrayRange : ByteArrayRange.mergeIntersections(byteArrayRanges)) {
 			final Range range = byteArrayRangeToAccumuloRange(byteArrayRange);
 			if (range == null) {
 				continue;
@@ -160,7 +168,7 @@ public class AccumuloUtils
 			final QueryFilter clientFilter,
 			final Index index ) {
 		final AccumuloRowId rowId = new AccumuloRowId(
-				key.getRow().copyBytes());
+				key);
 		return decodeRowObj(
 				key,
 				value,
@@ -178,7 +186,7 @@ public class AccumuloUtils
 			final QueryFilter clientFilter,
 			final Index index ) {
 		final AccumuloRowId rowId = new AccumuloRowId(
-				key.getRow().copyBytes());
+				key);
 		return decodeRowObj(
 				key,
 				value,
@@ -252,9 +260,12 @@ public class AccumuloUtils
 		}
 		// build a persistence encoding object first, pass it through the
 		// client filters and if its accepted, use the data adapter to
-		// decode the persistence model into the native data type
-		final PersistentDataset<CommonIndexValue> indexData = new PersistentDataset<CommonIndexValue>();
-		final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+		// decode the persistence model into the native data type, the fields
+		// are only decoded as they are accessed
+		final LazyPersistentDataset<CommonIndexValue> indexData = new LazyPersistentDataset<CommonIndexValue>(
+				index.getIndexModel().getFieldOrdinals());
+		// created once the adapter is resolved
+		LazyPersistentDataset<Object> extendedData = null;
 		// for now we are assuming all entries in a row are of the same type
 		// and use the same adapter
 		boolean adapterMatchVerified;
@@ -267,14 +278,17 @@ public class AccumuloUtils
 			adapterMatchVerified = true;
 			adapterId = null;
 		}
-		final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>(
+		final List<EncodedField> encodedFields = new ArrayList<EncodedField>(
 				rowMapping.size());
 
 		for (final Entry<Key, Value> entry : rowMapping.entrySet()) {
 			// the column family is the data element's type ID
 			if (adapterId == null) {
+				final ByteSequence family = entry.getKey().getColumnFamilyData();
 				adapterId = new ByteArrayId(
-						entry.getKey().getColumnFamilyData().getBackingArray());
+						family.getBackingArray(),
+						family.offset(),
+						family.length());
 			}
 
 			if (adapter == null) {
@@ -290,23 +304,31 @@ public class AccumuloUtils
 				}
 				adapterMatchVerified = true;
 			}
+			if (extendedData == null) {
+				extendedData = newExtendedDataset(adapter);
+			}
+			final ByteSequence qualifier = entry.getKey().getColumnQualifierData();
 			final ByteArrayId fieldId = new ByteArrayId(
-					entry.getKey().getColumnQualifierData().getBackingArray());
+					qualifier.getBackingArray(),
+					qualifier.offset(),
+					qualifier.length());
 			// first check if this field is part of the index model
 			final FieldReader<? extends CommonIndexValue> indexFieldReader = index.getIndexModel().getReader(
 					fieldId);
 			final byte byteValue[] = entry.getValue().get();
 			if (indexFieldReader != null) {
-				final CommonIndexValue indexValue = indexFieldReader.readField(byteValue);
-				indexValue.setVisibility(entry.getKey().getColumnVisibilityData().getBackingArray());
-				final PersistentValue<CommonIndexValue> val = new PersistentValue<CommonIndexValue>(
+				final byte[] visibility = entry.getKey().getColumnVisibilityData().getBackingArray();
+				indexData.addEncodedValue(
+						fieldId,
+						byteValue,
+						new CommonIndexValueReader(
+								indexFieldReader,
+								visibility));
+				encodedFields.add(new EncodedField(
 						fieldId,
-						indexValue);
-				indexData.addValue(val);
-				fieldInfoList.add(getFieldInfo(
-						val,
 						byteValue,
-						indexValue.getVisibility()));
+						visibility,
+						true));
 			}
 			else {
 				// next check if this field is part of the adapter's
@@ -318,17 +340,20 @@ public class AccumuloUtils
 					LOGGER.error("field reader not found for data entry, the value will be ignored");
 					continue;
 				}
-				final Object value = extFieldReader.readField(byteValue);
-				final PersistentValue<Object> val = new PersistentValue<Object>(
+				extendedData.addEncodedValue(
 						fieldId,
-						value);
-				extendedData.addValue(val);
-				fieldInfoList.add(getFieldInfo(
-						val,
 						byteValue,
-						entry.getKey().getColumnVisibility().getBytes()));
+						extFieldReader);
+				encodedFields.add(new EncodedField(
+						fieldId,
+						byteValue,
+						entry.getKey().getColumnVisibility().getBytes(),
+						false));
 			}
 		}
+		if (extendedData == null) {
+			extendedData = new LazyPersistentDataset<Object>();
+		}
 		final IndexedAdapterPersistenceEncoding encodedRow = new IndexedAdapterPersistenceEncoding(
 				adapterId,
 				new ByteArrayId(
@@ -339,19 +364,77 @@ public class AccumuloUtils
 				indexData,
 				extendedData);
 		if ((clientFilter == null) || clientFilter.accept(encodedRow)) {
+			final ByteSequence row = k.getRowData();
 			// cannot get here unless adapter is found (not null)
+			final T decodedValue = adapter.decode(
+					encodedRow,
+					index);
+			// the field values have typically been decoded by the adapter by
+			// now, so this only retrieves them
+			final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>(
+					encodedFields.size());
+			for (final EncodedField field : encodedFields) {
+				if (field.commonIndexField) {
+					fieldInfoList.add(getFieldInfo(
+							new PersistentValue<CommonIndexValue>(
+									field.fieldId,
+									indexData.getValue(field.fieldId)),
+							field.value,
+							field.visibility));
+				}
+				else {
+					fieldInfoList.add(getFieldInfo(
+							new PersistentValue<Object>(
+									field.fieldId,
+									extendedData.getValue(field.fieldId)),
+							field.value,
+							field.visibility));
+				}
+			}
 			return Pair.of(
-					adapter.decode(
-							encodedRow,
-							index),
+					decodedValue,
 					new IngestEntryInfo(
 							Arrays.asList(new ByteArrayId(
-									k.getRowData().getBackingArray())),
+									row.getBackingArray(),
+									row.offset(),
+									row.length())),
 							fieldInfoList));
 		}
 		return null;
 	}
 
+	/**
+	 * The encoded value of a field within a row that is decoded, retained so
+	 * that the field info is only built for rows that are accepted
+	 */
+	private static class EncodedField
+	{
+		private final ByteArrayId fieldId;
+		private final byte[] value;
+		private final byte[] visibility;
+		private final boolean commonIndexField;
+
+		private EncodedField(
+				final ByteArrayId fieldId,
+				final byte[] value,
+				final byte[] visibility,
+				final boolean commonIndexField ) {
+			this.fieldId = fieldId;
+			this.value = value;
+			this.visibility = visibility;
+			this.commonIndexField = commonIndexField;
+		}
+	}
+
+	private static LazyPersistentDataset<Object> newExtendedDataset(
+			final DataAdapter<?> adapter ) {
+		if (adapter instanceof AbstractDataAdapter) {
+			return new LazyPersistentDataset<Object>(
+					((AbstractDataAdapter<?>) adapter).getNativeFieldOrdinals());
+		}
+		return new LazyPersistentDataset<Object>();
+	}
+
 	public static <T> IngestEntryInfo write(
 			final WritableDataAdapter<T> writableAdapter,
 			final Index index,
@@ -544,6 +627,37 @@ public class AccumuloUtils
 		}
 	}
 
+	/**
+	 * Create the builders of the statistics of an adapter's data written to an
+	 * index, which are the statistics supported by the adapter and the density
+	 * of the adapter's rows within the index
+	 *
+	 * @param adapter
+	 *            the adapter
+	 * @param index
+	 *            the index the data is written to
+	 * @return the statistics builders
+	 */
+	public static <T> List<DataStatisticsBuilder<T>> createStatisticsBuilders(
+			final StatisticalDataAdapter<T> adapter,
+			final Index index ) {
+		final List<DataStatisticsBuilder<T>> statisticsBuilders = new ArrayList<DataStatisticsBuilder<T>>();
+		final ByteArrayId[] statisticsIds = adapter.getSupportedStatisticsIds();
+		if (statisticsIds != null) {
+			for (final ByteArrayId id : statisticsIds) {
+				statisticsBuilders.add(new DataStatisticsBuilder<T>(
+						adapter,
+						id));
+			}
+		}
+		statisticsBuilders.add(new DataStatisticsBuilder<T>(
+				adapter,
+				new IndexDensityStatistics<T>(
+						adapter.getAdapterId(),
+						index)));
+		return statisticsBuilders;
+	}
+
 	@SuppressWarnings({
 		"rawtypes",
 		"unchecked"
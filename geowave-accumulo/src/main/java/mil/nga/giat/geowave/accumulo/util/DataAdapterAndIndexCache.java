@@ -41,6 +41,18 @@ public class DataAdapterAndIndexCache
 		}
 	}
 
+	public synchronized boolean contains(
+			final ByteArrayId adapterId,
+			final String indexId ) {
+		return cache.contains(new DataAdapterAndIndex(
+				adapterId,
+				indexId));
+	}
+
+	public synchronized void clear() {
+		cache.clear();
+	}
+
 	private static class DataAdapterAndIndex
 	{
 		private final ByteArrayId adapterId;
@@ -0,0 +1,559 @@
+package mil.nga.giat.geowave.accumulo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import mil.nga.giat.geowave.accumulo.metadata.AccumuloAdapterStore;
+import mil.nga.giat.geowave.accumulo.metadata.AccumuloDataStatisticsStore;
+import mil.nga.giat.geowave.accumulo.metadata.AccumuloIndexStore;
+import mil.nga.giat.geowave.accumulo.query.AggregationIterator;
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayUtils;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.store.CloseableIterator;
+import mil.nga.giat.geowave.store.adapter.AbstractDataAdapter;
+import mil.nga.giat.geowave.store.adapter.NativeFieldHandler;
+import mil.nga.giat.geowave.store.adapter.NativeFieldHandler.RowBuilder;
+import mil.nga.giat.geowave.store.adapter.PersistentIndexFieldHandler;
+import mil.nga.giat.geowave.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.data.field.BasicReader.DoubleReader;
+import mil.nga.giat.geowave.store.data.field.BasicReader.GeometryReader;
+import mil.nga.giat.geowave.store.data.field.BasicReader.StringReader;
+import mil.nga.giat.geowave.store.data.field.BasicWriter.DoubleWriter;
+import mil.nga.giat.geowave.store.data.field.BasicWriter.GeometryWriter;
+import mil.nga.giat.geowave.store.data.field.BasicWriter.StringWriter;
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+import mil.nga.giat.geowave.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.index.IndexType;
+import mil.nga.giat.geowave.store.query.Query;
+import mil.nga.giat.geowave.store.query.SpatialQuery;
+import mil.nga.giat.geowave.store.query.aggregate.BoundingBoxAggregation;
+import mil.nga.giat.geowave.store.query.aggregate.CountAggregation;
+import mil.nga.giat.geowave.store.query.aggregate.NumericAttributeAggregation;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class AccumuloDataStoreAggregationTest
+{
+	private final static Logger LOGGER = Logger.getLogger(AccumuloDataStoreAggregationTest.class);
+
+	final GeometryFactory factory = new GeometryFactory();
+
+	AccumuloDataStore mockDataStore;
+	Connector mockConnector;
+
+	@Before
+	public void setUp() {
+		final MockInstance mockInstance = new MockInstance();
+		try {
+			mockConnector = mockInstance.getConnector(
+					"root",
+					new PasswordToken(
+							new byte[0]));
+		}
+		catch (AccumuloException | AccumuloSecurityException e) {
+			LOGGER.error(
+					"Failed to create mock accumulo connection",
+					e);
+		}
+		final AccumuloOperations accumuloOperations = new BasicAccumuloOperations(
+				mockConnector);
+
+		mockDataStore = new AccumuloDataStore(
+				new AccumuloIndexStore(
+						accumuloOperations),
+				new AccumuloAdapterStore(
+						accumuloOperations),
+				new AccumuloDataStatisticsStore(
+						accumuloOperations),
+				accumuloOperations);
+	}
+
+	@Test
+	public void testAggregate() {
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final WritableDataAdapter<TestValue> adapter = new TestValueAdapter();
+
+		mockDataStore.ingest(
+				adapter,
+				index,
+				new TestValue(
+						factory.createPoint(new Coordinate(
+								25,
+								32)),
+						"pt1",
+						1.0));
+		mockDataStore.ingest(
+				adapter,
+				index,
+				new TestValue(
+						factory.createPoint(new Coordinate(
+								26,
+								32.5)),
+						"pt2",
+						2.0));
+		mockDataStore.ingest(
+				adapter,
+				index,
+				new TestValue(
+						factory.createPoint(new Coordinate(
+								-50,
+								-40)),
+						"pt3",
+						3.0));
+		// a polygon across the equator and prime meridian is duplicated within
+		// the index, so it is de-duplicated and aggregated on the client
+		final List<ByteArrayId> polygonRowIds = mockDataStore.ingest(
+				adapter,
+				index,
+				new TestValue(
+						factory.createPolygon(new Coordinate[] {
+							new Coordinate(
+									-10,
+									-10),
+							new Coordinate(
+									-10,
+									10),
+							new Coordinate(
+									10,
+									10),
+							new Coordinate(
+									10,
+									-10),
+							new Coordinate(
+									-10,
+									-10)
+						}),
+						"poly",
+						10.0));
+		assertTrue(polygonRowIds.size() > 1);
+
+		final CountAggregation count = mockDataStore.aggregate(
+				adapter,
+				index,
+				null,
+				new CountAggregation());
+		assertEquals(
+				4,
+				count.getCount());
+
+		final BoundingBoxAggregation bbox = mockDataStore.aggregate(
+				adapter,
+				index,
+				null,
+				new BoundingBoxAggregation());
+		assertTrue(bbox.isSet());
+		assertEquals(
+				-50,
+				bbox.getMinX(),
+				0);
+		assertEquals(
+				-40,
+				bbox.getMinY(),
+				0);
+		assertEquals(
+				26,
+				bbox.getMaxX(),
+				0);
+		assertEquals(
+				32.5,
+				bbox.getMaxY(),
+				0);
+
+		final NumericAttributeAggregation values = mockDataStore.aggregate(
+				adapter,
+				index,
+				null,
+				new NumericAttributeAggregation(
+						TestValueAdapter.VALUE));
+		assertEquals(
+				4,
+				values.getCount());
+		assertEquals(
+				1.0,
+				values.getMin(),
+				0);
+		assertEquals(
+				10.0,
+				values.getMax(),
+				0);
+		assertEquals(
+				16.0,
+				values.getSum(),
+				0);
+
+		final Query query = new SpatialQuery(
+				factory.toGeometry(new Envelope(
+						-20,
+						30,
+						-20,
+						35)));
+		final CountAggregation queryCount = mockDataStore.aggregate(
+				adapter,
+				index,
+				query,
+				new CountAggregation());
+		int expectedCount = 0;
+		try (CloseableIterator<TestValue> it = mockDataStore.query(
+				adapter,
+				index,
+				query)) {
+			while (it.hasNext()) {
+				it.next();
+				expectedCount++;
+			}
+		}
+		catch (final java.io.IOException e) {
+			LOGGER.error(
+					"Failed to close iterator",
+					e);
+		}
+		assertEquals(
+				3,
+				expectedCount);
+		assertEquals(
+				expectedCount,
+				queryCount.getCount());
+
+		final NumericAttributeAggregation queryValues = mockDataStore.aggregate(
+				adapter,
+				index,
+				query,
+				new NumericAttributeAggregation(
+						TestValueAdapter.VALUE));
+		assertEquals(
+				13.0,
+				queryValues.getSum(),
+				0);
+	}
+
+	@Test
+	public void testResumeAfterAggregation()
+			throws IOException,
+			TableNotFoundException {
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final WritableDataAdapter<TestValue> adapter = new TestValueAdapter();
+		for (int i = 0; i < 3; i++) {
+			mockDataStore.ingest(
+					adapter,
+					index,
+					new TestValue(
+							factory.createPoint(new Coordinate(
+									i,
+									i)),
+							"pt" + i,
+							(double) i));
+		}
+		mockDataStore.flush();
+		final TreeMap<Key, Value> table = new TreeMap<Key, Value>();
+		final Scanner scanner = mockConnector.createScanner(
+				index.getId().getString(),
+				new Authorizations());
+		for (final Entry<Key, Value> entry : scanner) {
+			table.put(
+					entry.getKey(),
+					entry.getValue());
+		}
+		final Key firstRow = new Key(
+				table.firstKey().getRow());
+
+		// aggregate the first row, as a scan would before it is interrupted
+		final AggregationIterator iterator = createIterator(
+				table,
+				index);
+		iterator.seek(
+				new Range(
+						firstRow,
+						true,
+						firstRow.followingKey(PartialKey.ROW),
+						false),
+				Collections.<ByteSequence> emptyList(),
+				false);
+		assertTrue(iterator.hasTop());
+		final Key aggregationKey = iterator.getTopKey();
+		assertTrue(AggregationIterator.isAggregationKey(aggregationKey));
+		assertEquals(
+				1,
+				getCount(iterator.getTopValue()));
+		iterator.next();
+		assertFalse(iterator.hasTop());
+
+		// the column family of the adapter sorts after the aggregation column
+		// family, so the columns of the aggregated row follow its key
+		assertTrue(adapter.getAdapterId().getString().compareTo(
+				AggregationIterator.AGGREGATION_COLUMN_FAMILY) > 0);
+		final AggregationIterator resumedIterator = createIterator(
+				table,
+				index);
+		resumedIterator.seek(
+				new Range(
+						aggregationKey,
+						false,
+						null,
+						true),
+				Collections.<ByteSequence> emptyList(),
+				false);
+		assertTrue(resumedIterator.hasTop());
+		assertEquals(
+				2,
+				getCount(resumedIterator.getTopValue()));
+		resumedIterator.next();
+		assertFalse(resumedIterator.hasTop());
+	}
+
+	private static AggregationIterator createIterator(
+			final TreeMap<Key, Value> table,
+			final Index index )
+			throws IOException {
+		final Map<String, String> options = new HashMap<String, String>();
+		options.put(
+				AggregationIterator.MODEL,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexModel())));
+		options.put(
+				AggregationIterator.AGGREGATION,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(new CountAggregation())));
+		final AggregationIterator iterator = new AggregationIterator();
+		iterator.init(
+				new SortedMapIterator(
+						table),
+				options,
+				null);
+		return iterator;
+	}
+
+	private static long getCount(
+			final Value value ) {
+		return PersistenceUtils.fromBinary(
+				value.get(),
+				CountAggregation.class).getCount();
+	}
+
+	private static class TestValue
+	{
+		private final Geometry geom;
+		private final String id;
+		private final Double value;
+
+		public TestValue(
+				final Geometry geom,
+				final String id,
+				final Double value ) {
+			this.geom = geom;
+			this.id = id;
+			this.value = value;
+		}
+	}
+
+	private static class TestValueAdapter extends
+			AbstractDataAdapter<TestValue>
+	{
+		private static final ByteArrayId GEOM = new ByteArrayId(
+				"myGeo");
+		private static final ByteArrayId ID = new ByteArrayId(
+				"myId");
+		private static final ByteArrayId VALUE = new ByteArrayId(
+				"myValue");
+
+		private static final PersistentIndexFieldHandler<TestValue, ? extends CommonIndexValue, Object> GEOM_FIELD_HANDLER = new PersistentIndexFieldHandler<TestValue, CommonIndexValue, Object>() {
+
+			@Override
+			public ByteArrayId[] getNativeFieldIds() {
+				return new ByteArrayId[] {
+					GEOM
+				};
+			}
+
+			@Override
+			public CommonIndexValue toIndexValue(
+					final TestValue row ) {
+				return new GeometryWrapper(
+						row.geom,
+						new byte[0]);
+			}
+
+			@Override
+			public PersistentValue<Object>[] toNativeValues(
+					final CommonIndexValue indexValue ) {
+				return new PersistentValue[] {
+					new PersistentValue<Object>(
+							GEOM,
+							((GeometryWrapper) indexValue).getGeometry())
+				};
+			}
+
+			@Override
+			public byte[] toBinary() {
+				return new byte[0];
+			}
+
+			@Override
+			public void fromBinary(
+					final byte[] bytes ) {
+
+			}
+		};
+
+		private static final NativeFieldHandler<TestValue, Object> ID_FIELD_HANDLER = new NativeFieldHandler<TestValue, Object>() {
+
+			@Override
+			public ByteArrayId getFieldId() {
+				return ID;
+			}
+
+			@Override
+			public Object getFieldValue(
+					final TestValue row ) {
+				return row.id;
+			}
+
+		};
+
+		private static final NativeFieldHandler<TestValue, Object> VALUE_FIELD_HANDLER = new NativeFieldHandler<TestValue, Object>() {
+
+			@Override
+			public ByteArrayId getFieldId() {
+				return VALUE;
+			}
+
+			@Override
+			public Object getFieldValue(
+					final TestValue row ) {
+				return row.value;
+			}
+
+		};
+
+		private static final List<NativeFieldHandler<TestValue, Object>> NATIVE_FIELD_HANDLER_LIST = new ArrayList<NativeFieldHandler<TestValue, Object>>();
+		private static final List<PersistentIndexFieldHandler<TestValue, ? extends CommonIndexValue, Object>> COMMON_FIELD_HANDLER_LIST = new ArrayList<PersistentIndexFieldHandler<TestValue, ? extends CommonIndexValue, Object>>();
+		static {
+			COMMON_FIELD_HANDLER_LIST.add(GEOM_FIELD_HANDLER);
+			NATIVE_FIELD_HANDLER_LIST.add(ID_FIELD_HANDLER);
+			NATIVE_FIELD_HANDLER_LIST.add(VALUE_FIELD_HANDLER);
+		}
+
+		public TestValueAdapter() {
+			super(
+					COMMON_FIELD_HANDLER_LIST,
+					NATIVE_FIELD_HANDLER_LIST);
+		}
+
+		@Override
+		public ByteArrayId getAdapterId() {
+			return new ByteArrayId(
+					"testValue");
+		}
+
+		@Override
+		public boolean isSupported(
+				final TestValue entry ) {
+			return true;
+		}
+
+		@Override
+		public ByteArrayId getDataId(
+				final TestValue entry ) {
+			return new ByteArrayId(
+					entry.id);
+		}
+
+		@Override
+		public FieldReader getReader(
+				final ByteArrayId fieldId ) {
+			if (fieldId.equals(GEOM)) {
+				return new GeometryReader();
+			}
+			else if (fieldId.equals(ID)) {
+				return new StringReader();
+			}
+			else if (fieldId.equals(VALUE)) {
+				return new DoubleReader();
+			}
+			return null;
+		}
+
+		@Override
+		public FieldWriter getWriter(
+				final ByteArrayId fieldId ) {
+			if (fieldId.equals(GEOM)) {
+				return new GeometryWriter();
+			}
+			else if (fieldId.equals(ID)) {
+				return new StringWriter();
+			}
+			else if (fieldId.equals(VALUE)) {
+				return new DoubleWriter();
+			}
+			return null;
+		}
+
+		@Override
+		protected RowBuilder newBuilder() {
+			return new RowBuilder<TestValue, Object>() {
+				private String id;
+				private Geometry geom;
+				private Double value;
+
+				@Override
+				public void setField(
+						final PersistentValue<Object> fieldValue ) {
+					if (fieldValue.getId().equals(
+							GEOM)) {
+						geom = (Geometry) fieldValue.getValue();
+					}
+					else if (fieldValue.getId().equals(
+							ID)) {
+						id = (String) fieldValue.getValue();
+					}
+					else if (fieldValue.getId().equals(
+							VALUE)) {
+						value = (Double) fieldValue.getValue();
+					}
+				}
+
+				@Override
+				public TestValue buildRow(
+						final ByteArrayId dataId ) {
+					return new TestValue(
+							geom,
+							id,
+							value);
+				}
+			};
+		}
+	}
+}
@@ -7,6 +7,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import mil.nga.giat.geowave.accumulo.metadata.AccumuloAdapterStore;
 import mil.nga.giat.geowave.accumulo.metadata.AccumuloDataStatisticsStore;
@@ -23,6 +24,7 @@ import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsVisibilityHandler;
 import mil.nga.giat.geowave.store.adapter.statistics.FieldTypeStatisticVisibility;
+import mil.nga.giat.geowave.store.adapter.statistics.IndexDensityStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.StatisticalDataAdapter;
 import mil.nga.giat.geowave.store.data.PersistentValue;
 import mil.nga.giat.geowave.store.data.VisibilityWriter;
@@ -262,6 +264,30 @@ public class AccumuloDataStoreStatsTest
 				1,
 				countStats.getCount());
 
+		final IndexDensityStatistics<?> densityStats = (IndexDensityStatistics<?>) this.statsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				IndexDensityStatistics.composeId(index.getId()),
+				"aaa",
+				"bbb");
+		assertEquals(
+				3,
+				densityStats.getTotalCount());
+
+		// the ranges of a query where there is no data are skipped
+		it1 = mockDataStore.query(
+				adapter,
+				index,
+				new SpatialQuery(
+						factory.toGeometry(new Envelope(
+								-50,
+								-40,
+								-50,
+								-40))),
+				-1,
+				"aaa",
+				"bbb");
+		assertFalse(it1.hasNext());
+
 		assertFalse(mockDataStore.deleteEntry(
 				index,
 				new ByteArrayId("test_pt_2".getBytes()),
@@ -347,6 +373,90 @@ public class AccumuloDataStoreStatsTest
 
 	}
 
+	@Test
+	public void testPooledWriters()
+			throws AccumuloException,
+			AccumuloSecurityException {
+		final AccumuloOperations operations = new BasicAccumuloOperations(
+				new MockInstance(
+						UUID.randomUUID().toString()).getConnector(
+						"root",
+						new PasswordToken(
+								new byte[0])));
+		final AccumuloOptions options = new AccumuloOptions();
+		options.setUseAltIndex(true);
+		final AccumuloDataStore dataStore = new AccumuloDataStore(
+				operations,
+				options);
+		final AccumuloDataStore otherDataStore = new AccumuloDataStore(
+				operations,
+				options);
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final WritableDataAdapter<TestGeometry> adapter = new TestGeometryAdapter();
+
+		for (int i = 0; i < 3; i++) {
+			dataStore.ingest(
+					adapter,
+					index,
+					new TestGeometry(
+							factory.createPoint(new Coordinate(
+									25 + i,
+									32)),
+							"test_pt_" + i));
+		}
+		// the writers of the store are flushed before it is queried
+		assertEquals(
+				3,
+				count(dataStore.query(
+						adapter,
+						index,
+						new SpatialQuery(
+								factory.toGeometry(new Envelope(
+										24,
+										28,
+										31,
+										33))))));
+
+		dataStore.flush();
+		assertTrue(otherDataStore.getEntry(
+				index,
+				new ByteArrayId(
+						"test_pt_1"),
+				adapter.getAdapterId()) != null);
+
+		// the store opens new writers once its writers are closed
+		dataStore.close();
+		dataStore.ingest(
+				adapter,
+				index,
+				new TestGeometry(
+						factory.createPoint(new Coordinate(
+								27,
+								31.5)),
+						"test_pt_3"));
+		assertTrue(dataStore.getEntry(
+				index,
+				new ByteArrayId(
+						"test_pt_3"),
+				adapter.getAdapterId()) != null);
+		dataStore.close();
+		assertEquals(
+				4,
+				((CountDataStatistics<?>) otherDataStore.statisticsStore.getDataStatistics(
+						adapter.getAdapterId(),
+						CountDataStatistics.STATS_ID)).getCount());
+	}
+
+	private static int count(
+			final CloseableIterator<?> it ) {
+		int count = 0;
+		while (it.hasNext()) {
+			it.next();
+			count++;
+		}
+		return count;
+	}
+
 	private static class TestGeometry
 	{
 		private final Geometry geom;
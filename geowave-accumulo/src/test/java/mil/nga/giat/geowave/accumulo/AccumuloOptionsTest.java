@@ -25,6 +25,7 @@ import mil.nga.giat.geowave.store.data.field.BasicWriter.StringWriter;
 import mil.nga.giat.geowave.store.data.field.FieldReader;
 import mil.nga.giat.geowave.store.data.field.FieldWriter;
 import mil.nga.giat.geowave.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.store.filter.DedupeFilter.DedupeMode;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
 import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.store.index.IndexType;
@@ -388,6 +389,8 @@ public class AccumuloOptionsTest
 
 		accumuloOptions.setUseAltIndex(true);
 
+		// the store retains writers for its tables until it is closed
+		mockDataStore.close();
 		accumuloOperations.deleteAll();
 
 		mockDataStore.ingest(
@@ -462,6 +465,68 @@ public class AccumuloOptionsTest
 				geom3.id);
 	}
 
+	@Test
+	public void testDedupeMode()
+			throws IOException {
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final WritableDataAdapter<TestGeometry> adapter = new TestGeometryAdapter();
+
+		accumuloOptions.setDedupeMode(DedupeMode.HASHED);
+
+		// the polygon spans several cells of the index so it is stored in
+		// duplicated rows
+		mockDataStore.ingest(
+				adapter,
+				index,
+				new TestGeometry(
+						factory.createPolygon(new Coordinate[] {
+							new Coordinate(
+									-20,
+									-20),
+							new Coordinate(
+									-20,
+									20),
+							new Coordinate(
+									20,
+									20),
+							new Coordinate(
+									20,
+									-20),
+							new Coordinate(
+									-20,
+									-20)
+						}),
+						"test_poly"));
+		mockDataStore.ingest(
+				adapter,
+				index,
+				new TestGeometry(
+						factory.createPoint(new Coordinate(
+								25,
+								32)),
+						"test_pt"));
+
+		final CloseableIterator<TestGeometry> it = mockDataStore.query(
+				adapter,
+				null);
+		final List<String> ids = new ArrayList<String>();
+		while (it.hasNext()) {
+			ids.add(it.next().id);
+		}
+		it.close();
+
+		// each entry is returned once
+		assertEquals(
+				2,
+				ids.size());
+		assertEquals(
+				true,
+				ids.contains("test_poly"));
+		assertEquals(
+				true,
+				ids.contains("test_pt"));
+	}
+
 	@Test
 	public void testDeleteAll() {
 		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
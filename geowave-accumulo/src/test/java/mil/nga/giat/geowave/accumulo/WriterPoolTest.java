@@ -0,0 +1,130 @@
+package mil.nga.giat.geowave.accumulo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriterPoolTest
+{
+	private Connector connector;
+
+	@Before
+	public void setUp()
+			throws AccumuloException,
+			AccumuloSecurityException {
+		connector = new MockInstance(
+				UUID.randomUUID().toString()).getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+	}
+
+	@Test
+	public void testRejectedFlush()
+			throws TableNotFoundException {
+		final List<TestWriter> createdWriters = new ArrayList<TestWriter>();
+		final WriterPool pool = new WriterPool(
+				new BasicAccumuloOperations(
+						connector) {
+					@Override
+					public Writer createWriter(
+							final String tableName,
+							final boolean createTable ) {
+						final TestWriter writer = new TestWriter(
+								createdWriters.isEmpty());
+						createdWriters.add(writer);
+						return writer;
+					}
+				});
+		final Writer writer = pool.getWriter(
+				"table",
+				true);
+		writer.write(createMutation());
+		try {
+			pool.flush();
+			fail("the rejected mutations should fail the flush");
+		}
+		catch (final RuntimeException e) {
+			// expected
+		}
+		// the failed writer is closed and replaced
+		assertEquals(
+				1,
+				createdWriters.get(
+						0).closeCount);
+		final Writer newWriter = pool.getWriter(
+				"table",
+				true);
+		assertNotSame(
+				writer,
+				newWriter);
+		newWriter.write(createMutation());
+		pool.flush();
+		assertEquals(
+				1,
+				createdWriters.get(
+						1).flushCount);
+		assertEquals(
+				2,
+				createdWriters.size());
+	}
+
+	private static Mutation createMutation() {
+		final Mutation mutation = new Mutation(
+				"row");
+		mutation.put(
+				"cf",
+				"cq",
+				"value");
+		return mutation;
+	}
+
+	private static class TestWriter implements
+			Writer
+	{
+		private final boolean reject;
+		private int flushCount = 0;
+		private int closeCount = 0;
+
+		private TestWriter(
+				final boolean reject ) {
+			this.reject = reject;
+		}
+
+		@Override
+		public void write(
+				final Iterable<Mutation> mutations ) {}
+
+		@Override
+		public void write(
+				final Mutation mutation ) {}
+
+		@Override
+		public void flush() {
+			flushCount++;
+			if (reject) {
+				throw new RuntimeException(
+						"rejected");
+			}
+		}
+
+		@Override
+		public void close() {
+			closeCount++;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package mil.nga.giat.geowave.accumulo.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.accumulo.BasicAccumuloOperations;
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.IngestEntryInfo;
+import mil.nga.giat.geowave.store.IngestEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccumuloDataStatisticsStoreTest
+{
+	private static final ByteArrayId ADAPTER = new ByteArrayId(
+			"adapter");
+
+	private AccumuloOperations accumuloOperations;
+
+	@Before
+	public void setUp()
+			throws AccumuloException,
+			AccumuloSecurityException {
+		accumuloOperations = new BasicAccumuloOperations(
+				new MockInstance(
+						UUID.randomUUID().toString()).getConnector(
+						"root",
+						new PasswordToken(
+								new byte[0])));
+	}
+
+	@Test
+	public void testBufferedStatistics() {
+		final AccumuloDataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations,
+				100,
+				Long.MAX_VALUE);
+		final AccumuloDataStatisticsStore otherStatsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations);
+		for (int i = 0; i < 3; i++) {
+			statsStore.incorporateStatistics(createCount());
+		}
+		// the statistics are merged in memory until they are flushed
+		assertNull(otherStatsStore.getDataStatistics(
+				ADAPTER,
+				CountDataStatistics.STATS_ID));
+		statsStore.flush();
+		assertEquals(
+				3,
+				getCount(otherStatsStore));
+
+		// reading through the same store includes the statistics in memory
+		statsStore.incorporateStatistics(createCount());
+		assertEquals(
+				4,
+				getCount(statsStore));
+		assertEquals(
+				4,
+				getCount(otherStatsStore));
+	}
+
+	@Test
+	public void testMaxPendingUpdates() {
+		final AccumuloDataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations,
+				2,
+				Long.MAX_VALUE);
+		final AccumuloDataStatisticsStore otherStatsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations);
+		statsStore.incorporateStatistics(createCount());
+		assertNull(otherStatsStore.getDataStatistics(
+				ADAPTER,
+				CountDataStatistics.STATS_ID));
+		statsStore.incorporateStatistics(createCount());
+		assertEquals(
+				2,
+				getCount(otherStatsStore));
+	}
+
+	@Test
+	public void testFailedWrite() {
+		final boolean[] failWrite = new boolean[] {
+			true
+		};
+		final AccumuloDataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations,
+				100,
+				Long.MAX_VALUE) {
+			@Override
+			protected void writeStatistics(
+					final Collection<DataStatistics<?>> statistics ) {
+				if (failWrite[0]) {
+					throw new RuntimeException(
+							"rejected");
+				}
+				super.writeStatistics(statistics);
+			}
+		};
+		final AccumuloDataStatisticsStore otherStatsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations);
+		statsStore.incorporateStatistics(createCount());
+		try {
+			statsStore.flush();
+			fail("the failed write should fail the flush");
+		}
+		catch (final RuntimeException e) {
+			// expected
+		}
+		// the statistics remain pending and are merged with later updates
+		statsStore.incorporateStatistics(createCount());
+		failWrite[0] = false;
+		statsStore.flush();
+		assertEquals(
+				2,
+				getCount(otherStatsStore));
+	}
+
+	private static long getCount(
+			final AccumuloDataStatisticsStore statsStore ) {
+		return ((CountDataStatistics<?>) statsStore.getDataStatistics(
+				ADAPTER,
+				CountDataStatistics.STATS_ID)).getCount();
+	}
+
+	private static CountDataStatistics<Object> createCount() {
+		final CountDataStatistics<Object> count = new CountDataStatistics<Object>(
+				ADAPTER);
+		count.entryIngested(
+				new IngestEntryInfo(
+						new ArrayList<ByteArrayId>(),
+						new ArrayList<FieldInfo>()),
+				null);
+		return count;
+	}
+}
@@ -0,0 +1,427 @@
+package mil.nga.giat.geowave.accumulo.query;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import junit.framework.Assert;
+import mil.nga.giat.geowave.accumulo.AccumuloDataStore;
+import mil.nga.giat.geowave.accumulo.AccumuloOptions;
+import mil.nga.giat.geowave.accumulo.BasicAccumuloOperations;
+import mil.nga.giat.geowave.accumulo.metadata.AccumuloAdapterStore;
+import mil.nga.giat.geowave.accumulo.metadata.AccumuloDataStatisticsStore;
+import mil.nga.giat.geowave.accumulo.query.AccumuloRangeQueryTest.TestGeometry;
+import mil.nga.giat.geowave.accumulo.query.AccumuloRangeQueryTest.TestGeometryAdapter;
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.CloseableIterator;
+import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsVisibilityHandler;
+import mil.nga.giat.geowave.store.adapter.statistics.EmptyStatisticVisibility;
+import mil.nga.giat.geowave.store.adapter.statistics.StatisticalDataAdapter;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.index.IndexType;
+import mil.nga.giat.geowave.store.query.Query;
+import mil.nga.giat.geowave.store.query.SpatialQuery;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class AccumuloQueryPlannerTest
+{
+	private BasicAccumuloOperations accumuloOperations;
+	private AccumuloOptions accumuloOptions;
+	private AccumuloDataStore mockDataStore;
+	private final GeometryFactory factory = new GeometryFactory();
+	private final Index spatialIndex = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+	private final Index xzIndex = IndexType.SPATIAL_XZ_VECTOR.createDefaultIndex();
+	private final TestGeometryAdapter adapter = new StatisticalGeometryAdapter();
+	private final TestGeometryAdapter otherAdapter = new OtherGeometryAdapter();
+	private final Query query = new SpatialQuery(
+			new GeometryFactory().toGeometry(new Envelope(
+					0,
+					10,
+					0,
+					10)));
+
+	@Before
+	public void ingestGeometries()
+			throws AccumuloException,
+			AccumuloSecurityException {
+		// a separate instance for each test so that data from other tests is
+		// not in the indices
+		final MockInstance mockInstance = new MockInstance(
+				UUID.randomUUID().toString());
+		final Connector mockConnector = mockInstance.getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+		accumuloOperations = new BasicAccumuloOperations(
+				mockConnector);
+		accumuloOptions = new AccumuloOptions();
+		accumuloOptions.setUseIndexDensityClipping(true);
+		mockDataStore = new AccumuloDataStore(
+				accumuloOperations,
+				accumuloOptions);
+
+		// the first adapter is in both indices, the other is only in the XZ
+		// index
+		for (int i = 0; i < 5; i++) {
+			final TestGeometry point = new TestGeometry(
+					factory.createPoint(new Coordinate(
+							i,
+							i)),
+					"pt" + i);
+			mockDataStore.ingest(
+					adapter,
+					spatialIndex,
+					point);
+			mockDataStore.ingest(
+					adapter,
+					xzIndex,
+					point);
+			mockDataStore.ingest(
+					otherAdapter,
+					xzIndex,
+					point);
+		}
+	}
+
+	@Test
+	public void testSingleIndex() {
+		final List<ByteArrayId> adapterIds = Arrays.asList(adapter.getAdapterId());
+		final QueryPlan plan = mockDataStore.getQueryPlan(
+				adapterIds,
+				query);
+		Assert.assertFalse(plan.isUnion());
+		Assert.assertEquals(
+				1,
+				plan.getIndices().size());
+		// both indices contain the adapter so both were estimated
+		Assert.assertEquals(
+				2,
+				plan.getEstimatedCosts().size());
+		Assert.assertNotNull(plan.getIndexDensity(plan.getIndices().get(
+				0).getId()));
+		Assert.assertEquals(
+				5,
+				count(mockDataStore.query(
+						adapterIds,
+						query)));
+	}
+
+	@Test
+	public void testCoveringIndex() {
+		// only the XZ index contains both adapters
+		final QueryPlan plan = mockDataStore.getQueryPlan(
+				null,
+				query);
+		Assert.assertFalse(plan.isUnion());
+		Assert.assertEquals(
+				1,
+				plan.getIndices().size());
+		Assert.assertEquals(
+				xzIndex.getId(),
+				plan.getIndices().get(
+						0).getId());
+		Assert.assertEquals(
+				10,
+				count(mockDataStore.query(query)));
+	}
+
+	@Test
+	public void testUnion() {
+		final TestGeometryAdapter thirdAdapter = new ThirdGeometryAdapter();
+		mockDataStore.ingest(
+				thirdAdapter,
+				spatialIndex,
+				new TestGeometry(
+						factory.createPoint(new Coordinate(
+								5,
+								5)),
+						"pt5"));
+		// no index contains all three adapters
+		final QueryPlan plan = mockDataStore.getQueryPlan(
+				null,
+				query);
+		Assert.assertTrue(plan.isUnion());
+		Assert.assertEquals(
+				2,
+				plan.getIndices().size());
+		Assert.assertEquals(
+				11,
+				count(mockDataStore.query(query)));
+	}
+
+	@Test
+	public void testUnequalEntryCounts() {
+		// the spatial index holds an entry of the adapter that the XZ index
+		// does not, so neither index is known to hold all of its entries
+		mockDataStore.ingest(
+				adapter,
+				spatialIndex,
+				new TestGeometry(
+						factory.createPoint(new Coordinate(
+								5,
+								5)),
+						"pt5"));
+		final List<ByteArrayId> adapterIds = Arrays.asList(adapter.getAdapterId());
+		final QueryPlan plan = mockDataStore.getQueryPlan(
+				adapterIds,
+				query);
+		Assert.assertTrue(plan.isUnion());
+		Assert.assertEquals(
+				6,
+				count(mockDataStore.query(
+						adapterIds,
+						query)));
+	}
+
+	@Test
+	public void testIncompleteStatistics() {
+		// an entry counted without a density, as if it had been written before
+		// the densities were maintained
+		final CountDataStatistics<TestGeometry> count = new CountDataStatistics<TestGeometry>(
+				adapter.getAdapterId());
+		count.entryIngested(
+				null,
+				null);
+		final AccumuloDataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations);
+		statsStore.incorporateStatistics(count);
+		statsStore.flush();
+		final List<ByteArrayId> adapterIds = Arrays.asList(adapter.getAdapterId());
+		final QueryPlan plan = mockDataStore.getQueryPlan(
+				adapterIds,
+				query);
+		Assert.assertTrue(plan.isUnion());
+		// the densities can not be used to skip ranges
+		for (final Index index : plan.getIndices()) {
+			Assert.assertNull(plan.getIndexDensity(index.getId()));
+		}
+		Assert.assertEquals(
+				5,
+				count(mockDataStore.query(
+						adapterIds,
+						query)));
+	}
+
+	@Test
+	public void testNoStatistics() {
+		// the entries of an adapter without statistics can not be accounted
+		// for, even though it has been written to both indices
+		final TestGeometryAdapter plainAdapter = new TestGeometryAdapter();
+		final TestGeometry point = new TestGeometry(
+				factory.createPoint(new Coordinate(
+						5,
+						5)),
+				"pt5");
+		mockDataStore.ingest(
+				plainAdapter,
+				spatialIndex,
+				point);
+		mockDataStore.ingest(
+				plainAdapter,
+				xzIndex,
+				point);
+		final List<ByteArrayId> adapterIds = Arrays.asList(plainAdapter.getAdapterId());
+		final QueryPlan plan = mockDataStore.getQueryPlan(
+				adapterIds,
+				query);
+		Assert.assertTrue(plan.isUnion());
+		Assert.assertEquals(
+				1,
+				count(mockDataStore.query(
+						adapterIds,
+						query)));
+	}
+
+	@Test
+	public void testSingleCandidateWithoutClipping() {
+		accumuloOptions.setUseIndexDensityClipping(false);
+		final CountingStatisticsStore statsStore = new CountingStatisticsStore(
+				accumuloOperations);
+		final AccumuloQueryPlanner planner = new AccumuloQueryPlanner(
+				accumuloOperations,
+				statsStore,
+				accumuloOptions);
+		final QueryPlan plan = planner.planQuery(
+				Arrays.asList(adapter.getAdapterId()),
+				query,
+				new CloseableIterator.Wrapper<Index>(
+						Arrays.asList(
+								spatialIndex).iterator()),
+				new AccumuloAdapterStore(
+						accumuloOperations));
+		Assert.assertEquals(
+				1,
+				plan.getIndices().size());
+		Assert.assertNull(plan.getIndexDensity(spatialIndex.getId()));
+		// there is no choice to make so the statistics are not read
+		Assert.assertEquals(
+				0,
+				statsStore.readCount);
+	}
+
+	@Test
+	public void testStatisticsCache() {
+		final CountingStatisticsStore statsStore = new CountingStatisticsStore(
+				accumuloOperations);
+		final AccumuloQueryPlanner planner = new AccumuloQueryPlanner(
+				accumuloOperations,
+				statsStore,
+				accumuloOptions);
+		final List<ByteArrayId> adapterIds = Arrays.asList(adapter.getAdapterId());
+		final AccumuloAdapterStore adapterStore = new AccumuloAdapterStore(
+				accumuloOperations);
+		planner.planQuery(
+				adapterIds,
+				query,
+				new CloseableIterator.Wrapper<Index>(
+						Arrays.asList(
+								spatialIndex,
+								xzIndex).iterator()),
+				adapterStore);
+		// every statistic of the adapter is read at once
+		Assert.assertEquals(
+				1,
+				statsStore.readCount);
+		planner.planQuery(
+				adapterIds,
+				query,
+				new CloseableIterator.Wrapper<Index>(
+						Arrays.asList(
+								spatialIndex,
+								xzIndex).iterator()),
+				adapterStore);
+		Assert.assertEquals(
+				1,
+				statsStore.readCount);
+		planner.statisticsChanged();
+		planner.planQuery(
+				adapterIds,
+				query,
+				new CloseableIterator.Wrapper<Index>(
+						Arrays.asList(
+								spatialIndex,
+								xzIndex).iterator()),
+				adapterStore);
+		Assert.assertEquals(
+				2,
+				statsStore.readCount);
+	}
+
+	private static int count(
+			final CloseableIterator<?> it ) {
+		int count = 0;
+		while (it.hasNext()) {
+			it.next();
+			count++;
+		}
+		try {
+			it.close();
+		}
+		catch (final IOException e) {
+			Assert.fail(e.getMessage());
+		}
+		return count;
+	}
+
+	private static class CountingStatisticsStore extends
+			AccumuloDataStatisticsStore
+	{
+		private int readCount = 0;
+
+		private CountingStatisticsStore(
+				final BasicAccumuloOperations accumuloOperations ) {
+			super(
+					accumuloOperations);
+		}
+
+		@Override
+		public DataStatistics<?> getDataStatistics(
+				final ByteArrayId adapterId,
+				final ByteArrayId statisticsId,
+				final String... authorizations ) {
+			readCount++;
+			return super.getDataStatistics(
+					adapterId,
+					statisticsId,
+					authorizations);
+		}
+
+		@Override
+		public CloseableIterator<DataStatistics<?>> getDataStatistics(
+				final ByteArrayId adapterId,
+				final String... authorizations ) {
+			readCount++;
+			return super.getDataStatistics(
+					adapterId,
+					authorizations);
+		}
+	}
+
+	private static class StatisticalGeometryAdapter extends
+			TestGeometryAdapter implements
+			StatisticalDataAdapter<TestGeometry>
+	{
+		@Override
+		public ByteArrayId getAdapterId() {
+			return new ByteArrayId(
+					"statistical");
+		}
+
+		@Override
+		public ByteArrayId[] getSupportedStatisticsIds() {
+			return new ByteArrayId[] {
+				CountDataStatistics.STATS_ID
+			};
+		}
+
+		@Override
+		public DataStatistics<TestGeometry> createDataStatistics(
+				final ByteArrayId statisticsId ) {
+			if (CountDataStatistics.STATS_ID.equals(statisticsId)) {
+				return new CountDataStatistics<TestGeometry>(
+						getAdapterId());
+			}
+			return null;
+		}
+
+		@Override
+		public DataStatisticsVisibilityHandler<TestGeometry> getVisibilityHandler(
+				final ByteArrayId statisticsId ) {
+			return new EmptyStatisticVisibility<TestGeometry>();
+		}
+	}
+
+	private static class OtherGeometryAdapter extends
+			StatisticalGeometryAdapter
+	{
+		@Override
+		public ByteArrayId getAdapterId() {
+			return new ByteArrayId(
+					"other");
+		}
+	}
+
+	private static class ThirdGeometryAdapter extends
+			StatisticalGeometryAdapter
+	{
+		@Override
+		public ByteArrayId getAdapterId() {
+			return new ByteArrayId(
+					"third");
+		}
+	}
+}
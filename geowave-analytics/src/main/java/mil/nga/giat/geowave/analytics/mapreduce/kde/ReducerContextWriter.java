@@ -99,6 +99,9 @@ public class ReducerContextWriter implements
 
 	}
 
+	@Override
+	public void flush() {}
+
 	@Override
 	public void close() {}
 
@@ -141,6 +141,11 @@ public class ReducerContextWriterOperations implements
 		return false;
 	}
 
+	@Override
+	public void addSplits(
+			final String tableName,
+			final List<ByteArrayId> splits ) {}
+
 	@Override
 	public boolean deleteAll(
 			final String tableName,
@@ -4,35 +4,116 @@ import java.util.Arrays;
 
 /**
  * This class is a wrapper around a byte array to ensure equals and hashcode
- * operations use the values of the bytes rather than explicit object identity
+ * operations use the values of the bytes rather than explicit object identity.
+ * It can also wrap a slice of a larger byte array (such as the backing array of
+ * an Accumulo Text or ByteSequence) without copying it, in which case the
+ * slice is only copied if getBytes() is called. IDs are ordered by the
+ * unsigned lexicographic order of their bytes, which is the order of keys in
+ * Accumulo, and an ID wrapping a null byte array is ordered first.
  */
-public class ByteArrayId
+public class ByteArrayId implements
+		Comparable<ByteArrayId>
 {
 	private final byte[] id;
+	private final int offset;
+	private final int length;
+	// lazily computed, 0 indicates it has not been computed yet
+	private int hashCode;
+	private volatile byte[] sliceCopy;
 
 	public ByteArrayId(
 			final byte[] id ) {
 		this.id = id;
+		offset = 0;
+		length = (id == null) ? 0 : id.length;
+	}
+
+	/**
+	 * Wrap a slice of a byte array without copying it. The byte array should
+	 * not be modified while this ID is in use.
+	 *
+	 * @param bytes
+	 *            the backing byte array
+	 * @param offset
+	 *            the offset of the ID within the backing array
+	 * @param length
+	 *            the length of the ID
+	 */
+	public ByteArrayId(
+			final byte[] bytes,
+			final int offset,
+			final int length ) {
+		if ((offset < 0) || (length < 0) || ((offset + length) > bytes.length)) {
+			throw new IndexOutOfBoundsException(
+					"Slice [" + offset + ", " + (offset + length) + ") is out of bounds for an array of length " + bytes.length);
+		}
+		id = bytes;
+		this.offset = offset;
+		this.length = length;
 	}
 
 	public ByteArrayId(
 			final String id ) {
-		this.id = StringUtils.stringToBinary(id);
+		this(
+				StringUtils.stringToBinary(id));
 	}
 
+	/**
+	 * @return the bytes of this ID, if this ID is a slice of a larger array
+	 *         this is a copy of the slice
+	 */
 	public byte[] getBytes() {
-		return id;
+		if ((offset == 0) && ((id == null) || (length == id.length))) {
+			return id;
+		}
+		byte[] copy = sliceCopy;
+		if (copy == null) {
+			copy = Arrays.copyOfRange(
+					id,
+					offset,
+					offset + length);
+			sliceCopy = copy;
+		}
+		return copy;
 	}
 
 	public String getString() {
-		return StringUtils.stringFromBinary(id);
+		return StringUtils.stringFromBinary(getBytes());
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Get a single byte of this ID without copying a slice
+	 *
+	 * @param index
+	 *            the index of the byte within this ID
+	 * @return the byte at the index
+	 */
+	public byte getByte(
+			final int index ) {
+		if ((index < 0) || (index >= length)) {
+			throw new IndexOutOfBoundsException(
+					"Index " + index + " is out of bounds for an ID of length " + length);
+		}
+		return id[offset + index];
 	}
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = (prime * result) + Arrays.hashCode(id);
+		int result = hashCode;
+		if (result == 0) {
+			// this is equivalent to 31 + Arrays.hashCode() of the bytes
+			final int prime = 31;
+			int bytesHash = (id == null) ? 0 : 1;
+			for (int i = offset; i < (offset + length); i++) {
+				bytesHash = (prime * bytesHash) + id[i];
+			}
+			result = prime + bytesHash;
+			hashCode = result;
+		}
 		return result;
 	}
 
@@ -49,11 +130,41 @@ public class ByteArrayId
 			return false;
 		}
 		final ByteArrayId other = (ByteArrayId) obj;
-		if (!Arrays.equals(
-				id,
-				other.id)) {
+		if ((id == null) || (other.id == null)) {
+			return id == other.id;
+		}
+		if (length != other.length) {
 			return false;
 		}
+		if ((hashCode != 0) && (other.hashCode != 0) && (hashCode != other.hashCode)) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (id[offset + i] != other.id[other.offset + i]) {
+				return false;
+			}
+		}
 		return true;
 	}
+
+	@Override
+	public int compareTo(
+			final ByteArrayId other ) {
+		if ((id == null) || (other.id == null)) {
+			if (id == other.id) {
+				return 0;
+			}
+			return (id == null) ? -1 : 1;
+		}
+		final int minLength = Math.min(
+				length,
+				other.length);
+		for (int i = 0; i < minLength; i++) {
+			final int diff = (id[offset + i] & 0xFF) - (other.id[other.offset + i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return length - other.length;
+	}
 }
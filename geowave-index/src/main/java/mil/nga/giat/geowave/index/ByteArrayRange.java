@@ -1,5 +1,12 @@
 package mil.nga.giat.geowave.index;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
 /***
  * Defines a unit interval on a number line
  * 
@@ -54,6 +61,148 @@ public class ByteArrayRange
 		return singleValue;
 	}
 
+	/**
+	 * Merge the ranges that intersect or are adjacent (the end of one range is
+	 * immediately followed by the start of the next) into a single range. The
+	 * end of a range is inclusive of every ID it is a prefix of, as is the case
+	 * for Accumulo row ranges.
+	 *
+	 * @param ranges
+	 *            the ranges to merge, in any order
+	 * @return the merged ranges, ordered by their start
+	 */
+	public static List<ByteArrayRange> mergeIntersections(
+			final Collection<ByteArrayRange> ranges ) {
+		return mergeIntersections(
+				ranges,
+				0);
+	}
+
+	/**
+	 * Merge the ranges that intersect or are separated by a gap of at most max
+	 * gap size IDs into a single range. The gap is only measured between IDs
+	 * of the same length. Ranges with a start after their end are empty and
+	 * are dropped.
+	 *
+	 * @param ranges
+	 *            the ranges to merge, in any order
+	 * @param maxGapSize
+	 *            the maximum number of IDs between the end of a range and the
+	 *            start of the next for them to be merged, 0 only merges ranges
+	 *            that intersect or are adjacent
+	 * @return the merged ranges, ordered by their start
+	 */
+	public static List<ByteArrayRange> mergeIntersections(
+			final Collection<ByteArrayRange> ranges,
+			final long maxGapSize ) {
+		final List<ByteArrayRange> sortedRanges = new ArrayList<ByteArrayRange>(
+				ranges.size());
+		for (final ByteArrayRange range : ranges) {
+			if (range.getStart().compareTo(
+					range.getEnd()) <= 0) {
+				sortedRanges.add(range);
+			}
+		}
+		Collections.sort(
+				sortedRanges,
+				START_COMPARATOR);
+		final List<ByteArrayRange> mergedRanges = new ArrayList<ByteArrayRange>(
+				sortedRanges.size());
+		ByteArrayRange current = null;
+		for (final ByteArrayRange range : sortedRanges) {
+			if (current == null) {
+				current = range;
+			}
+			else if (isWithinGap(
+					current.getEnd(),
+					range.getStart(),
+					maxGapSize)) {
+				current = new ByteArrayRange(
+						current.getStart(),
+						getCoveringEnd(
+								current.getEnd(),
+								range.getEnd()));
+			}
+			else {
+				mergedRanges.add(current);
+				current = range;
+			}
+		}
+		if (current != null) {
+			mergedRanges.add(current);
+		}
+		return mergedRanges;
+	}
+
+	private static final Comparator<ByteArrayRange> START_COMPARATOR = new Comparator<ByteArrayRange>() {
+		@Override
+		public int compare(
+				final ByteArrayRange o1,
+				final ByteArrayRange o2 ) {
+			return o1.getStart().compareTo(
+					o2.getStart());
+		}
+	};
+
+	private static boolean isWithinGap(
+			final ByteArrayId end,
+			final ByteArrayId start,
+			final long maxGapSize ) {
+		if ((start.compareTo(end) <= 0) || isPrefix(
+				end,
+				start)) {
+			// the ranges intersect
+			return true;
+		}
+		if (end.getLength() != start.getLength()) {
+			return false;
+		}
+		final BigInteger gapSize = new BigInteger(
+				1,
+				start.getBytes()).subtract(
+				new BigInteger(
+						1,
+						end.getBytes())).subtract(
+				BigInteger.ONE);
+		return gapSize.compareTo(BigInteger.valueOf(maxGapSize)) <= 0;
+	}
+
+	/**
+	 * @return the end that includes both ends, a prefix includes every ID
+	 *         that starts with it
+	 */
+	private static ByteArrayId getCoveringEnd(
+			final ByteArrayId end1,
+			final ByteArrayId end2 ) {
+		if (isPrefix(
+				end1,
+				end2)) {
+			return end1;
+		}
+		if (isPrefix(
+				end2,
+				end1)) {
+			return end2;
+		}
+		return (end1.compareTo(end2) >= 0) ? end1 : end2;
+	}
+
+	private static boolean isPrefix(
+			final ByteArrayId prefix,
+			final ByteArrayId id ) {
+		if (prefix.getLength() > id.getLength()) {
+			return false;
+		}
+		final byte[] prefixBytes = prefix.getBytes();
+		final byte[] idBytes = id.getBytes();
+		for (int i = 0; i < prefixBytes.length; i++) {
+			if (prefixBytes[i] != idBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
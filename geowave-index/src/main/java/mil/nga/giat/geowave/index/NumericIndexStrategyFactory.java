@@ -7,6 +7,7 @@ import mil.nga.giat.geowave.index.dimension.TimeDefinition;
 import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
 import mil.nga.giat.geowave.index.sfc.SFCFactory.SFCType;
 import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexFactory;
+import mil.nga.giat.geowave.index.sfc.xz.XZOrderIndexStrategy;
 
 public interface NumericIndexStrategyFactory
 {
@@ -105,4 +106,62 @@ public interface NumericIndexStrategyFactory
 			}
 		}
 	}
+
+	/**
+	 * Creates spatial index strategies that use XZ-ordering, so that each
+	 * vector geometry gets exactly one insertion ID
+	 */
+	public static class XZSpatialFactory implements
+			NumericIndexStrategyFactory
+	{
+		public static final int MAX_LEVEL = 12;
+		private static final NumericDimensionDefinition[] SPATIAL_DIMENSIONS = new NumericDimensionDefinition[] {
+			new LongitudeDefinition(),
+			new LatitudeDefinition()
+		};
+
+		@Override
+		public NumericIndexStrategy createIndexStrategy(
+				final DataType dataType ) {
+			switch (dataType) {
+				case VECTOR:
+					return new XZOrderIndexStrategy(
+							SPATIAL_DIMENSIONS,
+							MAX_LEVEL);
+				default:
+					throw new UnsupportedOperationException(
+							"There is not an XZ-ordering spatial index strategy for '" + dataType.name() + "' data types");
+			}
+		}
+	}
+
+	/**
+	 * Creates spatial-temporal index strategies that use XZ-ordering, so that
+	 * each vector geometry gets exactly one insertion ID per time bin
+	 */
+	public static class XZSpatialTemporalFactory implements
+			NumericIndexStrategyFactory
+	{
+		public static final int MAX_LEVEL = 12;
+		private static final NumericDimensionDefinition[] SPATIAL_TEMPORAL_DIMENSIONS = new NumericDimensionDefinition[] {
+			new LongitudeDefinition(),
+			new LatitudeDefinition(),
+			new TimeDefinition(
+					Unit.YEAR),
+		};
+
+		@Override
+		public NumericIndexStrategy createIndexStrategy(
+				final DataType dataType ) {
+			switch (dataType) {
+				case VECTOR:
+					return new XZOrderIndexStrategy(
+							SPATIAL_TEMPORAL_DIMENSIONS,
+							MAX_LEVEL);
+				default:
+					throw new UnsupportedOperationException(
+							"There is not an XZ-ordering spatial-temporal index strategy for '" + dataType.name() + "' data types");
+			}
+		}
+	}
 }
@@ -0,0 +1,204 @@
+package mil.nga.giat.geowave.index;
+
+import java.lang.reflect.Constructor;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mil.nga.giat.geowave.index.PersistableRegistrySpi.PersistableIdAndClass;
+import mil.nga.giat.geowave.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.TimeDefinition;
+import mil.nga.giat.geowave.index.dimension.UnboundedDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.hilbert.HilbertSFC;
+import mil.nga.giat.geowave.index.sfc.tiered.SingleTierSubStrategy;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
+import mil.nga.giat.geowave.index.sfc.xz.XZOrderIndexStrategy;
+import mil.nga.giat.geowave.index.sfc.zorder.ZOrderSFC;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This maps persistable classes to short persistable IDs (and back) so that
+ * PersistenceUtils does not need to write a fully qualified class name in
+ * front of every persisted object or resolve the class by name on every read.
+ * The classes of this module are registered by default and any other module
+ * can register its classes by providing a {@link PersistableRegistrySpi}.
+ * Classes that are not registered continue to be persisted by class name.
+ *
+ * The providers are loaded with the class loader of this class and with the
+ * context class loader. Accumulo tablet servers and GeoServer can load the
+ * other modules with a different class loader than this module, so when an ID
+ * is not registered the providers of the current context class loader are
+ * loaded before the ID is reported as unknown.
+ *
+ */
+public class PersistableRegistry
+{
+	private final static Logger LOGGER = Logger.getLogger(PersistableRegistry.class);
+	private static final PersistableIdAndClass[] INDEX_PERSISTABLES = new PersistableIdAndClass[] {
+		new PersistableIdAndClass(
+				(short) 1,
+				BasicDimensionDefinition.class),
+		new PersistableIdAndClass(
+				(short) 2,
+				LatitudeDefinition.class),
+		new PersistableIdAndClass(
+				(short) 3,
+				LongitudeDefinition.class),
+		new PersistableIdAndClass(
+				(short) 4,
+				UnboundedDimensionDefinition.class),
+		new PersistableIdAndClass(
+				(short) 5,
+				TimeDefinition.class),
+		new PersistableIdAndClass(
+				(short) 6,
+				TemporalBinningStrategy.class),
+		new PersistableIdAndClass(
+				(short) 7,
+				SFCDimensionDefinition.class),
+		new PersistableIdAndClass(
+				(short) 8,
+				HilbertSFC.class),
+		new PersistableIdAndClass(
+				(short) 9,
+				ZOrderSFC.class),
+		new PersistableIdAndClass(
+				(short) 10,
+				TieredSFCIndexStrategy.class),
+		new PersistableIdAndClass(
+				(short) 11,
+				SingleTierSubStrategy.class),
+		new PersistableIdAndClass(
+				(short) 12,
+				NullNumericIndexStrategy.class),
+		new PersistableIdAndClass(
+				(short) 13,
+				XZOrderIndexStrategy.class)
+	};
+
+	private final Map<Short, Constructor<? extends Persistable>> idToConstructor = new ConcurrentHashMap<Short, Constructor<? extends Persistable>>();
+	private final Map<Class<?>, Short> classToId = new ConcurrentHashMap<Class<?>, Short>();
+	// the class loaders whose providers have been loaded
+	private final Map<ClassLoader, Boolean> loadedClassLoaders = new WeakHashMap<ClassLoader, Boolean>();
+
+	protected PersistableRegistry() {
+		register(INDEX_PERSISTABLES);
+		loadProviders(PersistableRegistry.class.getClassLoader());
+		loadProviders(Thread.currentThread().getContextClassLoader());
+	}
+
+	private synchronized void loadProviders(
+			final ClassLoader classLoader ) {
+		if ((classLoader == null) || loadedClassLoaders.containsKey(classLoader)) {
+			return;
+		}
+		loadedClassLoaders.put(
+				classLoader,
+				Boolean.TRUE);
+		final Iterator<PersistableRegistrySpi> providers = ServiceLoader.load(
+				PersistableRegistrySpi.class,
+				classLoader).iterator();
+		try {
+			while (providers.hasNext()) {
+				register(providers.next().getSupportedPersistables());
+			}
+		}
+		catch (final ServiceConfigurationError e) {
+			LOGGER.warn(
+					"Unable to load persistable registry providers",
+					e);
+		}
+	}
+
+	public static PersistableRegistry getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	// the registry is created when it is first used without locking every
+	// call, as it is used to persist and read every persistable
+	private static class InstanceHolder
+	{
+		private static final PersistableRegistry INSTANCE = new PersistableRegistry();
+	}
+
+	private synchronized void register(
+			final PersistableIdAndClass[] persistables ) {
+		if (persistables == null) {
+			return;
+		}
+		for (final PersistableIdAndClass persistable : persistables) {
+			final short id = persistable.getPersistableId();
+			final Class<? extends Persistable> persistableClass = persistable.getPersistableClass();
+			if (id <= 0) {
+				LOGGER.warn("Persistable ID " + id + " for class " + persistableClass.getName() + " must be positive, it will be persisted by class name");
+				continue;
+			}
+			if (idToConstructor.containsKey(id)) {
+				if (idToConstructor.get(
+						id).getDeclaringClass().equals(
+						persistableClass)) {
+					// the provider is visible to more than one class loader
+					continue;
+				}
+				LOGGER.warn("Persistable ID " + id + " is already registered to class " + idToConstructor.get(
+						id).getDeclaringClass().getName() + ", class " + persistableClass.getName() + " will be persisted by class name");
+				continue;
+			}
+			if (classToId.containsKey(persistableClass)) {
+				LOGGER.warn("Class " + persistableClass.getName() + " is already registered with persistable ID " + classToId.get(persistableClass));
+				continue;
+			}
+			try {
+				final Constructor<? extends Persistable> constructor = persistableClass.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				idToConstructor.put(
+						id,
+						constructor);
+				classToId.put(
+						persistableClass,
+						id);
+			}
+			catch (final NoSuchMethodException e) {
+				LOGGER.warn(
+						"Class " + persistableClass.getName() + " does not have a no-arg constructor and can not be registered",
+						e);
+			}
+		}
+	}
+
+	/**
+	 * @param persistableClass
+	 *            the class of a persistable
+	 * @return the registered persistable ID, or null if the class is not
+	 *         registered
+	 */
+	public Short getPersistableId(
+			final Class<?> persistableClass ) {
+		return classToId.get(persistableClass);
+	}
+
+	/**
+	 * @param persistableId
+	 *            a registered persistable ID
+	 * @return the no-arg constructor of the persistable class registered with
+	 *         the ID, or null if the ID is not registered by the providers of
+	 *         any class loader that has been used
+	 */
+	public Constructor<? extends Persistable> getConstructor(
+			final short persistableId ) {
+		Constructor<? extends Persistable> constructor = idToConstructor.get(persistableId);
+		if (constructor == null) {
+			loadProviders(Thread.currentThread().getContextClassLoader());
+			constructor = idToConstructor.get(persistableId);
+		}
+		return constructor;
+	}
+}
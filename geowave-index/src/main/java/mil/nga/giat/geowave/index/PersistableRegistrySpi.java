@@ -0,0 +1,40 @@
+package mil.nga.giat.geowave.index;
+
+/**
+ * This is a service provider interface for registering persistable classes
+ * with short persistable IDs. A persistable that is registered is serialized
+ * by PersistenceUtils with its 2 byte ID rather than its fully qualified class
+ * name. Implementations are discovered using the
+ * {@link java.util.ServiceLoader} approach, so a provider should be listed in
+ * META-INF/services/mil.nga.giat.geowave.index.PersistableRegistrySpi.
+ *
+ * IDs must be unique across all providers and must never be changed once data
+ * has been persisted using them. IDs below 1000 are reserved for GeoWave, so
+ * third-party providers should use IDs from 1000 to 32767.
+ *
+ */
+public interface PersistableRegistrySpi
+{
+	public PersistableIdAndClass[] getSupportedPersistables();
+
+	public static class PersistableIdAndClass
+	{
+		private final short persistableId;
+		private final Class<? extends Persistable> persistableClass;
+
+		public PersistableIdAndClass(
+				final short persistableId,
+				final Class<? extends Persistable> persistableClass ) {
+			this.persistableId = persistableId;
+			this.persistableClass = persistableClass;
+		}
+
+		public short getPersistableId() {
+			return persistableId;
+		}
+
+		public Class<? extends Persistable> getPersistableClass() {
+			return persistableClass;
+		}
+	}
+}
@@ -5,17 +5,22 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
 /**
  * A set of convenience methods for serializing and deserializing persistable
- * objects
+ * objects. Persistables with a class registered in the PersistableRegistry are
+ * prefixed with a 2 byte persistable ID, all others are prefixed with their
+ * class name. Both formats can always be read.
  *
  */
 public class PersistenceUtils
 {
 	private final static Logger LOGGER = Logger.getLogger(PersistenceUtils.class);
+	private static final Map<String, Constructor<?>> CONSTRUCTOR_CACHE = new ConcurrentHashMap<String, Constructor<?>>();
 
 	public static byte[] toBinary(
 			final Collection<Persistable> persistables ) {
@@ -41,10 +46,21 @@ public class PersistenceUtils
 
 	public static byte[] toBinary(
 			final Persistable persistable ) {
+		final byte[] persistableBinary = persistable.toBinary();
+		final Short persistableId = PersistableRegistry.getInstance().getPersistableId(
+				persistable.getClass());
+		if (persistableId != null) {
+			// preface the payload with the negated persistable ID, a class
+			// name length is never negative so this can always be
+			// distinguished from a class name prefix
+			final ByteBuffer buf = ByteBuffer.allocate(2 + persistableBinary.length);
+			buf.putShort((short) -persistableId);
+			buf.put(persistableBinary);
+			return buf.array();
+		}
 		// preface the payload with the class name and a length of the class
 		// name
 		final byte[] className = StringUtils.stringToBinary(persistable.getClass().getName());
-		final byte[] persistableBinary = persistable.toBinary();
 		final int classNameLength = className.length;
 		final ByteBuffer buf = ByteBuffer.allocate(4 + classNameLength + persistableBinary.length);
 		buf.putInt(classNameLength);
@@ -77,17 +93,30 @@ public class PersistenceUtils
 			final byte[] bytes,
 			final Class<T> expectedType ) {
 		final ByteBuffer buf = ByteBuffer.wrap(bytes);
-		final int classNameLength = buf.getInt();
-		final byte[] classNameBinary = new byte[classNameLength];
-		final byte[] persistableBinary = new byte[bytes.length - classNameLength - 4];
-		buf.get(classNameBinary);
-
-		final String className = StringUtils.stringFromBinary(classNameBinary);
-
-		final T retVal = classFactory(
-				className,
-				expectedType);
+		final short persistableId = buf.getShort();
+		final T retVal;
+		if (persistableId < 0) {
+			retVal = persistableFactory(
+					(short) -persistableId,
+					expectedType);
+		}
+		else {
+			// this was persisted with a class name prefix, the length of the
+			// class name is an int and the short that was read is its high
+			// order bytes
+			buf.rewind();
+			final int classNameLength = buf.getInt();
+			final byte[] classNameBinary = new byte[classNameLength];
+			buf.get(classNameBinary);
+
+			final String className = StringUtils.stringFromBinary(classNameBinary);
+
+			retVal = classFactory(
+					className,
+					expectedType);
+		}
 		if (retVal != null) {
+			final byte[] persistableBinary = new byte[buf.remaining()];
 			buf.get(persistableBinary);
 			retVal.fromBinary(persistableBinary);
 		}
@@ -95,27 +124,70 @@ public class PersistenceUtils
 	}
 
 	@SuppressWarnings("unchecked")
-	public static <T> T classFactory(
-			final String className,
+	private static <T> T persistableFactory(
+			final short persistableId,
 			final Class<T> expectedType ) {
-		Class<?> factoryType = null;
-
+		final Constructor<? extends Persistable> constructor = PersistableRegistry.getInstance().getConstructor(
+				persistableId);
+		if (constructor == null) {
+			// the module registering the ID is not visible to this class
+			// loader, returning null would silently drop the object
+			throw new IllegalArgumentException(
+					"error creating class: persistable ID " + persistableId + " is not registered");
+		}
+		if (!expectedType.isAssignableFrom(constructor.getDeclaringClass())) {
+			LOGGER.warn("error creating class: " + constructor.getDeclaringClass().getName() + " does not implement " + expectedType.getCanonicalName());
+			return null;
+		}
 		try {
-			factoryType = Class.forName(className);
+			return (T) constructor.newInstance();
 		}
 		catch (final Throwable e) {
 			LOGGER.warn(
-					"error creating class: could not find class " + className,
+					"error creating class: could not create class " + constructor.getDeclaringClass().getName(),
 					e);
 		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> T classFactory(
+			final String className,
+			final Class<T> expectedType ) {
+		Constructor<?> noArgConstructor = CONSTRUCTOR_CACHE.get(className);
+		if (noArgConstructor == null) {
+			Class<?> factoryType = null;
+
+			try {
+				factoryType = Class.forName(className);
+			}
+			catch (final Throwable e) {
+				LOGGER.warn(
+						"error creating class: could not find class " + className,
+						e);
+			}
+
+			if (factoryType != null) {
+				try {
+					// use the no arg constructor and make sure its accessible
+					noArgConstructor = factoryType.getDeclaredConstructor();
+					noArgConstructor.setAccessible(true);
+					CONSTRUCTOR_CACHE.put(
+							className,
+							noArgConstructor);
+				}
+				catch (final Throwable e) {
+					LOGGER.warn(
+							"error creating class: could not create class " + className,
+							e);
+				}
+			}
+		}
 
-		if (factoryType != null) {
+		if (noArgConstructor != null) {
 			Object factoryClassInst = null;
 
 			try {
-				// use the no arg constructor and make sure its accessible
-				final Constructor<?> noArgConstructor = factoryType.getDeclaredConstructor();
-				noArgConstructor.setAccessible(true);
 				factoryClassInst = noArgConstructor.newInstance();
 			}
 			catch (final Throwable e) {
@@ -1,7 +1,6 @@
 package mil.nga.giat.geowave.index.dimension.bin;
 
 import java.nio.ByteBuffer;
-import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
@@ -21,6 +20,11 @@ import mil.nga.giat.geowave.index.sfc.data.NumericRange;
  * efficiency purposes. So if the average query is for a 24 hour period, the
  * unit should not be a day, but could be perhaps a month or a year (depending
  * on the temporal extent of the dataset).
+ *
+ * The boundaries of each bin are computed with epoch day arithmetic in the
+ * timezone, rather than with Calendar instances. A Calendar is only used for
+ * values before the Gregorian cutover and for boundaries near a change of the
+ * timezone offset, so that the bins are identical to those of a Calendar.
  */
 public class TemporalBinningStrategy implements
 		BinningStrategy
@@ -57,14 +61,18 @@ public class TemporalBinningStrategy implements
 	};
 
 	protected static final long MILLIS_PER_DAY = 86400000L;
-	private static final NumberFormat TWO_DIGIT_NUMBER = NumberFormat.getIntegerInstance();
-	{
-		TWO_DIGIT_NUMBER.setMinimumIntegerDigits(2);
-		TWO_DIGIT_NUMBER.setMaximumIntegerDigits(2);
-	}
-
+	// a boundary is computed with a Calendar if the timezone offset changes
+	// within this many millis of it
+	private static final long MAX_OFFSET_CHANGE_MILLIS = 4 * 3600000L;
+	// the default Gregorian cutover of GregorianCalendar (1582-10-15), it uses
+	// the Julian calendar before then
+	private static final long GREGORIAN_CUTOVER_MILLIS = -12219292800000L;
 	private Unit unit;
 	private String timezone;
+	private volatile TimeZone timeZoneInstance;
+	// the bin of the last value, as consecutive values are typically in the
+	// same bin
+	private volatile Bin lastBin;
 
 	protected TemporalBinningStrategy() {}
 
@@ -99,18 +107,187 @@ public class TemporalBinningStrategy implements
 	@Override
 	public BinValue getBinnedValue(
 			final double value ) {
-		// convert to a calendar and subtract the epoch for the bin
-		final Calendar epochCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-		epochCal.setTimeInMillis((long) value);
+		final long millis = (long) value;
+		final Bin bin = getBin(millis);
+		return new BinValue(
+				bin.binId.clone(),
+				millis - bin.startMillis);
+	}
+
+	/**
+	 * Get the bin containing a raw date in milliseconds
+	 */
+	private Bin getBin(
+			final long millis ) {
+		Bin bin = lastBin;
+		if ((bin != null) && (millis >= bin.startMillis) && (millis < bin.nextStartMillis)) {
+			return bin;
+		}
+		bin = getArithmeticBin(millis);
+		if (bin == null) {
+			bin = getCalendarBin(millis);
+		}
+		lastBin = bin;
+		return bin;
+	}
+
+	/**
+	 * @return the bin of the value computed from its epoch day in the
+	 *         timezone, or null if a Calendar is needed to match its bin
+	 */
+	private Bin getArithmeticBin(
+			final long millis ) {
+		final TimeZone tz = getTimeZone();
+		final long epochDay = floorDiv(
+				millis + tz.getOffset(millis),
+				MILLIS_PER_DAY);
+		final long yearMonthDay = getYearMonthDay(epochDay);
+		final int year = (int) (yearMonthDay / 10000);
+		final int month = (int) ((yearMonthDay / 100) % 100);
+		final int day = (int) (yearMonthDay % 100);
+		final long startDay;
+		final long nextStartDay;
+		switch (unit) {
+			case YEAR:
+			default:
+				startDay = getEpochDay(
+						year,
+						1,
+						1);
+				nextStartDay = getEpochDay(
+						year + 1,
+						1,
+						1);
+				break;
+			case MONTH:
+				startDay = getEpochDay(
+						year,
+						month,
+						1);
+				nextStartDay = (month == 12) ? getEpochDay(
+						year + 1,
+						1,
+						1) : getEpochDay(
+						year,
+						month + 1,
+						1);
+				break;
+			case DAY:
+				startDay = epochDay;
+				nextStartDay = epochDay + 1;
+		}
+		final long startMillis = getStartMillis(
+				tz,
+				startDay);
+		final long nextStartMillis = getStartMillis(
+				tz,
+				nextStartDay);
+		// a bin starting before the Gregorian cutover is in the Julian calendar
+		if ((startMillis < (GREGORIAN_CUTOVER_MILLIS + (2 * MILLIS_PER_DAY))) || (nextStartMillis == Long.MIN_VALUE) || (millis < startMillis) || (millis >= nextStartMillis)) {
+			return null;
+		}
+		return new Bin(
+				getBinId(
+						year,
+						month - 1,
+						day),
+				startMillis,
+				nextStartMillis);
+	}
+
+	/**
+	 * @return the millis of the start of a day in the timezone, or
+	 *         Long.MIN_VALUE if the timezone offset changes near the start of
+	 *         the day
+	 */
+	private static long getStartMillis(
+			final TimeZone tz,
+			final long epochDay ) {
+		final long localMillis = epochDay * MILLIS_PER_DAY;
+		final int offset = tz.getOffset(localMillis - tz.getRawOffset());
+		final long millis = localMillis - offset;
+		if ((tz.getOffset(millis - MAX_OFFSET_CHANGE_MILLIS) != offset) || (tz.getOffset(millis + MAX_OFFSET_CHANGE_MILLIS) != offset)) {
+			return Long.MIN_VALUE;
+		}
+		return millis;
+	}
+
+	private static long floorDiv(
+			final long x,
+			final long y ) {
+		final long quotient = x / y;
+		if (((x % y) != 0) && ((x < 0) != (y < 0))) {
+			return quotient - 1;
+		}
+		return quotient;
+	}
+
+	/**
+	 * @return the proleptic Gregorian date of a day since 1970-01-01 as
+	 *         year * 10000 + month * 100 + day, with the month from 1 to 12
+	 */
+	private static long getYearMonthDay(
+			final long epochDay ) {
+		final long z = epochDay + 719468;
+		final long era = ((z >= 0) ? z : z - 146096) / 146097;
+		final long dayOfEra = z - (era * 146097);
+		final long yearOfEra = ((dayOfEra - (dayOfEra / 1460)) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+		final long dayOfYear = dayOfEra - (((365 * yearOfEra) + (yearOfEra / 4)) - (yearOfEra / 100));
+		// the month and day of year count from march
+		final long marchMonth = ((5 * dayOfYear) + 2) / 153;
+		final long day = (dayOfYear - (((153 * marchMonth) + 2) / 5)) + 1;
+		final long month = (marchMonth < 10) ? marchMonth + 3 : marchMonth - 9;
+		final long year = (yearOfEra + (era * 400)) + ((month <= 2) ? 1 : 0);
+		return (year * 10000) + (month * 100) + day;
+	}
+
+	/**
+	 * @return the days since 1970-01-01 of a proleptic Gregorian date, with the
+	 *         month from 1 to 12
+	 */
+	private static long getEpochDay(
+			final long year,
+			final long month,
+			final long day ) {
+		final long marchYear = (month <= 2) ? year - 1 : year;
+		final long era = ((marchYear >= 0) ? marchYear : marchYear - 399) / 400;
+		final long yearOfEra = marchYear - (era * 400);
+		final long dayOfYear = ((((153 * ((month > 2) ? month - 3 : month + 9)) + 2) / 5) + day) - 1;
+		final long dayOfEra = (((yearOfEra * 365) + (yearOfEra / 4)) - (yearOfEra / 100)) + dayOfYear;
+		return ((era * 146097) + dayOfEra) - 719468;
+	}
+
+	private Bin getCalendarBin(
+			final long millis ) {
+		final TimeZone tz = getTimeZone();
+		final Calendar epochCal = Calendar.getInstance(tz);
+		epochCal.setTimeInMillis(millis);
+		final byte[] binId = getBinId(epochCal);
 		setToEpoch(epochCal);
-		// use the value to get the bin ID (although the epoch should work fine
-		// too)
-		final Calendar valueCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-		valueCal.setTimeInMillis((long) value);
+		final long startMillis = epochCal.getTimeInMillis();
+		// because not every year has 366 days, and not every month has 31
+		// days we need to reset next epoch to the actual epoch
+		final Calendar nextEpochCal = Calendar.getInstance(tz);
+		// set it to a value in the middle of the bin just to be sure (for
+		// example if the bin size does not get to the next epoch as is
+		// the case when units are days and the timezone accounts for
+		// daylight savings time)
+		nextEpochCal.setTimeInMillis(startMillis + (long) (getBinSizeMillis() * 1.5));
+		setToEpoch(nextEpochCal);
+		return new Bin(
+				binId,
+				startMillis,
+				nextEpochCal.getTimeInMillis());
+	}
 
-		return new BinValue(
-				getBinId(valueCal),
-				valueCal.getTimeInMillis() - epochCal.getTimeInMillis());
+	private TimeZone getTimeZone() {
+		// TimeZone.getTimeZone() returns a clone on each call, so keep one
+		TimeZone tz = timeZoneInstance;
+		if (tz == null) {
+			tz = TimeZone.getTimeZone(timezone);
+			timeZoneInstance = tz;
+		}
+		return tz;
 	}
 
 	private long getBinSizeMillis() {
@@ -178,23 +355,50 @@ public class TemporalBinningStrategy implements
 
 	private byte[] getBinId(
 			final Calendar value ) {
+		return getBinId(
+				value.get(Calendar.YEAR),
+				value.get(Calendar.MONTH),
+				value.get(Calendar.DAY_OF_MONTH));
+	}
+
+	/**
+	 * @param month
+	 *            the month from 0 to 11, as with Calendar
+	 */
+	private byte[] getBinId(
+			final int year,
+			final int month,
+			final int day ) {
 		// this is assuming we want human-readable bin ID's but alternatively we
 		// could consider returning a more compressed representation
 		switch (unit) {
 			case YEAR:
 			default:
-				return StringUtils.stringToBinary(Integer.toString(value.get(Calendar.YEAR)));
+				return StringUtils.stringToBinary(Integer.toString(year));
 			case MONTH:
-				return StringUtils.stringToBinary((Integer.toString(value.get(Calendar.YEAR)) + "_" + TWO_DIGIT_NUMBER.format(value.get(Calendar.MONTH))));
+				return StringUtils.stringToBinary((Integer.toString(year) + "_" + toTwoDigits(month)));
 			case DAY:
-				return StringUtils.stringToBinary((Integer.toString(value.get(Calendar.YEAR)) + "_" + TWO_DIGIT_NUMBER.format(value.get(Calendar.MONTH)) + "_" + TWO_DIGIT_NUMBER.format(value.get(Calendar.DAY_OF_MONTH))));
+				return StringUtils.stringToBinary((Integer.toString(year) + "_" + toTwoDigits(month) + "_" + toTwoDigits(day)));
 		}
 	}
 
+	/**
+	 * Formats a month or day as exactly two digits. This is used rather than a
+	 * shared NumberFormat because NumberFormat is not thread-safe.
+	 */
+	private static String toTwoDigits(
+			final int value ) {
+		final int twoDigitValue = value % 100;
+		if (twoDigitValue < 10) {
+			return "0" + twoDigitValue;
+		}
+		return Integer.toString(twoDigitValue);
+	}
+
 	private Calendar getStartEpoch(
 			final byte[] binId ) {
 		final String str = StringUtils.stringFromBinary(binId);
-		final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		final Calendar cal = Calendar.getInstance(getTimeZone());
 		switch (unit) {
 			case DAY:
 				final int day = Integer.parseInt(str.substring(
@@ -226,15 +430,10 @@ public class TemporalBinningStrategy implements
 	@Override
 	public BinRange[] getNormalizedRanges(
 			final NumericData range ) {
-		final Calendar startEpoch = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-		final long binSizeMillis = getBinSizeMillis();
-		// initialize the epoch to the range min and then reset appropriate
-		// values to 0 based on the units
-		startEpoch.setTimeInMillis((long) range.getMin());
-		setToEpoch(startEpoch);
+		Bin bin = getBin((long) range.getMin());
 		// now make sure all bin definitions between the start and end bins
 		// are covered
-		final long startEpochMillis = startEpoch.getTimeInMillis();
+		final long startEpochMillis = bin.startMillis;
 		long epochIterator = startEpochMillis;
 		final List<BinRange> bins = new ArrayList<BinRange>();
 		// track this, so that we can easily declare a range to be the full
@@ -242,19 +441,8 @@ public class TemporalBinningStrategy implements
 		boolean firstBin = ((long) range.getMin() != startEpochMillis);
 		boolean lastBin = false;
 		do {
-			// because not every year has 366 days, and not every month has 31
-			// days we need to reset next epoch to the actual epoch
-			final Calendar nextEpochCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-			// set it to a value in the middle of the bin just to be sure (for
-			// example if the bin size does not get to the next epoch as is
-			// the case when units are days and the timezone accounts for
-			// daylight savings time)
-			nextEpochCal.setTimeInMillis(epochIterator + (long) (binSizeMillis * 1.5));
-			setToEpoch(nextEpochCal);
-			final long nextEpoch = nextEpochCal.getTimeInMillis();
+			final long nextEpoch = bin.nextStartMillis;
 			final long maxOfBin = nextEpoch - 1;
-			final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-			cal.setTimeInMillis(epochIterator);
 			long startMillis, endMillis;
 			boolean fullExtent;
 			if ((long) range.getMax() <= maxOfBin) {
@@ -278,11 +466,14 @@ public class TemporalBinningStrategy implements
 			// we have the millis for range, but to normalize for this bin we
 			// need to subtract the epoch of the bin
 			bins.add(new BinRange(
-					getBinId(cal),
+					bin.binId.clone(),
 					startMillis - epochIterator,
 					endMillis - epochIterator,
 					fullExtent));
 			epochIterator = nextEpoch;
+			if (!lastBin) {
+				bin = getBin(epochIterator);
+			}
 			// iterate until we reach our end epoch
 		}
 		while (!lastBin);
@@ -307,6 +498,8 @@ public class TemporalBinningStrategy implements
 		buffer.get(timeZoneName);
 		unit = Unit.getUnit(unitCalendarEnum);
 		timezone = StringUtils.stringFromBinary(timeZoneName);
+		timeZoneInstance = null;
+		lastBin = null;
 	}
 
 	@Override
@@ -363,4 +556,20 @@ public class TemporalBinningStrategy implements
 				minMillis,
 				maxMillis);
 	}
+
+	private static class Bin
+	{
+		private final byte[] binId;
+		private final long startMillis;
+		private final long nextStartMillis;
+
+		private Bin(
+				final byte[] binId,
+				final long startMillis,
+				final long nextStartMillis ) {
+			this.binId = binId;
+			this.startMillis = startMillis;
+			this.nextStartMillis = nextStartMillis;
+		}
+	}
 }
@@ -11,7 +11,9 @@ public class SFCFactory
 {
 	/***
 	 * Generates a SFC instance based on the dimensions definition and the 
-	 * space filling curve type
+	 * space filling curve type. The curves will internally use specialized
+	 * primitive encoders when the dimensions allow (2 or 3 dimensions that fit
+	 * in a long), which produce the same IDs as the general implementations.
 	 * 
 	 * @param dimensionDefs  specifies the min, max, and cardinality for this instance of
 	 *                       the SFC
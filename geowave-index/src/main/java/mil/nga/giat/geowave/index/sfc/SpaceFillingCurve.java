@@ -1,7 +1,9 @@
 package mil.nga.giat.geowave.index.sfc;
 
 import java.math.BigInteger;
+import java.util.Iterator;
 
+import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.Persistable;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
 
@@ -26,6 +28,22 @@ public interface SpaceFillingCurve extends
 	public byte[] getId(
 			double[] values );
 
+	/***
+	 * Maps a batch of n-dimensional values to a single dimension. This is
+	 * equivalent to calling getId() for each set of values, but allows the
+	 * implementation to re-use intermediate buffers across the batch.
+	 * 
+	 * @param values
+	 *            an array of n-dimensional values to be encoded in the SFC
+	 * @param ids
+	 *            the array that is filled with the value derived from the SFC
+	 *            transform for each entry in values (at the same index), it
+	 *            must be at least as long as values
+	 */
+	public void getIds(
+			double[][] values,
+			byte[][] ids );
+
 	/***
 	 * Gets n-dimensional ranges from a single dimension, i.e. 0033423 ->
 	 * [12,33]
@@ -65,6 +83,23 @@ public interface SpaceFillingCurve extends
 	public RangeDecomposition decomposeQueryFully(
 			MultiDimensionalNumericData query );
 
+	/***
+	 * Returns an iterator of the ranges on the 1-d space filling curve that
+	 * correspond to the n-dimensional range described in the query parameter,
+	 * covering the same space as decomposeQueryFully. The ranges are returned
+	 * in SFC order and, where the curve supports it, are produced lazily as
+	 * the iterator is consumed so that the first ranges are available without
+	 * waiting for (or holding in memory) the complete decomposition.
+	 * 
+	 * @param query
+	 *            describes the n-dimensional query window that will be
+	 *            decomposed
+	 * @return an iterator of the ranges on the SFC that overlap the parameters
+	 *         supplied in the query object, in SFC order
+	 */
+	public Iterator<ByteArrayRange> getDecompositionIterator(
+			MultiDimensionalNumericData query );
+
 	/***
 	 * Returns a collection of ranges on the 1-d space filling curve that
 	 * correspond to the n-dimensional range described in the query parameter.
@@ -98,6 +133,25 @@ public interface SpaceFillingCurve extends
 	public BigInteger getEstimatedIdCount(
 			MultiDimensionalNumericData data );
 
+	/***
+	 * Determines the estimated number of rows a multi-dimensional range will
+	 * span within this space filling curve, using primitive arithmetic and
+	 * stopping as soon as the estimate is known to be greater than a maximum.
+	 * This is intended for comparing the estimate against a threshold, such
+	 * as when choosing a tier for an entry.
+	 * 
+	 * @param data
+	 *            describes the n-dimensional range to estimate the row count
+	 *            for
+	 * @param maxIdCount
+	 *            the maximum row count of interest
+	 * @return the estimate of the row count if it is less than or equal to
+	 *         maxIdCount, otherwise a value greater than maxIdCount
+	 */
+	public long getEstimatedIdCount(
+			MultiDimensionalNumericData data,
+			long maxIdCount );
+
 	/***
 	 * Get the range/size of a single insertion ID for each dimension
 	 * 
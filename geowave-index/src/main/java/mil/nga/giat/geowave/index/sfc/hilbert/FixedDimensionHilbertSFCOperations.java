@@ -0,0 +1,499 @@
+package mil.nga.giat.geowave.index.sfc.hilbert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.index.sfc.zorder.ZOrderUtils;
+
+import com.google.uzaygezen.core.CompactHilbertCurve;
+
+/**
+ * This supports Hilbert SFC operations for the very common case of 2 or 3
+ * dimensions with the same bits of precision in each dimension. Rather than
+ * feeding the compact Hilbert curve one bit at a time through BitVectors, the
+ * coordinates are interleaved into a long and the Hilbert index is computed
+ * with a precomputed state table, consuming one group of interleaved bits per
+ * level. The state tables are derived from the same transforms the compact
+ * Hilbert curve uses (entry point and direction per sub-hypercube) so the
+ * resulting IDs are byte-for-byte identical. Query decomposition with a
+ * limited number of ranges is still delegated to the compact Hilbert curve.
+ *
+ */
+public class FixedDimensionHilbertSFCOperations extends
+		PrimitiveHilbertSFCOperations
+{
+	private static final HilbertStateTable[] STATE_TABLES = new HilbertStateTable[] {
+		null,
+		null,
+		new HilbertStateTable(
+				2),
+		new HilbertStateTable(
+				3)
+	};
+
+	private HilbertStateTable stateTable;
+	private int bitsOfPrecision;
+	private int expectedByteCount;
+
+	/**
+	 * Determines whether the fixed dimension operations can be used for a set
+	 * of dimension definitions
+	 *
+	 * @param dimensionDefs
+	 *            the dimension definitions
+	 * @return true if there are 2 or 3 dimensions, each with the same bits of
+	 *         precision, and the total precision fits within 62 bits
+	 */
+	public static boolean isSupported(
+			final SFCDimensionDefinition[] dimensionDefs ) {
+		if ((dimensionDefs.length != 2) && (dimensionDefs.length != 3)) {
+			return false;
+		}
+		final int bits = dimensionDefs[0].getBitsOfPrecision();
+		for (final SFCDimensionDefinition dimension : dimensionDefs) {
+			if (dimension.getBitsOfPrecision() != bits) {
+				return false;
+			}
+		}
+		return (bits * dimensionDefs.length) <= 62;
+	}
+
+	@Override
+	public void init(
+			final SFCDimensionDefinition[] dimensionDefs ) {
+		super.init(dimensionDefs);
+		stateTable = STATE_TABLES[dimensionDefs.length];
+		bitsOfPrecision = dimensionDefs[0].getBitsOfPrecision();
+		expectedByteCount = ((bitsOfPrecision * dimensionDefs.length) + 7) / 8;
+	}
+
+	@Override
+	public byte[] convertToHilbert(
+			final double[] values,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		// Compare the number of dimensions to the number of values sent in
+		if (dimensionDefinitions.length != values.length) {
+			throw new ArrayIndexOutOfBoundsException(
+					"Number of dimensions supplied (" + values.length + ") is different than initialized (" + dimensionDefinitions.length + ").");
+		}
+		final long[] coordinates = new long[values.length];
+		for (int d = 0; d < values.length; d++) {
+			coordinates[d] = normalizeDimension(
+					dimensionDefinitions[d],
+					values[d],
+					binsPerDimension[d]);
+		}
+		return toBigEndianBytes(stateTable.index(
+				ZOrderUtils.interleave(coordinates),
+				bitsOfPrecision));
+	}
+
+	@Override
+	public void convertToHilbert(
+			final double[][] values,
+			final byte[][] hilbertValues,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		if (hilbertValues.length < values.length) {
+			throw new ArrayIndexOutOfBoundsException(
+					"Number of output IDs (" + hilbertValues.length + ") is less than the number of values supplied (" + values.length + ").");
+		}
+		for (int i = 0; i < values.length; i++) {
+			hilbertValues[i] = convertToHilbert(
+					values[i],
+					compactHilbertCurve,
+					dimensionDefinitions);
+		}
+	}
+
+	@Override
+	public long[] indicesFromHilbert(
+			final byte[] hilbertValue,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		final long[] coordinates = new long[dimensionDefinitions.length];
+		ZOrderUtils.deinterleave(
+				stateTable.indexInverse(
+						fromBigEndianBytes(hilbertValue),
+						bitsOfPrecision),
+				coordinates);
+		return coordinates;
+	}
+
+	@Override
+	public MultiDimensionalNumericData convertFromHilbert(
+			final byte[] hilbertValue,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		final long[] coordinates = indicesFromHilbert(
+				hilbertValue,
+				compactHilbertCurve,
+				dimensionDefinitions);
+		final NumericRange[] retVal = new NumericRange[dimensionDefinitions.length];
+		for (int i = 0; i < retVal.length; i++) {
+			retVal[i] = denormalizeDimension(
+					dimensionDefinitions[i],
+					coordinates[i],
+					binsPerDimension[i]);
+		}
+		return new BasicNumericDataset(
+				retVal);
+	}
+
+	/**
+	 * Rather than collecting the complete decomposition, this walks the
+	 * Hilbert curve depth first in index order, one sub-hypercube at a time,
+	 * so ranges are produced in SFC order as the iterator is consumed. The
+	 * decomposition matches the compact Hilbert curve decomposition with an
+	 * unlimited number of ranges.
+	 */
+	@Override
+	public Iterator<ByteArrayRange> getDecompositionIterator(
+			final NumericData[] rangePerDimension,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final int totalPrecision,
+			final boolean removeVacuum ) {
+		if (expectedByteCount <= 0) {
+			// special case for no precision
+			return super.getDecompositionIterator(
+					rangePerDimension,
+					compactHilbertCurve,
+					dimensionDefinitions,
+					totalPrecision,
+					removeVacuum);
+		}
+		final long[] queryMins = new long[dimensionDefinitions.length];
+		final long[] queryMaxes = new long[dimensionDefinitions.length];
+		final List<Long> minRangeList = new ArrayList<Long>();
+		final List<Long> maxRangeList = new ArrayList<Long>();
+		for (int d = 0; d < dimensionDefinitions.length; d++) {
+			queryMins[d] = normalizeDimension(
+					dimensionDefinitions[d],
+					rangePerDimension[d].getMin(),
+					binsPerDimension[d]);
+			queryMaxes[d] = normalizeDimension(
+					dimensionDefinitions[d],
+					rangePerDimension[d].getMax(),
+					binsPerDimension[d]);
+			minRangeList.add(queryMins[d]);
+			maxRangeList.add(queryMaxes[d]);
+		}
+		return new HilbertRangeIterator(
+				queryMins,
+				queryMaxes,
+				getMinimumQuadSize(
+						minRangeList,
+						maxRangeList));
+	}
+
+	private byte[] toBigEndianBytes(
+			long value ) {
+		final byte[] bytes = new byte[expectedByteCount];
+		for (int i = expectedByteCount - 1; i >= 0; i--) {
+			bytes[i] = (byte) (value & 0xFF);
+			value >>>= 8;
+		}
+		return bytes;
+	}
+
+	private long fromBigEndianBytes(
+			final byte[] bytes ) {
+		if (bytes.length != expectedByteCount) {
+			throw new IllegalArgumentException(
+					"Hilbert value must be " + expectedByteCount + " bytes, not " + bytes.length);
+		}
+		long value = 0;
+		for (final byte b : bytes) {
+			value = (value << 8) | (b & 0xFF);
+		}
+		return value;
+	}
+
+	/**
+	 * A sub-hypercube of the Hilbert curve, which is also a contiguous range of
+	 * Hilbert indices
+	 */
+	private static class HilbertNode
+	{
+		private final int level;
+		private final long indexPrefix;
+		private final int state;
+		private final long[] origin;
+
+		private HilbertNode(
+				final int level,
+				final long indexPrefix,
+				final int state,
+				final long[] origin ) {
+			this.level = level;
+			this.indexPrefix = indexPrefix;
+			this.state = state;
+			this.origin = origin;
+		}
+	}
+
+	/**
+	 * Visits the sub-hypercubes that intersect a query in Hilbert order,
+	 * merging adjacent Hilbert ranges. Only the path to the current
+	 * sub-hypercube (and its siblings) is held in memory.
+	 */
+	private class HilbertRangeIterator implements
+			Iterator<ByteArrayRange>
+	{
+		private final long[] queryMins;
+		private final long[] queryMaxes;
+		private final long minQuadSize;
+		private final Deque<HilbertNode> stack = new ArrayDeque<HilbertNode>();
+		private long pendingStart = -1;
+		private long pendingEnd = -1;
+		private ByteArrayRange next;
+
+		private HilbertRangeIterator(
+				final long[] queryMins,
+				final long[] queryMaxes,
+				final long minQuadSize ) {
+			this.queryMins = queryMins;
+			this.queryMaxes = queryMaxes;
+			this.minQuadSize = minQuadSize;
+			stack.push(new HilbertNode(
+					bitsOfPrecision,
+					0,
+					0,
+					new long[queryMins.length]));
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null) {
+				next = computeNext();
+			}
+			return next != null;
+		}
+
+		@Override
+		public ByteArrayRange next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final ByteArrayRange retVal = next;
+			next = null;
+			return retVal;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		private ByteArrayRange computeNext() {
+			while (!stack.isEmpty()) {
+				final HilbertNode node = stack.pop();
+				final long sideLength = 1L << node.level;
+				boolean covered = true;
+				boolean disjoint = false;
+				for (int d = 0; d < queryMins.length; d++) {
+					final long cellMin = node.origin[d];
+					final long cellMax = (cellMin + sideLength) - 1;
+					if ((cellMin > queryMaxes[d]) || (cellMax < queryMins[d])) {
+						disjoint = true;
+						break;
+					}
+					if ((cellMin < queryMins[d]) || (cellMax > queryMaxes[d])) {
+						covered = false;
+					}
+				}
+				if (disjoint) {
+					continue;
+				}
+				final int levelBits = node.level * stateTable.numDimensions;
+				final long cellCount = 1L << levelBits;
+				if (covered || (node.level == 0) || (cellCount < minQuadSize)) {
+					final long start = node.indexPrefix << levelBits;
+					final long end = (start + cellCount) - 1;
+					if ((pendingStart >= 0) && (start == (pendingEnd + 1))) {
+						pendingEnd = end;
+						continue;
+					}
+					final ByteArrayRange retVal = getPendingRange();
+					pendingStart = start;
+					pendingEnd = end;
+					if (retVal != null) {
+						return retVal;
+					}
+					continue;
+				}
+				// push the children in reverse so that they are visited in
+				// Hilbert order
+				final int childLevel = node.level - 1;
+				for (int index = stateTable.mask; index >= 0; index--) {
+					final int cell = (node.state << stateTable.numDimensions) | index;
+					final int point = stateTable.pointBits[cell];
+					final long[] childOrigin = new long[queryMins.length];
+					for (int d = 0; d < queryMins.length; d++) {
+						// the first dimension is the most significant bit of
+						// an interleaved point
+						final long bit = (point >>> (queryMins.length - 1 - d)) & 1;
+						childOrigin[d] = node.origin[d] | (bit << childLevel);
+					}
+					stack.push(new HilbertNode(
+							childLevel,
+							(node.indexPrefix << stateTable.numDimensions) | index,
+							stateTable.pointNextState[cell],
+							childOrigin));
+				}
+			}
+			final ByteArrayRange retVal = getPendingRange();
+			pendingStart = -1;
+			pendingEnd = -1;
+			return retVal;
+		}
+
+		private ByteArrayRange getPendingRange() {
+			if (pendingStart < 0) {
+				return null;
+			}
+			return new ByteArrayRange(
+					new ByteArrayId(
+							toBigEndianBytes(pendingStart)),
+					new ByteArrayId(
+							toBigEndianBytes(pendingEnd)));
+		}
+	}
+
+	/**
+	 * A state machine for the Hilbert curve of a fixed number of dimensions.
+	 * The state is the entry point and intra-subhypercube direction of the
+	 * current sub-hypercube, and for every state and every set of n bits
+	 * (taken one from each dimension at the same level) the table holds the n
+	 * bits of the Hilbert index and the state for the next level.
+	 */
+	private static class HilbertStateTable
+	{
+		private final int numDimensions;
+		private final int mask;
+		private final int[] indexBits;
+		private final int[] indexNextState;
+		private final int[] pointBits;
+		private final int[] pointNextState;
+
+		private HilbertStateTable(
+				final int numDimensions ) {
+			this.numDimensions = numDimensions;
+			final int cellCount = 1 << numDimensions;
+			mask = cellCount - 1;
+			final int stateCount = cellCount * numDimensions;
+			indexBits = new int[stateCount * cellCount];
+			indexNextState = new int[stateCount * cellCount];
+			pointBits = new int[stateCount * cellCount];
+			pointNextState = new int[stateCount * cellCount];
+			for (int entryPoint = 0; entryPoint < cellCount; entryPoint++) {
+				for (int direction = 0; direction < numDimensions; direction++) {
+					final int state = (entryPoint * numDimensions) + direction;
+					for (int point = 0; point < cellCount; point++) {
+						// transform the point into the sub-hypercube's frame
+						// and take the gray code rank
+						final int index = grayCodeInverse(rotateRight(
+								point ^ entryPoint,
+								direction));
+						final int nextDirection = (direction + lowestDifferentBit(index) + 1) % numDimensions;
+						final int nextEntryPoint = entryPoint ^ rotateLeft(
+								smallerEvenAndGrayCode(index),
+								direction);
+						final int nextState = (nextEntryPoint * numDimensions) + nextDirection;
+						indexBits[(state * cellCount) + point] = index;
+						indexNextState[(state * cellCount) + point] = nextState;
+						pointBits[(state * cellCount) + index] = point;
+						pointNextState[(state * cellCount) + index] = nextState;
+					}
+				}
+			}
+		}
+
+		private long index(
+				final long interleavedPoint,
+				final int levels ) {
+			long index = 0;
+			int state = 0;
+			for (int level = levels - 1; level >= 0; level--) {
+				final int cell = (state << numDimensions) | (int) ((interleavedPoint >>> (level * numDimensions)) & mask);
+				index = (index << numDimensions) | indexBits[cell];
+				state = indexNextState[cell];
+			}
+			return index;
+		}
+
+		private long indexInverse(
+				final long index,
+				final int levels ) {
+			long interleavedPoint = 0;
+			int state = 0;
+			for (int level = levels - 1; level >= 0; level--) {
+				final int cell = (state << numDimensions) | (int) ((index >>> (level * numDimensions)) & mask);
+				interleavedPoint = (interleavedPoint << numDimensions) | pointBits[cell];
+				state = pointNextState[cell];
+			}
+			return interleavedPoint;
+		}
+
+		private int rotateRight(
+				final int value,
+				final int count ) {
+			if (count == 0) {
+				return value;
+			}
+			return ((value >>> count) | (value << (numDimensions - count))) & mask;
+		}
+
+		private int rotateLeft(
+				final int value,
+				final int count ) {
+			if (count == 0) {
+				return value;
+			}
+			return ((value << count) | (value >>> (numDimensions - count))) & mask;
+		}
+
+		private static int grayCodeInverse(
+				int value ) {
+			value ^= value >>> 1;
+			value ^= value >>> 2;
+			return value;
+		}
+
+		private int lowestDifferentBit(
+				final int value ) {
+			if ((value == 0) || (value == mask)) {
+				return 0;
+			}
+			if ((value & 1) == 0) {
+				return Integer.numberOfTrailingZeros(value);
+			}
+			return Integer.numberOfTrailingZeros(~value);
+		}
+
+		private static int smallerEvenAndGrayCode(
+				final int value ) {
+			if ((value & 1) == 1) {
+				return value ^ (value >>> 1) ^ 1;
+			}
+			if (value == 0) {
+				return 0;
+			}
+			final int smallerEven = value - 2;
+			return smallerEven ^ (smallerEven >>> 1);
+		}
+	}
+}
@@ -4,8 +4,10 @@ import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
+import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
@@ -23,7 +25,9 @@ import com.google.uzaygezen.core.MultiDimensionalSpec;
 public class HilbertSFC implements
 		SpaceFillingCurve
 {
-	protected CompactHilbertCurve compactHilbertCurve;
+	// the compact hilbert curve keeps scratch bit vectors as instance state so
+	// each thread gets its own instance
+	private ThreadLocal<CompactHilbertCurve> compactHilbertCurve;
 	protected SFCDimensionDefinition[] dimensionDefinitions;
 	protected int totalPrecision;
 
@@ -54,9 +58,15 @@ public class HilbertSFC implements
 			totalPrecision += dimension.getBitsOfPrecision();
 		}
 
-		compactHilbertCurve = new CompactHilbertCurve(
-				new MultiDimensionalSpec(
-						bitsPerDimension));
+		final MultiDimensionalSpec spec = new MultiDimensionalSpec(
+				bitsPerDimension);
+		compactHilbertCurve = new ThreadLocal<CompactHilbertCurve>() {
+			@Override
+			protected CompactHilbertCurve initialValue() {
+				return new CompactHilbertCurve(
+						spec);
+			}
+		};
 
 		dimensionDefinitions = dimensionDefs;
 		setOptimalOperations(
@@ -69,6 +79,16 @@ public class HilbertSFC implements
 			final int totalPrecision,
 			final List<Integer> bitsPerDimension,
 			final SFCDimensionDefinition[] dimensionDefs ) {
+		if (FixedDimensionHilbertSFCOperations.isSupported(dimensionDefs)) {
+			// 2 and 3 dimensional curves with equal precision per dimension
+			// can use a state table rather than the generic compact hilbert
+			// curve for IDs
+			final FixedDimensionHilbertSFCOperations fixedDimensionOps = new FixedDimensionHilbertSFCOperations();
+			fixedDimensionOps.init(dimensionDefs);
+			getIdOperations = fixedDimensionOps;
+			decomposeQueryOperations = fixedDimensionOps;
+			return;
+		}
 		boolean primitiveForGetId = true;
 		final boolean primitiveForQueryDecomposition = totalPrecision <= 62L;
 		for (final Integer bits : bitsPerDimension) {
@@ -115,7 +135,21 @@ public class HilbertSFC implements
 			final double[] values ) {
 		return getIdOperations.convertToHilbert(
 				values,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
+				dimensionDefinitions);
+	}
+
+	/***
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getIds(
+			final double[][] values,
+			final byte[][] ids ) {
+		getIdOperations.convertToHilbert(
+				values,
+				ids,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
@@ -130,6 +164,20 @@ public class HilbertSFC implements
 				-1);
 	}
 
+	/***
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<ByteArrayRange> getDecompositionIterator(
+			final MultiDimensionalNumericData query ) {
+		return decomposeQueryOperations.getDecompositionIterator(
+				query.getDataPerDimension(),
+				compactHilbertCurve.get(),
+				dimensionDefinitions,
+				totalPrecision,
+				REMOVE_VACUUM);
+	}
+
 	// TODO: improve this method - min/max not being calculated optimally
 	/***
 	 * {@inheritDoc}
@@ -143,7 +191,7 @@ public class HilbertSFC implements
 		}
 		return decomposeQueryOperations.decomposeRange(
 				query.getDataPerDimension(),
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions,
 				totalPrecision,
 				maxFilteredIndexedRanges,
@@ -259,6 +307,16 @@ public class HilbertSFC implements
 				dimensionDefinitions);
 	}
 
+	@Override
+	public long getEstimatedIdCount(
+			final MultiDimensionalNumericData data,
+			final long maxIdCount ) {
+		return getIdOperations.getEstimatedIdCount(
+				data,
+				dimensionDefinitions,
+				maxIdCount);
+	}
+
 	@Override
 	public int getBitsOfPrecision() {
 		return totalPrecision;
@@ -269,7 +327,7 @@ public class HilbertSFC implements
 			final byte[] id ) {
 		return getIdOperations.convertFromHilbert(
 				id,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
@@ -278,7 +336,7 @@ public class HilbertSFC implements
 			final byte[] id ) {
 		return getIdOperations.indicesFromHilbert(
 				id,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
@@ -1,6 +1,9 @@
 package mil.nga.giat.geowave.index.sfc.hilbert;
 
 import java.math.BigInteger;
+import java.util.Iterator;
+
+import mil.nga.giat.geowave.index.ByteArrayRange;
 
 import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
 import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
@@ -45,6 +48,28 @@ public interface HilbertSFCOperations
 			CompactHilbertCurve compactHilbertCurve,
 			SFCDimensionDefinition[] dimensionDefinitions );
 
+	/**
+	 * Convert a batch of raw values (each ordered per dimension) to SFC values,
+	 * filling in the given array of SFC values. This allows implementations to
+	 * re-use intermediate results across the batch.
+	 * 
+	 * @param values
+	 *            an array of raw values per dimension in order
+	 * @param hilbertValues
+	 *            the array to fill with the Hilbert SFC value for each entry in
+	 *            values, it must be at least as long as values
+	 * @param compactHilbertCurve
+	 *            the compact Hilbert curve to use for the conversion
+	 * @param dimensionDefinitions
+	 *            a set of dimension definitions to use to normalize the raw
+	 *            values
+	 */
+	public void convertToHilbert(
+			double[][] values,
+			byte[][] hilbertValues,
+			CompactHilbertCurve compactHilbertCurve,
+			SFCDimensionDefinition[] dimensionDefinitions );
+
 	/**
 	 * Convert the single SFC value to the ranges of raw values that it
 	 * represents
@@ -116,6 +141,33 @@ public interface HilbertSFCOperations
 			int maxFilteredIndexedRanges,
 			boolean removeVacuum );
 
+	/**
+	 * Decompose the raw range per dimension values into compact Hilbert SFC
+	 * ranges without a limit on the number of ranges, returning them in SFC
+	 * order as an iterator. Implementations may produce the ranges lazily.
+	 * 
+	 * @param rangePerDimension
+	 *            the raw range per dimension
+	 * @param compactHilbertCurve
+	 *            the compact Hilbert curve to use for the conversion
+	 * @param dimensionDefinitions
+	 *            a set of dimension definitions to use to normalize the raw
+	 *            values
+	 * @param totalPrecision
+	 *            the total precision of the dimension definitions, for
+	 *            convenience
+	 * @param removeVacuum
+	 *            a flag to pass to the compact hilbert curve range
+	 *            decomposition
+	 * @return the SFC ranges for the raw-valued ranges, in SFC order
+	 */
+	public Iterator<ByteArrayRange> getDecompositionIterator(
+			NumericData[] rangePerDimension,
+			CompactHilbertCurve compactHilbertCurve,
+			SFCDimensionDefinition[] dimensionDefinitions,
+			int totalPrecision,
+			boolean removeVacuum );
+
 	/**
 	 * Get a quick (minimal complexity calculation) estimate of the total row
 	 * IDs a particular data would require to fully cover with SFC values
@@ -132,6 +184,26 @@ public interface HilbertSFCOperations
 			MultiDimensionalNumericData data,
 			SFCDimensionDefinition[] dimensionDefinitions );
 
+	/**
+	 * Get a quick estimate of the total row IDs a particular data would
+	 * require to fully cover with SFC values, stopping as soon as the estimate
+	 * is greater than a maximum
+	 * 
+	 * @param data
+	 *            the dataset
+	 * @param dimensionDefinitions
+	 *            a set of dimension definitions to use to normalize the raw
+	 *            values
+	 * @param maxIdCount
+	 *            the maximum row count of interest
+	 * @return the total estimated row IDs if it is less than or equal to
+	 *         maxIdCount, otherwise a value greater than maxIdCount
+	 */
+	public long getEstimatedIdCount(
+			MultiDimensionalNumericData data,
+			SFCDimensionDefinition[] dimensionDefinitions,
+			long maxIdCount );
+
 	/***
 	 * Get the range/size of a single insertion ID for each dimension
 	 * 
@@ -3,6 +3,8 @@ package mil.nga.giat.geowave.index.sfc.hilbert;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
@@ -51,17 +53,33 @@ public class PrimitiveHilbertSFCOperations implements
 
 	protected long minHilbertValue;
 	protected long maxHilbertValue;
+	protected int[] bitsPerDimension;
+	protected int totalPrecision;
+
+	// the bit vectors used to feed the compact hilbert curve are only
+	// intermediate results, so they are re-used per thread rather than
+	// allocated for every ID
+	private final ThreadLocal<HilbertScratch> scratch = new ThreadLocal<HilbertScratch>() {
+		@Override
+		protected HilbertScratch initialValue() {
+			return new HilbertScratch(
+					bitsPerDimension,
+					totalPrecision);
+		}
+	};
 
 	@Override
 	public void init(
 			final SFCDimensionDefinition[] dimensionDefs ) {
 		binsPerDimension = new long[dimensionDefs.length];
-		int totalPrecision = 0;
+		bitsPerDimension = new int[dimensionDefs.length];
+		totalPrecision = 0;
 		for (int d = 0; d < dimensionDefs.length; d++) {
 			final SFCDimensionDefinition dimension = dimensionDefs[d];
 			binsPerDimension[d] = (long) Math.pow(
 					2,
 					dimension.getBitsOfPrecision());
+			bitsPerDimension[d] = dimension.getBitsOfPrecision();
 			totalPrecision += dimension.getBitsOfPrecision();
 		}
 		minHilbertValue = 0;
@@ -75,62 +93,72 @@ public class PrimitiveHilbertSFCOperations implements
 			final double[] values,
 			final CompactHilbertCurve compactHilbertCurve,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		return convertToHilbert(
+				values,
+				compactHilbertCurve,
+				dimensionDefinitions,
+				scratch.get());
+	}
 
-		final List<Long> dimensionValues = new ArrayList<Long>();
-
-		// Compare the number of dimensions to the number of values sent in
-		if (dimensionDefinitions.length != values.length) {
+	@Override
+	public void convertToHilbert(
+			final double[][] values,
+			final byte[][] hilbertValues,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		if (hilbertValues.length < values.length) {
 			throw new ArrayIndexOutOfBoundsException(
-					"Number of dimensions supplied (" + values.length + ") is different than initialized (" + dimensionDefinitions.length + ").");
+					"Number of output IDs (" + hilbertValues.length + ") is less than the number of values supplied (" + values.length + ").");
 		}
-
-		// Loop through each value, then normalize the value based on the
-		// dimension definition
-		for (int i = 0; i < dimensionDefinitions.length; i++) {
-			dimensionValues.add(normalizeDimension(
-					dimensionDefinitions[i],
+		final HilbertScratch threadScratch = scratch.get();
+		for (int i = 0; i < values.length; i++) {
+			hilbertValues[i] = convertToHilbert(
 					values[i],
-					binsPerDimension[i]));
+					compactHilbertCurve,
+					dimensionDefinitions,
+					threadScratch);
 		}
-
-		// Convert the normalized values to a BitVector
-		final BitVector hilbertBitVector = convertToHilbert(
-				dimensionValues,
-				compactHilbertCurve,
-				dimensionDefinitions);
-
-		return hilbertBitVector.toBigEndianByteArray();
 	}
 
 	/***
-	 * Converts the incoming values (one per dimension) into a BitVector using
-	 * the Compact Hilbert instance. BitVector is a wrapper to allow values
-	 * longer than 64 bits.
+	 * Converts the incoming values (one per dimension) into a hilbert value
+	 * using the Compact Hilbert instance. The normalized values are kept as
+	 * primitives and the intermediate BitVectors are re-used from the scratch
+	 * space so the only allocation is the resulting byte array.
 	 *
 	 * @param values
 	 *            n-dimensional point to transoform to a point on the hilbert
 	 *            SFC
+	 * @param threadScratch
+	 *            the intermediate bit vectors owned by the calling thread
 	 * @return point on hilbert SFC
 	 */
-	private BitVector convertToHilbert(
-			final List<Long> values,
+	private byte[] convertToHilbert(
+			final double[] values,
 			final CompactHilbertCurve compactHilbertCurve,
-			final SFCDimensionDefinition[] dimensionDefinitions ) {
-		final BitVector[] bitVectors = new BitVector[values.size()];
-
-		final BitVector hilbertBitVector = BitVectorFactories.OPTIMAL.apply(compactHilbertCurve.getSpec().sumBitsPerDimension());
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final HilbertScratch threadScratch ) {
+		// Compare the number of dimensions to the number of values sent in
+		if (dimensionDefinitions.length != values.length) {
+			throw new ArrayIndexOutOfBoundsException(
+					"Number of dimensions supplied (" + values.length + ") is different than initialized (" + dimensionDefinitions.length + ").");
+		}
 
-		for (int i = 0; i < values.size(); i++) {
-			bitVectors[i] = BitVectorFactories.OPTIMAL.apply(dimensionDefinitions[i].getBitsOfPrecision());
-			bitVectors[i].copyFrom(values.get(i));
+		// Loop through each value, then normalize the value based on the
+		// dimension definition
+		for (int i = 0; i < dimensionDefinitions.length; i++) {
+			threadScratch.dimensionBitVectors[i].copyFrom(normalizeDimension(
+					dimensionDefinitions[i],
+					values[i],
+					binsPerDimension[i]));
 		}
 
 		compactHilbertCurve.index(
-				bitVectors,
+				threadScratch.dimensionBitVectors,
 				0,
-				hilbertBitVector);
+				threadScratch.hilbertBitVector);
 
-		return hilbertBitVector;
+		return threadScratch.hilbertBitVector.toBigEndianByteArray();
 	}
 
 	@Override
@@ -216,7 +244,7 @@ public class PrimitiveHilbertSFCOperations implements
 	 *             thrown when the value passed doesn't fit with in the
 	 *             dimension definition provided
 	 */
-	private long normalizeDimension(
+	protected long normalizeDimension(
 			final SFCDimensionDefinition boundedDimensionDefinition,
 			final double value,
 			final long bins )
@@ -251,7 +279,7 @@ public class PrimitiveHilbertSFCOperations implements
 	 *             thrown when the value passed doesn't fit with in the hilbert
 	 *             SFC for the dimension definition provided
 	 */
-	private NumericRange denormalizeDimension(
+	protected NumericRange denormalizeDimension(
 			final SFCDimensionDefinition boundedDimensionDefinition,
 			final long value,
 			final long bins )
@@ -273,6 +301,24 @@ public class PrimitiveHilbertSFCOperations implements
 
 	}
 
+	@Override
+	public Iterator<ByteArrayRange> getDecompositionIterator(
+			final NumericData[] rangePerDimension,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final int totalPrecision,
+			final boolean removeVacuum ) {
+		// the compact hilbert curve query builder produces all ranges at once
+		return Arrays.asList(
+				decomposeRange(
+						rangePerDimension,
+						compactHilbertCurve,
+						dimensionDefinitions,
+						totalPrecision,
+						Integer.MAX_VALUE,
+						removeVacuum).getRanges()).iterator();
+	}
+
 	@Override
 	public RangeDecomposition decomposeRange(
 			final NumericData[] rangePerDimension,
@@ -414,7 +460,7 @@ public class PrimitiveHilbertSFCOperations implements
 	 *            maximum values for each dimension (ordered)
 	 * @return largest range that will be fully decomposed
 	 */
-	private long getMinimumQuadSize(
+	protected long getMinimumQuadSize(
 			final List<Long> minRangeList,
 			final List<Long> maxRangeList ) {
 		long maxRange = 1;
@@ -463,6 +509,34 @@ public class PrimitiveHilbertSFCOperations implements
 		return BigInteger.valueOf(estimatedIdCount);
 	}
 
+	@Override
+	public long getEstimatedIdCount(
+			final MultiDimensionalNumericData data,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final long maxIdCount ) {
+		final double[] mins = data.getMinValuesPerDimension();
+		final double[] maxes = data.getMaxValuesPerDimension();
+		long estimatedIdCount = 1L;
+		for (int d = 0; d < data.getDimensionCount(); d++) {
+			final long binMin = normalizeDimension(
+					dimensionDefinitions[d],
+					mins[d],
+					binsPerDimension[d]);
+			final long binMax = normalizeDimension(
+					dimensionDefinitions[d],
+					maxes[d],
+					binsPerDimension[d]);
+			final long binCount = Math.abs(binMax - binMin) + 1;
+			// exit as soon as the count exceeds the max, which also ensures
+			// the multiplication can not overflow
+			if (estimatedIdCount > (maxIdCount / binCount)) {
+				return Long.MAX_VALUE;
+			}
+			estimatedIdCount *= binCount;
+		}
+		return estimatedIdCount;
+	}
+
 	@Override
 	public double[] getInsertionIdRangePerDimension(
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
@@ -472,4 +546,20 @@ public class PrimitiveHilbertSFCOperations implements
 		}
 		return retVal;
 	}
+
+	private static class HilbertScratch
+	{
+		private final BitVector[] dimensionBitVectors;
+		private final BitVector hilbertBitVector;
+
+		private HilbertScratch(
+				final int[] bitsPerDimension,
+				final int totalPrecision ) {
+			dimensionBitVectors = new BitVector[bitsPerDimension.length];
+			for (int d = 0; d < bitsPerDimension.length; d++) {
+				dimensionBitVectors[d] = BitVectorFactories.OPTIMAL.apply(bitsPerDimension[d]);
+			}
+			hilbertBitVector = BitVectorFactories.OPTIMAL.apply(totalPrecision);
+		}
+	}
 }
@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
@@ -99,6 +101,24 @@ public class UnboundedHilbertSFCOperations implements
 		return hilbertBitVector.toBigEndianByteArray();
 	}
 
+	@Override
+	public void convertToHilbert(
+			final double[][] values,
+			final byte[][] hilbertValues,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		if (hilbertValues.length < values.length) {
+			throw new ArrayIndexOutOfBoundsException(
+					"Number of output IDs (" + hilbertValues.length + ") is less than the number of values supplied (" + values.length + ").");
+		}
+		for (int i = 0; i < values.length; i++) {
+			hilbertValues[i] = convertToHilbert(
+					values[i],
+					compactHilbertCurve,
+					dimensionDefinitions);
+		}
+	}
+
 	/***
 	 * Converts the incoming values (one per dimension) into a BitVector using
 	 * the Compact Hilbert instance. BitVector is a wrapper to allow values
@@ -253,6 +273,24 @@ public class UnboundedHilbertSFCOperations implements
 
 	}
 
+	@Override
+	public Iterator<ByteArrayRange> getDecompositionIterator(
+			final NumericData[] rangePerDimension,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final int totalPrecision,
+			final boolean removeVacuum ) {
+		// the compact hilbert curve query builder produces all ranges at once
+		return Arrays.asList(
+				decomposeRange(
+						rangePerDimension,
+						compactHilbertCurve,
+						dimensionDefinitions,
+						totalPrecision,
+						Integer.MAX_VALUE,
+						removeVacuum).getRanges()).iterator();
+	}
+
 	@Override
 	public RangeDecomposition decomposeRange(
 			final NumericData[] rangePerDimension,
@@ -436,6 +474,20 @@ public class UnboundedHilbertSFCOperations implements
 		return estimatedIdCount;
 	}
 
+	@Override
+	public long getEstimatedIdCount(
+			final MultiDimensionalNumericData data,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final long maxIdCount ) {
+		final BigInteger estimatedIdCount = getEstimatedIdCount(
+				data,
+				dimensionDefinitions);
+		if (estimatedIdCount.compareTo(BigInteger.valueOf(maxIdCount)) > 0) {
+			return Long.MAX_VALUE;
+		}
+		return estimatedIdCount.longValue();
+	}
+
 	@Override
 	public double[] getInsertionIdRangePerDimension(
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
@@ -0,0 +1,229 @@
+package mil.nga.giat.geowave.index.sfc.tiered;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.sfc.SpaceFillingCurve;
+import mil.nga.giat.geowave.index.sfc.data.BinnedNumericDataset;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A bounded, least-recently-used cache of decomposed query ranges. Clients
+ * such as WMS tile requests tend to ask for the same (or nearly the same)
+ * query windows repeatedly, and decomposing a query on every tier can take
+ * longer than the scan itself for small windows.
+ *
+ * The cache key quantizes each binned query to the cell grid of the highest
+ * precision space filling curve. Because the cells of every lower precision
+ * tier are aligned with (and contain whole) cells of the highest precision
+ * tier, any two queries that fall within the same highest precision cells
+ * decompose to exactly the same ranges on every tier.
+ *
+ */
+public class QueryRangeCache
+{
+	private final static Logger LOGGER = Logger.getLogger(QueryRangeCache.class);
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private final Map<QueryRangeKey, List<ByteArrayRange>> cache;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	public QueryRangeCache() {
+		this(
+				DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            the maximum number of decomposed queries to keep, the least
+	 *            recently used decomposition is evicted beyond this size
+	 */
+	public QueryRangeCache(
+			final int maxEntries ) {
+		cache = new LinkedHashMap<QueryRangeKey, List<ByteArrayRange>>(
+				16,
+				0.75f,
+				true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<QueryRangeKey, List<ByteArrayRange>> eldest ) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Create a key for the binned queries against an index strategy
+	 *
+	 * @param indexStrategyBinary
+	 *            the binary representation of the index strategy doing the
+	 *            decomposition, which must include everything that the
+	 *            decomposed ranges depend on
+	 * @param binnedQueries
+	 *            the binned queries that will be decomposed
+	 * @param highestPrecisionSfc
+	 *            the highest precision space filling curve of the index
+	 *            strategy, which defines the grid the query is quantized to
+	 * @param maxRanges
+	 *            the max ranges the decomposition is limited to
+	 * @return the key, or null if the query can not be quantized and should
+	 *         not be cached
+	 */
+	public static QueryRangeKey createKey(
+			final byte[] indexStrategyBinary,
+			final BinnedNumericDataset[] binnedQueries,
+			final SpaceFillingCurve highestPrecisionSfc,
+			final int maxRanges ) {
+		final byte[][] binIds = new byte[binnedQueries.length][];
+		final long[][] cells = new long[binnedQueries.length * 2][];
+		try {
+			for (int i = 0; i < binnedQueries.length; i++) {
+				binIds[i] = binnedQueries[i].getBinId();
+				cells[i * 2] = highestPrecisionSfc.getCoordinates(highestPrecisionSfc.getId(binnedQueries[i].getMinValuesPerDimension()));
+				cells[(i * 2) + 1] = highestPrecisionSfc.getCoordinates(highestPrecisionSfc.getId(binnedQueries[i].getMaxValuesPerDimension()));
+			}
+		}
+		catch (final IllegalArgumentException e) {
+			LOGGER.debug(
+					"Unable to quantize query, it will not be cached",
+					e);
+			return null;
+		}
+		return new QueryRangeKey(
+				indexStrategyBinary,
+				binIds,
+				cells,
+				maxRanges);
+	}
+
+	/**
+	 * @param key
+	 *            the key of the query
+	 * @return a copy of the cached ranges or null if the query has not been
+	 *         cached
+	 */
+	public List<ByteArrayRange> get(
+			final QueryRangeKey key ) {
+		final List<ByteArrayRange> ranges;
+		synchronized (cache) {
+			ranges = cache.get(key);
+		}
+		if (ranges == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return new ArrayList<ByteArrayRange>(
+				ranges);
+	}
+
+	public void put(
+			final QueryRangeKey key,
+			final List<ByteArrayRange> ranges ) {
+		final List<ByteArrayRange> copy = new ArrayList<ByteArrayRange>(
+				ranges);
+		synchronized (cache) {
+			cache.put(
+					key,
+					copy);
+		}
+	}
+
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public static class QueryRangeKey
+	{
+		private final byte[] indexStrategyBinary;
+		private final byte[][] binIds;
+		private final long[][] cells;
+		private final int maxRanges;
+		private final int hashCode;
+
+		private QueryRangeKey(
+				final byte[] indexStrategyBinary,
+				final byte[][] binIds,
+				final long[][] cells,
+				final int maxRanges ) {
+			this.indexStrategyBinary = indexStrategyBinary;
+			this.binIds = binIds;
+			this.cells = cells;
+			this.maxRanges = maxRanges;
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + Arrays.hashCode(indexStrategyBinary);
+			result = (prime * result) + Arrays.deepHashCode(binIds);
+			result = (prime * result) + Arrays.deepHashCode(cells);
+			result = (prime * result) + maxRanges;
+			hashCode = result;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			final QueryRangeKey other = (QueryRangeKey) obj;
+			if (hashCode != other.hashCode) {
+				return false;
+			}
+			if (maxRanges != other.maxRanges) {
+				return false;
+			}
+			if (!Arrays.equals(
+					indexStrategyBinary,
+					other.indexStrategyBinary)) {
+				return false;
+			}
+			if (!Arrays.deepEquals(
+					binIds,
+					other.binIds)) {
+				return false;
+			}
+			if (!Arrays.deepEquals(
+					cells,
+					other.cells)) {
+				return false;
+			}
+			return true;
+		}
+	}
+}
@@ -95,7 +95,7 @@ public class SingleTierSubStrategy implements
 					range,
 					tier,
 					sfc,
-					null);
+					Long.MAX_VALUE);
 			if (binRowIds != null) {
 				rowIds.addAll(binRowIds);
 			}
@@ -4,10 +4,14 @@ import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
@@ -24,6 +28,7 @@ import mil.nga.giat.geowave.index.sfc.data.BinnedNumericDataset;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.index.sfc.tiered.QueryRangeCache.QueryRangeKey;
 
 import org.apache.log4j.Logger;
 
@@ -38,9 +43,21 @@ public class TieredSFCIndexStrategy implements
 	private final static Logger LOGGER = Logger.getLogger(TieredSFCIndexStrategy.class);
 	private final static int MAX_ESTIMATED_DUPLICATE_IDS_PER_DIMENSION = 2;
 	protected static final int DEFAULT_MAX_RANGES = -1;
+	private static final QueryRangeCache QUERY_RANGE_CACHE = new QueryRangeCache();
+	/**
+	 * The default cost of seeking to a range, as the number of cells of the
+	 * highest precision tier that cost as much to scan as a seek. Ranges of the
+	 * same tier and bin are merged rather than seeking over the gap between
+	 * them when the gap covers at most this many highest precision cells.
+	 */
+	public static final double DEFAULT_RANGE_SEEK_COST_CELLS = 1024;
 	private SpaceFillingCurve[] orderedSfcs;
 	private NumericDimensionDefinition[] baseDefinitions;
-	private BigInteger maxEstimatedDuplicateIds;
+	private long maxEstimatedDuplicateIds;
+	private double rangeSeekCostCells = DEFAULT_RANGE_SEEK_COST_CELLS;
+	// identifies this strategy within the query range cache, the ID is only a
+	// hash code so different strategies may share it
+	private volatile byte[] queryRangeCacheId;
 
 	protected TieredSFCIndexStrategy() {}
 
@@ -57,38 +74,152 @@ public class TieredSFCIndexStrategy implements
 			final SpaceFillingCurve[] orderedSfcs ) {
 		this.orderedSfcs = orderedSfcs;
 		this.baseDefinitions = baseDefinitions;
-		maxEstimatedDuplicateIds = BigInteger.valueOf((long) Math.pow(
+		maxEstimatedDuplicateIds = (long) Math.pow(
 				MAX_ESTIMATED_DUPLICATE_IDS_PER_DIMENSION,
-				baseDefinitions.length));
+				baseDefinitions.length);
+	}
+
+	/**
+	 * @return the cost of seeking to a range, as the number of cells of the
+	 *         highest precision tier that cost as much to scan as a seek
+	 */
+	public double getRangeSeekCostCells() {
+		return rangeSeekCostCells;
+	}
+
+	/**
+	 * Set the cost of seeking to a range, which determines the largest gap
+	 * between two ranges of a tier that is scanned rather than sought over.
+	 * The number of rows in a gap is estimated from the number of highest
+	 * precision cells it covers, so the gap of a coarser tier is this cost
+	 * divided by the highest precision cells within one of its cells. The cost
+	 * should be increased when rows are dense or seeks are expensive, such as
+	 * with a high latency to the tablet servers, and decreased when rows are
+	 * sparse. A cost of 0 only merges ranges that are adjacent.
+	 *
+	 * @param rangeSeekCostCells
+	 *            the number of highest precision cells that cost as much to
+	 *            scan as a seek
+	 */
+	public void setRangeSeekCostCells(
+			final double rangeSeekCostCells ) {
+		if (rangeSeekCostCells < 0) {
+			throw new IllegalArgumentException(
+					"Range seek cost must not be negative");
+		}
+		this.rangeSeekCostCells = rangeSeekCostCells;
+		queryRangeCacheId = null;
 	}
 
 	@Override
 	public List<ByteArrayRange> getQueryRanges(
 			final MultiDimensionalNumericData indexedRange,
 			final int maxRangeDecomposition ) {
-		// TODO don't just pass max ranges along to the SFC, take tiering and
-		// binning into account to limit the number of ranges correctly
-
-		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>();
 		final BinnedNumericDataset[] binnedQueries = BinnedNumericDataset.applyBins(
 				indexedRange,
 				baseDefinitions);
-		for (int tier = orderedSfcs.length - 1; tier >= 0; tier--) {
-			final SpaceFillingCurve sfc = orderedSfcs[tier];
-			queryRanges.addAll(getQueryRanges(
+		QueryRangeKey cacheKey = null;
+		if (orderedSfcs.length > 0) {
+			cacheKey = QueryRangeCache.createKey(
+					getQueryRangeCacheId(),
 					binnedQueries,
-					sfc,
+					orderedSfcs[orderedSfcs.length - 1],
+					maxRangeDecomposition);
+			if (cacheKey != null) {
+				final List<ByteArrayRange> cachedRanges = QUERY_RANGE_CACHE.get(cacheKey);
+				if (cachedRanges != null) {
+					return cachedRanges;
+				}
+			}
+		}
+		final List<ByteArrayRange> queryRanges;
+		if (maxRangeDecomposition > 0) {
+			// the max ranges is a budget for the query as a whole, not for
+			// each tier and bin
+			queryRanges = getBudgetedQueryRanges(
+					binnedQueries,
+					orderedSfcs,
 					maxRangeDecomposition,
-					(byte) tier));
+					rangeSeekCostCells);
+		}
+		else {
+			queryRanges = new ArrayList<ByteArrayRange>();
+			for (int tier = orderedSfcs.length - 1; tier >= 0; tier--) {
+				final SpaceFillingCurve sfc = orderedSfcs[tier];
+				queryRanges.addAll(getQueryRanges(
+						binnedQueries,
+						sfc,
+						maxRangeDecomposition,
+						(byte) tier,
+						getMaxMergedGapSize(
+								orderedSfcs,
+								tier,
+								rangeSeekCostCells)));
+			}
+		}
+		if (cacheKey != null) {
+			QUERY_RANGE_CACHE.put(
+					cacheKey,
+					queryRanges);
 		}
 		return queryRanges;
 	}
 
+	/**
+	 * Returns the query ranges for a numeric range as an iterator, in the same
+	 * order as getQueryRanges() with unlimited ranges. The ranges of each tier
+	 * and bin are decomposed lazily as the iterator is consumed, so a scan can
+	 * start on the first ranges without waiting for the full decomposition.
+	 *
+	 * @param indexedRange
+	 *            defines the numeric range for the query
+	 * @return an iterator of the query ranges
+	 */
+	public Iterator<ByteArrayRange> getQueryRangeIterator(
+			final MultiDimensionalNumericData indexedRange ) {
+		return new TieredQueryRangeIterator(
+				BinnedNumericDataset.applyBins(
+						indexedRange,
+						baseDefinitions),
+				orderedSfcs,
+				rangeSeekCostCells);
+	}
+
+	/**
+	 * The decomposed query ranges of every tiered strategy are kept in a
+	 * shared, bounded cache keyed by the persisted strategy, the query
+	 * quantized to the highest precision tier and the max range decomposition.
+	 *
+	 * @return the cache of decomposed query ranges, to monitor hits and misses
+	 */
+	public static QueryRangeCache getQueryRangeCache() {
+		return QUERY_RANGE_CACHE;
+	}
+
 	protected static List<ByteArrayRange> getQueryRanges(
 			final BinnedNumericDataset[] binnedQueries,
 			final SpaceFillingCurve sfc,
 			final int maxRanges,
 			final byte tier ) {
+		return getQueryRanges(
+				binnedQueries,
+				sfc,
+				maxRanges,
+				tier,
+				0);
+	}
+
+	/**
+	 * Decompose the binned queries on a single tier, merging the ranges of each
+	 * bin that intersect, are adjacent, or are separated by at most max gap
+	 * size IDs
+	 */
+	protected static List<ByteArrayRange> getQueryRanges(
+			final BinnedNumericDataset[] binnedQueries,
+			final SpaceFillingCurve sfc,
+			final int maxRanges,
+			final byte tier,
+			final long maxGapSize ) {
 		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>();
 		for (final BinnedNumericDataset binnedQuery : binnedQueries) {
 			final RangeDecomposition rangeDecomp = sfc.decomposeQuery(
@@ -101,7 +232,9 @@ public class TieredSFCIndexStrategy implements
 					// value)
 					},
 					binnedQuery.getBinId());
-			for (final ByteArrayRange range : rangeDecomp.getRanges()) {
+			for (final ByteArrayRange range : ByteArrayRange.mergeIntersections(
+					Arrays.asList(rangeDecomp.getRanges()),
+					maxGapSize)) {
 				queryRanges.add(new ByteArrayRange(
 						new ByteArrayId(
 								ByteArrayUtils.combineArrays(
@@ -116,6 +249,422 @@ public class TieredSFCIndexStrategy implements
 		return queryRanges;
 	}
 
+	/**
+	 * Decompose the binned queries on every tier such that the total number of
+	 * ranges, across all tiers and bins, is at most max ranges. The budget is
+	 * first spread across each tier and bin in proportion to its estimated
+	 * number of row IDs (a tier and bin never gets more ranges than it has IDs
+	 * so the remainder flows to the finer tiers). Because every tier and bin
+	 * gets at least one range, the decomposition can still exceed the budget,
+	 * in which case the ranges separated by the smallest gaps are merged until
+	 * it is within budget. Ranges within the same tier and bin are merged
+	 * before ranges that span tiers or bins.
+	 *
+	 * @param binnedQueries
+	 *            the binned queries
+	 * @param orderedSfcs
+	 *            the space filling curve for each tier
+	 * @param maxRanges
+	 *            the maximum total number of ranges, must be positive
+	 * @param rangeSeekCostCells
+	 *            the cost of a seek in highest precision cells
+	 * @return the query ranges, ordered by row ID
+	 */
+	protected static List<ByteArrayRange> getBudgetedQueryRanges(
+			final BinnedNumericDataset[] binnedQueries,
+			final SpaceFillingCurve[] orderedSfcs,
+			final int maxRanges,
+			final double rangeSeekCostCells ) {
+		final List<TierAndBinRanges> groups = new ArrayList<TierAndBinRanges>(
+				orderedSfcs.length * binnedQueries.length);
+		for (int tier = 0; tier < orderedSfcs.length; tier++) {
+			for (final BinnedNumericDataset binnedQuery : binnedQueries) {
+				groups.add(new TierAndBinRanges(
+						(byte) tier,
+						binnedQuery,
+						orderedSfcs[tier],
+						getMaxMergedGapSize(
+								orderedSfcs,
+								tier,
+								rangeSeekCostCells)));
+			}
+		}
+		allocateRanges(
+				groups,
+				maxRanges);
+		int totalRanges = 0;
+		for (final TierAndBinRanges group : groups) {
+			group.decompose();
+			totalRanges += group.ranges.length;
+		}
+		// order every range by its row ID so that neighbors can be merged
+		Collections.sort(
+				groups,
+				TIER_AND_BIN_COMPARATOR);
+		final TierAndBinRanges[] rangeGroups = new TierAndBinRanges[totalRanges];
+		final ByteArrayRange[] ranges = new ByteArrayRange[totalRanges];
+		int i = 0;
+		for (final TierAndBinRanges group : groups) {
+			for (final ByteArrayRange range : group.ranges) {
+				rangeGroups[i] = group;
+				ranges[i++] = range;
+			}
+		}
+		final boolean[] mergeWithNext = new boolean[totalRanges];
+		if (totalRanges > maxRanges) {
+			final List<RangeGap> gaps = new ArrayList<RangeGap>(
+					totalRanges - 1);
+			for (i = 0; i < (totalRanges - 1); i++) {
+				if (rangeGroups[i] == rangeGroups[i + 1]) {
+					gaps.add(new RangeGap(
+							i,
+							rangeGroups[i].getGap(
+									ranges[i],
+									ranges[i + 1])));
+				}
+				else {
+					gaps.add(new RangeGap(
+							i,
+							null));
+				}
+			}
+			Collections.sort(gaps);
+			for (i = 0; i < (totalRanges - maxRanges); i++) {
+				mergeWithNext[gaps.get(i).index] = true;
+			}
+		}
+		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>(
+				Math.min(
+						totalRanges,
+						maxRanges));
+		ByteArrayId start = null;
+		for (i = 0; i < totalRanges; i++) {
+			if (start == null) {
+				start = rangeGroups[i].getRowId(ranges[i].getStart());
+			}
+			if (!mergeWithNext[i]) {
+				queryRanges.add(new ByteArrayRange(
+						start,
+						rangeGroups[i].getRowId(ranges[i].getEnd())));
+				start = null;
+			}
+		}
+		return queryRanges;
+	}
+
+	private static void allocateRanges(
+			final List<TierAndBinRanges> groups,
+			final int maxRanges ) {
+		final List<TierAndBinRanges> groupsByEstimate = new ArrayList<TierAndBinRanges>(
+				groups);
+		Collections.sort(
+				groupsByEstimate,
+				ESTIMATED_ID_COUNT_COMPARATOR);
+		BigInteger remainingEstimate = BigInteger.ZERO;
+		for (final TierAndBinRanges group : groupsByEstimate) {
+			remainingEstimate = remainingEstimate.add(group.estimatedIdCount);
+		}
+		BigInteger remainingRanges = BigInteger.valueOf(maxRanges);
+		// visit the smallest estimates first so that any ranges they can't use
+		// are given to the larger estimates
+		for (final TierAndBinRanges group : groupsByEstimate) {
+			BigInteger allocation = BigInteger.ONE;
+			if (remainingEstimate.signum() > 0) {
+				allocation = allocation.max(remainingRanges.multiply(
+						group.estimatedIdCount).divide(
+						remainingEstimate));
+			}
+			allocation = allocation.min(group.estimatedIdCount.max(BigInteger.ONE));
+			group.allocatedRanges = (int) Math.min(
+					allocation.longValue(),
+					Integer.MAX_VALUE);
+			remainingRanges = remainingRanges.subtract(
+					allocation).max(
+					BigInteger.ZERO);
+			remainingEstimate = remainingEstimate.subtract(group.estimatedIdCount);
+		}
+	}
+
+	private static final Comparator<TierAndBinRanges> ESTIMATED_ID_COUNT_COMPARATOR = new Comparator<TierAndBinRanges>() {
+		@Override
+		public int compare(
+				final TierAndBinRanges o1,
+				final TierAndBinRanges o2 ) {
+			return o1.estimatedIdCount.compareTo(o2.estimatedIdCount);
+		}
+	};
+
+	private static final Comparator<TierAndBinRanges> TIER_AND_BIN_COMPARATOR = new Comparator<TierAndBinRanges>() {
+		@Override
+		public int compare(
+				final TierAndBinRanges o1,
+				final TierAndBinRanges o2 ) {
+			return o1.tierAndBinId.compareTo(o2.tierAndBinId);
+		}
+	};
+
+	/**
+	 * The decomposition of a binned query on a single tier
+	 */
+	private static class TierAndBinRanges
+	{
+		private final ByteArrayId tierAndBinId;
+		private final BinnedNumericDataset binnedQuery;
+		private final SpaceFillingCurve sfc;
+		private final BigInteger estimatedIdCount;
+		private final long maxGapSize;
+		private int allocatedRanges;
+		private ByteArrayRange[] ranges;
+		private int maxIdLength;
+
+		private TierAndBinRanges(
+				final byte tier,
+				final BinnedNumericDataset binnedQuery,
+				final SpaceFillingCurve sfc,
+				final long maxGapSize ) {
+			this.binnedQuery = binnedQuery;
+			this.sfc = sfc;
+			this.maxGapSize = maxGapSize;
+			tierAndBinId = new ByteArrayId(
+					ByteArrayUtils.combineArrays(
+							new byte[] {
+								tier
+							},
+							binnedQuery.getBinId()));
+			estimatedIdCount = sfc.getEstimatedIdCount(binnedQuery);
+		}
+
+		private void decompose() {
+			// merging also orders the ranges by their start
+			ranges = ByteArrayRange.mergeIntersections(
+					Arrays.asList(sfc.decomposeQuery(
+							binnedQuery,
+							allocatedRanges).getRanges()),
+					maxGapSize).toArray(
+					new ByteArrayRange[] {});
+			maxIdLength = 0;
+			for (final ByteArrayRange range : ranges) {
+				maxIdLength = Math.max(
+						maxIdLength,
+						Math.max(
+								range.getStart().getBytes().length,
+								range.getEnd().getBytes().length));
+			}
+		}
+
+		/**
+		 * @return the number of SFC IDs between the end of the first range and
+		 *         the start of the second
+		 */
+		private BigInteger getGap(
+				final ByteArrayRange first,
+				final ByteArrayRange second ) {
+			return toBigInteger(
+					second.getStart().getBytes()).subtract(
+					toBigInteger(first.getEnd().getBytes()));
+		}
+
+		private BigInteger toBigInteger(
+				final byte[] sfcId ) {
+			// IDs that are shorter than others from the same curve are
+			// implicitly padded with trailing zeros
+			return new BigInteger(
+					1,
+					sfcId).shiftLeft(8 * (maxIdLength - sfcId.length));
+		}
+
+		private ByteArrayId getRowId(
+				final ByteArrayId sfcId ) {
+			return new ByteArrayId(
+					ByteArrayUtils.combineArrays(
+							tierAndBinId.getBytes(),
+							sfcId.getBytes()));
+		}
+	}
+
+	/**
+	 * Iterates the lazily decomposed ranges of every bin, from the highest
+	 * precision tier to the lowest, prefixing each with its tier and bin ID
+	 */
+	private static class TieredQueryRangeIterator implements
+			Iterator<ByteArrayRange>
+	{
+		private final BinnedNumericDataset[] binnedQueries;
+		private final SpaceFillingCurve[] orderedSfcs;
+		private final double rangeSeekCostCells;
+		private int tier;
+		private int binIndex;
+		private byte[] tierAndBinId;
+		private Iterator<ByteArrayRange> currentIterator;
+
+		private TieredQueryRangeIterator(
+				final BinnedNumericDataset[] binnedQueries,
+				final SpaceFillingCurve[] orderedSfcs,
+				final double rangeSeekCostCells ) {
+			this.binnedQueries = binnedQueries;
+			this.orderedSfcs = orderedSfcs;
+			this.rangeSeekCostCells = rangeSeekCostCells;
+			tier = orderedSfcs.length - 1;
+			binIndex = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while ((currentIterator == null) || !currentIterator.hasNext()) {
+				if ((tier < 0) || (binnedQueries.length == 0)) {
+					return false;
+				}
+				final BinnedNumericDataset binnedQuery = binnedQueries[binIndex];
+				tierAndBinId = ByteArrayUtils.combineArrays(
+						new byte[] {
+							(byte) tier
+						},
+						binnedQuery.getBinId());
+				currentIterator = new MergingRangeIterator(
+						orderedSfcs[tier].getDecompositionIterator(binnedQuery),
+						getMaxMergedGapSize(
+								orderedSfcs,
+								tier,
+								rangeSeekCostCells));
+				if (++binIndex >= binnedQueries.length) {
+					binIndex = 0;
+					tier--;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public ByteArrayRange next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final ByteArrayRange range = currentIterator.next();
+			return new ByteArrayRange(
+					new ByteArrayId(
+							ByteArrayUtils.combineArrays(
+									tierAndBinId,
+									range.getStart().getBytes())),
+					new ByteArrayId(
+							ByteArrayUtils.combineArrays(
+									tierAndBinId,
+									range.getEnd().getBytes())));
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Merges consecutive ranges of an iterator that is ordered by row ID in
+	 * the same way as ByteArrayRange.mergeIntersections()
+	 */
+	private static class MergingRangeIterator implements
+			Iterator<ByteArrayRange>
+	{
+		private final Iterator<ByteArrayRange> ranges;
+		private final long maxGapSize;
+		private ByteArrayRange nextRange;
+
+		private MergingRangeIterator(
+				final Iterator<ByteArrayRange> ranges,
+				final long maxGapSize ) {
+			this.ranges = ranges;
+			this.maxGapSize = maxGapSize;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (nextRange != null) || ranges.hasNext();
+		}
+
+		@Override
+		public ByteArrayRange next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final List<ByteArrayRange> mergeableRanges = new ArrayList<ByteArrayRange>();
+			mergeableRanges.add((nextRange != null) ? nextRange : ranges.next());
+			nextRange = null;
+			while (ranges.hasNext()) {
+				final ByteArrayRange range = ranges.next();
+				mergeableRanges.add(range);
+				final List<ByteArrayRange> merged = ByteArrayRange.mergeIntersections(
+						mergeableRanges,
+						maxGapSize);
+				if (merged.size() > 1) {
+					nextRange = merged.get(1);
+					return merged.get(0);
+				}
+				mergeableRanges.clear();
+				mergeableRanges.add(merged.get(0));
+			}
+			return mergeableRanges.get(0);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * @return the maximum number of IDs between two ranges of the tier for the
+	 *         ranges to be merged, which is the seek cost divided by the
+	 *         number of highest precision cells within a single ID of the tier
+	 */
+	private static long getMaxMergedGapSize(
+			final SpaceFillingCurve[] orderedSfcs,
+			final int tier,
+			final double rangeSeekCostCells ) {
+		final double[] tierIdRange = orderedSfcs[tier].getInsertionIdRangePerDimension();
+		final double[] highestPrecisionIdRange = orderedSfcs[orderedSfcs.length - 1].getInsertionIdRangePerDimension();
+		double highestPrecisionCellsPerId = 1;
+		for (int d = 0; d < tierIdRange.length; d++) {
+			highestPrecisionCellsPerId *= tierIdRange[d] / highestPrecisionIdRange[d];
+		}
+		return (long) Math.floor(rangeSeekCostCells / highestPrecisionCellsPerId);
+	}
+
+	/**
+	 * The gap between a range and the next range by row ID, a null gap spans
+	 * tiers or bins and is merged only after all other gaps
+	 */
+	private static class RangeGap implements
+			Comparable<RangeGap>
+	{
+		private final int index;
+		private final BigInteger gap;
+
+		private RangeGap(
+				final int index,
+				final BigInteger gap ) {
+			this.index = index;
+			this.gap = gap;
+		}
+
+		@Override
+		public int compareTo(
+				final RangeGap o ) {
+			if (gap == null) {
+				if (o.gap == null) {
+					return index - o.index;
+				}
+				return 1;
+			}
+			if (o.gap == null) {
+				return -1;
+			}
+			final int cmp = gap.compareTo(o.gap);
+			if (cmp != 0) {
+				return cmp;
+			}
+			return index - o.index;
+		}
+	}
+
 	/**
 	 * Returns a list of query ranges for an specified numeric range.
 	 *
@@ -139,6 +688,7 @@ public class TieredSFCIndexStrategy implements
 	 * @return a List of insertion ID's
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public List<ByteArrayId> getInsertionIds(
 			final MultiDimensionalNumericData indexedData ) {
 		final BinnedNumericDataset[] ranges = BinnedNumericDataset.applyBins(
@@ -146,14 +696,99 @@ public class TieredSFCIndexStrategy implements
 				baseDefinitions);
 		// place each of these indices into a single row ID at a tier that will
 		// fit its min and max
+		final List<ByteArrayId>[] rowIdsPerRange = new List[ranges.length];
+		final int[] singleIdTiers = new int[ranges.length];
+		int singleIdCount = 0;
+		for (int i = 0; i < ranges.length; i++) {
+			singleIdTiers[i] = getSingleIdTier(ranges[i]);
+			if (singleIdTiers[i] >= 0) {
+				singleIdCount++;
+			}
+			else {
+				rowIdsPerRange[i] = getRowIds(ranges[i]);
+			}
+		}
+		// the ranges that fit a single SFC value are encoded with one batch per
+		// tier
+		for (int tier = orderedSfcs.length - 1; (tier >= 0) && (singleIdCount > 0); tier--) {
+			singleIdCount -= getSingleIdsAtTier(
+					ranges,
+					singleIdTiers,
+					tier,
+					rowIdsPerRange);
+		}
 		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
 				ranges.length);
-		for (final BinnedNumericDataset range : ranges) {
-			rowIds.addAll(getRowIds(range));
+		for (final List<ByteArrayId> rangeRowIds : rowIdsPerRange) {
+			rowIds.addAll(rangeRowIds);
 		}
 		return rowIds;
 	}
 
+	/**
+	 * @return the finest tier at which the range fits a single SFC value, or
+	 *         -1 if the range is decomposed into several row IDs
+	 */
+	private int getSingleIdTier(
+			final BinnedNumericDataset range ) {
+		for (int tier = orderedSfcs.length - 1; tier >= 0; tier--) {
+			final long rowCount = orderedSfcs[tier].getEstimatedIdCount(
+					range,
+					maxEstimatedDuplicateIds);
+			if (rowCount == 1) {
+				return tier;
+			}
+			else if (rowCount <= maxEstimatedDuplicateIds) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	private int getSingleIdsAtTier(
+			final BinnedNumericDataset[] ranges,
+			final int[] singleIdTiers,
+			final int tier,
+			final List<ByteArrayId>[] rowIdsPerRange ) {
+		int count = 0;
+		for (final int singleIdTier : singleIdTiers) {
+			if (singleIdTier == tier) {
+				count++;
+			}
+		}
+		if (count == 0) {
+			return 0;
+		}
+		final double[][] values = new double[count][];
+		final byte[][] ids = new byte[count][];
+		int i = 0;
+		for (int r = 0; r < ranges.length; r++) {
+			if (singleIdTiers[r] == tier) {
+				values[i++] = ranges[r].getMinValuesPerDimension();
+			}
+		}
+		orderedSfcs[tier].getIds(
+				values,
+				ids);
+		i = 0;
+		for (int r = 0; r < ranges.length; r++) {
+			if (singleIdTiers[r] == tier) {
+				final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+						1);
+				rowIds.add(new ByteArrayId(
+						ByteArrayUtils.combineArrays(
+								ByteArrayUtils.combineArrays(
+										new byte[] {
+											(byte) tier
+										},
+										ranges[r].getBinId()),
+								ids[i++])));
+				rowIdsPerRange[r] = rowIds;
+			}
+		}
+		return count;
+	}
+
 	@Override
 	public long[] getCoordinatesPerDimension(
 			final ByteArrayId insertionId ) {
@@ -228,12 +863,23 @@ public class TieredSFCIndexStrategy implements
 		return StringUtils.intToString(hashCode());
 	}
 
+	private byte[] getQueryRangeCacheId() {
+		byte[] id = queryRangeCacheId;
+		if (id == null) {
+			// the persisted strategy includes the seek cost, which the merged
+			// ranges depend on
+			id = PersistenceUtils.toBinary(this);
+			queryRangeCacheId = id;
+		}
+		return id;
+	}
+
 	@Override
 	public NumericDimensionDefinition[] getOrderedDimensionDefinitions() {
 		return baseDefinitions;
 	}
 
-	synchronized private List<ByteArrayId> getRowIds(
+	private List<ByteArrayId> getRowIds(
 			final BinnedNumericDataset index ) {
 		// most times this should be a single row ID, but if the lowest
 		// precision tier does not have a single SFC value for this data, it
@@ -262,10 +908,12 @@ public class TieredSFCIndexStrategy implements
 			final BinnedNumericDataset index,
 			final int tier,
 			final SpaceFillingCurve sfc,
-			final BigInteger maxEstimatedDuplicateIds ) {
+			final long maxEstimatedDuplicateIds ) {
 		final List<ByteArrayId> retVal = new ArrayList<ByteArrayId>();
-		final BigInteger rowCount = sfc.getEstimatedIdCount(index);
-		if (rowCount.equals(BigInteger.ONE)) {
+		final long rowCount = sfc.getEstimatedIdCount(
+				index,
+				maxEstimatedDuplicateIds);
+		if (rowCount == 1) {
 			final byte[] tierAndBinId = ByteArrayUtils.combineArrays(
 					new byte[] {
 						(byte) tier
@@ -278,7 +926,7 @@ public class TieredSFCIndexStrategy implements
 							sfc.getId(minValues))));
 			return retVal;
 		}
-		else if ((maxEstimatedDuplicateIds == null) || (rowCount.compareTo(maxEstimatedDuplicateIds) <= 0) || (tier == 0)) {
+		else if ((rowCount <= maxEstimatedDuplicateIds) || (tier == 0)) {
 			return decomposeRangesForEntry(
 					index,
 					tier,
@@ -373,7 +1021,7 @@ public class TieredSFCIndexStrategy implements
 
 	@Override
 	public byte[] toBinary() {
-		int byteBufferLength = 8;
+		int byteBufferLength = 16;
 		final List<byte[]> orderedSfcBinaries = new ArrayList<byte[]>(
 				orderedSfcs.length);
 		final List<byte[]> dimensionBinaries = new ArrayList<byte[]>(
@@ -399,6 +1047,9 @@ public class TieredSFCIndexStrategy implements
 			buf.putInt(dimensionBinary.length);
 			buf.put(dimensionBinary);
 		}
+		// the seek cost is appended so that it is ignored when read by prior
+		// versions
+		buf.putDouble(rangeSeekCostCells);
 		return buf.array();
 	}
 
@@ -424,10 +1075,13 @@ public class TieredSFCIndexStrategy implements
 					dim,
 					NumericDimensionDefinition.class);
 		}
+		// strategies persisted before the seek cost was added use the default
+		rangeSeekCostCells = (buf.remaining() >= 8) ? buf.getDouble() : DEFAULT_RANGE_SEEK_COST_CELLS;
+		queryRangeCacheId = null;
 
-		maxEstimatedDuplicateIds = BigInteger.valueOf((long) Math.pow(
+		maxEstimatedDuplicateIds = (long) Math.pow(
 				MAX_ESTIMATED_DUPLICATE_IDS_PER_DIMENSION,
-				baseDefinitions.length));
+				baseDefinitions.length);
 	}
 
 	@Override
@@ -0,0 +1,664 @@
+package mil.nga.giat.geowave.index.sfc.xz;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.ByteArrayUtils;
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.bin.BinRange;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.BinnedNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This index strategy uses extended Z-ordering (XZ-ordering, Böhm et al.) so
+ * that every entry with an extent, such as a line or polygon, gets exactly one
+ * insertion ID (per bin) rather than being duplicated across every cell it
+ * intersects.
+ *
+ * The space is recursively split in half in each dimension, to a maximum
+ * resolution. Each element of this quadtree (or octree) is enlarged to twice
+ * its width in each dimension, and an entry is assigned to the smallest
+ * element whose enlarged extent contains it. Elements are numbered in
+ * depth-first order so that an element and all of its descendants form a
+ * single contiguous range of IDs, which keeps query decomposition compact.
+ *
+ */
+public class XZOrderIndexStrategy implements
+		NumericIndexStrategy
+{
+	private final static Logger LOGGER = Logger.getLogger(XZOrderIndexStrategy.class);
+	private static final double LOG_POINT_FIVE = Math.log(0.5);
+	/**
+	 * The decomposition is always bounded because the number of elements
+	 * partially overlapping a query grows with the surface of the query. This
+	 * is used when the max range decomposition is not positive.
+	 */
+	protected static final int DEFAULT_MAX_RANGES = 5000;
+
+	private NumericDimensionDefinition[] baseDefinitions;
+	private int maxLevel;
+	private long[] subtreeSizes;
+	private int idByteCount;
+
+	protected XZOrderIndexStrategy() {}
+
+	/**
+	 * Constructor used to create an XZ-ordering index strategy
+	 *
+	 * @param baseDefinitions
+	 *            the dimension definitions of the index
+	 * @param maxLevel
+	 *            the maximum resolution, in the number of times each dimension
+	 *            is split in half
+	 */
+	public XZOrderIndexStrategy(
+			final NumericDimensionDefinition[] baseDefinitions,
+			final int maxLevel ) {
+		this.baseDefinitions = baseDefinitions;
+		this.maxLevel = maxLevel;
+		init();
+	}
+
+	private void init() {
+		final int numDimensions = baseDefinitions.length;
+		if ((numDimensions < 1) || ((numDimensions * (maxLevel + 1)) > 62)) {
+			throw new IllegalArgumentException(
+					"XZ-ordering of " + numDimensions + " dimensions at resolution " + maxLevel + " does not fit within a 64 bit ID");
+		}
+		final long branching = 1L << numDimensions;
+		// the number of elements in the subtree of an element at level + 1,
+		// including itself
+		subtreeSizes = new long[maxLevel + 1];
+		for (int level = 0; level <= maxLevel; level++) {
+			subtreeSizes[level] = ((1L << (numDimensions * (maxLevel - level))) - 1) / (branching - 1);
+		}
+		final long maxId = branching * subtreeSizes[0];
+		idByteCount = ((64 - Long.numberOfLeadingZeros(maxId)) + 7) / 8;
+	}
+
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final MultiDimensionalNumericData indexedData ) {
+		final BinnedNumericDataset[] ranges = BinnedNumericDataset.applyBins(
+				indexedData,
+				baseDefinitions);
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+				ranges.length);
+		for (final BinnedNumericDataset range : ranges) {
+			final double[] mins = range.getMinValuesPerDimension();
+			final double[] maxes = range.getMaxValuesPerDimension();
+			final double[] normalizedMins = new double[baseDefinitions.length];
+			final double[] normalizedMaxes = new double[baseDefinitions.length];
+			for (int d = 0; d < baseDefinitions.length; d++) {
+				normalizedMins[d] = normalize(
+						baseDefinitions[d],
+						mins[d]);
+				normalizedMaxes[d] = normalize(
+						baseDefinitions[d],
+						maxes[d]);
+			}
+			rowIds.add(new ByteArrayId(
+					ByteArrayUtils.combineArrays(
+							range.getBinId(),
+							toBytes(getId(
+									normalizedMins,
+									normalizedMaxes)))));
+		}
+		return rowIds;
+	}
+
+	/**
+	 * @return the ID of the smallest element whose enlarged extent contains
+	 *         the normalized extent
+	 */
+	protected long getId(
+			final double[] normalizedMins,
+			final double[] normalizedMaxes ) {
+		double maxDimension = 0;
+		for (int d = 0; d < normalizedMins.length; d++) {
+			maxDimension = Math.max(
+					maxDimension,
+					normalizedMaxes[d] - normalizedMins[d]);
+		}
+		// the level at which the element width is at least the max dimension
+		final int level = (maxDimension <= 0) ? maxLevel : (int) Math.floor(Math.log(maxDimension) / LOG_POINT_FIVE);
+		final int length;
+		if (level >= maxLevel) {
+			length = maxLevel;
+		}
+		else {
+			// the entry may still fit in the enlarged element one level down
+			final double width = Math.pow(
+					0.5,
+					level + 1);
+			boolean fits = true;
+			for (int d = 0; d < normalizedMins.length; d++) {
+				if (normalizedMaxes[d] > ((Math.floor(normalizedMins[d] / width) * width) + (2 * width))) {
+					fits = false;
+					break;
+				}
+			}
+			length = fits ? level + 1 : level;
+		}
+		return getSequenceCode(
+				normalizedMins,
+				length);
+	}
+
+	private long getSequenceCode(
+			final double[] normalizedMins,
+			final int length ) {
+		final double[] elementMins = new double[normalizedMins.length];
+		double width = 1;
+		long code = 0;
+		for (int level = 0; level < length; level++) {
+			width /= 2;
+			int childIndex = 0;
+			for (int d = 0; d < normalizedMins.length; d++) {
+				if (normalizedMins[d] >= (elementMins[d] + width)) {
+					childIndex |= (1 << d);
+					elementMins[d] += width;
+				}
+			}
+			code += 1 + (childIndex * subtreeSizes[level]);
+		}
+		return code;
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange ) {
+		return getQueryRanges(
+				indexedRange,
+				DEFAULT_MAX_RANGES);
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition ) {
+		final BinnedNumericDataset[] binnedQueries = BinnedNumericDataset.applyBins(
+				indexedRange,
+				baseDefinitions);
+		if (binnedQueries.length == 0) {
+			return new ArrayList<ByteArrayRange>();
+		}
+		// the max ranges is a budget for the query as a whole
+		final int maxRanges = Math.max(
+				1,
+				((maxRangeDecomposition > 0) ? maxRangeDecomposition : DEFAULT_MAX_RANGES) / binnedQueries.length);
+		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>();
+		for (final BinnedNumericDataset binnedQuery : binnedQueries) {
+			final double[] mins = binnedQuery.getMinValuesPerDimension();
+			final double[] maxes = binnedQuery.getMaxValuesPerDimension();
+			final double[] normalizedMins = new double[baseDefinitions.length];
+			final double[] normalizedMaxes = new double[baseDefinitions.length];
+			for (int d = 0; d < baseDefinitions.length; d++) {
+				normalizedMins[d] = normalize(
+						baseDefinitions[d],
+						mins[d]);
+				normalizedMaxes[d] = normalize(
+						baseDefinitions[d],
+						maxes[d]);
+			}
+			for (final long[] range : decomposeRange(
+					normalizedMins,
+					normalizedMaxes,
+					maxRanges)) {
+				queryRanges.add(new ByteArrayRange(
+						new ByteArrayId(
+								ByteArrayUtils.combineArrays(
+										binnedQuery.getBinId(),
+										toBytes(range[0]))),
+						new ByteArrayId(
+								ByteArrayUtils.combineArrays(
+										binnedQuery.getBinId(),
+										toBytes(range[1])))));
+			}
+		}
+		return queryRanges;
+	}
+
+	/**
+	 * Visits the elements breadth first, keeping elements whose enlarged
+	 * extent intersects the query. An element whose enlarged extent is within
+	 * the query contributes its whole subtree as a range. When the next level
+	 * would exceed the max ranges, the remaining elements contribute their
+	 * whole subtree rather than being refined further.
+	 *
+	 * @return the merged ID ranges, ordered by ID, each as an inclusive start
+	 *         and end
+	 */
+	protected List<long[]> decomposeRange(
+			final double[] normalizedMins,
+			final double[] normalizedMaxes,
+			final int maxRanges ) {
+		final int numDimensions = normalizedMins.length;
+		final List<long[]> ranges = new ArrayList<long[]>();
+		List<XZElement> currentLevel = new ArrayList<XZElement>();
+		currentLevel.add(new XZElement(
+				new double[numDimensions],
+				1,
+				0,
+				0));
+		for (int level = 0; (level < maxLevel) && !currentLevel.isEmpty(); level++) {
+			final List<XZElement> nextLevel = new ArrayList<XZElement>();
+			for (final XZElement parent : currentLevel) {
+				final double width = parent.width / 2;
+				for (int childIndex = 0; childIndex < (1 << numDimensions); childIndex++) {
+					final double[] childMins = new double[numDimensions];
+					for (int d = 0; d < numDimensions; d++) {
+						childMins[d] = parent.mins[d] + ((childIndex & (1 << d)) != 0 ? width : 0);
+					}
+					final XZElement child = new XZElement(
+							childMins,
+							width,
+							level + 1,
+							parent.code + 1 + (childIndex * subtreeSizes[level]));
+					boolean covered = true;
+					boolean disjoint = false;
+					for (int d = 0; d < numDimensions; d++) {
+						final double enlargedMax = childMins[d] + (2 * width);
+						if ((childMins[d] > normalizedMaxes[d]) || (enlargedMax < normalizedMins[d])) {
+							disjoint = true;
+							break;
+						}
+						if ((childMins[d] < normalizedMins[d]) || (enlargedMax > normalizedMaxes[d])) {
+							covered = false;
+						}
+					}
+					if (disjoint) {
+						continue;
+					}
+					if (covered || (child.level == maxLevel)) {
+						ranges.add(getSubtreeRange(child));
+					}
+					else {
+						// the element itself may contain matches but its
+						// children need to be checked
+						ranges.add(new long[] {
+							child.code,
+							child.code
+						});
+						nextLevel.add(child);
+					}
+				}
+			}
+			if ((ranges.size() + nextLevel.size()) >= maxRanges) {
+				for (final XZElement element : nextLevel) {
+					ranges.add(getSubtreeRange(element));
+				}
+				break;
+			}
+			currentLevel = nextLevel;
+		}
+		return capRanges(
+				mergeRanges(ranges),
+				maxRanges);
+	}
+
+	/**
+	 * A level can add more ranges than the max ranges before the refinement
+	 * stops, so adjacent ranges separated by the smallest gaps are merged until
+	 * the max ranges is met. Merging only widens ranges, so no matching IDs are
+	 * lost.
+	 *
+	 * @param ranges
+	 *            the merged ID ranges, ordered by ID
+	 * @return the ranges, with at most max ranges entries
+	 */
+	private static List<long[]> capRanges(
+			final List<long[]> ranges,
+			final int maxRanges ) {
+		final int mergeCount = ranges.size() - Math.max(
+				1,
+				maxRanges);
+		if (mergeCount <= 0) {
+			return ranges;
+		}
+		final Integer[] gapIndices = new Integer[ranges.size() - 1];
+		for (int i = 0; i < gapIndices.length; i++) {
+			gapIndices[i] = i;
+		}
+		Arrays.sort(
+				gapIndices,
+				new Comparator<Integer>() {
+					@Override
+					public int compare(
+							final Integer o1,
+							final Integer o2 ) {
+						return Long.compare(
+								ranges.get(o1 + 1)[0] - ranges.get(o1)[1],
+								ranges.get(o2 + 1)[0] - ranges.get(o2)[1]);
+					}
+				});
+		// the gap after each range that is closed
+		final boolean[] closedGaps = new boolean[ranges.size()];
+		for (int i = 0; i < mergeCount; i++) {
+			closedGaps[gapIndices[i]] = true;
+		}
+		final List<long[]> cappedRanges = new ArrayList<long[]>(
+				ranges.size() - mergeCount);
+		long[] current = null;
+		for (int i = 0; i < ranges.size(); i++) {
+			if (current == null) {
+				current = new long[] {
+					ranges.get(i)[0],
+					ranges.get(i)[1]
+				};
+			}
+			else {
+				current[1] = ranges.get(i)[1];
+			}
+			if (!closedGaps[i]) {
+				cappedRanges.add(current);
+				current = null;
+			}
+		}
+		return cappedRanges;
+	}
+
+	private long[] getSubtreeRange(
+			final XZElement element ) {
+		return new long[] {
+			element.code,
+			(element.code + subtreeSizes[element.level - 1]) - 1
+		};
+	}
+
+	private static List<long[]> mergeRanges(
+			final List<long[]> ranges ) {
+		Collections.sort(
+				ranges,
+				new Comparator<long[]>() {
+					@Override
+					public int compare(
+							final long[] o1,
+							final long[] o2 ) {
+						return Long.compare(
+								o1[0],
+								o2[0]);
+					}
+				});
+		final List<long[]> mergedRanges = new ArrayList<long[]>();
+		long[] current = null;
+		for (final long[] range : ranges) {
+			if ((current != null) && (range[0] <= (current[1] + 1))) {
+				current[1] = Math.max(
+						current[1],
+						range[1]);
+			}
+			else {
+				current = range;
+				mergedRanges.add(current);
+			}
+		}
+		return mergedRanges;
+	}
+
+	/**
+	 * @return the element for an ID
+	 */
+	private XZElement getElement(
+			long code ) {
+		final double[] mins = new double[baseDefinitions.length];
+		double width = 1;
+		int level = 0;
+		final long elementCode = code;
+		while (code > 0) {
+			code -= 1;
+			final long childIndex = code / subtreeSizes[level];
+			code -= childIndex * subtreeSizes[level];
+			width /= 2;
+			for (int d = 0; d < mins.length; d++) {
+				if ((childIndex & (1L << d)) != 0) {
+					mins[d] += width;
+				}
+			}
+			level++;
+		}
+		return new XZElement(
+				mins,
+				width,
+				level,
+				elementCode);
+	}
+
+	/**
+	 * The range of an ID is the enlarged extent of its element
+	 */
+	@Override
+	public MultiDimensionalNumericData getRangeForId(
+			final ByteArrayId insertionId ) {
+		final byte[] rowId = insertionId.getBytes();
+		final int binIdLength = getBinIdLength();
+		if (rowId.length < (binIdLength + idByteCount)) {
+			LOGGER.warn("Row must at least contain the bin IDs and the XZ ID");
+			return null;
+		}
+		final XZElement element = getElement(fromBytes(Arrays.copyOfRange(
+				rowId,
+				binIdLength,
+				rowId.length)));
+		final NumericData[] data = new NumericData[baseDefinitions.length];
+		int binOffset = 0;
+		for (int d = 0; d < baseDefinitions.length; d++) {
+			final double min = baseDefinitions[d].denormalize(element.mins[d]);
+			final double max = baseDefinitions[d].denormalize(Math.min(
+					1,
+					element.mins[d] + (2 * element.width)));
+			final int binSize = baseDefinitions[d].getFixedBinIdSize();
+			if (binSize > 0) {
+				// unapply the bin to the data, denormalizing the range to
+				// the native bounds
+				data[d] = baseDefinitions[d].getDenormalizedRange(new BinRange(
+						Arrays.copyOfRange(
+								rowId,
+								binOffset,
+								binOffset + binSize),
+						min,
+						max,
+						false));
+				binOffset += binSize;
+			}
+			else {
+				data[d] = new NumericRange(
+						min,
+						max);
+			}
+		}
+		return new BasicNumericDataset(
+				data);
+	}
+
+	/**
+	 * The coordinates of an ID are the coordinates of its element at the
+	 * element's level of resolution
+	 */
+	@Override
+	public long[] getCoordinatesPerDimension(
+			final ByteArrayId insertionId ) {
+		final byte[] rowId = insertionId.getBytes();
+		final int binIdLength = getBinIdLength();
+		if (rowId.length < (binIdLength + idByteCount)) {
+			LOGGER.warn("Row must at least contain the bin IDs and the XZ ID");
+			return null;
+		}
+		final XZElement element = getElement(fromBytes(Arrays.copyOfRange(
+				rowId,
+				binIdLength,
+				rowId.length)));
+		final long[] coordinates = new long[baseDefinitions.length];
+		for (int d = 0; d < baseDefinitions.length; d++) {
+			coordinates[d] = (long) (element.mins[d] / element.width);
+		}
+		return coordinates;
+	}
+
+	private int getBinIdLength() {
+		int binIdLength = 0;
+		for (final NumericDimensionDefinition dimension : baseDefinitions) {
+			binIdLength += dimension.getFixedBinIdSize();
+		}
+		return binIdLength;
+	}
+
+	private static double normalize(
+			final NumericDimensionDefinition dimension,
+			final double value ) {
+		return Math.max(
+				0,
+				Math.min(
+						1,
+						dimension.normalize(value)));
+	}
+
+	private byte[] toBytes(
+			long value ) {
+		final byte[] bytes = new byte[idByteCount];
+		for (int i = idByteCount - 1; i >= 0; i--) {
+			bytes[i] = (byte) (value & 0xFF);
+			value >>>= 8;
+		}
+		return bytes;
+	}
+
+	private static long fromBytes(
+			final byte[] bytes ) {
+		long value = 0;
+		for (final byte b : bytes) {
+			value = (value << 8) | (b & 0xFF);
+		}
+		return value;
+	}
+
+	@Override
+	public NumericDimensionDefinition[] getOrderedDimensionDefinitions() {
+		return baseDefinitions;
+	}
+
+	public int getMaxLevel() {
+		return maxLevel;
+	}
+
+	@Override
+	public String getId() {
+		return StringUtils.intToString(hashCode());
+	}
+
+	@Override
+	public double[] getHighestPrecisionIdRangePerDimension() {
+		final double[] retVal = new double[baseDefinitions.length];
+		for (int d = 0; d < baseDefinitions.length; d++) {
+			retVal[d] = baseDefinitions[d].getRange() / Math.pow(
+					2,
+					maxLevel);
+		}
+		return retVal;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		final String className = getClass().getName();
+		result = (prime * result) + ((className == null) ? 0 : className.hashCode());
+		result = (prime * result) + Arrays.hashCode(baseDefinitions);
+		result = (prime * result) + maxLevel;
+		return result;
+	}
+
+	@Override
+	public boolean equals(
+			final Object obj ) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final XZOrderIndexStrategy other = (XZOrderIndexStrategy) obj;
+		if (!Arrays.equals(
+				baseDefinitions,
+				other.baseDefinitions)) {
+			return false;
+		}
+		if (maxLevel != other.maxLevel) {
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public byte[] toBinary() {
+		int byteBufferLength = 8;
+		final List<byte[]> dimensionBinaries = new ArrayList<byte[]>(
+				baseDefinitions.length);
+		for (final NumericDimensionDefinition dimension : baseDefinitions) {
+			final byte[] dimensionBinary = PersistenceUtils.toBinary(dimension);
+			byteBufferLength += (4 + dimensionBinary.length);
+			dimensionBinaries.add(dimensionBinary);
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(byteBufferLength);
+		buf.putInt(maxLevel);
+		buf.putInt(baseDefinitions.length);
+		for (final byte[] dimensionBinary : dimensionBinaries) {
+			buf.putInt(dimensionBinary.length);
+			buf.put(dimensionBinary);
+		}
+		return buf.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		maxLevel = buf.getInt();
+		final int numDimensions = buf.getInt();
+		baseDefinitions = new NumericDimensionDefinition[numDimensions];
+		for (int i = 0; i < numDimensions; i++) {
+			final byte[] dim = new byte[buf.getInt()];
+			buf.get(dim);
+			baseDefinitions[i] = PersistenceUtils.fromBinary(
+					dim,
+					NumericDimensionDefinition.class);
+		}
+		init();
+	}
+
+	private static class XZElement
+	{
+		private final double[] mins;
+		private final double width;
+		private final int level;
+		private final long code;
+
+		private XZElement(
+				final double[] mins,
+				final double width,
+				final int level,
+				final long code ) {
+			this.mins = mins;
+			this.width = width;
+			this.level = level;
+			this.code = code;
+		}
+	}
+}
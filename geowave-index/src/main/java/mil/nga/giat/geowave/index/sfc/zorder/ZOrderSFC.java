@@ -4,6 +4,7 @@ import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
@@ -26,6 +27,7 @@ public class ZOrderSFC implements
 	private SFCDimensionDefinition[] dimensionDefs;
 	private int cardinalityPerDimension;
 	private double binsPerDimension;
+	private boolean fixedDimensionEncoding;
 
 	protected ZOrderSFC() {
 		super();
@@ -53,6 +55,9 @@ public class ZOrderSFC implements
 		binsPerDimension = Math.pow(
 				2,
 				cardinalityPerDimension);
+		// 2 and 3 dimensional curves that fit in a long can be encoded with
+		// primitive bit interleaving
+		fixedDimensionEncoding = ((dimensionDefs.length == 2) || (dimensionDefs.length == 3)) && ((cardinalityPerDimension * dimensionDefs.length) <= 64);
 	}
 
 	/***
@@ -65,12 +70,29 @@ public class ZOrderSFC implements
 		for (int d = 0; d < values.length; d++) {
 			normalizedValues[d] = dimensionDefs[d].normalize(values[d]);
 		}
+		if (fixedDimensionEncoding && (values.length == dimensionDefs.length)) {
+			return ZOrderUtils.encodeFixedDimension(
+					normalizedValues,
+					cardinalityPerDimension);
+		}
 		return ZOrderUtils.encode(
 				normalizedValues,
 				cardinalityPerDimension,
 				values.length);
 	}
 
+	/***
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getIds(
+			final double[][] values,
+			final byte[][] ids ) {
+		for (int i = 0; i < values.length; i++) {
+			ids[i] = getId(values[i]);
+		}
+	}
+
 	@Override
 	public MultiDimensionalNumericData getRanges(
 			final byte[] id ) {
@@ -84,6 +106,12 @@ public class ZOrderSFC implements
 	@Override
 	public long[] getCoordinates(
 			final byte[] id ) {
+		if (fixedDimensionEncoding) {
+			return ZOrderUtils.decodeIndicesFixedDimension(
+					id,
+					cardinalityPerDimension,
+					dimensionDefs.length);
+		}
 		return ZOrderUtils.decodeIndices(
 				id,
 				cardinalityPerDimension,
@@ -113,6 +141,25 @@ public class ZOrderSFC implements
 		return estimatedIdCount;
 	}
 
+	@Override
+	public long getEstimatedIdCount(
+			final MultiDimensionalNumericData data,
+			final long maxIdCount ) {
+		final double[] mins = data.getMinValuesPerDimension();
+		final double[] maxes = data.getMaxValuesPerDimension();
+		long estimatedIdCount = 1L;
+		for (int d = 0; d < data.getDimensionCount(); d++) {
+			final double binMin = dimensionDefs[d].normalize(mins[d]) * binsPerDimension;
+			final double binMax = dimensionDefs[d].normalize(maxes[d]) * binsPerDimension;
+			final long binCount = (long) (Math.abs(binMax - binMin) + 1);
+			if (estimatedIdCount > (maxIdCount / binCount)) {
+				return Long.MAX_VALUE;
+			}
+			estimatedIdCount *= binCount;
+		}
+		return estimatedIdCount;
+	}
+
 	/***
 	 * {@inheritDoc}
 	 */
@@ -128,14 +175,26 @@ public class ZOrderSFC implements
 			normalizedMins[d] = dimensionDefs[d].normalize(queryMins[d]);
 			normalizedMaxes[d] = dimensionDefs[d].normalize(queryMaxes[d]);
 		}
-		final byte[] minZorder = ZOrderUtils.encode(
-				normalizedMins,
-				cardinalityPerDimension,
-				query.getDimensionCount());
-		final byte[] maxZorder = ZOrderUtils.encode(
-				normalizedMaxes,
-				cardinalityPerDimension,
-				query.getDimensionCount());
+		final byte[] minZorder;
+		final byte[] maxZorder;
+		if (fixedDimensionEncoding && (query.getDimensionCount() == dimensionDefs.length)) {
+			minZorder = ZOrderUtils.encodeFixedDimension(
+					normalizedMins,
+					cardinalityPerDimension);
+			maxZorder = ZOrderUtils.encodeFixedDimension(
+					normalizedMaxes,
+					cardinalityPerDimension);
+		}
+		else {
+			minZorder = ZOrderUtils.encode(
+					normalizedMins,
+					cardinalityPerDimension,
+					query.getDimensionCount());
+			maxZorder = ZOrderUtils.encode(
+					normalizedMaxes,
+					cardinalityPerDimension,
+					query.getDimensionCount());
+		}
 		return new RangeDecomposition(
 				new ByteArrayRange[] {
 					new ByteArrayRange(
@@ -157,6 +216,19 @@ public class ZOrderSFC implements
 				-1);
 	}
 
+	/***
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<ByteArrayRange> getDecompositionIterator(
+			final MultiDimensionalNumericData query ) {
+		// the z-order decomposition is a single range so there is nothing to
+		// gain from producing it lazily
+		return Arrays.asList(
+				decomposeQueryFully(
+						query).getRanges()).iterator();
+	}
+
 	@Override
 	public int getBitsOfPrecision() {
 		return cardinalityPerDimension * dimensionDefs.length;
@@ -173,4 +173,178 @@ public class ZOrderUtils
 		return buffer;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Encodes normalized values of 2 or 3 dimensions using bit interleaving on
+	 * primitive longs. This produces exactly the same bytes as encode() but
+	 * without the intermediate BitSets. The total bits (bitsPerDimension *
+	 * number of dimensions) must not exceed 64.
+	 * 
+	 * @param normalizedValues
+	 *            the normalized value per dimension
+	 * @param bitsPerDimension
+	 *            the bits of precision per dimension
+	 * @return the Z-Order SFC value
+	 */
+	public static byte[] encodeFixedDimension(
+			final double[] normalizedValues,
+			final int bitsPerDimension ) {
+		final long[] coordinates = new long[normalizedValues.length];
+		final double bins = Math.pow(
+				2,
+				bitsPerDimension);
+		final long maxCoordinate = (long) bins - 1;
+		for (int d = 0; d < normalizedValues.length; d++) {
+			// this is the same as bisecting the range [0,1) once per bit
+			coordinates[d] = Math.max(
+					Math.min(
+							(long) Math.floor(normalizedValues[d] * bins),
+							maxCoordinate),
+					0);
+		}
+		final int totalBits = bitsPerDimension * normalizedValues.length;
+		final int byteCount = (totalBits + 7) / 8;
+		// the bits are left-aligned within the bytes and trailing zero bytes
+		// are dropped, which is how the BitSet-based encoding represents them
+		final long leftAligned = interleave(coordinates) << ((byteCount * 8) - totalBits);
+		int length = byteCount;
+		while ((length > 0) && (((leftAligned >>> ((byteCount - length) * 8)) & 0xFF) == 0)) {
+			length--;
+		}
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) (leftAligned >>> ((byteCount - i - 1) * 8));
+		}
+		return bytes;
+	}
+
+	/**
+	 * Decodes the integer coordinates of a Z-Order value of 2 or 3 dimensions
+	 * that was produced by encode() or encodeFixedDimension(). The total bits
+	 * (bitsPerDimension * numDimensions) must not exceed 64.
+	 * 
+	 * @param bytes
+	 *            the Z-Order SFC value
+	 * @param bitsPerDimension
+	 *            the bits of precision per dimension
+	 * @param numDimensions
+	 *            the number of dimensions
+	 * @return the integer coordinate per dimension
+	 */
+	public static long[] decodeIndicesFixedDimension(
+			final byte[] bytes,
+			final int bitsPerDimension,
+			final int numDimensions ) {
+		final int totalBits = bitsPerDimension * numDimensions;
+		final int byteCount = (totalBits + 7) / 8;
+		long leftAligned = 0;
+		for (int i = 0; i < byteCount; i++) {
+			leftAligned <<= 8;
+			if (i < bytes.length) {
+				leftAligned |= (bytes[i] & 0xFF);
+			}
+		}
+		final long[] coordinates = new long[numDimensions];
+		deinterleave(
+				leftAligned >>> ((byteCount * 8) - totalBits),
+				coordinates);
+		return coordinates;
+	}
+
+	/**
+	 * Interleaves the integer coordinates of a 2 or 3 dimensional value into a
+	 * single long using magic-bit spreading. The first dimension occupies the
+	 * most significant bit of each group of interleaved bits, which matches
+	 * the ordering used by encode().
+	 * 
+	 * @param coordinates
+	 *            the integer coordinate per dimension (at most 32 bits each for
+	 *            2 dimensions and 21 bits each for 3 dimensions)
+	 * @return the interleaved bits
+	 */
+	public static long interleave(
+			final long[] coordinates ) {
+		switch (coordinates.length) {
+			case 2:
+				return (spreadBits2D(coordinates[0]) << 1) | spreadBits2D(coordinates[1]);
+			case 3:
+				return (spreadBits3D(coordinates[0]) << 2) | (spreadBits3D(coordinates[1]) << 1) | spreadBits3D(coordinates[2]);
+			default:
+				throw new IllegalArgumentException(
+						"Bit interleaving is only supported for 2 or 3 dimensions, not " + coordinates.length);
+		}
+	}
+
+	/**
+	 * The inverse of interleave(), fills the integer coordinates of a 2 or 3
+	 * dimensional value from its interleaved bits
+	 * 
+	 * @param interleaved
+	 *            the interleaved bits
+	 * @param coordinates
+	 *            the array to fill with the integer coordinate per dimension,
+	 *            its length determines the number of dimensions
+	 */
+	public static void deinterleave(
+			final long interleaved,
+			final long[] coordinates ) {
+		switch (coordinates.length) {
+			case 2:
+				coordinates[0] = compactBits2D(interleaved >>> 1);
+				coordinates[1] = compactBits2D(interleaved);
+				break;
+			case 3:
+				coordinates[0] = compactBits3D(interleaved >>> 2);
+				coordinates[1] = compactBits3D(interleaved >>> 1);
+				coordinates[2] = compactBits3D(interleaved);
+				break;
+			default:
+				throw new IllegalArgumentException(
+						"Bit interleaving is only supported for 2 or 3 dimensions, not " + coordinates.length);
+		}
+	}
+
+	private static long spreadBits2D(
+			long value ) {
+		value &= 0x00000000FFFFFFFFL;
+		value = (value | (value << 16)) & 0x0000FFFF0000FFFFL;
+		value = (value | (value << 8)) & 0x00FF00FF00FF00FFL;
+		value = (value | (value << 4)) & 0x0F0F0F0F0F0F0F0FL;
+		value = (value | (value << 2)) & 0x3333333333333333L;
+		value = (value | (value << 1)) & 0x5555555555555555L;
+		return value;
+	}
+
+	private static long compactBits2D(
+			long value ) {
+		value &= 0x5555555555555555L;
+		value = (value | (value >>> 1)) & 0x3333333333333333L;
+		value = (value | (value >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+		value = (value | (value >>> 4)) & 0x00FF00FF00FF00FFL;
+		value = (value | (value >>> 8)) & 0x0000FFFF0000FFFFL;
+		value = (value | (value >>> 16)) & 0x00000000FFFFFFFFL;
+		return value;
+	}
+
+	private static long spreadBits3D(
+			long value ) {
+		value &= 0x1FFFFFL;
+		value = (value | (value << 32)) & 0x001F00000000FFFFL;
+		value = (value | (value << 16)) & 0x001F0000FF0000FFL;
+		value = (value | (value << 8)) & 0x100F00F00F00F00FL;
+		value = (value | (value << 4)) & 0x10C30C30C30C30C3L;
+		value = (value | (value << 2)) & 0x1249249249249249L;
+		return value;
+	}
+
+	private static long compactBits3D(
+			long value ) {
+		value &= 0x1249249249249249L;
+		value = (value | (value >>> 2)) & 0x10C30C30C30C30C3L;
+		value = (value | (value >>> 4)) & 0x100F00F00F00F00FL;
+		value = (value | (value >>> 8)) & 0x001F0000FF0000FFL;
+		value = (value | (value >>> 16)) & 0x001F00000000FFFFL;
+		value = (value | (value >>> 32)) & 0x1FFFFFL;
+		return value;
+	}
+
+}
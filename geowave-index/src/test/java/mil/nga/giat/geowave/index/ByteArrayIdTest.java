@@ -0,0 +1,145 @@
+package mil.nga.giat.geowave.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ByteArrayIdTest
+{
+	@Test
+	public void testSliceEqualsWholeArray() {
+		final byte[] backing = new byte[] {
+			9,
+			1,
+			2,
+			3,
+			9
+		};
+		final ByteArrayId whole = new ByteArrayId(
+				new byte[] {
+					1,
+					2,
+					3
+				});
+		final ByteArrayId slice = new ByteArrayId(
+				backing,
+				1,
+				3);
+		assertEquals(
+				whole,
+				slice);
+		assertEquals(
+				slice,
+				whole);
+		assertEquals(
+				whole.hashCode(),
+				slice.hashCode());
+		// the hash code must remain compatible with the original definition
+		assertEquals(
+				31 + Arrays.hashCode(whole.getBytes()),
+				slice.hashCode());
+		assertEquals(
+				3,
+				slice.getLength());
+		assertTrue(Arrays.equals(
+				whole.getBytes(),
+				slice.getBytes()));
+		assertFalse(slice.equals(new ByteArrayId(
+				backing,
+				0,
+				3)));
+
+		final Map<ByteArrayId, String> map = new HashMap<ByteArrayId, String>();
+		map.put(
+				whole,
+				"value");
+		assertEquals(
+				"value",
+				map.get(slice));
+	}
+
+	@Test
+	public void testUnsignedOrder() {
+		final ByteArrayId a = new ByteArrayId(
+				new byte[] {
+					1,
+					(byte) 0x7F
+				});
+		final ByteArrayId b = new ByteArrayId(
+				new byte[] {
+					1,
+					(byte) 0x80
+				});
+		final ByteArrayId prefix = new ByteArrayId(
+				new byte[] {
+					1
+				});
+		assertTrue(a.compareTo(b) < 0);
+		assertTrue(b.compareTo(a) > 0);
+		assertTrue(prefix.compareTo(a) < 0);
+		assertEquals(
+				0,
+				a.compareTo(new ByteArrayId(
+						new byte[] {
+							0,
+							1,
+							(byte) 0x7F
+						},
+						1,
+						2)));
+	}
+
+	@Test
+	public void testNullOrder() {
+		final ByteArrayId nullId = new ByteArrayId(
+				(byte[]) null);
+		final ByteArrayId empty = new ByteArrayId(
+				new byte[] {});
+		assertEquals(
+				0,
+				nullId.compareTo(new ByteArrayId(
+						(byte[]) null)));
+		assertTrue(nullId.compareTo(empty) < 0);
+		assertTrue(empty.compareTo(nullId) > 0);
+	}
+
+	@Test
+	public void testGetByteOfSlice() {
+		final ByteArrayId slice = new ByteArrayId(
+				new byte[] {
+					1,
+					2,
+					3
+				},
+				1,
+				2);
+		assertEquals(
+				2,
+				slice.getByte(0));
+		assertEquals(
+				3,
+				slice.getByte(1));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetBytePastSlice() {
+		new ByteArrayId(
+				new byte[3],
+				0,
+				2).getByte(2);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSliceOutOfBounds() {
+		new ByteArrayId(
+				new byte[2],
+				1,
+				2);
+	}
+}
@@ -0,0 +1,133 @@
+package mil.nga.giat.geowave.index;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ByteArrayRangeTest
+{
+	@Test
+	public void testMergeIntersections() {
+		final List<ByteArrayRange> merged = ByteArrayRange.mergeIntersections(Arrays.asList(
+				range(
+						20,
+						30),
+				range(
+						0,
+						10),
+				// adjacent to the first range
+				range(
+						11,
+						12),
+				// overlaps the range before
+				range(
+						25,
+						40),
+				// separated by a gap of one ID
+				range(
+						42,
+						50),
+				// empty
+				range(
+						70,
+						60)));
+		assertEquals(
+				Arrays.asList(
+						range(
+								0,
+								12),
+						range(
+								20,
+								40),
+						range(
+								42,
+								50)),
+				merged);
+	}
+
+	@Test
+	public void testMergeWithGapSize() {
+		final List<ByteArrayRange> ranges = Arrays.asList(
+				range(
+						0,
+						10),
+				range(
+						13,
+						20),
+				range(
+						30,
+						40));
+		assertEquals(
+				3,
+				ByteArrayRange.mergeIntersections(
+						ranges,
+						1).size());
+		assertEquals(
+				Arrays.asList(
+						range(
+								0,
+								20),
+						range(
+								30,
+								40)),
+				ByteArrayRange.mergeIntersections(
+						ranges,
+						2));
+		assertEquals(
+				Arrays.asList(range(
+						0,
+						40)),
+				ByteArrayRange.mergeIntersections(
+						ranges,
+						9));
+	}
+
+	@Test
+	public void testMergePrefixEnd() {
+		// an end is inclusive of every ID it is a prefix of
+		final ByteArrayRange prefixRange = new ByteArrayRange(
+				new ByteArrayId(
+						new byte[] {
+							1
+						}),
+				new ByteArrayId(
+						new byte[] {
+							2
+						}));
+		final ByteArrayRange containedRange = new ByteArrayRange(
+				new ByteArrayId(
+						new byte[] {
+							2,
+							5
+						}),
+				new ByteArrayId(
+						new byte[] {
+							2,
+							(byte) 0xFF
+						}));
+		assertEquals(
+				Arrays.asList(prefixRange),
+				ByteArrayRange.mergeIntersections(Arrays.asList(
+						containedRange,
+						prefixRange)));
+	}
+
+	private static ByteArrayRange range(
+			final int start,
+			final int end ) {
+		return new ByteArrayRange(
+				new ByteArrayId(
+						new byte[] {
+							0,
+							(byte) start
+						}),
+				new ByteArrayId(
+						new byte[] {
+							0,
+							(byte) end
+						}));
+	}
+}
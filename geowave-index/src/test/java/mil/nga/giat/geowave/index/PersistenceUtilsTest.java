@@ -0,0 +1,148 @@
+package mil.nga.giat.geowave.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialTemporalFactory;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+
+import org.junit.Test;
+
+public class PersistenceUtilsTest
+{
+	@Test
+	public void testRegisteredPersistableUsesShortId() {
+		final NumericIndexStrategy strategy = new SpatialTemporalFactory().createIndexStrategy(DataType.VECTOR);
+		final byte[] binary = PersistenceUtils.toBinary(strategy);
+		assertEquals(
+				2 + strategy.toBinary().length,
+				binary.length);
+		final NumericIndexStrategy deserialized = PersistenceUtils.fromBinary(
+				binary,
+				NumericIndexStrategy.class);
+		assertEquals(
+				strategy,
+				deserialized);
+	}
+
+	@Test
+	public void testClassNameFormatIsReadable() {
+		final NumericIndexStrategy strategy = new SpatialTemporalFactory().createIndexStrategy(DataType.VECTOR);
+		final NumericIndexStrategy deserialized = PersistenceUtils.fromBinary(
+				toClassNameBinary(strategy),
+				NumericIndexStrategy.class);
+		assertEquals(
+				strategy,
+				deserialized);
+	}
+
+	@Test
+	public void testUnregisteredPersistable() {
+		final TestPersistable persistable = new TestPersistable(
+				new byte[] {
+					1,
+					2,
+					3
+				});
+		final byte[] binary = PersistenceUtils.toBinary(persistable);
+		assertTrue(Arrays.equals(
+				toClassNameBinary(persistable),
+				binary));
+		final TestPersistable deserialized = PersistenceUtils.fromBinary(
+				binary,
+				TestPersistable.class);
+		assertTrue(Arrays.equals(
+				persistable.value,
+				deserialized.value));
+	}
+
+	@Test
+	public void testMixedFormatsInCollection() {
+		final List<Persistable> persistables = new ArrayList<Persistable>();
+		persistables.add(new LongitudeDefinition());
+		persistables.add(new TestPersistable(
+				new byte[] {
+					4
+				}));
+		persistables.add(new LatitudeDefinition());
+		final List<Persistable> deserialized = PersistenceUtils.fromBinary(PersistenceUtils.toBinary(persistables));
+		assertEquals(
+				3,
+				deserialized.size());
+		assertEquals(
+				persistables.get(0),
+				deserialized.get(0));
+		assertEquals(
+				4,
+				((TestPersistable) deserialized.get(1)).value[0]);
+		assertEquals(
+				persistables.get(2),
+				deserialized.get(2));
+	}
+
+	@Test
+	public void testUnexpectedType() {
+		assertNull(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(new LongitudeDefinition()),
+				NumericIndexStrategy.class));
+		final NumericDimensionDefinition dimension = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(new LongitudeDefinition()),
+				NumericDimensionDefinition.class);
+		assertEquals(
+				new LongitudeDefinition(),
+				dimension);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownPersistableId() {
+		final ByteBuffer buf = ByteBuffer.allocate(2);
+		buf.putShort((short) -Short.MAX_VALUE);
+		PersistenceUtils.fromBinary(
+				buf.array(),
+				Persistable.class);
+	}
+
+	private static byte[] toClassNameBinary(
+			final Persistable persistable ) {
+		final byte[] className = StringUtils.stringToBinary(persistable.getClass().getName());
+		final byte[] persistableBinary = persistable.toBinary();
+		final ByteBuffer buf = ByteBuffer.allocate(4 + className.length + persistableBinary.length);
+		buf.putInt(className.length);
+		buf.put(className);
+		buf.put(persistableBinary);
+		return buf.array();
+	}
+
+	public static class TestPersistable implements
+			Persistable
+	{
+		private byte[] value;
+
+		protected TestPersistable() {}
+
+		public TestPersistable(
+				final byte[] value ) {
+			this.value = value;
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return value;
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {
+			value = bytes;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package mil.nga.giat.geowave.index.dimension.bin;
+
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
+
+import org.apache.log4j.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the throughput of the temporal binning strategy to binning each
+ * value with its own Calendar instances, which is logged. It is not part of the
+ * unit tests and is run manually.
+ */
+@Ignore("benchmark")
+public class TemporalBinningStrategyBenchmarkTest
+{
+	private final static Logger LOGGER = Logger.getLogger(TemporalBinningStrategyBenchmarkTest.class);
+	private static final int NUM_VALUES = 100000;
+
+	@Test
+	public void testBenchmarkBinnedValues() {
+		final long[] values = TemporalBinningStrategyCalendarTest.createValues(NUM_VALUES);
+		for (final Unit unit : Unit.values()) {
+			final TemporalBinningStrategy strategy = new TemporalBinningStrategy(
+					unit,
+					"America/New_York");
+			long start = System.nanoTime();
+			for (final long value : values) {
+				TemporalBinningStrategyCalendarTest.getCalendarBinnedValue(
+						unit,
+						"America/New_York",
+						value);
+			}
+			final long calendarNanos = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (final long value : values) {
+				strategy.getBinnedValue(value);
+			}
+			final long strategyNanos = System.nanoTime() - start;
+			LOGGER.info(unit + " binning of " + NUM_VALUES + " values: calendar per value " + (calendarNanos / 1000000) + " ms, cached bins " + (strategyNanos / 1000000) + " ms");
+		}
+	}
+}
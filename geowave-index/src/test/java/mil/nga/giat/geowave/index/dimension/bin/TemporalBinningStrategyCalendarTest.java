@@ -0,0 +1,144 @@
+package mil.nga.giat.geowave.index.dimension.bin;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the binned values of the temporal binning strategy to binning each
+ * value with its own Calendar instances, which must be identical.
+ */
+public class TemporalBinningStrategyCalendarTest
+{
+	private static final int NUM_VALUES = 10000;
+	private static final String[] TIMEZONES = new String[] {
+		"GMT",
+		"America/New_York",
+		"Australia/Lord_Howe",
+		"America/Sao_Paulo"
+	};
+
+	@Test
+	public void testBinnedValuesMatchCalendarBinning() {
+		assertMatchesCalendarBinning(createValues(NUM_VALUES));
+	}
+
+	@Test
+	public void testHistoricValuesMatchCalendarBinning() {
+		// from the year 1500 to 2500, crossing the Gregorian cutover and the
+		// local mean time offsets of each timezone
+		final Random rand = new Random(
+				11);
+		final long[] values = new long[NUM_VALUES];
+		for (int i = 0; i < NUM_VALUES; i++) {
+			values[i] = -14831769600000L + (long) (rand.nextDouble() * 3.1556952e13);
+		}
+		assertMatchesCalendarBinning(values);
+	}
+
+	private static void assertMatchesCalendarBinning(
+			final long[] values ) {
+		for (final String timezone : TIMEZONES) {
+			for (final Unit unit : Unit.values()) {
+				final TemporalBinningStrategy strategy = new TemporalBinningStrategy(
+						unit,
+						timezone);
+				for (final long value : values) {
+					final BinValue expected = getCalendarBinnedValue(
+							unit,
+							timezone,
+							value);
+					final BinValue actual = strategy.getBinnedValue(value);
+					Assert.assertTrue(Arrays.equals(
+							expected.getBinId(),
+							actual.getBinId()));
+					Assert.assertEquals(
+							expected.getNormalizedValue(),
+							actual.getNormalizedValue(),
+							0);
+				}
+			}
+		}
+	}
+
+	static long[] createValues(
+			final int numValues ) {
+		final Random rand = new Random(
+				7);
+		final long[] values = new long[numValues];
+		// about 5 years starting 2010, with the first values spaced around
+		// midnight of a daylight savings transition in each timezone
+		for (int i = 0; i < numValues; i++) {
+			if (i < 1000) {
+				values[i] = 1286668800000L + ((i - 500) * 60000L);
+			}
+			else {
+				values[i] = 1262304000000L + (long) (rand.nextDouble() * 1.5e11);
+			}
+		}
+		return values;
+	}
+
+	static BinValue getCalendarBinnedValue(
+			final Unit unit,
+			final String timezone,
+			final long value ) {
+		final Calendar epochCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		epochCal.setTimeInMillis(value);
+		switch (unit) {
+			case YEAR:
+			default:
+				epochCal.set(
+						Calendar.MONTH,
+						epochCal.getActualMinimum(Calendar.MONTH));
+			case MONTH:
+				epochCal.set(
+						Calendar.DAY_OF_MONTH,
+						epochCal.getActualMinimum(Calendar.DAY_OF_MONTH));
+			case DAY:
+				epochCal.set(
+						Calendar.HOUR_OF_DAY,
+						epochCal.getActualMinimum(Calendar.HOUR_OF_DAY));
+				epochCal.set(
+						Calendar.MINUTE,
+						epochCal.getActualMinimum(Calendar.MINUTE));
+				epochCal.set(
+						Calendar.SECOND,
+						epochCal.getActualMinimum(Calendar.SECOND));
+				epochCal.set(
+						Calendar.MILLISECOND,
+						epochCal.getActualMinimum(Calendar.MILLISECOND));
+		}
+		final Calendar valueCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		valueCal.setTimeInMillis(value);
+		final String year = Integer.toString(valueCal.get(Calendar.YEAR));
+		final String month = String.format(
+				"%02d",
+				valueCal.get(Calendar.MONTH));
+		final String day = String.format(
+				"%02d",
+				valueCal.get(Calendar.DAY_OF_MONTH));
+		final String binId;
+		switch (unit) {
+			case YEAR:
+			default:
+				binId = year;
+				break;
+			case MONTH:
+				binId = year + "_" + month;
+				break;
+			case DAY:
+				binId = year + "_" + month + "_" + day;
+		}
+		return new BinValue(
+				StringUtils.stringToBinary(binId),
+				valueCal.getTimeInMillis() - epochCal.getTimeInMillis());
+	}
+}
@@ -0,0 +1,268 @@
+package mil.nga.giat.geowave.index.sfc.hilbert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.uzaygezen.core.CompactHilbertCurve;
+import com.google.uzaygezen.core.MultiDimensionalSpec;
+
+public class FixedDimensionHilbertSFCOperationsTest
+{
+	private static final int NUM_POINTS = 1000;
+
+	@Test
+	public void testSpatialMatchesCompactHilbertCurve() {
+		for (int bits = 0; bits <= 31; bits++) {
+			assertMatchesCompactHilbertCurve(
+					new NumericDimensionDefinition[] {
+						new LongitudeDefinition(),
+						new LatitudeDefinition()
+					},
+					bits);
+		}
+	}
+
+	@Test
+	public void testSpatialTemporalMatchesCompactHilbertCurve() {
+		for (int bits = 0; bits <= 20; bits++) {
+			assertMatchesCompactHilbertCurve(
+					new NumericDimensionDefinition[] {
+						new LongitudeDefinition(),
+						new LatitudeDefinition(),
+						new BasicDimensionDefinition(
+								0,
+								1)
+					},
+					bits);
+		}
+	}
+
+	@Test
+	public void testDecompositionIteratorMatchesCompactHilbertCurve() {
+		for (int bits = 1; bits <= 16; bits += 5) {
+			assertDecompositionMatchesCompactHilbertCurve(
+					new NumericDimensionDefinition[] {
+						new LongitudeDefinition(),
+						new LatitudeDefinition()
+					},
+					bits);
+			assertDecompositionMatchesCompactHilbertCurve(
+					new NumericDimensionDefinition[] {
+						new LongitudeDefinition(),
+						new LatitudeDefinition(),
+						new BasicDimensionDefinition(
+								0,
+								1)
+					},
+					bits);
+		}
+	}
+
+	@Test
+	public void testIsSupported() {
+		Assert.assertTrue(FixedDimensionHilbertSFCOperations.isSupported(createDimensions(
+				new NumericDimensionDefinition[] {
+					new LongitudeDefinition(),
+					new LatitudeDefinition()
+				},
+				31)));
+		Assert.assertFalse(FixedDimensionHilbertSFCOperations.isSupported(createDimensions(
+				new NumericDimensionDefinition[] {
+					new LongitudeDefinition(),
+					new LatitudeDefinition()
+				},
+				32)));
+		Assert.assertFalse(FixedDimensionHilbertSFCOperations.isSupported(new SFCDimensionDefinition[] {
+			new SFCDimensionDefinition(
+					new LongitudeDefinition(),
+					31),
+			new SFCDimensionDefinition(
+					new LatitudeDefinition(),
+					30)
+		}));
+		Assert.assertFalse(FixedDimensionHilbertSFCOperations.isSupported(createDimensions(
+				new NumericDimensionDefinition[] {
+					new BasicDimensionDefinition(
+							0,
+							1),
+					new BasicDimensionDefinition(
+							0,
+							1),
+					new BasicDimensionDefinition(
+							0,
+							1),
+					new BasicDimensionDefinition(
+							0,
+							1)
+				},
+				10)));
+	}
+
+	private static SFCDimensionDefinition[] createDimensions(
+			final NumericDimensionDefinition[] baseDefinitions,
+			final int bits ) {
+		final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[baseDefinitions.length];
+		for (int d = 0; d < baseDefinitions.length; d++) {
+			sfcDimensions[d] = new SFCDimensionDefinition(
+					baseDefinitions[d],
+					bits);
+		}
+		return sfcDimensions;
+	}
+
+	private static void assertMatchesCompactHilbertCurve(
+			final NumericDimensionDefinition[] baseDefinitions,
+			final int bits ) {
+		final SFCDimensionDefinition[] sfcDimensions = createDimensions(
+				baseDefinitions,
+				bits);
+		final List<Integer> bitsPerDimension = new ArrayList<Integer>();
+		for (int d = 0; d < sfcDimensions.length; d++) {
+			bitsPerDimension.add(bits);
+		}
+		final CompactHilbertCurve compactHilbertCurve = new CompactHilbertCurve(
+				new MultiDimensionalSpec(
+						bitsPerDimension));
+		final FixedDimensionHilbertSFCOperations testOperations = new FixedDimensionHilbertSFCOperations();
+		final PrimitiveHilbertSFCOperations expectedResultOperations = new PrimitiveHilbertSFCOperations();
+		testOperations.init(sfcDimensions);
+		expectedResultOperations.init(sfcDimensions);
+
+		final Random random = new Random(
+				bits);
+		final double[][] points = new double[NUM_POINTS][];
+		for (int i = 0; i < NUM_POINTS; i++) {
+			points[i] = new double[sfcDimensions.length];
+			for (int d = 0; d < sfcDimensions.length; d++) {
+				final double min = baseDefinitions[d].getFullRange().getMin();
+				final double max = baseDefinitions[d].getFullRange().getMax();
+				if (i == 0) {
+					points[i][d] = min;
+				}
+				else if (i == 1) {
+					points[i][d] = max;
+				}
+				else {
+					points[i][d] = min + (random.nextDouble() * (max - min));
+				}
+			}
+		}
+		final byte[][] batchIds = new byte[NUM_POINTS][];
+		testOperations.convertToHilbert(
+				points,
+				batchIds,
+				compactHilbertCurve,
+				sfcDimensions);
+		for (int i = 0; i < NUM_POINTS; i++) {
+			final byte[] expectedId = expectedResultOperations.convertToHilbert(
+					points[i],
+					compactHilbertCurve,
+					sfcDimensions);
+			final byte[] testId = testOperations.convertToHilbert(
+					points[i],
+					compactHilbertCurve,
+					sfcDimensions);
+			Assert.assertArrayEquals(
+					expectedId,
+					testId);
+			Assert.assertArrayEquals(
+					expectedId,
+					batchIds[i]);
+			Assert.assertArrayEquals(
+					expectedResultOperations.indicesFromHilbert(
+							expectedId,
+							compactHilbertCurve,
+							sfcDimensions),
+					testOperations.indicesFromHilbert(
+							testId,
+							compactHilbertCurve,
+							sfcDimensions));
+			final MultiDimensionalNumericData expectedRanges = expectedResultOperations.convertFromHilbert(
+					expectedId,
+					compactHilbertCurve,
+					sfcDimensions);
+			final MultiDimensionalNumericData testRanges = testOperations.convertFromHilbert(
+					testId,
+					compactHilbertCurve,
+					sfcDimensions);
+			Assert.assertTrue(Arrays.equals(
+					expectedRanges.getMinValuesPerDimension(),
+					testRanges.getMinValuesPerDimension()));
+			Assert.assertTrue(Arrays.equals(
+					expectedRanges.getMaxValuesPerDimension(),
+					testRanges.getMaxValuesPerDimension()));
+		}
+	}
+
+	private static void assertDecompositionMatchesCompactHilbertCurve(
+			final NumericDimensionDefinition[] baseDefinitions,
+			final int bits ) {
+		final SFCDimensionDefinition[] sfcDimensions = createDimensions(
+				baseDefinitions,
+				bits);
+		final List<Integer> bitsPerDimension = new ArrayList<Integer>();
+		for (int d = 0; d < sfcDimensions.length; d++) {
+			bitsPerDimension.add(bits);
+		}
+		final CompactHilbertCurve compactHilbertCurve = new CompactHilbertCurve(
+				new MultiDimensionalSpec(
+						bitsPerDimension));
+		final FixedDimensionHilbertSFCOperations testOperations = new FixedDimensionHilbertSFCOperations();
+		final PrimitiveHilbertSFCOperations expectedResultOperations = new PrimitiveHilbertSFCOperations();
+		testOperations.init(sfcDimensions);
+		expectedResultOperations.init(sfcDimensions);
+		final Random random = new Random(
+				bits);
+		for (int i = 0; i < 20; i++) {
+			final NumericData[] query = new NumericData[sfcDimensions.length];
+			for (int d = 0; d < sfcDimensions.length; d++) {
+				final double min = baseDefinitions[d].getFullRange().getMin();
+				final double max = baseDefinitions[d].getFullRange().getMax();
+				// vary the query from a small fraction to the full extent
+				final double size = (max - min) * Math.pow(
+						random.nextDouble(),
+						2);
+				final double queryMin = min + (random.nextDouble() * ((max - min) - size));
+				query[d] = new NumericRange(
+						queryMin,
+						queryMin + size);
+			}
+			final ByteArrayRange[] expectedRanges = expectedResultOperations.decomposeRange(
+					query,
+					compactHilbertCurve,
+					sfcDimensions,
+					bits * sfcDimensions.length,
+					Integer.MAX_VALUE,
+					true).getRanges();
+			final List<ByteArrayRange> testRanges = new ArrayList<ByteArrayRange>();
+			final Iterator<ByteArrayRange> it = testOperations.getDecompositionIterator(
+					query,
+					compactHilbertCurve,
+					sfcDimensions,
+					bits * sfcDimensions.length,
+					true);
+			while (it.hasNext()) {
+				testRanges.add(it.next());
+			}
+			Assert.assertEquals(
+					Arrays.asList(expectedRanges),
+					testRanges);
+		}
+	}
+}
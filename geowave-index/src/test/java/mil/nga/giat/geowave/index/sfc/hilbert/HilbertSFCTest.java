@@ -275,4 +275,116 @@ public class HilbertSFCTest
 
 
 	/*public void testDecomposeQuery_2DSpatialRanges() {}*/
+
+	@Test
+	public void testGetIds_2DSpatialBatchMatchesGetId()
+			throws Exception {
+
+		int LATITUDE_BITS = 31;
+		int LONGITUDE_BITS = 31;
+
+		double[][] testValues = new double[][] {
+			{
+				-90,
+				-180
+			},
+			{
+				90,
+				180
+			},
+			{
+				0,
+				0
+			},
+			{
+				-67.9213546,
+				-1.235456
+			},
+			{
+				42.92135469374287,
+				-61.23545610248974
+			}
+		};
+
+		SFCDimensionDefinition[] SPATIAL_DIMENSIONS = new SFCDimensionDefinition[] {
+			new SFCDimensionDefinition(
+					new LatitudeDefinition(),
+					LATITUDE_BITS),
+			new SFCDimensionDefinition(
+					new LongitudeDefinition(),
+					LONGITUDE_BITS)
+		};
+
+		SpaceFillingCurve hilbertSFC = SFCFactory.createSpaceFillingCurve(
+				SPATIAL_DIMENSIONS,
+				SFCType.HILBERT);
+		byte[][] ids = new byte[testValues.length][];
+		hilbertSFC.getIds(
+				testValues,
+				ids);
+		for (int i = 0; i < testValues.length; i++) {
+			Assert.assertArrayEquals(
+					hilbertSFC.getId(testValues[i]),
+					ids[i]);
+		}
+	}
+
+	@Test
+	public void testGetEstimatedIdCount_PrimitiveMatchesBigInteger() {
+		final SFCDimensionDefinition[] SPATIAL_DIMENSIONS = new SFCDimensionDefinition[] {
+			new SFCDimensionDefinition(
+					new LongitudeDefinition(),
+					20),
+			new SFCDimensionDefinition(
+					new LatitudeDefinition(),
+					20)
+		};
+		final SpaceFillingCurve hilbertSFC = SFCFactory.createSpaceFillingCurve(
+				SPATIAL_DIMENSIONS,
+				SFCType.HILBERT);
+		final double[] sizes = new double[] {
+			0,
+			0.0001,
+			0.001,
+			0.1,
+			10,
+			360
+		};
+		final long[] maxIdCounts = new long[] {
+			1,
+			4,
+			1000,
+			Long.MAX_VALUE
+		};
+		for (final double size : sizes) {
+			final BasicNumericDataset query = new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								-180 + (size / 3),
+								Math.min(
+										180,
+										-180 + (size / 3) + size)),
+						new NumericRange(
+								-45,
+								Math.min(
+										90,
+										-45 + (size / 2)))
+					});
+			final long expected = hilbertSFC.getEstimatedIdCount(
+					query).longValue();
+			for (final long maxIdCount : maxIdCounts) {
+				final long estimate = hilbertSFC.getEstimatedIdCount(
+						query,
+						maxIdCount);
+				if (expected <= maxIdCount) {
+					Assert.assertEquals(
+							expected,
+							estimate);
+				}
+				else {
+					Assert.assertTrue(estimate > maxIdCount);
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,65 @@
+package mil.nga.giat.geowave.index.sfc.hilbert.tiered;
+
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialFactory;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialTemporalFactory;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+
+import org.apache.log4j.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * A multi-threaded ingest micro-benchmark for insertion IDs. Each thread count
+ * computes the insertion IDs for the same entries using a single shared index
+ * strategy and logs the throughput, so that scaling with the number of cores
+ * can be compared. It is not part of the unit tests and is run manually.
+ */
+@Ignore("benchmark")
+public class TieredSFCIndexStrategyConcurrencyBenchmarkTest
+{
+	private final static Logger LOGGER = Logger.getLogger(TieredSFCIndexStrategyConcurrencyBenchmarkTest.class);
+	private static final int NUM_ENTRIES = 20000;
+
+	@Test
+	public void testSpatialConcurrentInsertionIds()
+			throws Exception {
+		benchmarkConcurrentInsertionIds(
+				"spatial",
+				new SpatialFactory().createIndexStrategy(DataType.VECTOR),
+				TieredSFCIndexStrategyConcurrencyTest.createEntries(
+						NUM_ENTRIES,
+						false));
+	}
+
+	@Test
+	public void testSpatialTemporalConcurrentInsertionIds()
+			throws Exception {
+		benchmarkConcurrentInsertionIds(
+				"spatial-temporal",
+				new SpatialTemporalFactory().createIndexStrategy(DataType.VECTOR),
+				TieredSFCIndexStrategyConcurrencyTest.createEntries(
+						NUM_ENTRIES,
+						true));
+	}
+
+	private static void benchmarkConcurrentInsertionIds(
+			final String name,
+			final NumericIndexStrategy strategy,
+			final MultiDimensionalNumericData[] entries )
+			throws Exception {
+		final int maxThreads = Math.max(
+				2,
+				Runtime.getRuntime().availableProcessors());
+		for (int numThreads = 1; numThreads <= maxThreads; numThreads *= 2) {
+			final long start = System.nanoTime();
+			TieredSFCIndexStrategyConcurrencyTest.getInsertionIds(
+					strategy,
+					entries,
+					numThreads);
+			final long elapsedNanos = System.nanoTime() - start;
+			LOGGER.info(name + " insertion IDs with " + numThreads + " thread(s): " + (long) ((entries.length * 1e9) / elapsedNanos) + " entries/s");
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package mil.nga.giat.geowave.index.sfc.hilbert.tiered;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialFactory;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialTemporalFactory;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.index.sfc.data.NumericValue;
+
+import org.junit.Test;
+
+/**
+ * Computes the insertion IDs for the same entries from several threads using a
+ * single shared index strategy, and verifies them against a single threaded
+ * run.
+ */
+public class TieredSFCIndexStrategyConcurrencyTest
+{
+	private static final int NUM_ENTRIES = 2000;
+	private static final int NUM_THREADS = 4;
+
+	@Test
+	public void testSpatialConcurrentInsertionIds()
+			throws Exception {
+		testConcurrentInsertionIds(
+				"spatial",
+				new SpatialFactory().createIndexStrategy(DataType.VECTOR),
+				createEntries(
+						NUM_ENTRIES,
+						false));
+	}
+
+	@Test
+	public void testSpatialTemporalConcurrentInsertionIds()
+			throws Exception {
+		testConcurrentInsertionIds(
+				"spatial-temporal",
+				new SpatialTemporalFactory().createIndexStrategy(DataType.VECTOR),
+				createEntries(
+						NUM_ENTRIES,
+						true));
+	}
+
+	private static void testConcurrentInsertionIds(
+			final String name,
+			final NumericIndexStrategy strategy,
+			final MultiDimensionalNumericData[] entries )
+			throws Exception {
+		final List<List<ByteArrayId>> expectedIds = new ArrayList<List<ByteArrayId>>(
+				entries.length);
+		for (final MultiDimensionalNumericData entry : entries) {
+			expectedIds.add(strategy.getInsertionIds(entry));
+		}
+		final List<List<List<ByteArrayId>>> results = getInsertionIds(
+				strategy,
+				entries,
+				NUM_THREADS);
+		for (int t = 0; t < NUM_THREADS; t++) {
+			final List<List<ByteArrayId>> ids = results.get(t);
+			for (int i = 0; i < ids.size(); i++) {
+				assertEquals(
+						name,
+						expectedIds.get(t + (i * NUM_THREADS)),
+						ids.get(i));
+			}
+		}
+	}
+
+	/**
+	 * @return the insertion IDs computed by each thread, where thread t
+	 *         computes the IDs of every entry whose index modulo the number of
+	 *         threads is t
+	 */
+	static List<List<List<ByteArrayId>>> getInsertionIds(
+			final NumericIndexStrategy strategy,
+			final MultiDimensionalNumericData[] entries,
+			final int numThreads )
+			throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			final List<Future<List<List<ByteArrayId>>>> futures = new ArrayList<Future<List<List<ByteArrayId>>>>();
+			for (int t = 0; t < numThreads; t++) {
+				final int offset = t;
+				futures.add(executor.submit(new Callable<List<List<ByteArrayId>>>() {
+					@Override
+					public List<List<ByteArrayId>> call() {
+						final List<List<ByteArrayId>> ids = new ArrayList<List<ByteArrayId>>();
+						for (int i = offset; i < entries.length; i += numThreads) {
+							ids.add(strategy.getInsertionIds(entries[i]));
+						}
+						return ids;
+					}
+				}));
+			}
+			final List<List<List<ByteArrayId>>> results = new ArrayList<List<List<ByteArrayId>>>();
+			for (final Future<List<List<ByteArrayId>>> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	static MultiDimensionalNumericData[] createEntries(
+			final int numEntries,
+			final boolean includeTime ) {
+		final Random rand = new Random(
+				4321);
+		final MultiDimensionalNumericData[] entries = new MultiDimensionalNumericData[numEntries];
+		for (int i = 0; i < numEntries; i++) {
+			final double lon = -180 + (rand.nextDouble() * 359);
+			final double lat = -90 + (rand.nextDouble() * 179);
+			// a mix of points and small polygons
+			final double size = (i % 4 == 0) ? rand.nextDouble() : 0;
+			final NumericData[] data = new NumericData[includeTime ? 3 : 2];
+			data[0] = new NumericRange(
+					lon,
+					lon + size);
+			data[1] = new NumericRange(
+					lat,
+					lat + size);
+			if (includeTime) {
+				data[2] = new NumericValue(
+						1262304000000L + (rand.nextDouble() * 1.5e11));
+			}
+			entries[i] = new BasicNumericDataset(
+					data);
+		}
+		return entries;
+	}
+}
@@ -6,26 +6,37 @@ import static org.junit.Assert.assertTrue;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialFactory;
 import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialTemporalFactory;
 import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
 import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
 import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
 import mil.nga.giat.geowave.index.dimension.TimeDefinition;
 import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.SFCFactory;
 import mil.nga.giat.geowave.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.index.sfc.SpaceFillingCurve;
 import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericRange;
 import mil.nga.giat.geowave.index.sfc.data.NumericValue;
+import mil.nga.giat.geowave.index.sfc.tiered.QueryRangeCache;
 import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexFactory;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
 
 import org.junit.Test;
 
@@ -230,6 +241,303 @@ public class TieredSFCIndexStrategyTest
 				5));
 	}
 
+	@Test
+	public void testQueryRangeCache() {
+		final NumericIndexStrategy strategy = new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final QueryRangeCache cache = TieredSFCIndexStrategy.getQueryRangeCache();
+		cache.clear();
+		final MultiDimensionalNumericData query1 = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-77.0369,
+							-77.0365),
+					new NumericRange(
+							38.9071,
+							38.9075)
+				});
+		// the same query offset by much less than a cell at the highest
+		// precision tier
+		final MultiDimensionalNumericData query2 = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-77.0369 + 1e-12,
+							-77.0365 + 1e-12),
+					new NumericRange(
+							38.9071 + 1e-12,
+							38.9075 + 1e-12)
+				});
+		final long initialHits = cache.getHitCount();
+		final long initialMisses = cache.getMissCount();
+		final List<ByteArrayRange> ranges1 = strategy.getQueryRanges(query1);
+		assertEquals(
+				initialMisses + 1,
+				cache.getMissCount());
+		final List<ByteArrayRange> ranges2 = strategy.getQueryRanges(query2);
+		assertEquals(
+				initialHits + 1,
+				cache.getHitCount());
+		assertEquals(
+				ranges1,
+				ranges2);
+
+		// a different max range decomposition should not hit the cache
+		strategy.getQueryRanges(
+				query1,
+				4);
+		assertEquals(
+				initialMisses + 2,
+				cache.getMissCount());
+
+		// decomposing the quantized query fresh should produce the same ranges
+		cache.clear();
+		assertEquals(
+				ranges2,
+				strategy.getQueryRanges(query2));
+	}
+
+	@Test
+	public void testQueryRangeCacheIdCollision() {
+		final SpaceFillingCurve coarseSfc = createSpatialSfc(8);
+		final SpaceFillingCurve fineSfc = createSpatialSfc(31);
+		// both strategies have the same ID but a different set of tiers
+		final TieredSFCIndexStrategy tieredStrategy = new ConstantHashStrategy(
+				new NumericDimensionDefinition[] {
+					new LongitudeDefinition(),
+					new LatitudeDefinition()
+				},
+				new SpaceFillingCurve[] {
+					coarseSfc,
+					fineSfc
+				});
+		final TieredSFCIndexStrategy singleTierStrategy = new ConstantHashStrategy(
+				new NumericDimensionDefinition[] {
+					new LongitudeDefinition(),
+					new LatitudeDefinition()
+				},
+				new SpaceFillingCurve[] {
+					fineSfc
+				});
+		assertEquals(
+				tieredStrategy.getId(),
+				singleTierStrategy.getId());
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-77.0369,
+							-77.0365),
+					new NumericRange(
+							38.9071,
+							38.9075)
+				});
+		final QueryRangeCache cache = TieredSFCIndexStrategy.getQueryRangeCache();
+		cache.clear();
+		final List<ByteArrayRange> tieredRanges = tieredStrategy.getQueryRanges(query);
+		final List<ByteArrayRange> singleTierRanges = singleTierStrategy.getQueryRanges(query);
+		assertFalse(tieredRanges.equals(singleTierRanges));
+		cache.clear();
+		assertEquals(
+				singleTierRanges,
+				singleTierStrategy.getQueryRanges(query));
+	}
+
+	@Test
+	public void testMaxRangesIsGlobalBudget()
+			throws ParseException {
+		final NumericIndexStrategy strategy = new SpatialTemporalFactory().createIndexStrategy(DataType.VECTOR);
+		final SimpleDateFormat format = new SimpleDateFormat(
+				"yyyy-MM-dd");
+		final double startTime = format.parse(
+				"2010-11-01").getTime();
+		final double endTime = format.parse(
+				"2013-02-01").getTime();
+		// the query spans 4 yearly bins
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-10,
+							12),
+					new NumericRange(
+							-8,
+							9),
+					new NumericRange(
+							startTime,
+							endTime)
+				});
+		final int maxRanges = 50;
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(
+				query,
+				maxRanges);
+		assertTrue(
+				"Expected at most " + maxRanges + " ranges but got " + ranges.size(),
+				ranges.size() <= maxRanges);
+
+		// the coarsened ranges must still contain everything within the query
+		final Random rand = new Random(
+				1234);
+		for (int i = 0; i < 200; i++) {
+			final double lon = -10 + (rand.nextDouble() * 22);
+			final double lat = -8 + (rand.nextDouble() * 17);
+			final double time = startTime + (rand.nextDouble() * (endTime - startTime));
+			final double size = (i % 2 == 0) ? 0 : rand.nextDouble();
+			final MultiDimensionalNumericData entry = new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								lon,
+								Math.min(
+										lon + size,
+										12)),
+						new NumericRange(
+								lat,
+								Math.min(
+										lat + size,
+										9)),
+						new NumericValue(
+								time)
+					});
+			for (final ByteArrayId id : strategy.getInsertionIds(entry)) {
+				assertTrue(
+						"Insertion ID is not within any query range",
+						isWithinRanges(
+								id,
+								ranges));
+			}
+		}
+	}
+
+	@Test
+	public void testQueryRangeIteratorMatchesQueryRanges()
+			throws ParseException {
+		final TieredSFCIndexStrategy strategy = (TieredSFCIndexStrategy) new SpatialTemporalFactory().createIndexStrategy(DataType.VECTOR);
+		final SimpleDateFormat format = new SimpleDateFormat(
+				"yyyy-MM-dd");
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-1,
+							1.5),
+					new NumericRange(
+							-2,
+							0.5),
+					new NumericRange(
+							format.parse(
+									"2012-12-01").getTime(),
+							format.parse(
+									"2013-01-15").getTime())
+				});
+		final List<ByteArrayRange> expectedRanges = strategy.getQueryRanges(query);
+		final List<ByteArrayRange> iteratedRanges = new ArrayList<ByteArrayRange>();
+		final Iterator<ByteArrayRange> it = strategy.getQueryRangeIterator(query);
+		while (it.hasNext()) {
+			iteratedRanges.add(it.next());
+		}
+		assertEquals(
+				expectedRanges,
+				iteratedRanges);
+	}
+
+	@Test
+	public void testRangeSeekCost() {
+		final TieredSFCIndexStrategy strategy = (TieredSFCIndexStrategy) new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-77.1,
+							-76.9),
+					new NumericRange(
+							38.8,
+							39)
+				});
+		final List<ByteArrayRange> defaultRanges = strategy.getQueryRanges(query);
+		strategy.setRangeSeekCostCells(0);
+		final List<ByteArrayRange> unmergedRanges = strategy.getQueryRanges(query);
+		// the finest tier cells are about a millionth of a degree, so seeks
+		// over gaps of the size of the query are only avoided at a high cost
+		strategy.setRangeSeekCostCells(1e15);
+		final List<ByteArrayRange> mergedRanges = strategy.getQueryRanges(query);
+		assertTrue(unmergedRanges.size() >= defaultRanges.size());
+		assertTrue(defaultRanges.size() > mergedRanges.size());
+		// merging only ever widens the ranges
+		for (final ByteArrayRange range : unmergedRanges) {
+			assertTrue(isWithinRanges(
+					range.getStart(),
+					mergedRanges));
+			assertTrue(isWithinRanges(
+					range.getEnd(),
+					mergedRanges));
+		}
+
+		final TieredSFCIndexStrategy persisted = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(strategy),
+				TieredSFCIndexStrategy.class);
+		assertEquals(
+				1e15,
+				persisted.getRangeSeekCostCells(),
+				0);
+		assertEquals(
+				strategy.getId(),
+				persisted.getId());
+	}
+
+	private static SpaceFillingCurve createSpatialSfc(
+			final int bitsPerDimension ) {
+		return SFCFactory.createSpaceFillingCurve(
+				new SFCDimensionDefinition[] {
+					new SFCDimensionDefinition(
+							new LongitudeDefinition(),
+							bitsPerDimension),
+					new SFCDimensionDefinition(
+							new LatitudeDefinition(),
+							bitsPerDimension)
+				},
+				SFCType.HILBERT);
+	}
+
+	private static class ConstantHashStrategy extends
+			TieredSFCIndexStrategy
+	{
+		private ConstantHashStrategy(
+				final NumericDimensionDefinition[] baseDefinitions,
+				final SpaceFillingCurve[] orderedSfcs ) {
+			super(
+					baseDefinitions,
+					orderedSfcs);
+		}
+
+		@Override
+		public int hashCode() {
+			return 0;
+		}
+	}
+
+	private static boolean isWithinRanges(
+			final ByteArrayId id,
+			final List<ByteArrayRange> ranges ) {
+		for (final ByteArrayRange range : ranges) {
+			if ((compareUnsigned(
+					range.getStart().getBytes(),
+					id.getBytes()) <= 0) && (compareUnsigned(
+					id.getBytes(),
+					range.getEnd().getBytes()) <= 0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int compareUnsigned(
+			final byte[] a,
+			final byte[] b ) {
+		for (int i = 0; i < Math.min(
+				a.length,
+				b.length); i++) {
+			final int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return a.length - b.length;
+	}
+
 	private boolean compare(
 			final byte[] one,
 			final byte[] two,
@@ -0,0 +1,239 @@
+package mil.nga.giat.geowave.index.sfc.xz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.XZSpatialFactory;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.XZSpatialTemporalFactory;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.junit.Test;
+
+public class XZOrderIndexStrategyTest
+{
+	private static final long START_TIME = 1262304000000L;
+	private static final double TIME_EXTENT = 1.5e11;
+
+	@Test
+	public void testSingleInsertionIdPerGeometry() {
+		final NumericIndexStrategy strategy = new XZSpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final Random rand = new Random(
+				1);
+		for (int i = 0; i < 1000; i++) {
+			final List<ByteArrayId> ids = strategy.getInsertionIds(createSpatialBox(
+					rand,
+					-180,
+					-90,
+					rand.nextDouble() * 50));
+			assertEquals(
+					1,
+					ids.size());
+		}
+	}
+
+	@Test
+	public void testSpatialQueryRangesContainIntersectingEntries() {
+		final NumericIndexStrategy strategy = new XZSpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-30,
+							12.5),
+					new NumericRange(
+							5,
+							40)
+				});
+		final Random rand = new Random(
+				2);
+		for (final int maxRanges : new int[] {
+			1,
+			5,
+			20,
+			50,
+			-1
+		}) {
+			final List<ByteArrayRange> ranges = strategy.getQueryRanges(
+					query,
+					maxRanges);
+			if (maxRanges > 0) {
+				assertTrue(ranges.size() <= maxRanges);
+			}
+			for (int i = 0; i < 2000; i++) {
+				final double size = (i % 3 == 0) ? 0 : rand.nextDouble() * 30;
+				final MultiDimensionalNumericData entry = createSpatialBox(
+						rand,
+						-60,
+						-20,
+						size);
+				if (intersects(
+						entry,
+						query)) {
+					for (final ByteArrayId id : strategy.getInsertionIds(entry)) {
+						assertTrue(isWithinRanges(
+								id,
+								ranges));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSpatialTemporalQueryRangesContainIntersectingEntries() {
+		final NumericIndexStrategy strategy = new XZSpatialTemporalFactory().createIndexStrategy(DataType.VECTOR);
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-10,
+							10),
+					new NumericRange(
+							-10,
+							10),
+					new NumericRange(
+							START_TIME + (TIME_EXTENT * 0.4),
+							START_TIME + (TIME_EXTENT * 0.6))
+				});
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(query);
+		final Random rand = new Random(
+				3);
+		for (int i = 0; i < 2000; i++) {
+			final double size = (i % 3 == 0) ? 0 : rand.nextDouble() * 10;
+			final double lon = -20 + (rand.nextDouble() * 40);
+			final double lat = -20 + (rand.nextDouble() * 40);
+			final double time = START_TIME + (rand.nextDouble() * TIME_EXTENT);
+			final MultiDimensionalNumericData entry = new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								lon,
+								Math.min(
+										180,
+										lon + size)),
+						new NumericRange(
+								lat,
+								Math.min(
+										90,
+										lat + size)),
+						new NumericRange(
+								time,
+								time + (size * 1e8))
+					});
+			if (intersects(
+					entry,
+					query)) {
+				for (final ByteArrayId id : strategy.getInsertionIds(entry)) {
+					assertTrue(isWithinRanges(
+							id,
+							ranges));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRangeForIdContainsEntry() {
+		final NumericIndexStrategy strategy = new XZSpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final Random rand = new Random(
+				4);
+		for (int i = 0; i < 1000; i++) {
+			final MultiDimensionalNumericData entry = createSpatialBox(
+					rand,
+					-180,
+					-90,
+					rand.nextDouble() * 20);
+			final MultiDimensionalNumericData range = strategy.getRangeForId(strategy.getInsertionIds(
+					entry).get(
+					0));
+			for (int d = 0; d < 2; d++) {
+				assertTrue(range.getMinValuesPerDimension()[d] <= (entry.getMinValuesPerDimension()[d] + 1e-9));
+				assertTrue(range.getMaxValuesPerDimension()[d] >= (entry.getMaxValuesPerDimension()[d] - 1e-9));
+			}
+		}
+	}
+
+	@Test
+	public void testSerialization() {
+		final NumericIndexStrategy strategy = new XZSpatialTemporalFactory().createIndexStrategy(DataType.VECTOR);
+		final NumericIndexStrategy deserialized = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(strategy),
+				NumericIndexStrategy.class);
+		assertEquals(
+				strategy,
+				deserialized);
+		assertEquals(
+				strategy.getId(),
+				deserialized.getId());
+	}
+
+	private static MultiDimensionalNumericData createSpatialBox(
+			final Random rand,
+			final double minLon,
+			final double minLat,
+			final double size ) {
+		final double lon = minLon + (rand.nextDouble() * (180 - minLon));
+		final double lat = minLat + (rand.nextDouble() * (90 - minLat));
+		return new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							lon,
+							Math.min(
+									180,
+									lon + size)),
+					new NumericRange(
+							lat,
+							Math.min(
+									90,
+									lat + (size / 2)))
+				});
+	}
+
+	private static boolean intersects(
+			final MultiDimensionalNumericData entry,
+			final MultiDimensionalNumericData query ) {
+		for (int d = 0; d < entry.getDimensionCount(); d++) {
+			if ((entry.getMinValuesPerDimension()[d] > query.getMaxValuesPerDimension()[d]) || (entry.getMaxValuesPerDimension()[d] < query.getMinValuesPerDimension()[d])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isWithinRanges(
+			final ByteArrayId id,
+			final List<ByteArrayRange> ranges ) {
+		for (final ByteArrayRange range : ranges) {
+			if ((compareUnsigned(
+					range.getStart().getBytes(),
+					id.getBytes()) <= 0) && (compareUnsigned(
+					id.getBytes(),
+					range.getEnd().getBytes()) <= 0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int compareUnsigned(
+			final byte[] a,
+			final byte[] b ) {
+		for (int i = 0; i < Math.min(
+				a.length,
+				b.length); i++) {
+			final int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return a.length - b.length;
+	}
+}
@@ -1,7 +1,65 @@
 package mil.nga.giat.geowave.index.sfc.zorder;
 
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
 public class ZOrderSFCTest
 {
+	private static final int NUM_POINTS = 1000;
+
+	@Test
+	public void testFixedDimensionEncodingMatchesBitSetEncoding() {
+		for (int bits = 1; bits <= 32; bits++) {
+			assertFixedDimensionEncodingMatches(
+					2,
+					bits);
+		}
+		for (int bits = 1; bits <= 21; bits++) {
+			assertFixedDimensionEncodingMatches(
+					3,
+					bits);
+		}
+	}
 
-	// TODO: add unit tests for ZOrder implementation
+	private static void assertFixedDimensionEncodingMatches(
+			final int numDimensions,
+			final int bits ) {
+		final Random random = new Random(
+				bits);
+		for (int i = 0; i < NUM_POINTS; i++) {
+			final double[] normalizedValues = new double[numDimensions];
+			for (int d = 0; d < numDimensions; d++) {
+				if (i == 0) {
+					normalizedValues[d] = 0;
+				}
+				else if (i == 1) {
+					normalizedValues[d] = 1;
+				}
+				else {
+					normalizedValues[d] = random.nextDouble();
+				}
+			}
+			final byte[] expectedId = ZOrderUtils.encode(
+					normalizedValues,
+					bits,
+					numDimensions);
+			final byte[] testId = ZOrderUtils.encodeFixedDimension(
+					normalizedValues,
+					bits);
+			Assert.assertArrayEquals(
+					expectedId,
+					testId);
+			Assert.assertArrayEquals(
+					ZOrderUtils.decodeIndices(
+							expectedId,
+							bits,
+							numDimensions),
+					ZOrderUtils.decodeIndicesFixedDimension(
+							testId,
+							bits,
+							numDimensions));
+		}
+	}
 }
@@ -0,0 +1,469 @@
+package mil.nga.giat.geowave.store;
+
+import java.util.Arrays;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * This is a compact binary encoding for JTS geometry, similar to Tiny Well
+ * Known Binary (TWKB). Each ordinate is rounded to a fixed number of decimal
+ * digits and stored as a zig-zag variable length integer delta from the
+ * previous coordinate, so the encoding is lossy beyond that precision.
+ *
+ * The first byte is a version marker, which can never be a valid byte order
+ * for well known binary, so the two encodings can be distinguished when read.
+ * The second byte has the geometry type in the low bits followed by flags for
+ * 3 dimensions and empty geometry, and the third is the precision.
+ */
+public class CompactGeometryCodec
+{
+	public static final int DEFAULT_PRECISION = 7;
+	public static final int MAX_PRECISION = 12;
+
+	private static final byte VERSION_1 = (byte) 0xC1;
+	private static final int VERSION_MASK = 0xF0;
+	private static final int VERSION_MARKER = 0xC0;
+
+	private static final int POINT = 1;
+	private static final int LINESTRING = 2;
+	private static final int POLYGON = 3;
+	private static final int MULTIPOINT = 4;
+	private static final int MULTILINESTRING = 5;
+	private static final int MULTIPOLYGON = 6;
+	private static final int GEOMETRYCOLLECTION = 7;
+	private static final int TYPE_MASK = 0x0F;
+	private static final int Z_FLAG = 0x10;
+	private static final int EMPTY_FLAG = 0x20;
+
+	// 3 header bytes and at most 10 bytes for each of 3 ordinates
+	private static final int MAX_POINT_LENGTH = 33;
+
+	private final int precision;
+	private final double scale;
+
+	public CompactGeometryCodec() {
+		this(
+				DEFAULT_PRECISION);
+	}
+
+	/**
+	 * @param precision
+	 *            the number of decimal digits to retain for each ordinate
+	 */
+	public CompactGeometryCodec(
+			final int precision ) {
+		if ((precision < 0) || (precision > MAX_PRECISION)) {
+			throw new IllegalArgumentException(
+					"Precision must be between 0 and " + MAX_PRECISION + " but was " + precision);
+		}
+		this.precision = precision;
+		scale = Math.pow(
+				10,
+				precision);
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * @param binary
+	 *            encoded geometry
+	 * @return true if the binary was produced by this codec rather than a well
+	 *         known binary writer
+	 */
+	public static boolean isCompactEncoding(
+			final byte[] binary ) {
+		return (binary != null) && (binary.length > 0) && ((binary[0] & VERSION_MASK) == VERSION_MARKER);
+	}
+
+	/**
+	 * Encode the geometry
+	 *
+	 * @param geometry
+	 *            the JTS geometry
+	 * @return the binary encoding, or null if the geometry has ordinates that
+	 *         are not finite and cannot be encoded
+	 */
+	public byte[] toBinary(
+			final Geometry geometry ) {
+		final boolean hasZ = !geometry.isEmpty() && !Double.isNaN(geometry.getCoordinate().z);
+		final Encoder encoder = new Encoder(
+				(geometry instanceof Point) ? MAX_POINT_LENGTH : 64,
+				hasZ);
+		encoder.bytes[encoder.length++] = VERSION_1;
+		if (!encoder.writeGeometry(geometry)) {
+			return null;
+		}
+		return Arrays.copyOf(
+				encoder.bytes,
+				encoder.length);
+	}
+
+	/**
+	 * Decode a geometry encoded by this codec with any precision
+	 *
+	 * @param binary
+	 *            the compact binary encoding
+	 * @return the JTS geometry
+	 */
+	public static Geometry fromBinary(
+			final byte[] binary ) {
+		if (binary[0] != VERSION_1) {
+			throw new IllegalArgumentException(
+					"Unsupported compact geometry version " + (binary[0] & ~VERSION_MASK));
+		}
+		final Decoder decoder = new Decoder(
+				binary,
+				1);
+		return decoder.readGeometry();
+	}
+
+	private class Encoder
+	{
+		private byte[] bytes;
+		private int length = 0;
+		private final boolean hasZ;
+		private long prevX = 0;
+		private long prevY = 0;
+		private long prevZ = 0;
+
+		private Encoder(
+				final int initialCapacity,
+				final boolean hasZ ) {
+			bytes = new byte[initialCapacity];
+			this.hasZ = hasZ;
+		}
+
+		private boolean writeGeometry(
+				final Geometry geometry ) {
+			final int type = getType(geometry);
+			if (type < 0) {
+				return false;
+			}
+			ensureCapacity(2);
+			bytes[length++] = (byte) (type | (hasZ ? Z_FLAG : 0) | (geometry.isEmpty() ? EMPTY_FLAG : 0));
+			bytes[length++] = (byte) precision;
+			if (geometry.isEmpty()) {
+				return true;
+			}
+			switch (type) {
+				case POINT:
+					return writeCoordinate(
+							((Point) geometry).getCoordinateSequence(),
+							0);
+				case LINESTRING:
+					return writeCoordinates(((LineString) geometry).getCoordinateSequence());
+				case POLYGON:
+					return writePolygon((Polygon) geometry);
+				case MULTIPOINT:
+				case MULTILINESTRING:
+				case MULTIPOLYGON:
+				case GEOMETRYCOLLECTION:
+				default:
+					final int numGeometries = geometry.getNumGeometries();
+					writeVarInt(numGeometries);
+					for (int g = 0; g < numGeometries; g++) {
+						final Geometry part = geometry.getGeometryN(g);
+						final boolean written;
+						if (type == MULTIPOINT) {
+							// an empty point within a multi-point has no
+							// encoding
+							written = !part.isEmpty() && writeCoordinate(
+									((Point) part).getCoordinateSequence(),
+									0);
+						}
+						else if (type == MULTILINESTRING) {
+							written = writeCoordinates(((LineString) part).getCoordinateSequence());
+						}
+						else if (type == MULTIPOLYGON) {
+							written = writePolygon((Polygon) part);
+						}
+						else {
+							written = writeGeometry(part);
+						}
+						if (!written) {
+							return false;
+						}
+					}
+					return true;
+			}
+		}
+
+		private boolean writePolygon(
+				final Polygon polygon ) {
+			if (polygon.isEmpty()) {
+				writeVarInt(0);
+				return true;
+			}
+			final int numInteriorRings = polygon.getNumInteriorRing();
+			writeVarInt(numInteriorRings + 1);
+			if (!writeCoordinates(polygon.getExteriorRing().getCoordinateSequence())) {
+				return false;
+			}
+			for (int r = 0; r < numInteriorRings; r++) {
+				if (!writeCoordinates(polygon.getInteriorRingN(
+						r).getCoordinateSequence())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean writeCoordinates(
+				final CoordinateSequence coordinates ) {
+			final int size = coordinates.size();
+			writeVarInt(size);
+			for (int i = 0; i < size; i++) {
+				if (!writeCoordinate(
+						coordinates,
+						i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean writeCoordinate(
+				final CoordinateSequence coordinates,
+				final int index ) {
+			final double x = coordinates.getOrdinate(
+					index,
+					CoordinateSequence.X);
+			final double y = coordinates.getOrdinate(
+					index,
+					CoordinateSequence.Y);
+			final double z = hasZ ? coordinates.getOrdinate(
+					index,
+					CoordinateSequence.Z) : 0;
+			if (!isEncodable(x) || !isEncodable(y) || !isEncodable(z)) {
+				return false;
+			}
+			final long scaledX = Math.round(x * scale);
+			final long scaledY = Math.round(y * scale);
+			writeVarLong(scaledX - prevX);
+			writeVarLong(scaledY - prevY);
+			prevX = scaledX;
+			prevY = scaledY;
+			if (hasZ) {
+				final long scaledZ = Math.round(z * scale);
+				writeVarLong(scaledZ - prevZ);
+				prevZ = scaledZ;
+			}
+			return true;
+		}
+
+		private boolean isEncodable(
+				final double value ) {
+			// the scaled value must fit in a long with room for the deltas
+			return Math.abs(value * scale) < (Long.MAX_VALUE / 4);
+		}
+
+		private void writeVarInt(
+				final int value ) {
+			writeUnsignedVarLong(value);
+		}
+
+		private void writeVarLong(
+				final long value ) {
+			// zig-zag encode so small negative values use few bytes
+			writeUnsignedVarLong((value << 1) ^ (value >> 63));
+		}
+
+		private void writeUnsignedVarLong(
+				long value ) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[length++] = (byte) value;
+		}
+
+		private void ensureCapacity(
+				final int additionalLength ) {
+			if ((length + additionalLength) > bytes.length) {
+				bytes = Arrays.copyOf(
+						bytes,
+						Math.max(
+								bytes.length * 2,
+								length + additionalLength));
+			}
+		}
+	}
+
+	private static int getType(
+			final Geometry geometry ) {
+		if (geometry instanceof Point) {
+			return POINT;
+		}
+		if (geometry instanceof LineString) {
+			// this includes linear rings
+			return LINESTRING;
+		}
+		if (geometry instanceof Polygon) {
+			return POLYGON;
+		}
+		if (geometry instanceof MultiPoint) {
+			return MULTIPOINT;
+		}
+		if (geometry instanceof MultiLineString) {
+			return MULTILINESTRING;
+		}
+		if (geometry instanceof MultiPolygon) {
+			return MULTIPOLYGON;
+		}
+		if (geometry instanceof GeometryCollection) {
+			return GEOMETRYCOLLECTION;
+		}
+		return -1;
+	}
+
+	private static class Decoder
+	{
+		private final GeometryFactory factory = GeometryUtils.GEOMETRY_FACTORY;
+		private final byte[] bytes;
+		private int position;
+		private boolean hasZ;
+		private double scale;
+		private long prevX = 0;
+		private long prevY = 0;
+		private long prevZ = 0;
+
+		private Decoder(
+				final byte[] bytes,
+				final int position ) {
+			this.bytes = bytes;
+			this.position = position;
+		}
+
+		private Geometry readGeometry() {
+			final int typeAndFlags = bytes[position++];
+			final int type = typeAndFlags & TYPE_MASK;
+			hasZ = (typeAndFlags & Z_FLAG) != 0;
+			scale = Math.pow(
+					10,
+					bytes[position++]);
+			final boolean empty = (typeAndFlags & EMPTY_FLAG) != 0;
+			switch (type) {
+				case POINT:
+					if (empty) {
+						return factory.createPoint((Coordinate) null);
+					}
+					return factory.createPoint(readCoordinate());
+				case LINESTRING:
+					if (empty) {
+						return factory.createLineString(new Coordinate[0]);
+					}
+					return factory.createLineString(readCoordinates());
+				case POLYGON:
+					if (empty) {
+						return factory.createPolygon(
+								null,
+								null);
+					}
+					return readPolygon();
+				case MULTIPOINT:
+					final Point[] points = new Point[empty ? 0 : readVarInt()];
+					for (int i = 0; i < points.length; i++) {
+						points[i] = factory.createPoint(readCoordinate());
+					}
+					return factory.createMultiPoint(points);
+				case MULTILINESTRING:
+					final LineString[] lines = new LineString[empty ? 0 : readVarInt()];
+					for (int i = 0; i < lines.length; i++) {
+						lines[i] = factory.createLineString(readCoordinates());
+					}
+					return factory.createMultiLineString(lines);
+				case MULTIPOLYGON:
+					final Polygon[] polygons = new Polygon[empty ? 0 : readVarInt()];
+					for (int i = 0; i < polygons.length; i++) {
+						polygons[i] = readPolygon();
+					}
+					return factory.createMultiPolygon(polygons);
+				case GEOMETRYCOLLECTION:
+					final Geometry[] geometries = new Geometry[empty ? 0 : readVarInt()];
+					for (int i = 0; i < geometries.length; i++) {
+						geometries[i] = readGeometry();
+					}
+					return factory.createGeometryCollection(geometries);
+				default:
+					throw new IllegalArgumentException(
+							"Unsupported compact geometry type " + type);
+			}
+		}
+
+		private Polygon readPolygon() {
+			final int numRings = readVarInt();
+			if (numRings == 0) {
+				return factory.createPolygon(
+						null,
+						null);
+			}
+			final LinearRing shell = factory.createLinearRing(readCoordinates());
+			final LinearRing[] holes = new LinearRing[numRings - 1];
+			for (int r = 0; r < holes.length; r++) {
+				holes[r] = factory.createLinearRing(readCoordinates());
+			}
+			return factory.createPolygon(
+					shell,
+					holes);
+		}
+
+		private Coordinate[] readCoordinates() {
+			final Coordinate[] coordinates = new Coordinate[readVarInt()];
+			for (int i = 0; i < coordinates.length; i++) {
+				coordinates[i] = readCoordinate();
+			}
+			return coordinates;
+		}
+
+		private Coordinate readCoordinate() {
+			prevX += readVarLong();
+			prevY += readVarLong();
+			if (hasZ) {
+				prevZ += readVarLong();
+				return new Coordinate(
+						prevX / scale,
+						prevY / scale,
+						prevZ / scale);
+			}
+			return new Coordinate(
+					prevX / scale,
+					prevY / scale);
+		}
+
+		private int readVarInt() {
+			return (int) readUnsignedVarLong();
+		}
+
+		private long readVarLong() {
+			final long value = readUnsignedVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readUnsignedVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((b & 0x80) != 0);
+			return value;
+		}
+	}
+}
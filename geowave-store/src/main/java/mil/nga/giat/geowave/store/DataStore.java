@@ -9,6 +9,7 @@ import mil.nga.giat.geowave.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.store.query.Query;
+import mil.nga.giat.geowave.store.query.aggregate.Aggregation;
 
 /**
  * A DataStore can both ingest and query data based on persisted indices and
@@ -448,4 +449,31 @@ public interface DataStore
 			final Query query,
 			final int limit,
 			final String... authorizations );
+
+	/**
+	 * Computes an aggregation over all data in this data store that matches
+	 * the query parameter within the index described by the index passed in
+	 * and matches the adapter, without returning the matching entries. The
+	 * aggregation is computed where the data is stored when possible and the
+	 * partial results are merged.
+	 *
+	 * @param adapter
+	 *            the data adapter to use for the query
+	 * @param index
+	 *            The index information to query against.
+	 * @param query
+	 *            The description of the query to be performed, null to
+	 *            aggregate all of the data of the adapter within the index
+	 * @param aggregation
+	 *            An empty aggregation, the results are merged into it
+	 * @param authorizations
+	 *            additional authorizations for cell visibility
+	 * @return The aggregation that was passed in, merged with the results
+	 */
+	public <R extends Aggregation> R aggregate(
+			final DataAdapter<?> adapter,
+			final Index index,
+			final Query query,
+			final R aggregation,
+			final String... authorizations );
 }
@@ -31,6 +31,31 @@ public class GeometryUtils
 	public static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
 	private final static Logger LOGGER = Logger.getLogger(GeometryUtils.class);
 	private static final int DEFAULT_DIMENSIONALITY = 2;
+	private static final CompactGeometryCodec[] COMPACT_CODECS = new CompactGeometryCodec[CompactGeometryCodec.MAX_PRECISION + 1];
+	static {
+		for (int p = 0; p < COMPACT_CODECS.length; p++) {
+			COMPACT_CODECS[p] = new CompactGeometryCodec(
+					p);
+		}
+	}
+	// WKB readers and writers are not thread safe but can be reused
+	private static final ThreadLocal<WKBReader> WKB_READER = new ThreadLocal<WKBReader>() {
+		@Override
+		protected WKBReader initialValue() {
+			return new WKBReader();
+		}
+	};
+	private static final ThreadLocal<WKBWriter[]> WKB_WRITERS = new ThreadLocal<WKBWriter[]>() {
+		@Override
+		protected WKBWriter[] initialValue() {
+			return new WKBWriter[] {
+				new WKBWriter(
+						2),
+				new WKBWriter(
+						3)
+			};
+		}
+	};
 
 
 	/**
@@ -166,27 +191,64 @@ public class GeometryUtils
 	 */
 	public static byte[] geometryToBinary(
 			final Geometry geometry ) {
-		
+		return geometryToBinary(
+				geometry,
+				null);
+	}
+
+	/**
+	 * Converts a JTS geometry to binary using the compact geometry encoding if
+	 * a precision is given, otherwise using a Well Known Binary writer
+	 * 
+	 * @param geometry
+	 *            The JTS geometry
+	 * @param compactPrecision
+	 *            the number of decimal digits to retain for each ordinate in
+	 *            the compact encoding, or null for well known binary
+	 * @return The binary representation of the geometry
+	 */
+	public static byte[] geometryToBinary(
+			final Geometry geometry,
+			final Integer compactPrecision ) {
+		if (compactPrecision != null) {
+			if ((compactPrecision < 0) || (compactPrecision >= COMPACT_CODECS.length)) {
+				throw new IllegalArgumentException(
+						"Precision must be between 0 and " + CompactGeometryCodec.MAX_PRECISION + " but was " + compactPrecision);
+			}
+			final byte[] binary = COMPACT_CODECS[compactPrecision].toBinary(geometry);
+			if (binary != null) {
+				return binary;
+			}
+			// geometry that cannot be compactly encoded falls back to WKB
+		}
 		int dimensions = DEFAULT_DIMENSIONALITY;
-	    
-		if (!geometry.isEmpty()){
-			dimensions  = Double.isNaN(geometry.getCoordinate().getOrdinate(Coordinate.Z)) ? 2 : 3;
+
+		if (!geometry.isEmpty()) {
+			dimensions = Double.isNaN(geometry.getCoordinate().getOrdinate(Coordinate.Z)) ? 2 : 3;
 		}
 
-		return new WKBWriter(dimensions).write(geometry);
+		return WKB_WRITERS.get()[dimensions - DEFAULT_DIMENSIONALITY].write(geometry);
 	}
 
 	/**
-	 * Converts a byte array as well-known binary to a JTS geometry
+	 * Converts a byte array as well-known binary or the compact geometry
+	 * encoding to a JTS geometry
 	 * 
 	 * @param binary
 	 *            The well known binary
-	 * @return The JTS geometry
+	 * @return The JTS geometry, or null if the well known binary cannot be
+	 *         parsed
+	 * @throws IllegalArgumentException
+	 *             if the binary is a compact encoding of an unsupported
+	 *             version
 	 */
 	public static Geometry geometryFromBinary(
 			final byte[] binary ) {
 		try {
-			return new WKBReader().read(binary);
+			if (CompactGeometryCodec.isCompactEncoding(binary)) {
+				return CompactGeometryCodec.fromBinary(binary);
+			}
+			return WKB_READER.get().read(binary);
 		}
 		catch (final ParseException e) {
 			LOGGER.warn(
@@ -0,0 +1,121 @@
+package mil.nga.giat.geowave.store;
+
+import mil.nga.giat.geowave.index.PersistableRegistrySpi;
+import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.DistinctCountStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.IndexDensityStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.NumericHistogramStatistics;
+import mil.nga.giat.geowave.store.dimension.LatitudeField;
+import mil.nga.giat.geowave.store.dimension.LongitudeField;
+import mil.nga.giat.geowave.store.dimension.Time;
+import mil.nga.giat.geowave.store.dimension.TimeField;
+import mil.nga.giat.geowave.store.filter.BasicQueryFilter;
+import mil.nga.giat.geowave.store.filter.DedupeFilter;
+import mil.nga.giat.geowave.store.filter.DistributableFilterList;
+import mil.nga.giat.geowave.store.filter.MultiIndexDedupeFilter;
+import mil.nga.giat.geowave.store.filter.SpatialQueryFilter;
+import mil.nga.giat.geowave.store.index.BasicIndexModel;
+import mil.nga.giat.geowave.store.index.CustomIdIndex;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.index.NullIndex;
+import mil.nga.giat.geowave.store.query.BasicQuery;
+import mil.nga.giat.geowave.store.query.SpatialQuery;
+import mil.nga.giat.geowave.store.query.SpatialTemporalQuery;
+import mil.nga.giat.geowave.store.query.TemporalQuery;
+import mil.nga.giat.geowave.store.query.aggregate.BoundingBoxAggregation;
+import mil.nga.giat.geowave.store.query.aggregate.CountAggregation;
+import mil.nga.giat.geowave.store.query.aggregate.NumericAttributeAggregation;
+import mil.nga.giat.geowave.store.query.aggregate.TimeRangeAggregation;
+
+/**
+ * Registers the persistable classes of the store module with persistable IDs
+ * from 100 to 199.
+ *
+ */
+public class StorePersistableRegistry implements
+		PersistableRegistrySpi
+{
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 100,
+					Index.class),
+			new PersistableIdAndClass(
+					(short) 101,
+					CustomIdIndex.class),
+			new PersistableIdAndClass(
+					(short) 102,
+					NullIndex.class),
+			new PersistableIdAndClass(
+					(short) 103,
+					BasicIndexModel.class),
+			new PersistableIdAndClass(
+					(short) 104,
+					LatitudeField.class),
+			new PersistableIdAndClass(
+					(short) 105,
+					LongitudeField.class),
+			new PersistableIdAndClass(
+					(short) 106,
+					TimeField.class),
+			new PersistableIdAndClass(
+					(short) 107,
+					Time.TimeRange.class),
+			new PersistableIdAndClass(
+					(short) 108,
+					Time.Timestamp.class),
+			new PersistableIdAndClass(
+					(short) 109,
+					BasicQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 110,
+					SpatialQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 111,
+					DedupeFilter.class),
+			new PersistableIdAndClass(
+					(short) 112,
+					MultiIndexDedupeFilter.class),
+			new PersistableIdAndClass(
+					(short) 113,
+					DistributableFilterList.class),
+			new PersistableIdAndClass(
+					(short) 114,
+					BasicQuery.class),
+			new PersistableIdAndClass(
+					(short) 115,
+					SpatialQuery.class),
+			new PersistableIdAndClass(
+					(short) 116,
+					TemporalQuery.class),
+			new PersistableIdAndClass(
+					(short) 117,
+					SpatialTemporalQuery.class),
+			new PersistableIdAndClass(
+					(short) 118,
+					CountDataStatistics.class),
+			new PersistableIdAndClass(
+					(short) 119,
+					CountAggregation.class),
+			new PersistableIdAndClass(
+					(short) 120,
+					BoundingBoxAggregation.class),
+			new PersistableIdAndClass(
+					(short) 121,
+					NumericAttributeAggregation.class),
+			new PersistableIdAndClass(
+					(short) 122,
+					TimeRangeAggregation.class),
+			new PersistableIdAndClass(
+					(short) 123,
+					NumericHistogramStatistics.class),
+			new PersistableIdAndClass(
+					(short) 124,
+					DistinctCountStatistics.class),
+			new PersistableIdAndClass(
+					(short) 125,
+					IndexDensityStatistics.class)
+		};
+	}
+}
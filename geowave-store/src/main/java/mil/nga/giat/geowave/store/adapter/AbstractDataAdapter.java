@@ -15,6 +15,7 @@ import mil.nga.giat.geowave.index.Persistable;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.index.StringUtils;
 import mil.nga.giat.geowave.store.adapter.NativeFieldHandler.RowBuilder;
+import mil.nga.giat.geowave.store.data.FieldOrdinals;
 import mil.nga.giat.geowave.store.data.PersistentDataset;
 import mil.nga.giat.geowave.store.data.PersistentValue;
 import mil.nga.giat.geowave.store.data.field.FieldUtils;
@@ -49,6 +50,8 @@ abstract public class AbstractDataAdapter<T> implements
 	protected Map<ByteArrayId, IndexFieldHandler<T, ? extends CommonIndexValue, Object>> dimensionMatchingFieldHandlers;
 	protected List<NativeFieldHandler<T, Object>> nativeFieldHandlers;
 	protected FieldVisibilityHandler<T, Object> fieldVisiblityHandler;
+	// lazily derived from the native field handlers
+	private FieldOrdinals nativeFieldOrdinals;
 
 	protected AbstractDataAdapter() {}
 
@@ -74,6 +77,7 @@ abstract public class AbstractDataAdapter<T> implements
 	protected void init(
 			final List<? extends IndexFieldHandler<T, ? extends CommonIndexValue, Object>> indexFieldHandlers,
 			final Object defaultIndexHandlerData ) {
+		nativeFieldOrdinals = null;
 		dimensionMatchingFieldHandlers = new HashMap<ByteArrayId, IndexFieldHandler<T, ? extends CommonIndexValue, Object>>();
 		typeMatchingFieldHandlers = new HashMap<Class<?>, IndexFieldHandler<T, ? extends CommonIndexValue, Object>>();
 		// split out the dimension matching index handlers from the type
@@ -129,7 +133,8 @@ abstract public class AbstractDataAdapter<T> implements
 	public AdapterPersistenceEncoding encode(
 			final T entry,
 			final CommonIndexModel indexModel ) {
-		final PersistentDataset<CommonIndexValue> indexData = new PersistentDataset<CommonIndexValue>();
+		final PersistentDataset<CommonIndexValue> indexData = new PersistentDataset<CommonIndexValue>(
+				indexModel.getFieldOrdinals());
 		final Set<ByteArrayId> nativeFieldsInIndex = new HashSet<ByteArrayId>();
 		for (final DimensionField<? extends CommonIndexValue> dimension : indexModel.getDimensions()) {
 			final IndexFieldHandler<T, ? extends CommonIndexValue, Object> fieldHandler = getFieldHandler(dimension);
@@ -142,7 +147,8 @@ abstract public class AbstractDataAdapter<T> implements
 					value));
 			nativeFieldsInIndex.addAll(Arrays.asList(fieldHandler.getNativeFieldIds()));
 		}
-		final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+		final PersistentDataset<Object> extendedData = new PersistentDataset<Object>(
+				getNativeFieldOrdinals());
 		// now for the other data
 		for (final NativeFieldHandler<T, Object> fieldHandler : nativeFieldHandlers) {
 			final ByteArrayId fieldId = fieldHandler.getFieldId();
@@ -192,6 +198,28 @@ abstract public class AbstractDataAdapter<T> implements
 
 	abstract protected RowBuilder<T, Object> newBuilder();
 
+	/**
+	 * Get the ordinals of the field IDs of the native field handlers, which
+	 * can be used to store the extended data of a row in an array
+	 * 
+	 * @return the native field ordinals
+	 */
+	public FieldOrdinals getNativeFieldOrdinals() {
+		FieldOrdinals ordinals = nativeFieldOrdinals;
+		if (ordinals == null) {
+			final List<ByteArrayId> fieldIds = new ArrayList<ByteArrayId>();
+			if (nativeFieldHandlers != null) {
+				for (final NativeFieldHandler<T, Object> fieldHandler : nativeFieldHandlers) {
+					fieldIds.add(fieldHandler.getFieldId());
+				}
+			}
+			ordinals = new FieldOrdinals(
+					fieldIds);
+			nativeFieldOrdinals = ordinals;
+		}
+		return ordinals;
+	}
+
 	protected IndexFieldHandler<T, ? extends CommonIndexValue, Object> getFieldHandler(
 			final DimensionField<? extends CommonIndexValue> dimension ) {
 		// first try explicit dimension matching
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.store.DeleteCallback;
 import mil.nga.giat.geowave.store.IngestCallback;
 import mil.nga.giat.geowave.store.IngestEntryInfo;
@@ -17,6 +18,7 @@ public class DataStatisticsBuilder<T> implements
 	private final Map<ByteArrayId, DataStatistics<T>> statisticsMap = new HashMap<ByteArrayId, DataStatistics<T>>();
 	private final ByteArrayId statisticsId;
 	private final DataStatisticsVisibilityHandler<T> visibilityHandler;
+	private final byte[] template;
 
 	public DataStatisticsBuilder(
 			final StatisticalDataAdapter<T> adapter,
@@ -24,6 +26,39 @@ public class DataStatisticsBuilder<T> implements
 		this.adapter = adapter;
 		this.statisticsId = statisticsId;
 		this.visibilityHandler = adapter.getVisibilityHandler(statisticsId);
+		template = null;
+	}
+
+	/**
+	 * Build statistics that the adapter does not create itself, such as
+	 * statistics of the index the adapter's data is written to. The statistics
+	 * for each visibility are copies of the template.
+	 *
+	 * @param adapter
+	 *            the adapter, which determines the visibility of the statistics
+	 * @param template
+	 *            the empty statistics to copy
+	 */
+	public DataStatisticsBuilder(
+			final StatisticalDataAdapter<T> adapter,
+			final DataStatistics<T> template ) {
+		this.adapter = adapter;
+		statisticsId = template.getStatisticsId();
+		visibilityHandler = adapter.getVisibilityHandler(statisticsId);
+		this.template = PersistenceUtils.toBinary(template);
+	}
+
+	@SuppressWarnings("unchecked")
+	private DataStatistics<T> createDataStatistics() {
+		if (template != null) {
+			// the adapter ID is not part of the persisted statistics
+			final DataStatistics<T> statistics = PersistenceUtils.fromBinary(
+					template,
+					DataStatistics.class);
+			statistics.setDataAdapterId(adapter.getAdapterId());
+			return statistics;
+		}
+		return adapter.createDataStatistics(statisticsId);
 	}
 
 	@Override
@@ -36,7 +71,7 @@ public class DataStatisticsBuilder<T> implements
 						entry));
 		DataStatistics<T> statistics = statisticsMap.get(visibility);
 		if (statistics == null) {
-			statistics = adapter.createDataStatistics(statisticsId);
+			statistics = createDataStatistics();
 			statistics.setVisibility(visibility.getBytes());
 			statisticsMap.put(
 					visibility,
@@ -62,7 +97,7 @@ public class DataStatisticsBuilder<T> implements
 						entry));
 		DataStatistics<T> statistics = statisticsMap.get(visibilityByteArray);
 		if (statistics == null) {
-			statistics = adapter.createDataStatistics(statisticsId);
+			statistics = createDataStatistics();
 			statistics.setVisibility(visibilityByteArray.getBytes());
 			statisticsMap.put(
 					visibilityByteArray,
@@ -32,6 +32,12 @@ public interface DataStatisticsStore
 	public void incorporateStatistics(
 			DataStatistics<?> statistics );
 
+	/**
+	 * Write the statistics that have been incorporated but are held in memory
+	 * by the store, if the store defers writing them
+	 */
+	public void flush();
+
 	/**
 	 * Get all data statistics from the store by a data adapter ID
 	 * 
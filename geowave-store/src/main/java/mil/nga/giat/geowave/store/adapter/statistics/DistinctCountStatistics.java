@@ -0,0 +1,161 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import java.nio.ByteBuffer;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.store.IngestEntryInfo;
+import mil.nga.giat.geowave.store.IngestEntryInfo.FieldInfo;
+
+/**
+ * This statistic estimates the number of distinct values of a single field
+ * using a HyperLogLog sketch of the field's persisted bytes. The sketch has a
+ * fixed size, and merging two sketches is the register-wise maximum so the
+ * estimate is unaffected by an entry being ingested into several indices. The
+ * standard error of the estimate is approximately 1.04 / sqrt(2^precision).
+ *
+ * @param <T>
+ *            The type for the data elements that are being adapted
+ */
+public class DistinctCountStatistics<T> extends
+		AbstractDataStatistics<T>
+{
+	public final static String STATS_TYPE = "ATT_DISTINCT";
+	public final static String STATS_ID_SEPARATOR = "#";
+	public final static int DEFAULT_PRECISION = 10;
+
+	private ByteArrayId fieldId;
+	private byte[] registers;
+
+	protected DistinctCountStatistics() {
+		super();
+	}
+
+	public DistinctCountStatistics(
+			final ByteArrayId dataAdapterId,
+			final ByteArrayId fieldId ) {
+		super(
+				dataAdapterId);
+		this.fieldId = fieldId;
+		registers = new byte[1 << DEFAULT_PRECISION];
+	}
+
+	public static ByteArrayId composeId(
+			final ByteArrayId fieldId ) {
+		return new ByteArrayId(
+				STATS_TYPE + STATS_ID_SEPARATOR + fieldId.getString());
+	}
+
+	public ByteArrayId getFieldId() {
+		return fieldId;
+	}
+
+	/**
+	 * @return the estimated number of distinct values
+	 */
+	public long getDistinctCount() {
+		final int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (final byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		final double alpha = 0.7213 / (1 + (1.079 / m));
+		final double estimate = (alpha * m * m) / sum;
+		if ((estimate <= (2.5 * m)) && (zeros > 0)) {
+			// linear counting is more accurate for small cardinalities
+			return Math.round(m * Math.log((double) m / zeros));
+		}
+		return Math.round(estimate);
+	}
+
+	@Override
+	public ByteArrayId getStatisticsId() {
+		return composeId(fieldId);
+	}
+
+	@Override
+	public void entryIngested(
+			final IngestEntryInfo entryInfo,
+			final T entry ) {
+		for (final FieldInfo<?> field : entryInfo.getFieldInfo()) {
+			if (field.getDataValue().getId().equals(
+					fieldId)) {
+				if (field.getWrittenValue() != null) {
+					add(field.getWrittenValue());
+				}
+				return;
+			}
+		}
+	}
+
+	protected void add(
+			final byte[] value ) {
+		final long hash = hash(value);
+		final int precision = Integer.numberOfTrailingZeros(registers.length);
+		final int index = (int) (hash >>> (64 - precision));
+		// the position of the first set bit of the remaining bits
+		final byte rank = (byte) Math.min(
+				Long.numberOfLeadingZeros(hash << precision) + 1,
+				(64 - precision) + 1);
+		if (rank > registers[index]) {
+			registers[index] = rank;
+		}
+	}
+
+	private static long hash(
+			final byte[] value ) {
+		// 64-bit FNV-1a followed by the murmur3 finalizer to spread the bits
+		long h = 0xcbf29ce484222325L;
+		for (final byte b : value) {
+			h ^= (b & 0xff);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	@Override
+	public void merge(
+			final Mergeable statistics ) {
+		if ((statistics != null) && (statistics instanceof DistinctCountStatistics)) {
+			final byte[] otherRegisters = ((DistinctCountStatistics<?>) statistics).registers;
+			if (otherRegisters.length == registers.length) {
+				for (int i = 0; i < registers.length; i++) {
+					registers[i] = (byte) Math.max(
+							registers[i],
+							otherRegisters[i]);
+				}
+			}
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] fieldIdBytes = fieldId.getBytes();
+		final ByteBuffer buffer = ByteBuffer.allocate(4 + fieldIdBytes.length + registers.length);
+		buffer.putInt(fieldIdBytes.length);
+		buffer.put(fieldIdBytes);
+		buffer.put(registers);
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		final byte[] fieldIdBytes = new byte[buffer.getInt()];
+		buffer.get(fieldIdBytes);
+		fieldId = new ByteArrayId(
+				fieldIdBytes);
+		registers = new byte[buffer.remaining()];
+		buffer.get(registers);
+	}
+}
@@ -0,0 +1,472 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.store.DeleteCallback;
+import mil.nga.giat.geowave.store.IngestEntryInfo;
+import mil.nga.giat.geowave.store.index.Index;
+
+/**
+ * This statistic counts the rows an adapter has written to an index within
+ * each coarse cell of the index's key space. A cell is identified by a fixed
+ * length prefix of the row ID, which for a tiered space filling curve index is
+ * the tier, the bin and the leading bytes of the curve's ID (the first 2 bytes
+ * of a 2 dimensional Hilbert curve is a tier 8 cell). Unlike estimates derived
+ * from the width of the key space, the counts reflect how skewed the data
+ * actually is, so they can be used to estimate the rows within a range, to skip
+ * ranges that contain no data and to choose split points.
+ *
+ * The statistics ID is composed of the statistic type and the index ID so that
+ * each index of an adapter is tracked separately. The number of entries the
+ * adapter has written to the index is counted as well. Unlike the row count it
+ * does not include duplicates, so it is comparable to the count statistic of
+ * the adapter, which counts every entry written to each of its indices.
+ *
+ * @param <T>
+ *            The type for the data elements that are being adapted
+ */
+public class IndexDensityStatistics<T> extends
+		AbstractDataStatistics<T> implements
+		DeleteCallback<T>
+{
+	public final static String STATS_TYPE = "INDEX_DENSITY";
+	public final static String STATS_ID_SEPARATOR = "#";
+	/**
+	 * the number of bytes of the space filling curve ID within a cell key
+	 */
+	public final static int DEFAULT_CELL_ID_LENGTH = 2;
+
+	private ByteArrayId indexId;
+	private int cellKeyLength;
+	private final TreeMap<ByteArrayId, Long> cellCounts = new TreeMap<ByteArrayId, Long>();
+	private long entryCount = 0;
+
+	protected IndexDensityStatistics() {
+		super();
+	}
+
+	public IndexDensityStatistics(
+			final ByteArrayId dataAdapterId,
+			final Index index ) {
+		this(
+				dataAdapterId,
+				index.getId(),
+				getCellKeyLength(index.getIndexStrategy()));
+	}
+
+	/**
+	 * @param dataAdapterId
+	 *            the adapter
+	 * @param indexId
+	 *            the index
+	 * @param cellKeyLength
+	 *            the number of leading bytes of a row ID that identify its cell
+	 */
+	public IndexDensityStatistics(
+			final ByteArrayId dataAdapterId,
+			final ByteArrayId indexId,
+			final int cellKeyLength ) {
+		super(
+				dataAdapterId);
+		this.indexId = indexId;
+		this.cellKeyLength = cellKeyLength;
+	}
+
+	public static ByteArrayId composeId(
+			final ByteArrayId indexId ) {
+		return new ByteArrayId(
+				STATS_TYPE + STATS_ID_SEPARATOR + indexId.getString());
+	}
+
+	/**
+	 * @param indexStrategy
+	 *            the index strategy
+	 * @return the length of a cell key, the tier byte and the bin ID of each
+	 *         dimension followed by the leading bytes of the space filling
+	 *         curve ID
+	 */
+	public static int getCellKeyLength(
+			final NumericIndexStrategy indexStrategy ) {
+		int binIdLength = 0;
+		final NumericDimensionDefinition[] dimensions = indexStrategy.getOrderedDimensionDefinitions();
+		if (dimensions != null) {
+			for (final NumericDimensionDefinition dimension : dimensions) {
+				binIdLength += dimension.getFixedBinIdSize();
+			}
+		}
+		return 1 + binIdLength + DEFAULT_CELL_ID_LENGTH;
+	}
+
+	public ByteArrayId getIndexId() {
+		return indexId;
+	}
+
+	public int getCellKeyLength() {
+		return cellKeyLength;
+	}
+
+	public boolean isSet() {
+		return !cellCounts.isEmpty();
+	}
+
+	/**
+	 * @return the number of cells containing rows
+	 */
+	public int getCellCount() {
+		int cellCount = 0;
+		for (final Long count : cellCounts.values()) {
+			if (count > 0) {
+				cellCount++;
+			}
+		}
+		return cellCount;
+	}
+
+	/**
+	 * @return the number of entries written to the index, less those deleted
+	 */
+	public long getEntryCount() {
+		return entryCount;
+	}
+
+	/**
+	 * @return the total number of rows
+	 */
+	public long getTotalCount() {
+		long totalCount = 0;
+		for (final Long count : cellCounts.values()) {
+			if (count > 0) {
+				totalCount += count;
+			}
+		}
+		return totalCount;
+	}
+
+	/**
+	 * @param range
+	 *            a row ID range, its end is inclusive of every row ID it is a
+	 *            prefix of
+	 * @return the number of rows within the cells the range intersects, which
+	 *         is an upper bound of the rows within the range
+	 */
+	public long getEstimatedRowCount(
+			final ByteArrayRange range ) {
+		long rowCount = 0;
+		for (final Long count : getIntersectingCells(
+				range).values()) {
+			if (count > 0) {
+				rowCount += count;
+			}
+		}
+		return rowCount;
+	}
+
+	/**
+	 * @param ranges
+	 *            row ID ranges that do not intersect each other
+	 * @return the number of rows within the cells the ranges intersect
+	 */
+	public long getEstimatedRowCount(
+			final List<ByteArrayRange> ranges ) {
+		long rowCount = 0;
+		for (final ByteArrayRange range : ranges) {
+			rowCount += getEstimatedRowCount(range);
+		}
+		return rowCount;
+	}
+
+	/**
+	 * Narrow a row ID range to the first and last cell within it that contain
+	 * rows
+	 *
+	 * @param range
+	 *            a row ID range, its end is inclusive of every row ID it is a
+	 *            prefix of
+	 * @return the narrowed range, or null if the range does not contain any
+	 *         rows
+	 */
+	public ByteArrayRange clip(
+			final ByteArrayRange range ) {
+		ByteArrayId firstCell = null;
+		ByteArrayId lastCell = null;
+		for (final Entry<ByteArrayId, Long> cell : getIntersectingCells(
+				range).entrySet()) {
+			if (cell.getValue() > 0) {
+				if (firstCell == null) {
+					firstCell = cell.getKey();
+				}
+				lastCell = cell.getKey();
+			}
+		}
+		if (firstCell == null) {
+			return null;
+		}
+		if (range.isSingleValue()) {
+			return range;
+		}
+		// every row of a cell is prefixed by the cell key, so the end is only
+		// replaced if the last cell precedes the cell of the end, otherwise the
+		// range would be widened to every row of the last cell
+		final ByteArrayId start = firstCell.compareTo(range.getStart()) > 0 ? firstCell : range.getStart();
+		final ByteArrayId end = lastCell.compareTo(getEndCell(range.getEnd())) < 0 ? lastCell : range.getEnd();
+		return new ByteArrayRange(
+				start,
+				pad(
+						end,
+						start.getBytes().length));
+	}
+
+	/**
+	 * @param ranges
+	 *            row ID ranges
+	 * @return the ranges narrowed to the cells that contain rows, omitting the
+	 *         ranges that do not contain any rows
+	 */
+	public List<ByteArrayRange> clip(
+			final List<ByteArrayRange> ranges ) {
+		final List<ByteArrayRange> clippedRanges = new ArrayList<ByteArrayRange>(
+				ranges.size());
+		for (final ByteArrayRange range : ranges) {
+			final ByteArrayRange clippedRange = clip(range);
+			if (clippedRange != null) {
+				clippedRanges.add(clippedRange);
+			}
+		}
+		return clippedRanges;
+	}
+
+	/**
+	 * @param splitCount
+	 *            the number of partitions
+	 * @return the cell keys that divide the rows into partitions of
+	 *         approximately equal count, at most one less than the number of
+	 *         partitions
+	 */
+	public List<ByteArrayId> getSplitPoints(
+			final int splitCount ) {
+		final List<ByteArrayId> splitPoints = new ArrayList<ByteArrayId>();
+		final long totalCount = getTotalCount();
+		if ((splitCount <= 1) || (totalCount == 0)) {
+			return splitPoints;
+		}
+		long count = 0;
+		int nextSplit = 1;
+		for (final Entry<ByteArrayId, Long> cell : cellCounts.entrySet()) {
+			if (cell.getValue() <= 0) {
+				continue;
+			}
+			// a split point is the start of the cell that crosses the next
+			// partition boundary, so the preceding cells form the partition
+			if ((count > 0) && (count >= ((nextSplit * totalCount) / splitCount))) {
+				splitPoints.add(cell.getKey());
+				while ((nextSplit < splitCount) && (count >= ((nextSplit * totalCount) / splitCount))) {
+					nextSplit++;
+				}
+				if (nextSplit >= splitCount) {
+					break;
+				}
+			}
+			count += cell.getValue();
+		}
+		return splitPoints;
+	}
+
+	private NavigableMap<ByteArrayId, Long> getIntersectingCells(
+			final ByteArrayRange range ) {
+		// a cell intersects the range if its key is between the start and end
+		// truncated to the length of a cell key, the end is padded because it
+		// is inclusive of every ID it is a prefix of
+		final byte[] start = range.getStart().getBytes();
+		final ByteArrayId startCell = new ByteArrayId(
+				Arrays.copyOf(
+						start,
+						Math.min(
+								start.length,
+								cellKeyLength)));
+		final ByteArrayId endCell = getEndCell(range.getEnd());
+		if (startCell.compareTo(endCell) > 0) {
+			return new TreeMap<ByteArrayId, Long>();
+		}
+		return cellCounts.subMap(
+				startCell,
+				true,
+				endCell,
+				true);
+	}
+
+	private static ByteArrayId pad(
+			final ByteArrayId end,
+			final int length ) {
+		// an end that is a prefix of the start would be ordered before it, so
+		// it is padded to include the same IDs without preceding the start
+		final byte[] endBytes = end.getBytes();
+		if (endBytes.length >= length) {
+			return end;
+		}
+		final byte[] paddedEnd = Arrays.copyOf(
+				endBytes,
+				length);
+		Arrays.fill(
+				paddedEnd,
+				endBytes.length,
+				length,
+				(byte) 0xFF);
+		return new ByteArrayId(
+				paddedEnd);
+	}
+
+	private ByteArrayId getEndCell(
+			final ByteArrayId end ) {
+		final byte[] endBytes = end.getBytes();
+		final byte[] endCell = Arrays.copyOf(
+				endBytes,
+				cellKeyLength);
+		if (endBytes.length < cellKeyLength) {
+			Arrays.fill(
+					endCell,
+					endBytes.length,
+					cellKeyLength,
+					(byte) 0xFF);
+		}
+		return new ByteArrayId(
+				endCell);
+	}
+
+	private ByteArrayId getCellKey(
+			final ByteArrayId rowId ) {
+		final byte[] bytes = rowId.getBytes();
+		if (bytes.length <= cellKeyLength) {
+			return rowId;
+		}
+		return new ByteArrayId(
+				Arrays.copyOf(
+						bytes,
+						cellKeyLength));
+	}
+
+	private void add(
+			final ByteArrayId cellKey,
+			final long count ) {
+		final Long currentCount = cellCounts.get(cellKey);
+		final long newCount = currentCount == null ? count : currentCount + count;
+		if (newCount == 0) {
+			cellCounts.remove(cellKey);
+		}
+		else {
+			// negative counts are retained so that deletions recorded
+			// separately can be merged with the ingested counts
+			cellCounts.put(
+					cellKey,
+					newCount);
+		}
+	}
+
+	@Override
+	public ByteArrayId getStatisticsId() {
+		return composeId(indexId);
+	}
+
+	@Override
+	public void entryIngested(
+			final IngestEntryInfo entryInfo,
+			final T entry ) {
+		entryCount++;
+		for (final ByteArrayId rowId : entryInfo.getRowIds()) {
+			add(
+					getCellKey(rowId),
+					1);
+		}
+	}
+
+	@Override
+	public void entryDeleted(
+			final IngestEntryInfo entryInfo,
+			final T entry ) {
+		entryCount--;
+		for (final ByteArrayId rowId : entryInfo.getRowIds()) {
+			add(
+					getCellKey(rowId),
+					-1);
+		}
+	}
+
+	@Override
+	public void merge(
+			final Mergeable statistics ) {
+		if ((statistics != null) && (statistics instanceof IndexDensityStatistics)) {
+			final IndexDensityStatistics<?> stats = (IndexDensityStatistics<?>) statistics;
+			if (stats.cellKeyLength != cellKeyLength) {
+				// cells of a different length can not be combined, which only
+				// happens if the index strategy has changed. The entries
+				// counted with the discarded cells are discarded as well, so
+				// the statistic no longer accounts for every entry.
+				cellKeyLength = stats.cellKeyLength;
+				cellCounts.clear();
+				entryCount = 0;
+			}
+			entryCount += stats.entryCount;
+			for (final Entry<ByteArrayId, Long> cell : stats.cellCounts.entrySet()) {
+				add(
+						cell.getKey(),
+						cell.getValue());
+			}
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] indexIdBytes = indexId.getBytes();
+		int cellsLength = 0;
+		for (final ByteArrayId cellKey : cellCounts.keySet()) {
+			cellsLength += 12 + cellKey.getBytes().length;
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(20 + indexIdBytes.length + cellsLength);
+		buffer.putInt(indexIdBytes.length);
+		buffer.put(indexIdBytes);
+		buffer.putInt(cellKeyLength);
+		buffer.putInt(cellCounts.size());
+		for (final Entry<ByteArrayId, Long> cell : cellCounts.entrySet()) {
+			final byte[] cellKey = cell.getKey().getBytes();
+			buffer.putInt(cellKey.length);
+			buffer.put(cellKey);
+			buffer.putLong(cell.getValue());
+		}
+		buffer.putLong(entryCount);
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		final byte[] indexIdBytes = new byte[buffer.getInt()];
+		buffer.get(indexIdBytes);
+		indexId = new ByteArrayId(
+				indexIdBytes);
+		cellKeyLength = buffer.getInt();
+		cellCounts.clear();
+		final int cellCount = buffer.getInt();
+		for (int i = 0; i < cellCount; i++) {
+			final byte[] cellKey = new byte[buffer.getInt()];
+			buffer.get(cellKey);
+			cellCounts.put(
+					new ByteArrayId(
+							cellKey),
+					buffer.getLong());
+		}
+		// entries were not counted before the entry count was added, so those
+		// densities never account for every entry
+		entryCount = (buffer.remaining() >= 8) ? buffer.getLong() : 0;
+	}
+}
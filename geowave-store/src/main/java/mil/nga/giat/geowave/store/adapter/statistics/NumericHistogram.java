@@ -0,0 +1,284 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This is a fixed size streaming histogram of numeric values, based on the
+ * algorithm of Ben-Haim and Tom-Tov. The values are summarized as a bounded
+ * number of bins, each a centroid and the count of the values it represents.
+ * When adding a value or merging another histogram exceeds the bound, the two
+ * closest bins are repeatedly merged. Histograms built independently over
+ * parts of the data can therefore be merged in any order.
+ *
+ * The cumulative distribution is approximated by linear interpolation between
+ * the exact minimum, the midpoint of each bin and the exact maximum.
+ */
+public class NumericHistogram
+{
+	public final static int DEFAULT_MAX_BINS = 64;
+
+	private int maxBins;
+	private int binCount = 0;
+	// one extra bin of room so that a value can be inserted before merging
+	private double[] centroids;
+	private long[] counts;
+	private double min = Double.MAX_VALUE;
+	private double max = -Double.MAX_VALUE;
+	private long totalCount = 0;
+
+	public NumericHistogram() {
+		this(
+				DEFAULT_MAX_BINS);
+	}
+
+	public NumericHistogram(
+			final int maxBins ) {
+		this.maxBins = maxBins;
+		centroids = new double[maxBins + 1];
+		counts = new long[maxBins + 1];
+	}
+
+	public int getMaxBins() {
+		return maxBins;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public void add(
+			final double value ) {
+		add(
+				value,
+				1);
+	}
+
+	private void add(
+			final double value,
+			final long count ) {
+		if (Double.isNaN(value) || (count <= 0)) {
+			return;
+		}
+		totalCount += count;
+		min = Math.min(
+				min,
+				value);
+		max = Math.max(
+				max,
+				value);
+		// binary search for the insertion point
+		int low = 0;
+		int high = binCount - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			if (centroids[mid] < value) {
+				low = mid + 1;
+			}
+			else if (centroids[mid] > value) {
+				high = mid - 1;
+			}
+			else {
+				counts[mid] += count;
+				return;
+			}
+		}
+		System.arraycopy(
+				centroids,
+				low,
+				centroids,
+				low + 1,
+				binCount - low);
+		System.arraycopy(
+				counts,
+				low,
+				counts,
+				low + 1,
+				binCount - low);
+		centroids[low] = value;
+		counts[low] = count;
+		binCount++;
+		if (binCount > maxBins) {
+			mergeClosestBins();
+		}
+	}
+
+	private void mergeClosestBins() {
+		int closest = 0;
+		double smallestGap = Double.MAX_VALUE;
+		for (int i = 0; i < (binCount - 1); i++) {
+			final double gap = centroids[i + 1] - centroids[i];
+			if (gap < smallestGap) {
+				smallestGap = gap;
+				closest = i;
+			}
+		}
+		final long count = counts[closest] + counts[closest + 1];
+		centroids[closest] = ((centroids[closest] * counts[closest]) + (centroids[closest + 1] * counts[closest + 1])) / count;
+		counts[closest] = count;
+		System.arraycopy(
+				centroids,
+				closest + 2,
+				centroids,
+				closest + 1,
+				binCount - closest - 2);
+		System.arraycopy(
+				counts,
+				closest + 2,
+				counts,
+				closest + 1,
+				binCount - closest - 2);
+		binCount--;
+	}
+
+	public void merge(
+			final NumericHistogram other ) {
+		if (other == null) {
+			return;
+		}
+		for (int i = 0; i < other.binCount; i++) {
+			add(
+					other.centroids[i],
+					other.counts[i]);
+		}
+		// the extremes of the other histogram may have been merged into bins
+		if (other.totalCount > 0) {
+			min = Math.min(
+					min,
+					other.min);
+			max = Math.max(
+					max,
+					other.max);
+		}
+	}
+
+	/**
+	 * @param value
+	 *            the value
+	 * @return the estimated number of values less than or equal to the value
+	 */
+	public double cdf(
+			final double value ) {
+		if ((totalCount == 0) || (value < min)) {
+			return 0;
+		}
+		if (value >= max) {
+			return totalCount;
+		}
+		double previousPosition = min;
+		double previousSum = 0;
+		double sum = 0;
+		for (int i = 0; i < binCount; i++) {
+			// half of the values of a bin are considered to be below its
+			// centroid
+			final double binSum = sum + (counts[i] / 2.0);
+			if (value < centroids[i]) {
+				return interpolate(
+						value,
+						previousPosition,
+						centroids[i],
+						previousSum,
+						binSum);
+			}
+			previousPosition = centroids[i];
+			previousSum = binSum;
+			sum += counts[i];
+		}
+		return interpolate(
+				value,
+				previousPosition,
+				max,
+				previousSum,
+				totalCount);
+	}
+
+	/**
+	 * @param fraction
+	 *            the fraction of the values, between 0 and 1
+	 * @return the estimated value below which the given fraction of the values
+	 *         fall
+	 */
+	public double quantile(
+			final double fraction ) {
+		if (totalCount == 0) {
+			return Double.NaN;
+		}
+		final double target = Math.max(
+				0,
+				Math.min(
+						1,
+						fraction)) * totalCount;
+		double previousPosition = min;
+		double previousSum = 0;
+		double sum = 0;
+		for (int i = 0; i < binCount; i++) {
+			final double binSum = sum + (counts[i] / 2.0);
+			if (target < binSum) {
+				return interpolate(
+						target,
+						previousSum,
+						binSum,
+						previousPosition,
+						centroids[i]);
+			}
+			previousPosition = centroids[i];
+			previousSum = binSum;
+			sum += counts[i];
+		}
+		return interpolate(
+				target,
+				previousSum,
+				totalCount,
+				previousPosition,
+				max);
+	}
+
+	private static double interpolate(
+			final double x,
+			final double x0,
+			final double x1,
+			final double y0,
+			final double y1 ) {
+		if (x1 <= x0) {
+			return y1;
+		}
+		return y0 + (((y1 - y0) * (x - x0)) / (x1 - x0));
+	}
+
+	public byte[] toBinary() {
+		final ByteBuffer buffer = ByteBuffer.allocate(32 + (binCount * 16));
+		buffer.putInt(maxBins);
+		buffer.putInt(binCount);
+		buffer.putLong(totalCount);
+		buffer.putDouble(min);
+		buffer.putDouble(max);
+		for (int i = 0; i < binCount; i++) {
+			buffer.putDouble(centroids[i]);
+			buffer.putLong(counts[i]);
+		}
+		return buffer.array();
+	}
+
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		maxBins = buffer.getInt();
+		binCount = buffer.getInt();
+		totalCount = buffer.getLong();
+		min = buffer.getDouble();
+		max = buffer.getDouble();
+		centroids = new double[maxBins + 1];
+		counts = new long[maxBins + 1];
+		for (int i = 0; i < binCount; i++) {
+			centroids[i] = buffer.getDouble();
+			counts[i] = buffer.getLong();
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.store.IngestEntryInfo;
+import mil.nga.giat.geowave.store.IngestEntryInfo.FieldInfo;
+
+/**
+ * This statistic summarizes the distribution of the values of a single numeric
+ * (or date) field within a fixed size histogram. It can be used to estimate the
+ * selectivity of a range of values, and to compute quantile class breaks
+ * without scanning the data. The statistics ID is composed of the statistic
+ * type and the field ID so that several fields of an adapter can each be
+ * tracked.
+ *
+ * @param <T>
+ *            The type for the data elements that are being adapted
+ */
+public class NumericHistogramStatistics<T> extends
+		AbstractDataStatistics<T>
+{
+	public final static String STATS_TYPE = "ATT_HISTOGRAM";
+	public final static String STATS_ID_SEPARATOR = "#";
+
+	private ByteArrayId fieldId;
+	private NumericHistogram histogram = new NumericHistogram();
+
+	protected NumericHistogramStatistics() {
+		super();
+	}
+
+	public NumericHistogramStatistics(
+			final ByteArrayId dataAdapterId,
+			final ByteArrayId fieldId ) {
+		super(
+				dataAdapterId);
+		this.fieldId = fieldId;
+	}
+
+	public static ByteArrayId composeId(
+			final ByteArrayId fieldId ) {
+		return new ByteArrayId(
+				STATS_TYPE + STATS_ID_SEPARATOR + fieldId.getString());
+	}
+
+	public ByteArrayId getFieldId() {
+		return fieldId;
+	}
+
+	public boolean isSet() {
+		return histogram.getTotalCount() > 0;
+	}
+
+	public long getCount() {
+		return histogram.getTotalCount();
+	}
+
+	public double getMin() {
+		return histogram.getMin();
+	}
+
+	public double getMax() {
+		return histogram.getMax();
+	}
+
+	/**
+	 * @param value
+	 *            the value
+	 * @return the estimated fraction of the values less than or equal to the
+	 *         value
+	 */
+	public double cdf(
+			final double value ) {
+		if (!isSet()) {
+			return 0;
+		}
+		return histogram.cdf(value) / histogram.getTotalCount();
+	}
+
+	/**
+	 * @param fraction
+	 *            the fraction of the values, between 0 and 1
+	 * @return the estimated value below which the given fraction of the values
+	 *         fall
+	 */
+	public double quantile(
+			final double fraction ) {
+		return histogram.quantile(fraction);
+	}
+
+	/**
+	 * @param min
+	 *            the minimum value of the range
+	 * @param max
+	 *            the maximum value of the range
+	 * @return the estimated fraction of the values within the range
+	 */
+	public double getSelectivity(
+			final double min,
+			final double max ) {
+		if (!isSet() || (max < min)) {
+			return 0;
+		}
+		return Math.max(
+				0,
+				cdf(max) - cdf(Math.nextAfter(
+						min,
+						Double.NEGATIVE_INFINITY)));
+	}
+
+	/**
+	 * @param classCount
+	 *            the number of classes
+	 * @return the class breaks that divide the values into classes of
+	 *         approximately equal count, including the minimum and maximum
+	 */
+	public double[] getQuantileBreaks(
+			final int classCount ) {
+		final double[] breaks = new double[classCount + 1];
+		for (int i = 0; i <= classCount; i++) {
+			breaks[i] = quantile((double) i / classCount);
+		}
+		return breaks;
+	}
+
+	@Override
+	public ByteArrayId getStatisticsId() {
+		return composeId(fieldId);
+	}
+
+	@Override
+	public void entryIngested(
+			final IngestEntryInfo entryInfo,
+			final T entry ) {
+		for (final FieldInfo<?> field : entryInfo.getFieldInfo()) {
+			if (field.getDataValue().getId().equals(
+					fieldId)) {
+				final Object value = field.getDataValue().getValue();
+				if (value instanceof Number) {
+					histogram.add(((Number) value).doubleValue());
+				}
+				else if (value instanceof Date) {
+					histogram.add(((Date) value).getTime());
+				}
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void merge(
+			final Mergeable statistics ) {
+		if ((statistics != null) && (statistics instanceof NumericHistogramStatistics)) {
+			histogram.merge(((NumericHistogramStatistics<?>) statistics).histogram);
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] fieldIdBytes = fieldId.getBytes();
+		final byte[] histogramBytes = histogram.toBinary();
+		final ByteBuffer buffer = ByteBuffer.allocate(4 + fieldIdBytes.length + histogramBytes.length);
+		buffer.putInt(fieldIdBytes.length);
+		buffer.put(fieldIdBytes);
+		buffer.put(histogramBytes);
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		final byte[] fieldIdBytes = new byte[buffer.getInt()];
+		buffer.get(fieldIdBytes);
+		fieldId = new ByteArrayId(
+				fieldIdBytes);
+		final byte[] histogramBytes = new byte[buffer.remaining()];
+		buffer.get(histogramBytes);
+		histogram = new NumericHistogram();
+		histogram.fromBinary(histogramBytes);
+	}
+}
@@ -0,0 +1,391 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.dimension.bin.BinRange;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.store.DeleteCallback;
+import mil.nga.giat.geowave.store.IngestEntryInfo;
+import mil.nga.giat.geowave.store.query.TemporalConstraints;
+import mil.nga.giat.geowave.store.query.TemporalRange;
+
+/**
+ * This statistic tracks the minimum and maximum time of an adapter's data. If
+ * a binning strategy is given, the minimum and maximum time within each
+ * temporal bin that contains data is also tracked, so that temporal
+ * constraints can be narrowed to the bins that actually contain data before
+ * they are decomposed into ranges.
+ *
+ * The time ranges are not narrowed when entries are deleted, but the entries
+ * are counted like the count statistic counts them. Constraints may only be
+ * narrowed by this statistic if its entry count matches the count statistic
+ * of the adapter, otherwise entries written before the statistic was
+ * maintained would be excluded.
+ *
+ * @param <T>
+ *            The type for the data elements that are being adapted
+ */
+abstract public class TimeRangeDataStatistics<T> extends
+		AbstractDataStatistics<T> implements
+		DeleteCallback<T>
+{
+	public final static ByteArrayId STATS_ID = new ByteArrayId(
+			"TIME_RANGE");
+
+	private long minTime = Long.MAX_VALUE;
+	private long maxTime = Long.MIN_VALUE;
+	private TemporalBinningStrategy binningStrategy;
+	// the start of each bin containing data mapped to the minimum and maximum
+	// time within it
+	private final TreeMap<Long, long[]> bins = new TreeMap<Long, long[]>();
+	private long entryCount = 0;
+
+	protected TimeRangeDataStatistics() {
+		super();
+	}
+
+	public TimeRangeDataStatistics(
+			final ByteArrayId dataAdapterId ) {
+		this(
+				dataAdapterId,
+				null);
+	}
+
+	/**
+	 * @param dataAdapterId
+	 *            the adapter
+	 * @param binningStrategy
+	 *            the temporal bins to track the time range of, or null to only
+	 *            track the overall time range
+	 */
+	public TimeRangeDataStatistics(
+			final ByteArrayId dataAdapterId,
+			final TemporalBinningStrategy binningStrategy ) {
+		super(
+				dataAdapterId);
+		this.binningStrategy = binningStrategy;
+	}
+
+	public boolean isSet() {
+		return minTime <= maxTime;
+	}
+
+	public Date getMinTime() {
+		return isSet() ? new Date(
+				minTime) : null;
+	}
+
+	public Date getMaxTime() {
+		return isSet() ? new Date(
+				maxTime) : null;
+	}
+
+	/**
+	 * @return the number of entries written, less those deleted
+	 */
+	public long getEntryCount() {
+		return entryCount;
+	}
+
+	/**
+	 * @param countStatistics
+	 *            the count statistic of the adapter
+	 * @return whether this statistic has accounted for every entry counted by
+	 *         the count statistic, so that constraints it narrows do not
+	 *         exclude any entry
+	 */
+	public boolean isComplete(
+			final CountDataStatistics<?> countStatistics ) {
+		return (countStatistics != null) && countStatistics.isSet() && (countStatistics.getCount() == entryCount);
+	}
+
+	/**
+	 * @return the number of temporal bins that contain data, 0 if the bins are
+	 *         not tracked
+	 */
+	public int getBinCount() {
+		return bins.size();
+	}
+
+	/**
+	 * Narrow temporal constraints to the time ranges that contain data.
+	 * Consecutive bins containing data are combined into a single range, and
+	 * each range is clipped to the minimum and maximum time within its bins.
+	 *
+	 * @param constraints
+	 *            the temporal constraints, if empty the full time range is
+	 *            assumed
+	 * @return the narrowed constraints, or null if no data can satisfy the
+	 *         constraints
+	 */
+	public TemporalConstraints constrain(
+			final TemporalConstraints constraints ) {
+		if (!isSet()) {
+			return null;
+		}
+		final List<TemporalRange> ranges = new ArrayList<TemporalRange>();
+		if ((constraints == null) || constraints.isEmpty()) {
+			ranges.add(new TemporalRange(
+					TemporalRange.START_TIME,
+					TemporalRange.END_TIME));
+		}
+		else {
+			ranges.addAll(constraints.getRanges());
+		}
+		final TemporalConstraints narrowedConstraints = new TemporalConstraints();
+		for (final TemporalRange range : ranges) {
+			final long start = range.getStartTime().getTime();
+			final long end = range.getEndTime().getTime();
+			if (bins.isEmpty()) {
+				addRange(
+						narrowedConstraints,
+						Math.max(
+								start,
+								minTime),
+						Math.min(
+								end,
+								maxTime));
+				continue;
+			}
+			final Long firstBin = bins.floorKey(start);
+			final NavigableMap<Long, long[]> overlappingBins = bins.subMap(
+					firstBin != null ? firstBin : start,
+					true,
+					end,
+					true);
+			long runStart = 0;
+			long runEnd = 0;
+			Long previousBin = null;
+			for (final Entry<Long, long[]> bin : overlappingBins.entrySet()) {
+				final long binStart = Math.max(
+						start,
+						bin.getValue()[0]);
+				final long binEnd = Math.min(
+						end,
+						bin.getValue()[1]);
+				if (binStart > binEnd) {
+					continue;
+				}
+				if ((previousBin != null) && (getBinStart(bin.getKey() - 1) == previousBin)) {
+					// the bins are adjacent, so extend the run
+					runEnd = binEnd;
+				}
+				else {
+					if (previousBin != null) {
+						addRange(
+								narrowedConstraints,
+								runStart,
+								runEnd);
+					}
+					runStart = binStart;
+					runEnd = binEnd;
+				}
+				previousBin = bin.getKey();
+			}
+			if (previousBin != null) {
+				addRange(
+						narrowedConstraints,
+						runStart,
+						runEnd);
+			}
+		}
+		return narrowedConstraints.isEmpty() ? null : narrowedConstraints;
+	}
+
+	private static void addRange(
+			final TemporalConstraints constraints,
+			final long start,
+			final long end ) {
+		if (start <= end) {
+			constraints.add(new TemporalRange(
+					new Date(
+							start),
+					new Date(
+							end)));
+		}
+	}
+
+	private long getBinStart(
+			final long time ) {
+		return time - (long) binningStrategy.getBinnedValue(
+				time).getNormalizedValue();
+	}
+
+	@Override
+	public void entryIngested(
+			final IngestEntryInfo entryInfo,
+			final T entry ) {
+		entryCount++;
+		final TemporalRange range = getTimeRange(entry);
+		if (range != null) {
+			addTimeRange(
+					range.getStartTime().getTime(),
+					range.getEndTime().getTime());
+		}
+	}
+
+	@Override
+	public void entryDeleted(
+			final IngestEntryInfo entryInfo,
+			final T entry ) {
+		// the time range of the remaining entries is not known, so it is only
+		// the count that changes
+		entryCount--;
+	}
+
+	protected void addTimeRange(
+			final long start,
+			final long end ) {
+		minTime = Math.min(
+				minTime,
+				start);
+		maxTime = Math.max(
+				maxTime,
+				end);
+		if (binningStrategy != null) {
+			final BinRange[] binRanges = binningStrategy.getNormalizedRanges(new NumericRange(
+					start,
+					end));
+			// each bin but the last ends at the end of the bin, so the next
+			// bin starts directly after it
+			long binStart = start - (long) binRanges[0].getNormalizedMin();
+			for (final BinRange binRange : binRanges) {
+				updateBin(
+						binStart,
+						binStart + (long) binRange.getNormalizedMin(),
+						binStart + (long) binRange.getNormalizedMax());
+				binStart += (long) binRange.getNormalizedMax() + 1;
+			}
+		}
+	}
+
+	private void updateBin(
+			final long binStart,
+			final long min,
+			final long max ) {
+		final long[] bin = bins.get(binStart);
+		if (bin == null) {
+			bins.put(
+					binStart,
+					new long[] {
+						min,
+						max
+					});
+		}
+		else {
+			bin[0] = Math.min(
+					bin[0],
+					min);
+			bin[1] = Math.max(
+					bin[1],
+					max);
+		}
+	}
+
+	/**
+	 * @param entry
+	 *            the entry
+	 * @return the time range of the entry (the start and end are equal for a
+	 *         timestamp), or null if the entry has no time
+	 */
+	abstract protected TemporalRange getTimeRange(
+			T entry );
+
+	@Override
+	public ByteArrayId getStatisticsId() {
+		return STATS_ID;
+	}
+
+	@Override
+	public void merge(
+			final Mergeable statistics ) {
+		if ((statistics != null) && (statistics instanceof TimeRangeDataStatistics)) {
+			final TimeRangeDataStatistics<?> stats = (TimeRangeDataStatistics<?>) statistics;
+			entryCount += stats.entryCount;
+			if (!stats.isSet()) {
+				return;
+			}
+			if (!isSet()) {
+				binningStrategy = stats.binningStrategy;
+			}
+			else if ((binningStrategy != null) && !binningStrategy.equals(stats.binningStrategy)) {
+				// the bins are not comparable so only the overall range is kept
+				binningStrategy = null;
+				bins.clear();
+			}
+			minTime = Math.min(
+					minTime,
+					stats.minTime);
+			maxTime = Math.max(
+					maxTime,
+					stats.maxTime);
+			if (binningStrategy != null) {
+				for (final Entry<Long, long[]> bin : stats.bins.entrySet()) {
+					updateBin(
+							bin.getKey(),
+							bin.getValue()[0],
+							bin.getValue()[1]);
+				}
+			}
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] binningStrategyBytes = binningStrategy != null ? PersistenceUtils.toBinary(binningStrategy) : new byte[0];
+		final ByteBuffer buffer = ByteBuffer.allocate(32 + binningStrategyBytes.length + (bins.size() * 24));
+		buffer.putLong(minTime);
+		buffer.putLong(maxTime);
+		buffer.putInt(binningStrategyBytes.length);
+		buffer.put(binningStrategyBytes);
+		buffer.putInt(bins.size());
+		for (final Entry<Long, long[]> bin : bins.entrySet()) {
+			buffer.putLong(bin.getKey());
+			buffer.putLong(bin.getValue()[0]);
+			buffer.putLong(bin.getValue()[1]);
+		}
+		buffer.putLong(entryCount);
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		minTime = buffer.getLong();
+		maxTime = buffer.getLong();
+		final byte[] binningStrategyBytes = new byte[buffer.getInt()];
+		if (binningStrategyBytes.length > 0) {
+			buffer.get(binningStrategyBytes);
+			binningStrategy = PersistenceUtils.fromBinary(
+					binningStrategyBytes,
+					TemporalBinningStrategy.class);
+		}
+		else {
+			binningStrategy = null;
+		}
+		bins.clear();
+		final int binCount = buffer.getInt();
+		for (int i = 0; i < binCount; i++) {
+			bins.put(
+					buffer.getLong(),
+					new long[] {
+						buffer.getLong(),
+						buffer.getLong()
+					});
+		}
+		// entries were not counted before the entry count was added, so those
+		// statistics are never complete
+		entryCount = (buffer.remaining() >= 8) ? buffer.getLong() : 0;
+	}
+}
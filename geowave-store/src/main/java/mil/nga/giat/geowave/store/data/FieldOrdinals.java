@@ -0,0 +1,78 @@
+package mil.nga.giat.geowave.store.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+
+/**
+ * This is an immutable mapping of a known set of field IDs to ordinals
+ * starting at 0. It is intended to be computed once per data adapter or index
+ * model so that a persistent dataset for each row can store its values in an
+ * array indexed by the ordinal.
+ */
+public class FieldOrdinals
+{
+	private final ByteArrayId[] fieldIds;
+	private final Map<ByteArrayId, Integer> fieldIdToOrdinalMap;
+
+	/**
+	 *
+	 * @param fieldIds
+	 *            the field IDs in ordinal order, duplicate IDs use the ordinal
+	 *            of their first occurrence
+	 */
+	public FieldOrdinals(
+			final Collection<ByteArrayId> fieldIds ) {
+		final List<ByteArrayId> distinctFieldIds = new ArrayList<ByteArrayId>(
+				fieldIds.size());
+		fieldIdToOrdinalMap = new HashMap<ByteArrayId, Integer>();
+		for (final ByteArrayId fieldId : fieldIds) {
+			if (!fieldIdToOrdinalMap.containsKey(fieldId)) {
+				fieldIdToOrdinalMap.put(
+						fieldId,
+						distinctFieldIds.size());
+				distinctFieldIds.add(fieldId);
+			}
+		}
+		this.fieldIds = distinctFieldIds.toArray(new ByteArrayId[distinctFieldIds.size()]);
+	}
+
+	/**
+	 * Given a field ID, get the associated ordinal
+	 *
+	 * @param fieldId
+	 *            the field ID
+	 * @return the ordinal, -1 if the field ID is not known
+	 */
+	public int getOrdinal(
+			final ByteArrayId fieldId ) {
+		final Integer ordinal = fieldIdToOrdinalMap.get(fieldId);
+		if (ordinal == null) {
+			return -1;
+		}
+		return ordinal;
+	}
+
+	/**
+	 * Given an ordinal, get the associated field ID
+	 *
+	 * @param ordinal
+	 *            the ordinal
+	 * @return the field ID
+	 */
+	public ByteArrayId getFieldId(
+			final int ordinal ) {
+		return fieldIds[ordinal];
+	}
+
+	/**
+	 * @return the number of field IDs
+	 */
+	public int size() {
+		return fieldIds.length;
+	}
+}
@@ -0,0 +1,207 @@
+package mil.nga.giat.geowave.store.data;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+
+/**
+ * This is a persistent dataset that keeps the encoded binary value of each
+ * field along with its reader and only decodes a field the first time its
+ * value is accessed. Decoded values are retained, so each field is decoded at
+ * most once. This way a row that is only partially inspected, or rejected by a
+ * filter, does not pay for decoding all of its fields.
+ *
+ * @param <T>
+ *            The most specific generalization for the type for all of the
+ *            values in this dataset.
+ */
+public class LazyPersistentDataset<T> extends
+		PersistentDataset<T>
+{
+	private final FieldOrdinals fieldOrdinals;
+	private final byte[][] encodedValues;
+	private final FieldReader<? extends T>[] readers;
+	// encoded values of fields that have no ordinal
+	private Map<ByteArrayId, EncodedValue<T>> fieldIdToEncodedValueMap;
+
+	public LazyPersistentDataset() {
+		super();
+		fieldOrdinals = null;
+		encodedValues = null;
+		readers = null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public LazyPersistentDataset(
+			final FieldOrdinals fieldOrdinals ) {
+		super(
+				fieldOrdinals);
+		this.fieldOrdinals = fieldOrdinals;
+		encodedValues = new byte[fieldOrdinals.size()][];
+		readers = new FieldReader[fieldOrdinals.size()];
+	}
+
+	/**
+	 * Add the encoded value of a field to this data set, it will be decoded
+	 * using the reader when it is first accessed. Do not overwrite.
+	 *
+	 * @param fieldId
+	 *            the field ID
+	 * @param encodedValue
+	 *            the binary value of the field
+	 * @param reader
+	 *            the reader to decode the binary value
+	 */
+	public void addEncodedValue(
+			final ByteArrayId fieldId,
+			final byte[] encodedValue,
+			final FieldReader<? extends T> reader ) {
+		if (fieldOrdinals != null) {
+			final int ordinal = fieldOrdinals.getOrdinal(fieldId);
+			if (ordinal >= 0) {
+				if ((readers[ordinal] == null) && !containsValue(ordinal)) {
+					encodedValues[ordinal] = encodedValue;
+					readers[ordinal] = reader;
+				}
+				return;
+			}
+		}
+		if (fieldIdToEncodedValueMap == null) {
+			fieldIdToEncodedValueMap = new LinkedHashMap<ByteArrayId, EncodedValue<T>>();
+		}
+		else if (fieldIdToEncodedValueMap.containsKey(fieldId)) {
+			return;
+		}
+		if (super.getValue(fieldId) == null) {
+			fieldIdToEncodedValueMap.put(
+					fieldId,
+					new EncodedValue<T>(
+							encodedValue,
+							reader));
+		}
+	}
+
+	@Override
+	public void addValue(
+			final PersistentValue<T> value ) {
+		// a value that has not been decoded yet is not overwritten
+		if (!isEncoded(value.getId())) {
+			super.addValue(value);
+		}
+	}
+
+	@Override
+	public void addOrUpdateValue(
+			final PersistentValue<T> value ) {
+		removeEncodedValue(value.getId());
+		super.addOrUpdateValue(value);
+	}
+
+	@Override
+	public T getValue(
+			final ByteArrayId fieldId ) {
+		if (fieldOrdinals != null) {
+			final int ordinal = fieldOrdinals.getOrdinal(fieldId);
+			if (ordinal >= 0) {
+				return getValue(ordinal);
+			}
+		}
+		if (fieldIdToEncodedValueMap != null) {
+			final EncodedValue<T> encodedValue = fieldIdToEncodedValueMap.remove(fieldId);
+			if (encodedValue != null) {
+				final T value = encodedValue.reader.readField(encodedValue.value);
+				super.addOrUpdateValue(new PersistentValue<T>(
+						fieldId,
+						value));
+				return value;
+			}
+		}
+		return super.getValue(fieldId);
+	}
+
+	@Override
+	public T getValue(
+			final int ordinal ) {
+		final FieldReader<? extends T> reader = readers[ordinal];
+		if (reader != null) {
+			final T value = reader.readField(encodedValues[ordinal]);
+			readers[ordinal] = null;
+			encodedValues[ordinal] = null;
+			super.addOrUpdateValue(new PersistentValue<T>(
+					fieldOrdinals.getFieldId(ordinal),
+					value));
+			return value;
+		}
+		return super.getValue(ordinal);
+	}
+
+	/**
+	 * Get all of the values from this persistent data set, this will decode
+	 * all of the fields that have not been accessed yet
+	 *
+	 * @return all of the value
+	 */
+	@Override
+	public List<PersistentValue<T>> getValues() {
+		if (readers != null) {
+			for (int i = 0; i < readers.length; i++) {
+				if (readers[i] != null) {
+					getValue(i);
+				}
+			}
+		}
+		if (fieldIdToEncodedValueMap != null) {
+			final Map<ByteArrayId, EncodedValue<T>> encodedValueMap = fieldIdToEncodedValueMap;
+			fieldIdToEncodedValueMap = null;
+			for (final Entry<ByteArrayId, EncodedValue<T>> entry : encodedValueMap.entrySet()) {
+				super.addOrUpdateValue(new PersistentValue<T>(
+						entry.getKey(),
+						entry.getValue().reader.readField(entry.getValue().value)));
+			}
+		}
+		return super.getValues();
+	}
+
+	private boolean isEncoded(
+			final ByteArrayId fieldId ) {
+		if (fieldOrdinals != null) {
+			final int ordinal = fieldOrdinals.getOrdinal(fieldId);
+			if (ordinal >= 0) {
+				return readers[ordinal] != null;
+			}
+		}
+		return (fieldIdToEncodedValueMap != null) && fieldIdToEncodedValueMap.containsKey(fieldId);
+	}
+
+	private void removeEncodedValue(
+			final ByteArrayId fieldId ) {
+		if (fieldOrdinals != null) {
+			final int ordinal = fieldOrdinals.getOrdinal(fieldId);
+			if (ordinal >= 0) {
+				readers[ordinal] = null;
+				encodedValues[ordinal] = null;
+				return;
+			}
+		}
+		if (fieldIdToEncodedValueMap != null) {
+			fieldIdToEncodedValueMap.remove(fieldId);
+		}
+	}
+
+	private static class EncodedValue<T>
+	{
+		private final byte[] value;
+		private final FieldReader<? extends T> reader;
+
+		private EncodedValue(
+				final byte[] value,
+				final FieldReader<? extends T> reader ) {
+			this.value = value;
+			this.reader = reader;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.store.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,56 +13,104 @@ import mil.nga.giat.geowave.index.ByteArrayId;
  * This is a basic mapping of field ID to native field type. "Native" in this
  * sense can be to either the data adapter or the common index, depending on
  * whether it is in the common index or is an extended field.
- * 
+ *
+ * If it is constructed with the field ordinals of a data adapter or index
+ * model, the values of the known fields are stored in an array indexed by
+ * ordinal rather than a map, and the field ID based methods are a view of that
+ * array.
+ *
  * @param <T>
  *            The most specific generalization for the type for all of the
  *            values in this dataset.
  */
 public class PersistentDataset<T>
 {
-	private final Map<ByteArrayId, T> fieldIdToValueMap;
+	// marks a field that was added with a null value, as null marks a field
+	// that was not added
+	private static final Object NULL_VALUE = new Object();
+	private final FieldOrdinals fieldOrdinals;
+	private final Object[] values;
+	// with field ordinals this is only used for fields that have no ordinal
+	private Map<ByteArrayId, T> fieldIdToValueMap;
+	// the values as returned by getValues(), until the values change
+	private List<PersistentValue<T>> valueList;
 
 	public PersistentDataset() {
 		// to maintain order use a linked hashmap
-		fieldIdToValueMap = new LinkedHashMap<ByteArrayId, T>();
+		this(
+				new LinkedHashMap<ByteArrayId, T>());
 	}
 
+	/**
+	 * @param fieldIdToValueMap
+	 *            the map that holds the values of this dataset, which should
+	 *            only be changed through this dataset
+	 */
 	public PersistentDataset(
 			final Map<ByteArrayId, T> fieldIdToValueMap ) {
 		this.fieldIdToValueMap = fieldIdToValueMap;
+		fieldOrdinals = null;
+		values = null;
+	}
+
+	public PersistentDataset(
+			final FieldOrdinals fieldOrdinals ) {
+		this.fieldOrdinals = fieldOrdinals;
+		values = new Object[fieldOrdinals.size()];
 	}
 
 	/**
 	 * Add the field ID/value pair to this data set.
 	 * Do not overwrite.
-	 * 
+	 *
 	 * @param value
 	 *            the field ID/value pair to add
 	 */
 	public void addValue(
 			final PersistentValue<T> value ) {
-		if (fieldIdToValueMap.containsKey(value.getId())) return;
-		fieldIdToValueMap.put(
+		if (fieldOrdinals != null) {
+			final int ordinal = fieldOrdinals.getOrdinal(value.getId());
+			if (ordinal >= 0) {
+				if (values[ordinal] == null) {
+					values[ordinal] = toStoredValue(value.getValue());
+					valueList = null;
+				}
+				return;
+			}
+		}
+		final Map<ByteArrayId, T> map = getFieldIdToValueMap();
+		if (map.containsKey(value.getId())) return;
+		map.put(
 				value.getId(),
 				value.getValue());
+		valueList = null;
 	}
-	
+
 	/**
 	 * Add or update the field ID/value pair to this data set
-	 * 
+	 *
 	 * @param value
 	 *            the field ID/value pair to add
 	 */
 	public void addOrUpdateValue(
 			final PersistentValue<T> value ) {
-		fieldIdToValueMap.put(
+		if (fieldOrdinals != null) {
+			final int ordinal = fieldOrdinals.getOrdinal(value.getId());
+			if (ordinal >= 0) {
+				values[ordinal] = toStoredValue(value.getValue());
+				valueList = null;
+				return;
+			}
+		}
+		getFieldIdToValueMap().put(
 				value.getId(),
 				value.getValue());
+		valueList = null;
 	}
 
 	/**
 	 * Given a field ID, get the associated value
-	 * 
+	 *
 	 * @param fieldId
 	 *            the field ID
 	 * @return the stored field value, null if this does not contain a value for
@@ -69,23 +118,93 @@ public class PersistentDataset<T>
 	 */
 	public T getValue(
 			final ByteArrayId fieldId ) {
+		if (fieldOrdinals != null) {
+			final int ordinal = fieldOrdinals.getOrdinal(fieldId);
+			if (ordinal >= 0) {
+				return getValue(ordinal);
+			}
+			if (fieldIdToValueMap == null) {
+				return null;
+			}
+		}
 		return fieldIdToValueMap.get(fieldId);
 	}
-	
 
 	/**
-	 * Get all of the values from this persistent data set
-	 * 
+	 * Given a field ordinal, get the associated value. This is only valid for
+	 * a dataset constructed with field ordinals.
+	 *
+	 * @param ordinal
+	 *            the ordinal of the field within the field ordinals of this
+	 *            dataset
+	 * @return the stored field value, null if this does not contain a value for
+	 *         the ordinal
+	 */
+	@SuppressWarnings("unchecked")
+	public T getValue(
+			final int ordinal ) {
+		final Object value = values[ordinal];
+		return value == NULL_VALUE ? null : (T) value;
+	}
+
+	/**
+	 * Given a field ordinal, check whether this contains a value for it. This
+	 * is only valid for a dataset constructed with field ordinals.
+	 *
+	 * @param ordinal
+	 *            the ordinal of the field within the field ordinals of this
+	 *            dataset
+	 * @return true if a value, which may be null, was added for the ordinal
+	 */
+	protected boolean containsValue(
+			final int ordinal ) {
+		return values[ordinal] != null;
+	}
+
+	/**
+	 * Get all of the values from this persistent data set. The list is kept
+	 * until the values change, so it can not be modified.
+	 *
 	 * @return all of the value
 	 */
 	public List<PersistentValue<T>> getValues() {
-		final List<PersistentValue<T>> values = new ArrayList<PersistentValue<T>>(
-				fieldIdToValueMap.size());
-		for (final Entry<ByteArrayId, T> entry : fieldIdToValueMap.entrySet()) {
-			values.add(new PersistentValue<T>(
-					entry.getKey(),
-					entry.getValue()));
+		if (valueList == null) {
+			valueList = Collections.unmodifiableList(createValueList());
+		}
+		return valueList;
+	}
+
+	private List<PersistentValue<T>> createValueList() {
+		final List<PersistentValue<T>> valueList = new ArrayList<PersistentValue<T>>(
+				(fieldOrdinals != null ? values.length : 0) + (fieldIdToValueMap != null ? fieldIdToValueMap.size() : 0));
+		if (fieldOrdinals != null) {
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null) {
+					valueList.add(new PersistentValue<T>(
+							fieldOrdinals.getFieldId(i),
+							getValue(i)));
+				}
+			}
+		}
+		if (fieldIdToValueMap != null) {
+			for (final Entry<ByteArrayId, T> entry : fieldIdToValueMap.entrySet()) {
+				valueList.add(new PersistentValue<T>(
+						entry.getKey(),
+						entry.getValue()));
+			}
+		}
+		return valueList;
+	}
+
+	private static Object toStoredValue(
+			final Object value ) {
+		return value == null ? NULL_VALUE : value;
+	}
+
+	private Map<ByteArrayId, T> getFieldIdToValueMap() {
+		if (fieldIdToValueMap == null) {
+			fieldIdToValueMap = new LinkedHashMap<ByteArrayId, T>();
 		}
-		return values;
+		return fieldIdToValueMap;
 	}
 }
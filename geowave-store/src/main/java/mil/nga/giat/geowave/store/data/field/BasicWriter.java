@@ -271,13 +271,33 @@ public class BasicWriter<RowType, FieldType> implements
 	public static class GeometryWriter implements
 			FieldWriter<Object, Geometry>
 	{
+		private final Integer compactPrecision;
+
+		public GeometryWriter() {
+			this(
+					null);
+		}
+
+		/**
+		 * @param compactPrecision
+		 *            the number of decimal digits to retain for each ordinate
+		 *            using the compact geometry encoding, or null to use well
+		 *            known binary
+		 */
+		public GeometryWriter(
+				final Integer compactPrecision ) {
+			this.compactPrecision = compactPrecision;
+		}
+
 		@Override
 		public byte[] writeField(
 				final Geometry fieldValue ) {
 			if (fieldValue == null) {
 				return new byte[] {};
 			}
-			return GeometryUtils.geometryToBinary(fieldValue);
+			return GeometryUtils.geometryToBinary(
+					fieldValue,
+					compactPrecision);
 		}
 
 		@Override
@@ -17,7 +17,7 @@ public class GeometryAdapter implements
 		FieldReader<GeometryWrapper>,
 		FieldWriter<Object, GeometryWrapper>
 {
-	protected final static ByteArrayId DEFAULT_GEOMETRY_FIELD_ID = new ByteArrayId(
+	public final static ByteArrayId DEFAULT_GEOMETRY_FIELD_ID = new ByteArrayId(
 			ByteArrayUtils.combineArrays(
 					StringUtils.stringToBinary("geom"),
 					new byte[] {
@@ -30,7 +30,9 @@ public class GeometryAdapter implements
 	@Override
 	public byte[] writeField(
 			final GeometryWrapper geometry ) {
-		return GeometryUtils.geometryToBinary(geometry.getGeometry());
+		return GeometryUtils.geometryToBinary(
+				geometry.getGeometry(),
+				geometry.getCompactPrecision());
 	}
 
 	@Override
@@ -17,6 +17,9 @@ public class GeometryWrapper implements
 {
 	private byte[] visibility;
 	private final com.vividsolutions.jts.geom.Geometry geometry;
+	// the precision of the compact encoding when this is persisted, if null
+	// it will be persisted as well known binary
+	private Integer compactPrecision;
 
 	public GeometryWrapper(
 			final com.vividsolutions.jts.geom.Geometry geometry ) {
@@ -45,6 +48,23 @@ public class GeometryWrapper implements
 		return geometry;
 	}
 
+	public Integer getCompactPrecision() {
+		return compactPrecision;
+	}
+
+	/**
+	 * Set the number of decimal digits to retain for each ordinate when this
+	 * geometry is persisted using the compact geometry encoding, this is
+	 * intended to be set by a data adapter
+	 * 
+	 * @param compactPrecision
+	 *            the precision, or null to persist as well known binary
+	 */
+	public void setCompactPrecision(
+			final Integer compactPrecision ) {
+		this.compactPrecision = compactPrecision;
+	}
+
 	/**
 	 * Expects Longitude before Latitude
 	 */
@@ -2,34 +2,53 @@ package mil.nga.giat.geowave.store.filter;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
-import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.dimension.bin.BinRange;
 import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
-import mil.nga.giat.geowave.index.sfc.data.BinnedNumericDataset;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericRange;
 import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.PersistentDataset;
 import mil.nga.giat.geowave.store.dimension.DimensionField;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
 
 /**
  * This filter can perform fine-grained acceptance testing on generic
  * dimensions, but is limited to only using MBR (min-max in a single dimension,
  * hyper-cubes in multi-dimensional space)
  * 
+ * Because the constraints are a single hyper-cube, the normalized and binned
+ * constraints are the combinations of the normalized ranges of each dimension,
+ * so they are kept as primitive min and max arrays per dimension and a row is
+ * accepted if in every dimension it overlaps a constraint within the same bin.
+ * Within the bounds of an unbinned dimension the normalized range is the range
+ * itself, and the bins of a binned dimension are contiguous ranges of values,
+ * so in both cases the value of a row is tested directly against precomputed
+ * bounds without normalizing or binning it.
  */
 public class BasicQueryFilter implements
 		DistributableQueryFilter
 {
-	protected Map<ByteArrayId, List<MultiDimensionalNumericData>> binnedConstraints;
 	protected DimensionField<?>[] dimensionFields;
 	// this is referenced for serialization purposes only
 	protected MultiDimensionalNumericData constraints;
 
+	// the normalized constraint ranges and their bin IDs, per dimension
+	private double[][] constraintMinsPerDimension;
+	private double[][] constraintMaxesPerDimension;
+	private byte[][][] constraintBinIdsPerDimension;
+	// the constraint ranges of binned dimensions in the original values, null
+	// for unbinned dimensions
+	private double[][] denormalizedMinsPerDimension;
+	private double[][] denormalizedMaxesPerDimension;
+	// the bounds of dimensions without bins, NaN for binned dimensions
+	private double[] unbinnedMinPerDimension;
+	private double[] unbinnedMaxPerDimension;
+
 	protected BasicQueryFilter() {}
 
 	public BasicQueryFilter(
@@ -44,63 +63,113 @@ public class BasicQueryFilter implements
 			final MultiDimensionalNumericData constraints,
 			final DimensionField<?>[] dimensionFields ) {
 		this.dimensionFields = dimensionFields;
-
-		binnedConstraints = new HashMap<ByteArrayId, List<MultiDimensionalNumericData>>();
 		this.constraints = constraints;
-		final BinnedNumericDataset[] queries = BinnedNumericDataset.applyBins(
-				constraints,
-				dimensionFields);
-		for (final BinnedNumericDataset q : queries) {
-			final ByteArrayId binId = new ByteArrayId(
-					q.getBinId());
-			List<MultiDimensionalNumericData> ranges = binnedConstraints.get(binId);
-			if (ranges == null) {
-				ranges = new ArrayList<MultiDimensionalNumericData>();
-				binnedConstraints.put(
-						binId,
-						ranges);
+
+		final NumericData[] constraintsPerDimension = constraints.getDataPerDimension();
+		constraintMinsPerDimension = new double[dimensionFields.length][];
+		constraintMaxesPerDimension = new double[dimensionFields.length][];
+		constraintBinIdsPerDimension = new byte[dimensionFields.length][][];
+		denormalizedMinsPerDimension = new double[dimensionFields.length][];
+		denormalizedMaxesPerDimension = new double[dimensionFields.length][];
+		unbinnedMinPerDimension = new double[dimensionFields.length];
+		unbinnedMaxPerDimension = new double[dimensionFields.length];
+		for (int d = 0; d < dimensionFields.length; d++) {
+			final BinRange[] ranges = dimensionFields[d].getNormalizedRanges(constraintsPerDimension[d]);
+			constraintMinsPerDimension[d] = new double[ranges.length];
+			constraintMaxesPerDimension[d] = new double[ranges.length];
+			constraintBinIdsPerDimension[d] = new byte[ranges.length][];
+			for (int r = 0; r < ranges.length; r++) {
+				constraintMinsPerDimension[d][r] = ranges[r].getNormalizedMin();
+				constraintMaxesPerDimension[d][r] = ranges[r].getNormalizedMax();
+				constraintBinIdsPerDimension[d][r] = ranges[r].getBinId();
+			}
+			if (dimensionFields[d].getFixedBinIdSize() == 0) {
+				final NumericRange bounds = dimensionFields[d].getBounds();
+				unbinnedMinPerDimension[d] = bounds.getMin();
+				unbinnedMaxPerDimension[d] = bounds.getMax();
+			}
+			else {
+				unbinnedMinPerDimension[d] = Double.NaN;
+				unbinnedMaxPerDimension[d] = Double.NaN;
+				// each constraint range is confined to its bin, so a value
+				// overlaps it within the same bin if it overlaps it once
+				// denormalized
+				denormalizedMinsPerDimension[d] = new double[ranges.length];
+				denormalizedMaxesPerDimension[d] = new double[ranges.length];
+				for (int r = 0; r < ranges.length; r++) {
+					final NumericRange range = dimensionFields[d].getDenormalizedRange(ranges[r]);
+					denormalizedMinsPerDimension[d][r] = range.getMin();
+					denormalizedMaxesPerDimension[d][r] = range.getMax();
+				}
 			}
-			ranges.add(q);
 		}
 	}
 
-	protected boolean overlaps(
-			final MultiDimensionalNumericData queryRange,
-			final MultiDimensionalNumericData dataRange ) {
-		final NumericData[] queryRangePerDimension = queryRange.getDataPerDimension();
-		final double[] minPerDimension = dataRange.getMinValuesPerDimension();
-		final double[] maxPerDimension = dataRange.getMaxValuesPerDimension();
+	@Override
+	public boolean accept(
+			final IndexedPersistenceEncoding persistenceEncoding ) {
+		final PersistentDataset<? extends CommonIndexValue> commonData = persistenceEncoding.getCommonData();
 		for (int d = 0; d < dimensionFields.length; d++) {
-			if ((maxPerDimension[d] < queryRangePerDimension[d].getMin()) || (minPerDimension[d] > queryRangePerDimension[d].getMax())) {
+			if (!overlaps(
+					d,
+					getNumericData(
+							dimensionFields[d],
+							commonData.getValue(dimensionFields[d].getFieldId())))) {
 				return false;
 			}
 		}
 		return true;
 	}
 
-	@Override
-	public boolean accept(
-			final IndexedPersistenceEncoding persistenceEncoding ) {
-		final BinnedNumericDataset[] dataRanges = BinnedNumericDataset.applyBins(
-				persistenceEncoding.getNumericData(dimensionFields),
-				dimensionFields);
-		// check that at least one data range overlaps at least one query range
-		for (final BinnedNumericDataset dataRange : dataRanges) {
-			final List<MultiDimensionalNumericData> queries = binnedConstraints.get(new ByteArrayId(
-					dataRange.getBinId()));
-			if (queries != null) {
-				for (final MultiDimensionalNumericData query : queries) {
-					if ((query != null) && overlaps(
-							query,
-							dataRange)) {
-						return true;
-					}
+	private boolean overlaps(
+			final int dimension,
+			final NumericData data ) {
+		final double[] constraintMins = constraintMinsPerDimension[dimension];
+		final double[] constraintMaxes = constraintMaxesPerDimension[dimension];
+		final double min = data.getMin();
+		final double max = data.getMax();
+		final double[] denormalizedMins = denormalizedMinsPerDimension[dimension];
+		if (denormalizedMins != null) {
+			final double[] denormalizedMaxes = denormalizedMaxesPerDimension[dimension];
+			for (int r = 0; r < denormalizedMins.length; r++) {
+				if ((max >= denormalizedMins[r]) && (min <= denormalizedMaxes[r])) {
+					return true;
+				}
+			}
+			return false;
+		}
+		// NaN bounds fail these comparisons
+		if ((min >= unbinnedMinPerDimension[dimension]) && (max <= unbinnedMaxPerDimension[dimension])) {
+			for (int r = 0; r < constraintMins.length; r++) {
+				if ((max >= constraintMins[r]) && (min <= constraintMaxes[r])) {
+					return true;
+				}
+			}
+			return false;
+		}
+		final byte[][] constraintBinIds = constraintBinIdsPerDimension[dimension];
+		for (final BinRange dataRange : dimensionFields[dimension].getNormalizedRanges(data)) {
+			for (int r = 0; r < constraintMins.length; r++) {
+				if ((dataRange.getNormalizedMax() >= constraintMins[r]) && (dataRange.getNormalizedMin() <= constraintMaxes[r]) && Arrays.equals(
+						dataRange.getBinId(),
+						constraintBinIds[r])) {
+					return true;
 				}
 			}
 		}
 		return false;
 	}
 
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	private static NumericData getNumericData(
+			final DimensionField field,
+			final CommonIndexValue value ) {
+		return field.getNumericData(value);
+	}
+
 	@Override
 	public byte[] toBinary() {
 		int byteBufferLength = 4;
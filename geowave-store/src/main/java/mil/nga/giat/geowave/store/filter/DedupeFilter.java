@@ -1,9 +1,7 @@
 package mil.nga.giat.geowave.store.filter;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
@@ -13,14 +11,44 @@ import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
  * ID and data ID to determine uniqueness. It can be performed client-side
  * and/or distributed.
  *
+ * Within a single index only duplicated entries are tracked, and because each
+ * row knows how many duplicates its entry has, an entry is no longer tracked
+ * once every one of its rows has been seen. This keeps memory proportional to
+ * the entries whose duplicates have not all been scanned yet rather than to
+ * the size of the result set.
+ *
+ * In hashed mode the IDs are tracked as 64-bit hashes in a primitive hash
+ * table, which uses a small fraction of the memory. A hash collision between
+ * two different entries would cause one of them to be incorrectly filtered,
+ * so this mode is intended for very large result sets where that small
+ * probability is acceptable.
  */
 public class DedupeFilter implements
 		DistributableQueryFilter
 {
-	private final Map<ByteArrayId, Set<ByteArrayId>> adapterIdToVisitedDataIdMap;
+	public static enum DedupeMode {
+		EXACT,
+		HASHED
+	}
+
+	// the remaining copies of an entry that is tracked for as long as the
+	// filter is used
+	private static final int TRACK_INDEFINITELY = -1;
+
+	private final Map<ByteArrayId, Map<ByteArrayId, Integer>> adapterIdToVisitedDataIdMap;
+	private final LongIntHashMap visitedHashes;
+	private DedupeMode mode;
 
 	public DedupeFilter() {
-		adapterIdToVisitedDataIdMap = new HashMap<ByteArrayId, Set<ByteArrayId>>();
+		this(
+				DedupeMode.EXACT);
+	}
+
+	public DedupeFilter(
+			final DedupeMode mode ) {
+		this.mode = mode;
+		adapterIdToVisitedDataIdMap = new HashMap<ByteArrayId, Map<ByteArrayId, Integer>>();
+		visitedHashes = new LongIntHashMap();
 	}
 
 	@Override
@@ -31,33 +59,243 @@ public class DedupeFilter implements
 			// and this is only intended to support a single index
 			return true;
 		}
-		final ByteArrayId adapterId = persistenceEncoding.getAdapterId();
-		final ByteArrayId dataId = persistenceEncoding.getDataId();
-		Set<ByteArrayId> visitedDataIds = adapterIdToVisitedDataIdMap.get(adapterId);
+		// across multiple indices the number of copies of an entry is not
+		// known, otherwise there are the duplicates of this row left to see
+		final int remainingCopies = supportsMultipleIndices() ? TRACK_INDEFINITELY : persistenceEncoding.getDuplicateCount();
+		if (mode == DedupeMode.HASHED) {
+			return visitHash(
+					hash(
+							persistenceEncoding.getAdapterId(),
+							persistenceEncoding.getDataId()),
+					remainingCopies);
+		}
+		return visitId(
+				persistenceEncoding.getAdapterId(),
+				persistenceEncoding.getDataId(),
+				remainingCopies);
+	}
+
+	private boolean visitId(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId,
+			final int remainingCopies ) {
+		Map<ByteArrayId, Integer> visitedDataIds = adapterIdToVisitedDataIdMap.get(adapterId);
 		if (visitedDataIds == null) {
-			visitedDataIds = new HashSet<ByteArrayId>();
+			visitedDataIds = new HashMap<ByteArrayId, Integer>();
 			adapterIdToVisitedDataIdMap.put(
 					adapterId,
 					visitedDataIds);
 		}
-		else if (visitedDataIds.contains(dataId)) {
-			return false;
+		final Integer visitedRemainingCopies = visitedDataIds.get(dataId);
+		if (visitedRemainingCopies == null) {
+			visitedDataIds.put(
+					dataId,
+					remainingCopies);
+			return true;
+		}
+		if (visitedRemainingCopies != TRACK_INDEFINITELY) {
+			if (visitedRemainingCopies <= 1) {
+				// this is the last copy, no more can follow
+				visitedDataIds.remove(dataId);
+			}
+			else {
+				visitedDataIds.put(
+						dataId,
+						visitedRemainingCopies - 1);
+			}
 		}
-		visitedDataIds.add(dataId);
-		return true;
+		return false;
+	}
+
+	private boolean visitHash(
+			final long hash,
+			final int remainingCopies ) {
+		final int visitedRemainingCopies = visitedHashes.get(hash);
+		if (visitedRemainingCopies == LongIntHashMap.NO_VALUE) {
+			visitedHashes.put(
+					hash,
+					remainingCopies);
+			return true;
+		}
+		if (visitedRemainingCopies != TRACK_INDEFINITELY) {
+			if (visitedRemainingCopies <= 1) {
+				visitedHashes.remove(hash);
+			}
+			else {
+				visitedHashes.put(
+						hash,
+						visitedRemainingCopies - 1);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of entries that are currently tracked
+	 */
+	public int getTrackedEntryCount() {
+		int count = visitedHashes.size();
+		for (final Map<ByteArrayId, Integer> visitedDataIds : adapterIdToVisitedDataIdMap.values()) {
+			count += visitedDataIds.size();
+		}
+		return count;
 	}
 
 	protected boolean supportsMultipleIndices() {
 		return false;
 	}
 
+	public DedupeMode getMode() {
+		return mode;
+	}
+
+	private static long hash(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId ) {
+		// 64-bit FNV-1a over the length-prefixed IDs followed by a final mix
+		long hash = 0xcbf29ce484222325L;
+		hash = hash(
+				hash,
+				adapterId);
+		hash = hash(
+				hash,
+				dataId);
+		hash ^= (hash >>> 33);
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= (hash >>> 33);
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= (hash >>> 33);
+		return hash;
+	}
+
+	private static long hash(
+			long hash,
+			final ByteArrayId id ) {
+		// the adapter ID is typically a slice of the row's column family, so
+		// read it in place rather than copying it with getBytes()
+		final int length = id.getLength();
+		hash = (hash ^ length) * 0x100000001b3L;
+		for (int i = 0; i < length; i++) {
+			hash = (hash ^ (id.getByte(i) & 0xFF)) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
 	@Override
 	public byte[] toBinary() {
-		return new byte[] {};
+		return new byte[] {
+			(byte) mode.ordinal()
+		};
 	}
 
 	@Override
 	public void fromBinary(
-			final byte[] bytes ) {}
+			final byte[] bytes ) {
+		// filters persisted before the mode was added are empty
+		mode = (bytes.length > 0) ? DedupeMode.values()[bytes[0]] : DedupeMode.EXACT;
+	}
+
+	/**
+	 * An open addressing hash table of primitive long keys to int values using
+	 * linear probing
+	 */
+	private static class LongIntHashMap
+	{
+		private static final int NO_VALUE = Integer.MIN_VALUE;
+		// a key of 0 marks an empty slot so it is stored as 1 instead, which
+		// only adds a negligible chance of a collision
+		private static final long EMPTY_KEY = 0;
+		private long[] keys = new long[16];
+		private int[] values = new int[16];
+		private int size = 0;
+
+		private int get(
+				final long key ) {
+			final long storedKey = toStoredKey(key);
+			int slot = slot(storedKey);
+			while (keys[slot] != EMPTY_KEY) {
+				if (keys[slot] == storedKey) {
+					return values[slot];
+				}
+				slot = (slot + 1) & (keys.length - 1);
+			}
+			return NO_VALUE;
+		}
+
+		private void put(
+				final long key,
+				final int value ) {
+			final long storedKey = toStoredKey(key);
+			int slot = slot(storedKey);
+			while (keys[slot] != EMPTY_KEY) {
+				if (keys[slot] == storedKey) {
+					values[slot] = value;
+					return;
+				}
+				slot = (slot + 1) & (keys.length - 1);
+			}
+			keys[slot] = storedKey;
+			values[slot] = value;
+			if (++size > (keys.length / 2)) {
+				resize();
+			}
+		}
+
+		private void remove(
+				final long key ) {
+			final long storedKey = toStoredKey(key);
+			int slot = slot(storedKey);
+			while (keys[slot] != storedKey) {
+				if (keys[slot] == EMPTY_KEY) {
+					return;
+				}
+				slot = (slot + 1) & (keys.length - 1);
+			}
+			keys[slot] = EMPTY_KEY;
+			size--;
+			// shift back any following keys that would no longer be found
+			int next = (slot + 1) & (keys.length - 1);
+			while (keys[next] != EMPTY_KEY) {
+				final int ideal = slot(keys[next]);
+				if (((next - ideal) & (keys.length - 1)) >= ((next - slot) & (keys.length - 1))) {
+					keys[slot] = keys[next];
+					values[slot] = values[next];
+					keys[next] = EMPTY_KEY;
+					slot = next;
+				}
+				next = (next + 1) & (keys.length - 1);
+			}
+		}
 
+		private int size() {
+			return size;
+		}
+
+		private void resize() {
+			final long[] oldKeys = keys;
+			final int[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new int[oldValues.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY_KEY) {
+					int slot = slot(oldKeys[i]);
+					while (keys[slot] != EMPTY_KEY) {
+						slot = (slot + 1) & (keys.length - 1);
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+
+		private int slot(
+				final long storedKey ) {
+			return (int) (storedKey ^ (storedKey >>> 32)) & (keys.length - 1);
+		}
+
+		private static long toStoredKey(
+				final long key ) {
+			return (key == EMPTY_KEY) ? 1 : key;
+		}
+	}
 }
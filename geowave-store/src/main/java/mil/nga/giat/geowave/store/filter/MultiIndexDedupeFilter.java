@@ -1,12 +1,15 @@
 package mil.nga.giat.geowave.store.filter;
 
+import java.util.Arrays;
+
 /**
  * This filter will perform de-duplication using the combination of data adapter
  * ID and data ID to determine uniqueness. This should only be used client-side
  * because multiple indices would use a server-side scan per index anyways but
  * can be used distributed if necessary. This will cache every ID that streams
  * in regardless of whether its duplicated within a given index, so that it will
- * support deduplication across multiple indices.
+ * support deduplication across multiple indices. For very large result sets
+ * the hashed mode can be used to reduce the memory needed to cache the IDs.
  *
  */
 public class MultiIndexDedupeFilter extends
@@ -18,6 +21,12 @@ public class MultiIndexDedupeFilter extends
 		super();
 	}
 
+	public MultiIndexDedupeFilter(
+			final DedupeMode mode ) {
+		super(
+				mode);
+	}
+
 	@Override
 	protected boolean supportsMultipleIndices() {
 		return multiIndexSupport;
@@ -30,9 +39,16 @@ public class MultiIndexDedupeFilter extends
 
 	@Override
 	public byte[] toBinary() {
-		return new byte[] {
-			(byte) (multiIndexSupport ? 0 : 1)
-		};
+		final byte[] modeBinary = super.toBinary();
+		final byte[] bytes = new byte[modeBinary.length + 1];
+		bytes[0] = (byte) (multiIndexSupport ? 0 : 1);
+		System.arraycopy(
+				modeBinary,
+				0,
+				bytes,
+				1,
+				modeBinary.length);
+		return bytes;
 	}
 
 	@Override
@@ -40,6 +56,10 @@ public class MultiIndexDedupeFilter extends
 			final byte[] bytes ) {
 		if (bytes.length > 0) {
 			multiIndexSupport = (bytes[0] == 0);
+			super.fromBinary(Arrays.copyOfRange(
+					bytes,
+					1,
+					bytes.length));
 		}
 	}
 
@@ -15,17 +15,26 @@ import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
 import mil.nga.giat.geowave.store.dimension.DimensionField;
 import mil.nga.giat.geowave.store.dimension.GeometryWrapper;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 
 /**
  * This filter can perform fine-grained acceptance testing (intersection test
- * with a query geometry) with JTS geometry
+ * with a query geometry) with JTS geometry. The query geometry is prepared
+ * once so that complex query polygons are indexed for repeated intersection
+ * tests, and the envelope of each data geometry is checked before the exact
+ * test.
  * 
  */
 public class SpatialQueryFilter extends
 		BasicQueryFilter
 {
 	private Geometry queryGeometry;
+	private PreparedGeometry preparedQueryGeometry;
+	private Envelope queryEnvelope;
+	private boolean queryIsRectangle;
 
 	private Set<ByteArrayId> geometryFieldIds;
 
@@ -51,10 +60,25 @@ public class SpatialQueryFilter extends
 		super(
 				strippedGeometry.strippedQuery,
 				strippedGeometry.strippedDimensionDefinitions);
-		this.queryGeometry = queryGeometry;
+		setQueryGeometry(queryGeometry);
 		geometryFieldIds = strippedGeometry.geometryFieldIds;
 	}
 
+	private void setQueryGeometry(
+			final Geometry queryGeometry ) {
+		this.queryGeometry = queryGeometry;
+		if (queryGeometry == null) {
+			preparedQueryGeometry = null;
+			queryEnvelope = null;
+			queryIsRectangle = false;
+		}
+		else {
+			preparedQueryGeometry = PreparedGeometryFactory.prepare(queryGeometry);
+			queryEnvelope = queryGeometry.getEnvelopeInternal();
+			queryIsRectangle = queryGeometry.isRectangle();
+		}
+	}
+
 	private static class StrippedGeometry
 	{
 		private final MultiDimensionalNumericData strippedQuery;
@@ -141,7 +165,16 @@ public class SpatialQueryFilter extends
 		if (dataGeometry == null) {
 			return false;
 		}
-		return dataGeometry.intersects(queryGeometry);
+		final Envelope dataEnvelope = dataGeometry.getEnvelopeInternal();
+		if (!queryEnvelope.intersects(dataEnvelope)) {
+			return false;
+		}
+		if (queryIsRectangle && queryEnvelope.contains(dataEnvelope)) {
+			// the data is entirely within a rectangular query so the exact
+			// test is unnecessary
+			return true;
+		}
+		return preparedQueryGeometry.intersects(dataGeometry);
 	}
 
 	protected boolean isSpatialOnly() {
@@ -188,7 +221,7 @@ public class SpatialQueryFilter extends
 					fieldId));
 		}
 		buf.get(theRest);
-		queryGeometry = GeometryUtils.geometryFromBinary(geometryBinary);
+		setQueryGeometry(GeometryUtils.geometryFromBinary(geometryBinary));
 
 		super.fromBinary(theRest);
 	}
@@ -10,6 +10,7 @@ import java.util.Map;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.store.data.FieldOrdinals;
 import mil.nga.giat.geowave.store.data.field.FieldReader;
 import mil.nga.giat.geowave.store.data.field.FieldWriter;
 import mil.nga.giat.geowave.store.dimension.DimensionField;
@@ -29,6 +30,7 @@ public class BasicIndexModel implements
 	// the first dimension of a particular field ID will be the persistence
 	// model used
 	private Map<ByteArrayId, DimensionField<?>> fieldIdToPeristenceMap;
+	private FieldOrdinals fieldOrdinals;
 
 	protected BasicIndexModel() {}
 
@@ -41,13 +43,18 @@ public class BasicIndexModel implements
 			final DimensionField<?>[] dimensions ) {
 		this.dimensions = dimensions;
 		fieldIdToPeristenceMap = new HashMap<ByteArrayId, DimensionField<?>>();
+		final List<ByteArrayId> fieldIds = new ArrayList<ByteArrayId>(
+				dimensions.length);
 		for (final DimensionField<?> d : dimensions) {
 			if (!fieldIdToPeristenceMap.containsKey(d.getFieldId())) {
 				fieldIdToPeristenceMap.put(
 						d.getFieldId(),
 						d);
 			}
+			fieldIds.add(d.getFieldId());
 		}
+		fieldOrdinals = new FieldOrdinals(
+				fieldIds);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -77,6 +84,11 @@ public class BasicIndexModel implements
 		return dimensions;
 	}
 
+	@Override
+	public FieldOrdinals getFieldOrdinals() {
+		return fieldOrdinals;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -3,6 +3,7 @@ package mil.nga.giat.geowave.store.index;
 import mil.nga.giat.geowave.index.Persistable;
 import mil.nga.giat.geowave.store.data.DataReader;
 import mil.nga.giat.geowave.store.data.DataWriter;
+import mil.nga.giat.geowave.store.data.FieldOrdinals;
 import mil.nga.giat.geowave.store.dimension.DimensionField;
 
 /**
@@ -18,4 +19,12 @@ public interface CommonIndexModel extends
 	public DimensionField<? extends CommonIndexValue>[] getDimensions();
 
 	public String getId();
+
+	/**
+	 * Get the ordinals of the field IDs of the dimensions, which can be used
+	 * to store the common index values of a row in an array
+	 * 
+	 * @return the field ordinals
+	 */
+	public FieldOrdinals getFieldOrdinals();
 }
@@ -0,0 +1,31 @@
+package mil.nga.giat.geowave.store.index;
+
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+
+/**
+ * This reader wraps the reader of a common index field and assigns the
+ * visibility that the field was persisted with to the value that is read.
+ */
+public class CommonIndexValueReader implements
+		FieldReader<CommonIndexValue>
+{
+	private final FieldReader<? extends CommonIndexValue> reader;
+	private final byte[] visibility;
+
+	public CommonIndexValueReader(
+			final FieldReader<? extends CommonIndexValue> reader,
+			final byte[] visibility ) {
+		this.reader = reader;
+		this.visibility = visibility;
+	}
+
+	@Override
+	public CommonIndexValue readField(
+			final byte[] fieldData ) {
+		final CommonIndexValue value = reader.readField(fieldData);
+		if (value != null) {
+			value.setVisibility(visibility);
+		}
+		return value;
+	}
+}
@@ -3,6 +3,8 @@ package mil.nga.giat.geowave.store.index;
 import mil.nga.giat.geowave.index.NumericIndexStrategyFactory;
 import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialFactory;
 import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialTemporalFactory;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.XZSpatialFactory;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.XZSpatialTemporalFactory;
 import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
 import mil.nga.giat.geowave.store.dimension.DimensionField;
 import mil.nga.giat.geowave.store.dimension.LatitudeField;
@@ -16,7 +18,8 @@ public enum DimensionalityType {
 						new LongitudeField(),
 						new LatitudeField()
 					}),
-			new SpatialFactory()),
+			new SpatialFactory(),
+			new XZSpatialFactory()),
 	SPATIAL_TEMPORAL(
 			new BasicIndexModel(
 					new DimensionField[] {
@@ -25,18 +28,23 @@ public enum DimensionalityType {
 						new TimeField(
 								Unit.YEAR)
 					}),
-			new SpatialTemporalFactory()),
+			new SpatialTemporalFactory(),
+			new XZSpatialTemporalFactory()),
 	OTHER(
+			null,
 			null,
 			null);
 	private final CommonIndexModel defaultIndexModel;
 	private final NumericIndexStrategyFactory indexStrategyFactory;
+	private final NumericIndexStrategyFactory xzIndexStrategyFactory;
 
 	private DimensionalityType(
 			final CommonIndexModel defaultIndexModel,
-			final NumericIndexStrategyFactory indexStrategyFactory ) {
+			final NumericIndexStrategyFactory indexStrategyFactory,
+			final NumericIndexStrategyFactory xzIndexStrategyFactory ) {
 		this.defaultIndexModel = defaultIndexModel;
 		this.indexStrategyFactory = indexStrategyFactory;
+		this.xzIndexStrategyFactory = xzIndexStrategyFactory;
 	}
 
 	public CommonIndexModel getDefaultIndexModel() {
@@ -46,4 +54,13 @@ public enum DimensionalityType {
 	public NumericIndexStrategyFactory getIndexStrategyFactory() {
 		return indexStrategyFactory;
 	}
+
+	/**
+	 * @return a factory for index strategies that use XZ-ordering, assigning
+	 *         each vector geometry a single insertion ID rather than
+	 *         decomposing it into every cell it intersects
+	 */
+	public NumericIndexStrategyFactory getXZIndexStrategyFactory() {
+		return xzIndexStrategyFactory;
+	}
 }
@@ -23,19 +23,48 @@ public enum IndexType {
 			DataType.VECTOR),
 	SPATIAL_TEMPORAL_RASTER(
 			DimensionalityType.SPATIAL_TEMPORAL,
-			DataType.RASTER);
+			DataType.RASTER),
+	/**
+	 * Vector indices using XZ-ordering, which store each geometry with an
+	 * extent (such as a line or polygon) exactly once rather than once per
+	 * intersecting cell
+	 */
+	SPATIAL_XZ_VECTOR(
+			DimensionalityType.SPATIAL,
+			DataType.VECTOR,
+			true),
+	SPATIAL_TEMPORAL_XZ_VECTOR(
+			DimensionalityType.SPATIAL_TEMPORAL,
+			DataType.VECTOR,
+			true);
 
 	private DimensionalityType dimensionalityType;
 	private DataType dataType;
+	private boolean xzOrdering;
 
 	private IndexType(
 			final DimensionalityType dimensionalityType,
 			final DataType dataType ) {
+		this(
+				dimensionalityType,
+				dataType,
+				false);
+	}
+
+	private IndexType(
+			final DimensionalityType dimensionalityType,
+			final DataType dataType,
+			final boolean xzOrdering ) {
 		this.dimensionalityType = dimensionalityType;
 		this.dataType = dataType;
+		this.xzOrdering = xzOrdering;
 	}
 
 	public NumericIndexStrategy createDefaultIndexStrategy() {
+		if (xzOrdering) {
+			return dimensionalityType.getXZIndexStrategyFactory().createIndexStrategy(
+					dataType);
+		}
 		return dimensionalityType.getIndexStrategyFactory().createIndexStrategy(
 				dataType);
 	}
@@ -45,6 +74,9 @@ public enum IndexType {
 	}
 
 	public String getDefaultId() {
+		if (xzOrdering) {
+			return dimensionalityType.name() + "_XZ_" + dataType.name() + "_INDEX";
+		}
 		return dimensionalityType.name() + "_" + dataType.name() + "_INDEX";
 	}
 
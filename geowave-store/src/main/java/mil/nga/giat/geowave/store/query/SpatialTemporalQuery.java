@@ -46,12 +46,14 @@ public class SpatialTemporalQuery extends
 			final TemporalConstraints temporalConstraints,
 			final Geometry queryGeometry ) {
 		final Constraints constraints = GeometryUtils.basicConstraintsFromGeometry(queryGeometry);
-		for (final TemporalRange range : temporalConstraints.constraints) {
+		// only a single range is supported per dimension, so constrain by the
+		// envelope of the ranges (which are ordered)
+		if (!temporalConstraints.isEmpty()) {
 			constraints.constraintsPerTypeOfDimensionDefinition.put(
 					TimeDefinition.class,
 					new NumericRange(
-							range.getStartTime().getTime(),
-							range.getEndTime().getTime()));
+							temporalConstraints.getStartRange().getStartTime().getTime(),
+							temporalConstraints.getEndRange().getEndTime().getTime()));
 		}
 
 		return constraints;
@@ -32,14 +32,14 @@ public class TemporalQuery extends
 	private static Constraints createTemporalConstraints(
 			final TemporalConstraints contraints ) {
 		final Map<Class<? extends NumericDimensionDefinition>, NumericData> constraintsPerDimension = new HashMap<Class<? extends NumericDimensionDefinition>, NumericData>();
-		// Create and return a new IndexRange array with an x and y axis
-		// range
-		for (final TemporalRange range : contraints.constraints) {
+		// only a single range is supported per dimension, so constrain by the
+		// envelope of the ranges (which are ordered)
+		if (!contraints.isEmpty()) {
 			constraintsPerDimension.put(
 					TimeDefinition.class,
 					new NumericRange(
-							range.getStartTime().getTime(),
-							range.getEndTime().getTime()));
+							contraints.getStartRange().getStartTime().getTime(),
+							contraints.getEndRange().getEndTime().getTime()));
 		}
 
 		final Constraints constraints = new Constraints(
@@ -0,0 +1,27 @@
+package mil.nga.giat.geowave.store.query.aggregate;
+
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+
+/**
+ * An aggregation summarizes the entries that match a query. It is given the
+ * persistence encoding of each matching entry so that it can be computed
+ * within the tablet servers without decoding the native data type, and the
+ * partial results of each tablet are merged to form the final result.
+ *
+ * The persisted form of an aggregation is its current result, so an empty
+ * aggregation is serialized to distribute it to the tablet servers and the
+ * partial results are deserialized and merged back together.
+ */
+public interface Aggregation extends
+		Mergeable
+{
+	/**
+	 * Add an entry that matches the query to this aggregation
+	 *
+	 * @param entry
+	 *            the persistence encoding of the entry
+	 */
+	public void aggregate(
+			IndexedAdapterPersistenceEncoding entry );
+}
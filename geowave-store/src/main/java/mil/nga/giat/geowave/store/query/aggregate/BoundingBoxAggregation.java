@@ -0,0 +1,140 @@
+package mil.nga.giat.geowave.store.query.aggregate;
+
+import java.nio.ByteBuffer;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.dimension.GeometryAdapter;
+import mil.nga.giat.geowave.store.dimension.GeometryWrapper;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * This aggregation computes the bounding box of the geometries of the entries
+ * that match a query. The geometry is the common index value of a spatial
+ * index identified by its field ID, so the native data type and the other
+ * common index values are never decoded.
+ */
+public class BoundingBoxAggregation implements
+		Aggregation
+{
+	private ByteArrayId geometryFieldId;
+	private double minX = Double.MAX_VALUE;
+	private double minY = Double.MAX_VALUE;
+	private double maxX = -Double.MAX_VALUE;
+	private double maxY = -Double.MAX_VALUE;
+
+	/**
+	 * Aggregate the geometry field of the spatial dimensions
+	 */
+	public BoundingBoxAggregation() {
+		this(
+				GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID);
+	}
+
+	public BoundingBoxAggregation(
+			final ByteArrayId geometryFieldId ) {
+		this.geometryFieldId = geometryFieldId;
+	}
+
+	public ByteArrayId getGeometryFieldId() {
+		return geometryFieldId;
+	}
+
+	public boolean isSet() {
+		if ((minX == Double.MAX_VALUE) || (minY == Double.MAX_VALUE) || (maxX == -Double.MAX_VALUE) || (maxY == -Double.MAX_VALUE)) {
+			return false;
+		}
+		return true;
+	}
+
+	public double getMinX() {
+		return minX;
+	}
+
+	public double getMinY() {
+		return minY;
+	}
+
+	public double getMaxX() {
+		return maxX;
+	}
+
+	public double getMaxY() {
+		return maxY;
+	}
+
+	@Override
+	public void aggregate(
+			final IndexedAdapterPersistenceEncoding entry ) {
+		final Object value = entry.getCommonData().getValue(
+				geometryFieldId);
+		if ((value instanceof GeometryWrapper) && (((GeometryWrapper) value).getGeometry() != null)) {
+			final Envelope env = ((GeometryWrapper) value).getGeometry().getEnvelopeInternal();
+			if (!env.isNull()) {
+				minX = Math.min(
+						minX,
+						env.getMinX());
+				minY = Math.min(
+						minY,
+						env.getMinY());
+				maxX = Math.max(
+						maxX,
+						env.getMaxX());
+				maxY = Math.max(
+						maxY,
+						env.getMaxY());
+			}
+		}
+	}
+
+	@Override
+	public void merge(
+			final Mergeable merge ) {
+		if ((merge != null) && (merge instanceof BoundingBoxAggregation)) {
+			final BoundingBoxAggregation bboxAggregation = (BoundingBoxAggregation) merge;
+			if (bboxAggregation.isSet()) {
+				minX = Math.min(
+						minX,
+						bboxAggregation.minX);
+				minY = Math.min(
+						minY,
+						bboxAggregation.minY);
+				maxX = Math.max(
+						maxX,
+						bboxAggregation.maxX);
+				maxY = Math.max(
+						maxY,
+						bboxAggregation.maxY);
+			}
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] geometryFieldIdBinary = geometryFieldId.getBytes();
+		final ByteBuffer buffer = ByteBuffer.allocate(36 + geometryFieldIdBinary.length);
+		buffer.putDouble(minX);
+		buffer.putDouble(minY);
+		buffer.putDouble(maxX);
+		buffer.putDouble(maxY);
+		buffer.putInt(geometryFieldIdBinary.length);
+		buffer.put(geometryFieldIdBinary);
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		minX = buffer.getDouble();
+		minY = buffer.getDouble();
+		maxX = buffer.getDouble();
+		maxY = buffer.getDouble();
+		final byte[] geometryFieldIdBinary = new byte[buffer.getInt()];
+		buffer.get(geometryFieldIdBinary);
+		geometryFieldId = new ByteArrayId(
+				geometryFieldIdBinary);
+	}
+}
@@ -0,0 +1,49 @@
+package mil.nga.giat.geowave.store.query.aggregate;
+
+import java.nio.ByteBuffer;
+
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+
+/**
+ * This aggregation counts the entries that match a query
+ */
+public class CountAggregation implements
+		Aggregation
+{
+	private long count = 0;
+
+	public CountAggregation() {}
+
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public void aggregate(
+			final IndexedAdapterPersistenceEncoding entry ) {
+		count++;
+	}
+
+	@Override
+	public void merge(
+			final Mergeable merge ) {
+		if ((merge != null) && (merge instanceof CountAggregation)) {
+			count += ((CountAggregation) merge).count;
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final ByteBuffer buffer = ByteBuffer.allocate(8);
+		buffer.putLong(count);
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		count = buffer.getLong();
+	}
+}
@@ -0,0 +1,122 @@
+package mil.nga.giat.geowave.store.query.aggregate;
+
+import java.nio.ByteBuffer;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+
+/**
+ * This aggregation computes the minimum, maximum and sum of a numeric
+ * attribute of the entries that match a query. The attribute is an extended
+ * field of the data adapter identified by its field ID, and entries without a
+ * numeric value for the field are ignored.
+ */
+public class NumericAttributeAggregation implements
+		Aggregation
+{
+	private ByteArrayId fieldId;
+	private long count = 0;
+	private double min = Double.MAX_VALUE;
+	private double max = -Double.MAX_VALUE;
+	private double sum = 0;
+
+	protected NumericAttributeAggregation() {}
+
+	public NumericAttributeAggregation(
+			final ByteArrayId fieldId ) {
+		this.fieldId = fieldId;
+	}
+
+	public ByteArrayId getFieldId() {
+		return fieldId;
+	}
+
+	/**
+	 * @return the number of entries with a numeric value for the field
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getSum() {
+		return sum;
+	}
+
+	public double getMean() {
+		return count > 0 ? sum / count : Double.NaN;
+	}
+
+	@Override
+	public void aggregate(
+			final IndexedAdapterPersistenceEncoding entry ) {
+		final Object value = entry.getAdapterExtendedData().getValue(
+				fieldId);
+		if (value instanceof Number) {
+			final double doubleValue = ((Number) value).doubleValue();
+			if (!Double.isNaN(doubleValue)) {
+				count++;
+				min = Math.min(
+						min,
+						doubleValue);
+				max = Math.max(
+						max,
+						doubleValue);
+				sum += doubleValue;
+			}
+		}
+	}
+
+	@Override
+	public void merge(
+			final Mergeable merge ) {
+		if ((merge != null) && (merge instanceof NumericAttributeAggregation)) {
+			final NumericAttributeAggregation numericAggregation = (NumericAttributeAggregation) merge;
+			if (numericAggregation.count > 0) {
+				count += numericAggregation.count;
+				min = Math.min(
+						min,
+						numericAggregation.min);
+				max = Math.max(
+						max,
+						numericAggregation.max);
+				sum += numericAggregation.sum;
+			}
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] fieldIdBinary = fieldId.getBytes();
+		final ByteBuffer buffer = ByteBuffer.allocate(36 + fieldIdBinary.length);
+		buffer.putLong(count);
+		buffer.putDouble(min);
+		buffer.putDouble(max);
+		buffer.putDouble(sum);
+		buffer.putInt(fieldIdBinary.length);
+		buffer.put(fieldIdBinary);
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		count = buffer.getLong();
+		min = buffer.getDouble();
+		max = buffer.getDouble();
+		sum = buffer.getDouble();
+		final byte[] fieldIdBinary = new byte[buffer.getInt()];
+		buffer.get(fieldIdBinary);
+		fieldId = new ByteArrayId(
+				fieldIdBinary);
+	}
+}
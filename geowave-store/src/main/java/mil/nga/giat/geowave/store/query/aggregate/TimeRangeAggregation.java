@@ -0,0 +1,88 @@
+package mil.nga.giat.geowave.store.query.aggregate;
+
+import java.nio.ByteBuffer;
+
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.dimension.Time;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
+
+/**
+ * This aggregation computes the earliest and latest time of the entries that
+ * match a query, using the time values (timestamps or time ranges) that are
+ * part of a temporal index.
+ */
+public class TimeRangeAggregation implements
+		Aggregation
+{
+	private long minTime = Long.MAX_VALUE;
+	private long maxTime = Long.MIN_VALUE;
+
+	public TimeRangeAggregation() {}
+
+	public boolean isSet() {
+		return minTime <= maxTime;
+	}
+
+	/**
+	 * @return the earliest time in milliseconds
+	 */
+	public long getMinTime() {
+		return minTime;
+	}
+
+	/**
+	 * @return the latest time in milliseconds
+	 */
+	public long getMaxTime() {
+		return maxTime;
+	}
+
+	@Override
+	public void aggregate(
+			final IndexedAdapterPersistenceEncoding entry ) {
+		for (final PersistentValue<? extends CommonIndexValue> value : entry.getCommonData().getValues()) {
+			if (value.getValue() instanceof Time) {
+				final NumericData time = ((Time) value.getValue()).toNumericData();
+				minTime = Math.min(
+						minTime,
+						(long) time.getMin());
+				maxTime = Math.max(
+						maxTime,
+						(long) time.getMax());
+			}
+		}
+	}
+
+	@Override
+	public void merge(
+			final Mergeable merge ) {
+		if ((merge != null) && (merge instanceof TimeRangeAggregation)) {
+			final TimeRangeAggregation timeAggregation = (TimeRangeAggregation) merge;
+			minTime = Math.min(
+					minTime,
+					timeAggregation.minTime);
+			maxTime = Math.max(
+					maxTime,
+					timeAggregation.maxTime);
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final ByteBuffer buffer = ByteBuffer.allocate(16);
+		buffer.putLong(minTime);
+		buffer.putLong(maxTime);
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		minTime = buffer.getLong();
+		maxTime = buffer.getLong();
+	}
+}
@@ -0,0 +1,151 @@
+package mil.nga.giat.geowave.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import mil.nga.giat.geowave.store.data.field.BasicReader.GeometryReader;
+import mil.nga.giat.geowave.store.data.field.BasicWriter.GeometryWriter;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+public class CompactGeometryCodecTest
+{
+	private static final String[] GEOMETRIES = new String[] {
+		"POINT (-77.0364335 38.8976763)",
+		"LINESTRING (30 10, 10 30, 40 40.5)",
+		"POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30))",
+		"MULTIPOINT ((10 40), (40 30), (20 20), (30 10))",
+		"MULTILINESTRING ((10 10, 20 20, 10 40), (40 40, 30 30, 40 20, 30 10))",
+		"MULTIPOLYGON (((40 40, 20 45, 45 30, 40 40)), ((20 35, 10 30, 10 10, 30 5, 45 20, 20 35), (30 20, 20 15, 20 25, 30 20)))",
+		"GEOMETRYCOLLECTION (POINT (40 10), LINESTRING (10 10, 20 20, 10 40), POLYGON ((40 40, 20 45, 45 30, 40 40)))",
+		"POINT EMPTY",
+		"LINESTRING EMPTY",
+		"POLYGON EMPTY",
+		"GEOMETRYCOLLECTION EMPTY"
+	};
+
+	private final WKTReader wktReader = new WKTReader(
+			GeometryUtils.GEOMETRY_FACTORY);
+
+	@Test
+	public void testRoundTrip()
+			throws ParseException {
+		for (final String wkt : GEOMETRIES) {
+			final Geometry geometry = wktReader.read(wkt);
+			final byte[] binary = GeometryUtils.geometryToBinary(
+					geometry,
+					CompactGeometryCodec.DEFAULT_PRECISION);
+			assertTrue(
+					wkt,
+					CompactGeometryCodec.isCompactEncoding(binary));
+			final Geometry decoded = GeometryUtils.geometryFromBinary(binary);
+			assertEquals(
+					wkt,
+					geometry.getGeometryType(),
+					decoded.getGeometryType());
+			assertTrue(
+					wkt,
+					geometry.equalsExact(decoded));
+		}
+	}
+
+	@Test
+	public void test3DPoint() {
+		final Point point = GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+				1.5,
+				-2.25,
+				100.125));
+		final Geometry decoded = GeometryUtils.geometryFromBinary(GeometryUtils.geometryToBinary(
+				point,
+				3));
+		assertEquals(
+				100.125,
+				decoded.getCoordinate().z,
+				0);
+		assertTrue(point.equalsExact(decoded));
+	}
+
+	@Test
+	public void testPrecisionRounding()
+			throws ParseException {
+		final Geometry geometry = wktReader.read("LINESTRING (1.123456 -2.987654, 3.5 4.0001)");
+		final Geometry decoded = GeometryUtils.geometryFromBinary(GeometryUtils.geometryToBinary(
+				geometry,
+				2));
+		assertTrue(wktReader.read(
+				"LINESTRING (1.12 -2.99, 3.5 4)").equalsExact(
+				decoded));
+	}
+
+	@Test
+	public void testSmallerThanWellKnownBinary()
+			throws ParseException {
+		for (final String wkt : GEOMETRIES) {
+			final Geometry geometry = wktReader.read(wkt);
+			if (geometry.isEmpty()) {
+				continue;
+			}
+			final byte[] wkb = GeometryUtils.geometryToBinary(geometry);
+			final byte[] compact = GeometryUtils.geometryToBinary(
+					geometry,
+					CompactGeometryCodec.DEFAULT_PRECISION);
+			assertTrue(
+					wkt,
+					compact.length < wkb.length);
+		}
+	}
+
+	@Test
+	public void testWellKnownBinaryStillReadable()
+			throws ParseException {
+		final Geometry geometry = wktReader.read(GEOMETRIES[2]);
+		final byte[] wkb = GeometryUtils.geometryToBinary(geometry);
+		assertFalse(CompactGeometryCodec.isCompactEncoding(wkb));
+		assertTrue(geometry.equalsExact(GeometryUtils.geometryFromBinary(wkb)));
+	}
+
+	@Test
+	public void testNonFiniteFallsBackToWellKnownBinary() {
+		final Point point = GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+				Double.POSITIVE_INFINITY,
+				2));
+		final byte[] binary = GeometryUtils.geometryToBinary(
+				point,
+				CompactGeometryCodec.DEFAULT_PRECISION);
+		assertFalse(CompactGeometryCodec.isCompactEncoding(binary));
+		assertEquals(
+				Double.POSITIVE_INFINITY,
+				GeometryUtils.geometryFromBinary(
+						binary).getCoordinate().x,
+				0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedVersionFails()
+			throws ParseException {
+		final byte[] binary = GeometryUtils.geometryToBinary(
+				wktReader.read(GEOMETRIES[0]),
+				CompactGeometryCodec.DEFAULT_PRECISION);
+		// a later version of the compact encoding
+		binary[0] = (byte) 0xC2;
+		GeometryUtils.geometryFromBinary(binary);
+	}
+
+	@Test
+	public void testGeometryWriter()
+			throws ParseException {
+		final Geometry geometry = wktReader.read(GEOMETRIES[5]);
+		final byte[] binary = new GeometryWriter(
+				4).writeField(geometry);
+		assertTrue(CompactGeometryCodec.isCompactEncoding(binary));
+		assertTrue(geometry.equalsExact(new GeometryReader().readField(binary)));
+		assertFalse(CompactGeometryCodec.isCompactEncoding(new GeometryWriter().writeField(geometry)));
+	}
+}
@@ -11,6 +11,7 @@ import mil.nga.giat.geowave.index.dimension.bin.BinRange;
 import mil.nga.giat.geowave.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericRange;
 import mil.nga.giat.geowave.store.adapter.NativeFieldHandler.RowBuilder;
+import mil.nga.giat.geowave.store.data.FieldOrdinals;
 import mil.nga.giat.geowave.store.data.PersistentValue;
 import mil.nga.giat.geowave.store.data.field.BasicReader.IntReader;
 import mil.nga.giat.geowave.store.data.field.BasicReader.StringReader;
@@ -499,8 +500,16 @@ public class AbstractDataAdapterTest
 		public String getId() {
 			return null;
 		}
-		
-		
+
+		@Override
+		public FieldOrdinals getFieldOrdinals() {
+			final List<ByteArrayId> fieldIds = new ArrayList<ByteArrayId>();
+			for (final TestDimensionField dimensionField : dimensionFields) {
+				fieldIds.add(dimensionField.getFieldId());
+			}
+			return new FieldOrdinals(
+					fieldIds);
+		}
 
 	}
 
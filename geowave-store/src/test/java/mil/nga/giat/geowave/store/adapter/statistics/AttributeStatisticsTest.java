@@ -0,0 +1,163 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.store.IngestEntryInfo;
+import mil.nga.giat.geowave.store.IngestEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.store.data.PersistentValue;
+
+import org.junit.Test;
+
+public class AttributeStatisticsTest
+{
+	private static final ByteArrayId ADAPTER = new ByteArrayId(
+			"adapter");
+	private static final ByteArrayId VALUE = new ByteArrayId(
+			"value");
+
+	@Test
+	public void testHistogramQuantiles() {
+		final NumericHistogramStatistics<Object> stats1 = new NumericHistogramStatistics<Object>(
+				ADAPTER,
+				VALUE);
+		final NumericHistogramStatistics<Object> stats2 = new NumericHistogramStatistics<Object>(
+				ADAPTER,
+				VALUE);
+		assertFalse(stats1.isSet());
+		// ingest a shuffled uniform distribution split between two statistics
+		final List<Integer> values = new ArrayList<Integer>();
+		for (int i = 0; i <= 10000; i++) {
+			values.add(i);
+		}
+		Collections.shuffle(
+				values,
+				new Random(
+						7));
+		for (int i = 0; i < values.size(); i++) {
+			((i % 2) == 0 ? stats1 : stats2).entryIngested(
+					createEntry(
+							values.get(i),
+							StringUtils.stringToBinary(values.get(
+									i).toString())),
+					null);
+		}
+		stats1.merge(stats2);
+
+		final NumericHistogramStatistics<?> stats = (NumericHistogramStatistics<?>) PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(stats1),
+				DataStatistics.class);
+		assertEquals(
+				NumericHistogramStatistics.composeId(VALUE),
+				stats.getStatisticsId());
+		assertEquals(
+				10001,
+				stats.getCount());
+		assertEquals(
+				0,
+				stats.getMin(),
+				0);
+		assertEquals(
+				10000,
+				stats.getMax(),
+				0);
+		assertEquals(
+				5000,
+				stats.quantile(0.5),
+				200);
+		assertEquals(
+				9000,
+				stats.quantile(0.9),
+				200);
+		assertEquals(
+				0.25,
+				stats.getSelectivity(
+						2500,
+						5000),
+				0.02);
+		assertEquals(
+				0,
+				stats.getSelectivity(
+						20000,
+						30000),
+				0);
+		final double[] breaks = stats.getQuantileBreaks(4);
+		assertEquals(
+				5,
+				breaks.length);
+		assertEquals(
+				0,
+				breaks[0],
+				0);
+		assertEquals(
+				2500,
+				breaks[1],
+				200);
+		assertEquals(
+				10000,
+				breaks[4],
+				0);
+	}
+
+	@Test
+	public void testDistinctCount() {
+		final DistinctCountStatistics<Object> stats1 = new DistinctCountStatistics<Object>(
+				ADAPTER,
+				VALUE);
+		final DistinctCountStatistics<Object> stats2 = new DistinctCountStatistics<Object>(
+				ADAPTER,
+				VALUE);
+		assertEquals(
+				0,
+				stats1.getDistinctCount());
+		// every value is ingested twice, once in each statistic
+		for (int i = 0; i < 5000; i++) {
+			final IngestEntryInfo entry = createEntry(
+					i,
+					StringUtils.stringToBinary("value" + (i % 1000)));
+			stats1.entryIngested(
+					entry,
+					null);
+			stats2.entryIngested(
+					entry,
+					null);
+		}
+		stats1.merge(stats2);
+
+		final DistinctCountStatistics<?> stats = (DistinctCountStatistics<?>) PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(stats1),
+				DataStatistics.class);
+		assertEquals(
+				DistinctCountStatistics.composeId(VALUE),
+				stats.getStatisticsId());
+		// the standard error is approximately 3%
+		final long distinctCount = stats.getDistinctCount();
+		assertTrue(
+				"Distinct count " + distinctCount + " is not within 10% of 1000",
+				Math.abs(distinctCount - 1000) < 100);
+	}
+
+	private static IngestEntryInfo createEntry(
+			final Object value,
+			final byte[] writtenValue ) {
+		final List<FieldInfo> fieldInfo = new ArrayList<FieldInfo>();
+		fieldInfo.add(new FieldInfo<Object>(
+				new PersistentValue<Object>(
+						VALUE,
+						value),
+				writtenValue,
+				new byte[0]));
+		return new IngestEntryInfo(
+				new ArrayList<ByteArrayId>(),
+				fieldInfo);
+	}
+}
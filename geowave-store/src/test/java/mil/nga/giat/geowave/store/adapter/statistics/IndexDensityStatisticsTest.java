@@ -0,0 +1,350 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.store.IngestEntryInfo;
+import mil.nga.giat.geowave.store.IngestEntryInfo.FieldInfo;
+
+import org.junit.Test;
+
+public class IndexDensityStatisticsTest
+{
+	private static final ByteArrayId ADAPTER = new ByteArrayId(
+			"adapter");
+	private static final ByteArrayId INDEX = new ByteArrayId(
+			"index");
+
+	@Test
+	public void testEstimateAndClip() {
+		final IndexDensityStatistics<Object> stats1 = new IndexDensityStatistics<Object>(
+				ADAPTER,
+				INDEX,
+				2);
+		final IndexDensityStatistics<Object> stats2 = new IndexDensityStatistics<Object>(
+				ADAPTER,
+				INDEX,
+				2);
+		assertFalse(stats1.isSet());
+		ingest(
+				stats1,
+				10,
+				1,
+				2);
+		ingest(
+				stats1,
+				20,
+				1,
+				5);
+		ingest(
+				stats2,
+				30,
+				1,
+				9);
+		// a row that is not longer than a cell key is its own cell
+		stats2.entryIngested(
+				new IngestEntryInfo(
+						Arrays.asList(new ByteArrayId(
+								new byte[] {
+									3
+								})),
+						new ArrayList<FieldInfo>()),
+				null);
+		stats1.merge(stats2);
+
+		final IndexDensityStatistics<?> stats = (IndexDensityStatistics<?>) PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(stats1),
+				DataStatistics.class);
+		assertEquals(
+				IndexDensityStatistics.composeId(INDEX),
+				stats.getStatisticsId());
+		assertEquals(
+				2,
+				stats.getCellKeyLength());
+		assertEquals(
+				4,
+				stats.getCellCount());
+		assertEquals(
+				61,
+				stats.getTotalCount());
+		assertEquals(
+				4,
+				stats.getEntryCount());
+
+		assertEquals(
+				20,
+				stats.getEstimatedRowCount(range(
+						new byte[] {
+							1,
+							4
+						},
+						new byte[] {
+							1,
+							6
+						})));
+		// the end of a range is inclusive of every ID it is a prefix of
+		assertEquals(
+				60,
+				stats.getEstimatedRowCount(range(
+						new byte[] {
+							1
+						},
+						new byte[] {
+							1
+						})));
+
+		// the range is narrowed to the cells containing rows
+		assertEquals(
+				range(
+						new byte[] {
+							1,
+							2
+						},
+						new byte[] {
+							1,
+							5
+						}),
+				stats.clip(range(
+						new byte[] {
+							0
+						},
+						new byte[] {
+							1,
+							6
+						})));
+		assertNull(stats.clip(range(
+				new byte[] {
+					1,
+					6
+				},
+				new byte[] {
+					1,
+					8
+				})));
+
+		// a range within a single cell is not widened to the whole cell
+		final ByteArrayRange withinCell = range(
+				new byte[] {
+					1,
+					5,
+					0
+				},
+				new byte[] {
+					1,
+					5,
+					7
+				});
+		assertEquals(
+				withinCell,
+				stats.clip(withinCell));
+
+		// the end is padded so that it is not ordered before the start
+		assertEquals(
+				range(
+						new byte[] {
+							1,
+							5,
+							3
+						},
+						new byte[] {
+							1,
+							5,
+							(byte) 0xFF
+						}),
+				stats.clip(range(
+						new byte[] {
+							1,
+							5,
+							3
+						},
+						new byte[] {
+							1,
+							7
+						})));
+
+		final List<ByteArrayRange> clippedRanges = stats.clip(Arrays.asList(
+				range(
+						new byte[] {
+							0
+						},
+						new byte[] {
+							0
+						}),
+				range(
+						new byte[] {
+							1,
+							9,
+							0
+						},
+						new byte[] {
+							2
+						})));
+		assertEquals(
+				1,
+				clippedRanges.size());
+		assertEquals(
+				range(
+						new byte[] {
+							1,
+							9,
+							0
+						},
+						new byte[] {
+							1,
+							9,
+							(byte) 0xFF
+						}),
+				clippedRanges.get(0));
+		assertEquals(
+				30,
+				stats.getEstimatedRowCount(clippedRanges));
+	}
+
+	@Test
+	public void testSplitPointsAndDelete() {
+		final IndexDensityStatistics<Object> stats = new IndexDensityStatistics<Object>(
+				ADAPTER,
+				INDEX,
+				2);
+		for (int i = 0; i < 8; i++) {
+			ingest(
+					stats,
+					10,
+					1,
+					i);
+		}
+		final List<ByteArrayId> splitPoints = stats.getSplitPoints(4);
+		assertEquals(
+				3,
+				splitPoints.size());
+		assertEquals(
+				new ByteArrayId(
+						new byte[] {
+							1,
+							2
+						}),
+				splitPoints.get(0));
+		assertEquals(
+				new ByteArrayId(
+						new byte[] {
+							1,
+							6
+						}),
+				splitPoints.get(2));
+		assertTrue(stats.getSplitPoints(1).isEmpty());
+
+		// deleting every row of a cell removes it
+		final IngestEntryInfo entryInfo = createEntry(
+				10,
+				1,
+				0);
+		stats.entryDeleted(
+				entryInfo,
+				null);
+		assertEquals(
+				7,
+				stats.getCellCount());
+		assertEquals(
+				7,
+				stats.getEntryCount());
+		assertNull(stats.clip(range(
+				new byte[] {
+					1,
+					0
+				},
+				new byte[] {
+					1,
+					0
+				})));
+	}
+
+	@Test
+	public void testMergeDifferentCellKeyLength() {
+		final IndexDensityStatistics<Object> stats1 = new IndexDensityStatistics<Object>(
+				ADAPTER,
+				INDEX,
+				2);
+		final IndexDensityStatistics<Object> stats2 = new IndexDensityStatistics<Object>(
+				ADAPTER,
+				INDEX,
+				3);
+		ingest(
+				stats1,
+				10,
+				1,
+				2);
+		ingest(
+				stats1,
+				10,
+				1,
+				3);
+		ingest(
+				stats2,
+				5,
+				1,
+				2,
+				3);
+		stats1.merge(stats2);
+		// the entries of the discarded cells are no longer counted
+		assertEquals(
+				3,
+				stats1.getCellKeyLength());
+		assertEquals(
+				1,
+				stats1.getCellCount());
+		assertEquals(
+				5,
+				stats1.getTotalCount());
+		assertEquals(
+				1,
+				stats1.getEntryCount());
+	}
+
+	private static ByteArrayRange range(
+			final byte[] start,
+			final byte[] end ) {
+		return new ByteArrayRange(
+				new ByteArrayId(
+						start),
+				new ByteArrayId(
+						end));
+	}
+
+	private static void ingest(
+			final IndexDensityStatistics<Object> stats,
+			final int rowCount,
+			final int... cell ) {
+		stats.entryIngested(
+				createEntry(
+						rowCount,
+						cell),
+				null);
+	}
+
+	private static IngestEntryInfo createEntry(
+			final int rowCount,
+			final int... cell ) {
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>();
+		for (int i = 0; i < rowCount; i++) {
+			final byte[] rowId = new byte[cell.length + 2];
+			for (int c = 0; c < cell.length; c++) {
+				rowId[c] = (byte) cell[c];
+			}
+			rowId[cell.length] = (byte) i;
+			rowIds.add(new ByteArrayId(
+					rowId));
+		}
+		return new IngestEntryInfo(
+				rowIds,
+				new ArrayList<FieldInfo>());
+	}
+}
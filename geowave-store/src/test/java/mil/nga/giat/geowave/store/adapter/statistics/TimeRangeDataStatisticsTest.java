@@ -0,0 +1,250 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.TimeZone;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
+import mil.nga.giat.geowave.store.IngestEntryInfo;
+import mil.nga.giat.geowave.store.IngestEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.store.query.TemporalConstraints;
+import mil.nga.giat.geowave.store.query.TemporalRange;
+
+import org.junit.Test;
+
+public class TimeRangeDataStatisticsTest
+{
+	private static final ByteArrayId ADAPTER = new ByteArrayId(
+			"adapter");
+
+	@Test
+	public void testConstrain()
+			throws ParseException {
+		final TestTimeRangeStatistics stats1 = new TestTimeRangeStatistics(
+				new TemporalBinningStrategy(
+						Unit.MONTH));
+		final TestTimeRangeStatistics stats2 = new TestTimeRangeStatistics(
+				new TemporalBinningStrategy(
+						Unit.MONTH));
+		assertFalse(stats1.isSet());
+		assertNull(stats1.constrain(new TemporalConstraints()));
+
+		ingest(
+				stats1,
+				"2001-03-10",
+				"2001-03-20");
+		// spans the end of march and the start of april
+		ingest(
+				stats2,
+				"2001-03-25",
+				"2001-04-05");
+		ingest(
+				stats2,
+				"2010-07-04",
+				"2010-07-04");
+		stats1.merge(stats2);
+
+		final TimeRangeDataStatistics<?> stats = (TimeRangeDataStatistics<?>) PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(stats1),
+				DataStatistics.class);
+		assertTrue(stats.isSet());
+		assertEquals(
+				date("2001-03-10"),
+				stats.getMinTime());
+		assertEquals(
+				date("2010-07-04"),
+				stats.getMaxTime());
+		assertEquals(
+				3,
+				stats.getBinCount());
+
+		// march and april are adjacent so they are queried as a single range
+		final TemporalConstraints constraints = stats.constrain(constraints(
+				"1990-01-01",
+				"2020-01-01"));
+		assertEquals(
+				2,
+				constraints.getRanges().size());
+		assertEquals(
+				new TemporalRange(
+						date("2001-03-10"),
+						date("2001-04-05")),
+				constraints.getRanges().get(
+						0));
+		assertEquals(
+				new TemporalRange(
+						date("2010-07-04"),
+						date("2010-07-04")),
+				constraints.getRanges().get(
+						1));
+
+		// the constraints are clipped within a bin
+		final TemporalConstraints clipped = stats.constrain(constraints(
+				"2001-03-15",
+				"2001-03-31"));
+		assertEquals(
+				1,
+				clipped.getRanges().size());
+		assertEquals(
+				new TemporalRange(
+						date("2001-03-15"),
+						date("2001-03-31")),
+				clipped.getRanges().get(
+						0));
+
+		// no data between the years
+		assertNull(stats.constrain(constraints(
+				"2002-01-01",
+				"2009-12-31")));
+		// no data within the bin
+		assertNull(stats.constrain(constraints(
+				"2010-07-10",
+				"2010-07-20")));
+	}
+
+	@Test
+	public void testConstrainWithoutBins()
+			throws ParseException {
+		final TestTimeRangeStatistics stats = new TestTimeRangeStatistics(
+				null);
+		ingest(
+				stats,
+				"2001-03-10",
+				"2001-03-20");
+		ingest(
+				stats,
+				"2010-07-04",
+				"2010-07-04");
+		assertEquals(
+				0,
+				stats.getBinCount());
+		final TemporalConstraints constraints = stats.constrain(constraints(
+				"1990-01-01",
+				"2005-01-01"));
+		assertEquals(
+				1,
+				constraints.getRanges().size());
+		assertEquals(
+				new TemporalRange(
+						date("2001-03-10"),
+						date("2005-01-01")),
+				constraints.getRanges().get(
+						0));
+		assertNull(stats.constrain(constraints(
+				"2011-01-01",
+				"2012-01-01")));
+	}
+
+	@Test
+	public void testComplete()
+			throws ParseException {
+		final TestTimeRangeStatistics stats = new TestTimeRangeStatistics(
+				null);
+		final CountDataStatistics<TemporalRange> count = new CountDataStatistics<TemporalRange>(
+				ADAPTER);
+		assertFalse(stats.isComplete(count));
+		for (int i = 0; i < 2; i++) {
+			ingest(
+					stats,
+					"2001-03-10",
+					"2001-03-20");
+			count.entryIngested(
+					null,
+					null);
+		}
+		final TimeRangeDataStatistics<?> copy = (TimeRangeDataStatistics<?>) PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(stats),
+				DataStatistics.class);
+		assertEquals(
+				2,
+				copy.getEntryCount());
+		assertTrue(copy.isComplete(count));
+		assertFalse(copy.isComplete(null));
+
+		// an entry that the statistic has not seen
+		count.entryIngested(
+				null,
+				null);
+		assertFalse(stats.isComplete(count));
+
+		// deletes are counted even though the time range is kept
+		stats.entryDeleted(
+				null,
+				null);
+		count.entryDeleted(
+				null,
+				null);
+		count.entryDeleted(
+				null,
+				null);
+		assertTrue(stats.isComplete(count));
+		assertEquals(
+				date("2001-03-20"),
+				stats.getMaxTime());
+	}
+
+	private static void ingest(
+			final TestTimeRangeStatistics stats,
+			final String start,
+			final String end )
+			throws ParseException {
+		stats.entryIngested(
+				new IngestEntryInfo(
+						new ArrayList<ByteArrayId>(),
+						new ArrayList<FieldInfo>()),
+				new TemporalRange(
+						date(start),
+						date(end)));
+	}
+
+	private static TemporalConstraints constraints(
+			final String start,
+			final String end )
+			throws ParseException {
+		final TemporalConstraints constraints = new TemporalConstraints();
+		constraints.add(new TemporalRange(
+				date(start),
+				date(end)));
+		return constraints;
+	}
+
+	private static Date date(
+			final String date )
+			throws ParseException {
+		final SimpleDateFormat format = new SimpleDateFormat(
+				"yyyy-MM-dd");
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format.parse(date);
+	}
+
+	private static class TestTimeRangeStatistics extends
+			TimeRangeDataStatistics<TemporalRange>
+	{
+		protected TestTimeRangeStatistics() {
+			super();
+		}
+
+		public TestTimeRangeStatistics(
+				final TemporalBinningStrategy binningStrategy ) {
+			super(
+					ADAPTER,
+					binningStrategy);
+		}
+
+		@Override
+		protected TemporalRange getTimeRange(
+				final TemporalRange entry ) {
+			return entry;
+		}
+	}
+}
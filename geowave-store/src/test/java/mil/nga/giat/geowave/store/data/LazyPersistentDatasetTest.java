@@ -0,0 +1,116 @@
+package mil.nga.giat.geowave.store.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+import mil.nga.giat.geowave.store.data.field.BasicReader.StringReader;
+import mil.nga.giat.geowave.store.data.field.BasicWriter.StringWriter;
+
+import org.junit.Test;
+
+public class LazyPersistentDatasetTest
+{
+	private static final ByteArrayId FIELD_A = new ByteArrayId(
+			"a");
+	private static final ByteArrayId FIELD_B = new ByteArrayId(
+			"b");
+	private static final ByteArrayId FIELD_C = new ByteArrayId(
+			"c");
+
+	private static class CountingReader implements
+			FieldReader<String>
+	{
+		private final StringReader reader = new StringReader();
+		private int count = 0;
+
+		@Override
+		public String readField(
+				final byte[] fieldData ) {
+			count++;
+			return reader.readField(fieldData);
+		}
+	}
+
+	@Test
+	public void testOrdinalFieldsDecodedOnce() {
+		final LazyPersistentDataset<String> dataset = new LazyPersistentDataset<String>(
+				new FieldOrdinals(
+						Arrays.asList(
+								FIELD_A,
+								FIELD_B)));
+		testDecodedOnce(dataset);
+	}
+
+	@Test
+	public void testUnknownFieldsDecodedOnce() {
+		testDecodedOnce(new LazyPersistentDataset<String>());
+	}
+
+	private void testDecodedOnce(
+			final LazyPersistentDataset<String> dataset ) {
+		final CountingReader reader = new CountingReader();
+		final StringWriter writer = new StringWriter();
+		dataset.addEncodedValue(
+				FIELD_A,
+				writer.writeField("valueA"),
+				reader);
+		dataset.addEncodedValue(
+				FIELD_C,
+				writer.writeField("valueC"),
+				reader);
+		// the first value is not overwritten
+		dataset.addEncodedValue(
+				FIELD_A,
+				writer.writeField("other"),
+				reader);
+		dataset.addValue(new PersistentValue<String>(
+				FIELD_A,
+				"other"));
+		assertEquals(
+				0,
+				reader.count);
+
+		assertEquals(
+				"valueA",
+				dataset.getValue(FIELD_A));
+		assertEquals(
+				"valueA",
+				dataset.getValue(FIELD_A));
+		assertEquals(
+				1,
+				reader.count);
+
+		final List<PersistentValue<String>> values = dataset.getValues();
+		assertEquals(
+				2,
+				values.size());
+		assertEquals(
+				2,
+				reader.count);
+		assertEquals(
+				"valueC",
+				dataset.getValue(FIELD_C));
+		assertEquals(
+				null,
+				dataset.getValue(FIELD_B));
+
+		// an update replaces a value that has not been decoded yet
+		dataset.addEncodedValue(
+				FIELD_B,
+				writer.writeField("valueB"),
+				reader);
+		dataset.addOrUpdateValue(new PersistentValue<String>(
+				FIELD_B,
+				"updated"));
+		assertEquals(
+				"updated",
+				dataset.getValue(FIELD_B));
+		assertEquals(
+				2,
+				reader.count);
+	}
+}
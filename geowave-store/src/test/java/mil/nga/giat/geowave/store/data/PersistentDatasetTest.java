@@ -0,0 +1,158 @@
+package mil.nga.giat.geowave.store.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+
+import org.junit.Test;
+
+public class PersistentDatasetTest
+{
+	private static final ByteArrayId FIELD_A = new ByteArrayId(
+			"a");
+	private static final ByteArrayId FIELD_B = new ByteArrayId(
+			"b");
+	private static final ByteArrayId FIELD_C = new ByteArrayId(
+			"c");
+
+	@Test
+	public void testFieldOrdinals() {
+		final FieldOrdinals ordinals = new FieldOrdinals(
+				Arrays.asList(
+						FIELD_B,
+						FIELD_A,
+						FIELD_B));
+		assertEquals(
+				2,
+				ordinals.size());
+		assertEquals(
+				0,
+				ordinals.getOrdinal(FIELD_B));
+		assertEquals(
+				1,
+				ordinals.getOrdinal(FIELD_A));
+		assertEquals(
+				-1,
+				ordinals.getOrdinal(FIELD_C));
+		assertEquals(
+				FIELD_A,
+				ordinals.getFieldId(1));
+	}
+
+	@Test
+	public void testOrdinalDataset() {
+		final PersistentDataset<String> dataset = new PersistentDataset<String>(
+				new FieldOrdinals(
+						Arrays.asList(
+								FIELD_A,
+								FIELD_B)));
+		dataset.addValue(new PersistentValue<String>(
+				FIELD_B,
+				"b1"));
+		// fields without an ordinal are still supported
+		dataset.addValue(new PersistentValue<String>(
+				FIELD_C,
+				"c1"));
+		dataset.addValue(new PersistentValue<String>(
+				FIELD_B,
+				"b2"));
+		assertEquals(
+				"b1",
+				dataset.getValue(FIELD_B));
+		assertEquals(
+				"b1",
+				dataset.getValue(1));
+		assertNull(dataset.getValue(FIELD_A));
+		assertNull(dataset.getValue(0));
+		assertEquals(
+				"c1",
+				dataset.getValue(FIELD_C));
+
+		dataset.addOrUpdateValue(new PersistentValue<String>(
+				FIELD_B,
+				"b2"));
+		dataset.addValue(new PersistentValue<String>(
+				FIELD_A,
+				"a1"));
+		final List<PersistentValue<String>> values = dataset.getValues();
+		assertEquals(
+				3,
+				values.size());
+		assertEquals(
+				FIELD_A,
+				values.get(
+						0).getId());
+		assertEquals(
+				"a1",
+				values.get(
+						0).getValue());
+		assertEquals(
+				"b2",
+				values.get(
+						1).getValue());
+		assertEquals(
+				FIELD_C,
+				values.get(
+						2).getId());
+	}
+
+	@Test
+	public void testNullValues() {
+		final PersistentDataset<String> dataset = new PersistentDataset<String>(
+				new FieldOrdinals(
+						Arrays.asList(
+								FIELD_A,
+								FIELD_B)));
+		dataset.addValue(new PersistentValue<String>(
+				FIELD_A,
+				null));
+		// a field added with a null value is kept and not overwritten
+		dataset.addValue(new PersistentValue<String>(
+				FIELD_A,
+				"a1"));
+		assertNull(dataset.getValue(FIELD_A));
+		final List<PersistentValue<String>> values = dataset.getValues();
+		assertEquals(
+				1,
+				values.size());
+		assertEquals(
+				FIELD_A,
+				values.get(
+						0).getId());
+		assertNull(values.get(
+				0).getValue());
+	}
+
+	@Test
+	public void testCachedValues() {
+		final PersistentDataset<String> dataset = new PersistentDataset<String>(
+				new FieldOrdinals(
+						Arrays.asList(
+								FIELD_A,
+								FIELD_B)));
+		dataset.addValue(new PersistentValue<String>(
+				FIELD_A,
+				"a1"));
+		final List<PersistentValue<String>> values = dataset.getValues();
+		assertSame(
+				values,
+				dataset.getValues());
+		// the values are read again once they change
+		dataset.addOrUpdateValue(new PersistentValue<String>(
+				FIELD_A,
+				"a2"));
+		assertEquals(
+				"a2",
+				dataset.getValues().get(
+						0).getValue());
+		assertEquals(
+				"a1",
+				values.get(
+						0).getValue());
+	}
+}
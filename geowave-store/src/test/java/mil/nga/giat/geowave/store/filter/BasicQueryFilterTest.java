@@ -0,0 +1,229 @@
+package mil.nga.giat.geowave.store.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.BinnedNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.store.GeometryUtils;
+import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.PersistentDataset;
+import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.dimension.DimensionField;
+import mil.nga.giat.geowave.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.store.dimension.LatitudeField;
+import mil.nga.giat.geowave.store.dimension.LongitudeField;
+import mil.nga.giat.geowave.store.dimension.Time;
+import mil.nga.giat.geowave.store.dimension.TimeField;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.IndexType;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Verifies the basic query filter against overlap tests of the binned query
+ * and data ranges
+ */
+public class BasicQueryFilterTest
+{
+	private static final long YEAR_MILLIS = 365L * 24 * 60 * 60 * 1000;
+	private static final long START_MILLIS = 1388534400000L;
+	private static final int NUM_ENTRIES = 5000;
+
+	@Test
+	public void testSpatialConstraints() {
+		assertMatchesBinnedOverlaps(
+				IndexType.SPATIAL_VECTOR.getDefaultIndexModel().getDimensions(),
+				new NumericData[] {
+					new NumericRange(
+							-20,
+							35),
+					new NumericRange(
+							-10,
+							15)
+				});
+	}
+
+	@Test
+	public void testDatelineConstraints() {
+		// a longitude range outside of [-180, 180] crosses the date line
+		assertMatchesBinnedOverlaps(
+				IndexType.SPATIAL_VECTOR.getDefaultIndexModel().getDimensions(),
+				new NumericData[] {
+					new NumericRange(
+							150,
+							200),
+					new NumericRange(
+							-10,
+							15)
+				});
+	}
+
+	@Test
+	public void testSpatialTemporalConstraints() {
+		final DimensionField<?>[] dimensions = IndexType.SPATIAL_TEMPORAL_VECTOR.getDefaultIndexModel().getDimensions();
+		final NumericData[] constraints = new NumericData[dimensions.length];
+		for (int d = 0; d < dimensions.length; d++) {
+			if (dimensions[d] instanceof TimeField) {
+				// spans the boundary of a yearly bin
+				constraints[d] = new NumericRange(
+						START_MILLIS + (YEAR_MILLIS / 2),
+						START_MILLIS + (YEAR_MILLIS * 2));
+			}
+			else if (dimensions[d] instanceof LongitudeField) {
+				constraints[d] = new NumericRange(
+						-20,
+						35);
+			}
+			else {
+				constraints[d] = new NumericRange(
+						-10,
+						15);
+			}
+		}
+		assertMatchesBinnedOverlaps(
+				dimensions,
+				constraints);
+	}
+
+	private static void assertMatchesBinnedOverlaps(
+			final DimensionField<?>[] dimensions,
+			final NumericData[] constraints ) {
+		final MultiDimensionalNumericData constraintData = new BasicNumericDataset(
+				constraints);
+		final BasicQueryFilter filter = new BasicQueryFilter(
+				constraintData,
+				dimensions);
+		final BasicQueryFilter deserializedFilter = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(filter),
+				BasicQueryFilter.class);
+		final Random rand = new Random(
+				13);
+		int acceptCount = 0;
+		for (int i = 0; i < NUM_ENTRIES; i++) {
+			final IndexedPersistenceEncoding encoding = createEncoding(
+					dimensions,
+					rand);
+			final boolean expected = binnedOverlaps(
+					constraintData,
+					dimensions,
+					encoding.getNumericData(dimensions));
+			assertEquals(
+					expected,
+					filter.accept(encoding));
+			assertEquals(
+					expected,
+					deserializedFilter.accept(encoding));
+			if (expected) {
+				acceptCount++;
+			}
+		}
+		// make sure both outcomes are exercised
+		assertTrue((acceptCount > 0) && (acceptCount < NUM_ENTRIES));
+	}
+
+	private static boolean binnedOverlaps(
+			final MultiDimensionalNumericData constraints,
+			final DimensionField<?>[] dimensions,
+			final MultiDimensionalNumericData data ) {
+		final BinnedNumericDataset[] queryRanges = BinnedNumericDataset.applyBins(
+				constraints,
+				dimensions);
+		for (final BinnedNumericDataset dataRange : BinnedNumericDataset.applyBins(
+				data,
+				dimensions)) {
+			for (final BinnedNumericDataset queryRange : queryRanges) {
+				if (new ByteArrayId(
+						queryRange.getBinId()).equals(new ByteArrayId(
+						dataRange.getBinId())) && overlaps(
+						queryRange,
+						dataRange)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean overlaps(
+			final MultiDimensionalNumericData queryRange,
+			final MultiDimensionalNumericData dataRange ) {
+		final NumericData[] queryRangePerDimension = queryRange.getDataPerDimension();
+		final double[] minPerDimension = dataRange.getMinValuesPerDimension();
+		final double[] maxPerDimension = dataRange.getMaxValuesPerDimension();
+		for (int d = 0; d < queryRangePerDimension.length; d++) {
+			if ((maxPerDimension[d] < queryRangePerDimension[d].getMin()) || (minPerDimension[d] > queryRangePerDimension[d].getMax())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static IndexedPersistenceEncoding createEncoding(
+			final DimensionField<?>[] dimensions,
+			final Random rand ) {
+		final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+		final double x = -180 + (rand.nextDouble() * 350);
+		final double y = -40 + (rand.nextDouble() * 80);
+		final Geometry geometry;
+		if (rand.nextBoolean()) {
+			geometry = GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+					x,
+					y));
+		}
+		else {
+			final double size = rand.nextDouble() * 10;
+			geometry = GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+					x,
+					x + size,
+					y,
+					y + size));
+		}
+		for (final DimensionField<?> dimension : dimensions) {
+			if (dimension instanceof TimeField) {
+				final long time = START_MILLIS + (long) (rand.nextDouble() * 3 * YEAR_MILLIS);
+				final Time value;
+				if (rand.nextBoolean()) {
+					value = new Time.Timestamp(
+							time,
+							null);
+				}
+				else {
+					value = new Time.TimeRange(
+							time,
+							time + (long) (rand.nextDouble() * (YEAR_MILLIS / 4)),
+							null);
+				}
+				commonData.addValue(new PersistentValue<CommonIndexValue>(
+						dimension.getFieldId(),
+						value));
+			}
+			else if ((dimension instanceof LatitudeField) || (dimension instanceof LongitudeField)) {
+				commonData.addValue(new PersistentValue<CommonIndexValue>(
+						dimension.getFieldId(),
+						new GeometryWrapper(
+								geometry)));
+			}
+		}
+		return new IndexedPersistenceEncoding(
+				new ByteArrayId(
+						"adapter"),
+				new ByteArrayId(
+						"data"),
+				new ByteArrayId(
+						"index"),
+				0,
+				commonData);
+	}
+}
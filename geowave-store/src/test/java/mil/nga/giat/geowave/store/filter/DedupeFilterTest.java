@@ -0,0 +1,163 @@
+package mil.nga.giat.geowave.store.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.PersistentDataset;
+import mil.nga.giat.geowave.store.filter.DedupeFilter.DedupeMode;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
+
+import org.junit.Test;
+
+public class DedupeFilterTest
+{
+	@Test
+	public void testSingleIndexDropsCompletedEntries() {
+		for (final DedupeMode mode : DedupeMode.values()) {
+			final DedupeFilter filter = new DedupeFilter(
+					mode);
+			// rows that are not duplicated are never tracked
+			assertTrue(filter.accept(createEncoding(
+					"single",
+					0)));
+			assertTrue(filter.accept(createEncoding(
+					"single",
+					0)));
+			assertEquals(
+					0,
+					filter.getTrackedEntryCount());
+
+			// an entry with 3 rows
+			assertTrue(filter.accept(createEncoding(
+					"a",
+					2)));
+			assertTrue(filter.accept(createEncoding(
+					"b",
+					1)));
+			assertEquals(
+					2,
+					filter.getTrackedEntryCount());
+			assertFalse(filter.accept(createEncoding(
+					"a",
+					2)));
+			assertFalse(filter.accept(createEncoding(
+					"b",
+					1)));
+			assertEquals(
+					1,
+					filter.getTrackedEntryCount());
+			assertFalse(filter.accept(createEncoding(
+					"a",
+					2)));
+			assertEquals(
+					0,
+					filter.getTrackedEntryCount());
+		}
+	}
+
+	@Test
+	public void testMultiIndexTracksEveryEntry() {
+		for (final DedupeMode mode : DedupeMode.values()) {
+			final MultiIndexDedupeFilter filter = new MultiIndexDedupeFilter(
+					mode);
+			assertTrue(filter.accept(createEncoding(
+					"a",
+					0)));
+			assertTrue(filter.accept(createEncoding(
+					"b",
+					1)));
+			for (int i = 0; i < 3; i++) {
+				assertFalse(filter.accept(createEncoding(
+						"a",
+						0)));
+				assertFalse(filter.accept(createEncoding(
+						"b",
+						1)));
+			}
+			assertEquals(
+					2,
+					filter.getTrackedEntryCount());
+		}
+	}
+
+	@Test
+	public void testHashedModeManyEntries() {
+		final DedupeFilter exactFilter = new MultiIndexDedupeFilter(
+				DedupeMode.EXACT);
+		final DedupeFilter hashedFilter = new MultiIndexDedupeFilter(
+				DedupeMode.HASHED);
+		final int numEntries = 100000;
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < numEntries; i++) {
+				final IndexedPersistenceEncoding encoding = createEncoding(
+						Integer.toString(i),
+						0);
+				assertEquals(
+						pass == 0,
+						exactFilter.accept(encoding));
+				assertEquals(
+						pass == 0,
+						hashedFilter.accept(encoding));
+			}
+		}
+		assertEquals(
+				numEntries,
+				hashedFilter.getTrackedEntryCount());
+	}
+
+	@Test
+	public void testSerialization() {
+		final DedupeFilter filter = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(new DedupeFilter(
+						DedupeMode.HASHED)),
+				DedupeFilter.class);
+		assertEquals(
+				DedupeMode.HASHED,
+				filter.getMode());
+
+		final MultiIndexDedupeFilter multiIndexFilter = new MultiIndexDedupeFilter(
+				DedupeMode.HASHED);
+		multiIndexFilter.setMultiIndexSupportEnabled(false);
+		final MultiIndexDedupeFilter deserializedFilter = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(multiIndexFilter),
+				MultiIndexDedupeFilter.class);
+		assertEquals(
+				DedupeMode.HASHED,
+				deserializedFilter.getMode());
+		assertFalse(deserializedFilter.supportsMultipleIndices());
+
+		// the binary format before the dedupe mode was added
+		final DedupeFilter previousFilter = new DedupeFilter(
+				DedupeMode.HASHED);
+		previousFilter.fromBinary(new byte[] {});
+		assertEquals(
+				DedupeMode.EXACT,
+				previousFilter.getMode());
+		final MultiIndexDedupeFilter previousMultiIndexFilter = new MultiIndexDedupeFilter(
+				DedupeMode.HASHED);
+		previousMultiIndexFilter.fromBinary(new byte[] {
+			1
+		});
+		assertEquals(
+				DedupeMode.EXACT,
+				previousMultiIndexFilter.getMode());
+		assertFalse(previousMultiIndexFilter.supportsMultipleIndices());
+	}
+
+	private static IndexedPersistenceEncoding createEncoding(
+			final String dataId,
+			final int duplicateCount ) {
+		return new IndexedPersistenceEncoding(
+				new ByteArrayId(
+						"adapter"),
+				new ByteArrayId(
+						dataId),
+				new ByteArrayId(
+						"index"),
+				duplicateCount,
+				new PersistentDataset<CommonIndexValue>());
+	}
+}
@@ -0,0 +1,51 @@
+package mil.nga.giat.geowave.store.filter;
+
+import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
+
+import org.apache.log4j.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Logs the throughput of the spatial query filter and of a plain JTS
+ * intersection test, using a query polygon with a complex outline similar to a
+ * county boundary. It is not part of the unit tests and is run manually.
+ */
+@Ignore("benchmark")
+public class SpatialQueryFilterBenchmarkTest
+{
+	private final static Logger LOGGER = Logger.getLogger(SpatialQueryFilterBenchmarkTest.class);
+	private static final int NUM_GEOMETRIES = 5000;
+
+	@Test
+	public void testBenchmarkComplexPolygon() {
+		final Geometry queryGeometry = SpatialQueryFilterTest.createComplexPolygon();
+		final SpatialQueryFilter filter = SpatialQueryFilterTest.createFilter(queryGeometry);
+		final Geometry[] dataGeometries = SpatialQueryFilterTest.createDataGeometries(
+				queryGeometry.getEnvelopeInternal(),
+				NUM_GEOMETRIES);
+		final IndexedPersistenceEncoding[] encodings = new IndexedPersistenceEncoding[dataGeometries.length];
+		for (int i = 0; i < dataGeometries.length; i++) {
+			encodings[i] = SpatialQueryFilterTest.createEncoding(dataGeometries[i]);
+		}
+		long start = System.nanoTime();
+		int intersectCount = 0;
+		for (final Geometry dataGeometry : dataGeometries) {
+			if (dataGeometry.intersects(queryGeometry)) {
+				intersectCount++;
+			}
+		}
+		final long rawNanos = System.nanoTime() - start;
+		start = System.nanoTime();
+		int acceptCount = 0;
+		for (final IndexedPersistenceEncoding encoding : encodings) {
+			if (filter.accept(encoding)) {
+				acceptCount++;
+			}
+		}
+		final long filterNanos = System.nanoTime() - start;
+		LOGGER.info("Intersection of " + NUM_GEOMETRIES + " geometries with a complex polygon: raw geometry " + (rawNanos / 1000000) + " ms, spatial query filter " + (filterNanos / 1000000) + " ms (" + acceptCount + " of " + intersectCount + " intersecting accepted)");
+	}
+}
@@ -0,0 +1,166 @@
+package mil.nga.giat.geowave.store.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.store.GeometryUtils;
+import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.PersistentDataset;
+import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.dimension.DimensionField;
+import mil.nga.giat.geowave.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.IndexType;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Verifies the spatial query filter against a plain JTS intersection test,
+ * using a query polygon with a complex outline similar to a county boundary.
+ */
+public class SpatialQueryFilterTest
+{
+	private static final int NUM_VERTICES = 2000;
+	private static final int NUM_GEOMETRIES = 1000;
+
+	@Test
+	public void testFilterMatchesIntersection() {
+		final Geometry queryGeometry = createComplexPolygon();
+		final SpatialQueryFilter filter = createFilter(queryGeometry);
+		final SpatialQueryFilter deserializedFilter = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(filter),
+				SpatialQueryFilter.class);
+		final Geometry[] dataGeometries = createDataGeometries(
+				queryGeometry.getEnvelopeInternal(),
+				NUM_GEOMETRIES);
+		for (final Geometry dataGeometry : dataGeometries) {
+			final boolean expected = dataGeometry.intersects(queryGeometry);
+			final IndexedPersistenceEncoding encoding = createEncoding(dataGeometry);
+			assertEquals(
+					expected,
+					filter.accept(encoding));
+			assertEquals(
+					expected,
+					deserializedFilter.accept(encoding));
+		}
+	}
+
+	@Test
+	public void testRectangleQuery() {
+		final Geometry queryGeometry = GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+				-10,
+				10,
+				-5,
+				5));
+		final SpatialQueryFilter filter = createFilter(queryGeometry);
+		for (final Geometry dataGeometry : createDataGeometries(
+				new Envelope(
+						-20,
+						20,
+						-10,
+						10),
+				NUM_GEOMETRIES)) {
+			assertEquals(
+					dataGeometry.intersects(queryGeometry),
+					filter.accept(createEncoding(dataGeometry)));
+		}
+	}
+
+	static SpatialQueryFilter createFilter(
+			final Geometry queryGeometry ) {
+		final Envelope env = queryGeometry.getEnvelopeInternal();
+		return new SpatialQueryFilter(
+				new BasicNumericDataset(
+						new NumericData[] {
+							new NumericRange(
+									env.getMinX(),
+									env.getMaxX()),
+							new NumericRange(
+									env.getMinY(),
+									env.getMaxY())
+						}),
+				IndexType.SPATIAL_VECTOR.getDefaultIndexModel().getDimensions(),
+				queryGeometry);
+	}
+
+	static IndexedPersistenceEncoding createEncoding(
+			final Geometry dataGeometry ) {
+		final DimensionField<?> geometryField = IndexType.SPATIAL_VECTOR.getDefaultIndexModel().getDimensions()[0];
+		final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+		commonData.addValue(new PersistentValue<CommonIndexValue>(
+				geometryField.getFieldId(),
+				new GeometryWrapper(
+						dataGeometry)));
+		return new IndexedPersistenceEncoding(
+				new ByteArrayId(
+						"adapter"),
+				new ByteArrayId(
+						"data"),
+				new ByteArrayId(
+						"index"),
+				0,
+				commonData);
+	}
+
+	/**
+	 * @return a polygon with a jagged outline, built by walking around a
+	 *         circle with a random radius at every vertex
+	 */
+	static Geometry createComplexPolygon() {
+		final Random rand = new Random(
+				11);
+		final Coordinate[] coords = new Coordinate[NUM_VERTICES + 1];
+		for (int i = 0; i < NUM_VERTICES; i++) {
+			final double angle = (2 * Math.PI * i) / NUM_VERTICES;
+			final double radius = 0.5 + (rand.nextDouble() * 0.1);
+			coords[i] = new Coordinate(
+					-77 + (radius * Math.cos(angle)),
+					38.5 + (radius * Math.sin(angle)));
+		}
+		coords[NUM_VERTICES] = coords[0];
+		return GeometryUtils.GEOMETRY_FACTORY.createPolygon(
+				GeometryUtils.GEOMETRY_FACTORY.createLinearRing(coords),
+				null);
+	}
+
+	/**
+	 * @return a mix of points and small boxes around the envelope
+	 */
+	static Geometry[] createDataGeometries(
+			final Envelope queryEnvelope,
+			final int numGeometries ) {
+		final Random rand = new Random(
+				12);
+		final Geometry[] geometries = new Geometry[numGeometries];
+		final double width = queryEnvelope.getWidth() * 1.5;
+		final double height = queryEnvelope.getHeight() * 1.5;
+		for (int i = 0; i < numGeometries; i++) {
+			final double x = (queryEnvelope.getMinX() - (queryEnvelope.getWidth() * 0.25)) + (rand.nextDouble() * width);
+			final double y = (queryEnvelope.getMinY() - (queryEnvelope.getHeight() * 0.25)) + (rand.nextDouble() * height);
+			if ((i % 2) == 0) {
+				geometries[i] = GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+						x,
+						y));
+			}
+			else {
+				final double size = rand.nextDouble() * width * 0.02;
+				geometries[i] = GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+						x,
+						x + size,
+						y,
+						y + size));
+			}
+		}
+		return geometries;
+	}
+}
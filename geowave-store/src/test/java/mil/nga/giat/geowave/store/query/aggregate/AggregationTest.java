@@ -0,0 +1,242 @@
+package mil.nga.giat.geowave.store.query.aggregate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.PersistentDataset;
+import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.dimension.GeometryAdapter;
+import mil.nga.giat.geowave.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.store.dimension.Time.TimeRange;
+import mil.nga.giat.geowave.store.dimension.Time.Timestamp;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class AggregationTest
+{
+	private static final ByteArrayId GEOM = GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID;
+	private static final ByteArrayId TIME = new ByteArrayId(
+			"time");
+	private static final ByteArrayId VALUE = new ByteArrayId(
+			"value");
+	private final GeometryFactory factory = new GeometryFactory();
+
+	@Test
+	public void testMergeAndRoundTrip() {
+		final CountAggregation count1 = new CountAggregation();
+		final CountAggregation count2 = new CountAggregation();
+		final BoundingBoxAggregation bbox1 = new BoundingBoxAggregation();
+		final BoundingBoxAggregation bbox2 = new BoundingBoxAggregation();
+		final TimeRangeAggregation time1 = new TimeRangeAggregation();
+		final TimeRangeAggregation time2 = new TimeRangeAggregation();
+		final NumericAttributeAggregation value1 = new NumericAttributeAggregation(
+				VALUE);
+		final NumericAttributeAggregation value2 = new NumericAttributeAggregation(
+				VALUE);
+		assertFalse(bbox1.isSet());
+		assertFalse(time1.isSet());
+
+		final IndexedAdapterPersistenceEncoding entry1 = createEntry(
+				new GeometryWrapper(
+						factory.createPoint(new Coordinate(
+								-10,
+								5)),
+						new byte[0]),
+				new Timestamp(
+						1000,
+						new byte[0]),
+				2.5);
+		final IndexedAdapterPersistenceEncoding entry2 = createEntry(
+				new GeometryWrapper(
+						factory.createPoint(new Coordinate(
+								20,
+								-15)),
+						new byte[0]),
+				new TimeRange(
+						500,
+						3000,
+						new byte[0]),
+				null);
+		final IndexedAdapterPersistenceEncoding entry3 = createEntry(
+				new GeometryWrapper(
+						factory.createPoint(new Coordinate(
+								0,
+								30)),
+						new byte[0]),
+				new Timestamp(
+						2000,
+						new byte[0]),
+				-4.0);
+		count1.aggregate(entry1);
+		bbox1.aggregate(entry1);
+		time1.aggregate(entry1);
+		value1.aggregate(entry1);
+		for (final IndexedAdapterPersistenceEncoding entry : new IndexedAdapterPersistenceEncoding[] {
+			entry2,
+			entry3
+		}) {
+			count2.aggregate(entry);
+			bbox2.aggregate(entry);
+			time2.aggregate(entry);
+			value2.aggregate(entry);
+		}
+
+		// merge the partial results after a round trip, as the client does
+		count1.merge(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(count2),
+				Aggregation.class));
+		bbox1.merge(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(bbox2),
+				Aggregation.class));
+		time1.merge(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(time2),
+				Aggregation.class));
+		value1.merge(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(value2),
+				Aggregation.class));
+
+		assertEquals(
+				3,
+				count1.getCount());
+		assertTrue(bbox1.isSet());
+		assertEquals(
+				-10,
+				bbox1.getMinX(),
+				0);
+		assertEquals(
+				-15,
+				bbox1.getMinY(),
+				0);
+		assertEquals(
+				20,
+				bbox1.getMaxX(),
+				0);
+		assertEquals(
+				30,
+				bbox1.getMaxY(),
+				0);
+		assertTrue(time1.isSet());
+		assertEquals(
+				500,
+				time1.getMinTime());
+		assertEquals(
+				3000,
+				time1.getMaxTime());
+		// the entry without a value is ignored
+		assertEquals(
+				2,
+				value1.getCount());
+		assertEquals(
+				-4.0,
+				value1.getMin(),
+				0);
+		assertEquals(
+				2.5,
+				value1.getMax(),
+				0);
+		assertEquals(
+				-1.5,
+				value1.getSum(),
+				0);
+		assertEquals(
+				-0.75,
+				value1.getMean(),
+				0);
+		assertEquals(
+				VALUE,
+				((NumericAttributeAggregation) PersistenceUtils.fromBinary(
+						PersistenceUtils.toBinary(value1),
+						Aggregation.class)).getFieldId());
+	}
+
+	@Test
+	public void testBoundingBoxGeometryField() {
+		final IndexedAdapterPersistenceEncoding entry = createEntry(
+				new GeometryWrapper(
+						factory.createPoint(new Coordinate(
+								3,
+								4)),
+						new byte[0]),
+				new Timestamp(
+						1000,
+						new byte[0]),
+				null);
+		final BoundingBoxAggregation otherField = new BoundingBoxAggregation(
+				TIME);
+		otherField.aggregate(entry);
+		assertFalse(otherField.isSet());
+
+		final BoundingBoxAggregation bbox = (BoundingBoxAggregation) PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(new BoundingBoxAggregation()),
+				Aggregation.class);
+		assertEquals(
+				GEOM,
+				bbox.getGeometryFieldId());
+		bbox.aggregate(entry);
+		assertTrue(bbox.isSet());
+		assertEquals(
+				3,
+				bbox.getMinX(),
+				0);
+		assertEquals(
+				4,
+				bbox.getMaxY(),
+				0);
+	}
+
+	@Test
+	public void testMergeEmpty() {
+		final BoundingBoxAggregation bbox = new BoundingBoxAggregation();
+		bbox.merge(new BoundingBoxAggregation());
+		assertFalse(bbox.isSet());
+		final TimeRangeAggregation time = new TimeRangeAggregation();
+		time.merge(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(new TimeRangeAggregation()),
+				Aggregation.class));
+		assertFalse(time.isSet());
+		final NumericAttributeAggregation value = new NumericAttributeAggregation(
+				VALUE);
+		value.merge(new NumericAttributeAggregation(
+				VALUE));
+		assertEquals(
+				0,
+				value.getCount());
+		assertTrue(Double.isNaN(value.getMean()));
+	}
+
+	private static IndexedAdapterPersistenceEncoding createEntry(
+			final GeometryWrapper geometry,
+			final CommonIndexValue time,
+			final Double value ) {
+		final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+		commonData.addValue(new PersistentValue<CommonIndexValue>(
+				GEOM,
+				geometry));
+		commonData.addValue(new PersistentValue<CommonIndexValue>(
+				TIME,
+				time));
+		final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+		if (value != null) {
+			extendedData.addValue(new PersistentValue<Object>(
+					VALUE,
+					value));
+		}
+		return new IndexedAdapterPersistenceEncoding(
+				new ByteArrayId(
+						"adapter"),
+				new ByteArrayId(
+						"data"),
+				new ByteArrayId(
+						"insertion"),
+				0,
+				commonData,
+				extendedData);
+	}
+}
@@ -36,6 +36,8 @@ public class AccumuloDataStatisticsStoreExt extends
 			final ByteArrayId adapterId,
 			final VisibilityTransformer visibilityTransformer,
 			String... authorizations ) {
+		// the statistics held in memory are transformed as well
+		flush();
 		Scanner scanner;
 
 		try {
@@ -10,6 +10,7 @@ import java.util.List;
 import mil.nga.giat.geowave.accumulo.AccumuloDataStore;
 import mil.nga.giat.geowave.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.accumulo.AccumuloOptions;
+import mil.nga.giat.geowave.accumulo.query.QueryPlan;
 import mil.nga.giat.geowave.accumulo.util.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.store.CloseableIterator;
@@ -20,7 +21,9 @@ import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsStore;
 import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.store.index.IndexStore;
 import mil.nga.giat.geowave.store.query.Query;
+import mil.nga.giat.geowave.store.query.aggregate.Aggregation;
 import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
+import mil.nga.giat.geowave.vector.query.AccumuloCqlAggregationQuery;
 import mil.nga.giat.geowave.vector.query.AccumuloCqlConstraintsQuery;
 import mil.nga.giat.geowave.vector.query.DistributedRenderQuery;
 import mil.nga.giat.geowave.vector.query.SpatialDecimationQuery;
@@ -102,12 +105,23 @@ public class VectorDataStore extends
 			final String... authorizations ) {
 		final List<CloseableIterator<SimpleFeature>> results = new ArrayList<CloseableIterator<SimpleFeature>>();
 
-		// query the indices that are supported for this query object, and these
-		// data adapter Ids
+		// query the indices chosen by the planner among those that are
+		// supported for this query object, and this data adapter
 
 		try (CloseableIterator<Index> indices = indexStore.getIndices()) {
-			while (indices.hasNext()) {
-				final Index index = indices.next();
+			final QueryPlan plan = queryPlanner.planQuery(
+					Arrays.asList(adapter.getAdapterId()),
+					query,
+					indices,
+					new MemoryAdapterStore(
+							new DataAdapter[] {
+								adapter
+							}),
+					authorizations);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug(plan);
+			}
+			for (final Index index : plan.getIndices()) {
 				results.add(this.query(
 						adapter,
 						query,
@@ -120,7 +134,7 @@ public class VectorDataStore extends
 		catch (IOException e) {
 			LOGGER.error("Cannot close index iterator.", e);
 		}
-		
+
 		return new CloseableIteratorWrapper<SimpleFeature>(
 				new Closeable() {
 					@Override
@@ -143,6 +157,7 @@ public class VectorDataStore extends
 			final Integer limit,
 			final String... authorizations ) {
 		store(adapter);
+		writerPool.flush();
 		final List<ByteArrayId> adapterIds = Arrays.asList(new ByteArrayId[] {
 			adapter.getAdapterId()
 		});
@@ -180,12 +195,56 @@ public class VectorDataStore extends
 		return new CloseableIterator.Empty<SimpleFeature>();
 	}
 
+	/**
+	 * Computes an aggregation over the features within a single index that
+	 * match the query and are accepted by the CQL filter. The CQL filter is
+	 * applied within the tablet servers.
+	 *
+	 * @param adapter
+	 *            the feature data adapter
+	 * @param index
+	 *            the index to aggregate, only one index is used so that
+	 *            features stored in several indices are only aggregated once
+	 * @param query
+	 *            the query constraints, null to use only the CQL filter
+	 * @param filter
+	 *            the CQL filter, null to accept every feature
+	 * @param aggregation
+	 *            an empty aggregation, the results are merged into it
+	 * @param authorizations
+	 *            additional authorizations for cell visibility
+	 * @return the aggregation that was passed in, merged with the results
+	 */
+	@SuppressWarnings("unchecked")
+	public <R extends Aggregation> R aggregate(
+			final FeatureDataAdapter adapter,
+			final Index index,
+			final Query query,
+			final Filter filter,
+			final R aggregation,
+			final String... authorizations ) {
+		if ((query != null) && !query.isSupported(index)) {
+			throw new IllegalArgumentException(
+					"Index does not support the query");
+		}
+		store(adapter);
+		writerPool.flush();
+		return (R) new AccumuloCqlAggregationQuery(
+				adapter,
+				index,
+				query,
+				filter,
+				aggregation,
+				authorizations).aggregate(accumuloOperations);
+	}
+
 	public CloseableIterator<SimpleFeature> query(
 			final FeatureDataAdapter adapter,
 			final Query query,
 			final Filter filter,
 			final DistributableRenderer distributedRenderer,
 			final String... authorizations ) {
+		writerPool.flush();
 
 		// query the indices that are supported for this query object, and these
 		// data adapter Ids
@@ -269,6 +328,7 @@ public class VectorDataStore extends
 			final ReferencedEnvelope envelope,
 			final Integer limit,
 			final String... authorizations ) {
+		writerPool.flush();
 		// query the indices that are supported for this query object, and these
 		// data adapter Ids
 		try (final CloseableIterator<Index> indices = indexStore.getIndices()) {
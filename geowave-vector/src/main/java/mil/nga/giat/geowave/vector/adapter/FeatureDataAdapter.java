@@ -2,11 +2,17 @@ package mil.nga.giat.geowave.vector.adapter;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import mil.nga.giat.geowave.accumulo.mapreduce.HadoopDataAdapter;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
+import mil.nga.giat.geowave.store.CompactGeometryCodec;
 import mil.nga.giat.geowave.store.TimeUtils;
 import mil.nga.giat.geowave.store.adapter.AbstractDataAdapter;
 import mil.nga.giat.geowave.store.adapter.AdapterPersistenceEncoding;
@@ -18,8 +24,14 @@ import mil.nga.giat.geowave.store.adapter.statistics.BoundingBoxDataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsVisibilityHandler;
+import mil.nga.giat.geowave.store.adapter.statistics.DistinctCountStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.FieldIdStatisticVisibility;
 import mil.nga.giat.geowave.store.adapter.statistics.FieldTypeStatisticVisibility;
+import mil.nga.giat.geowave.store.adapter.statistics.NumericHistogramStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.TimeRangeDataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.StatisticalDataAdapter;
+import mil.nga.giat.geowave.store.data.field.BasicWriter;
+import mil.nga.giat.geowave.store.data.field.BasicWriter.GeometryWriter;
 import mil.nga.giat.geowave.store.data.field.FieldReader;
 import mil.nga.giat.geowave.store.data.field.FieldUtils;
 import mil.nga.giat.geowave.store.data.field.FieldVisibilityHandler;
@@ -33,6 +45,7 @@ import mil.nga.giat.geowave.vector.plugin.GeoWaveGTDataStore;
 import mil.nga.giat.geowave.vector.plugin.visibility.AdaptorProxyFieldLevelVisibilityHandler;
 import mil.nga.giat.geowave.vector.plugin.visibility.JsonDefinitionColumnVisibilityManagement;
 import mil.nga.giat.geowave.vector.stats.FeatureBoundingBoxStatistics;
+import mil.nga.giat.geowave.vector.stats.FeatureTimeRangeStatistics;
 
 import org.apache.log4j.Logger;
 import org.geotools.data.DataUtilities;
@@ -71,6 +84,11 @@ import com.vividsolutions.jts.geom.Geometry;
  * The adapter will use the SimpleFeature's default geometry for spatial
  * indexing.
  *
+ * If the default geometry attribute contains a UserData property 'precision'
+ * with an Integer value, the default geometry is persisted using a compact
+ * encoding retaining that number of decimal digits rather than well known
+ * binary. Other geometry attributes are always persisted as well known binary.
+ *
  * The adaptor will use the first temporal attribute (a Calendar or Date object)
  * as the timestamp of a temporal index.
  *
@@ -85,6 +103,11 @@ import com.vividsolutions.jts.geom.Geometry;
  * If the feature type contains a UserData property 'time' for *all* time
  * attributes with Boolean.FALSE, then a temporal index is not used.
  *
+ * If an attribute contains a UserData property 'histogram' with Boolean.TRUE, a
+ * histogram of its numeric or temporal values is kept as a statistic. If an
+ * attribute contains a UserData property 'distinct' with Boolean.TRUE, an
+ * estimate of its number of distinct values is kept as a statistic.
+ *
  *
  */
 public class FeatureDataAdapter extends
@@ -93,6 +116,14 @@ public class FeatureDataAdapter extends
 		HadoopDataAdapter<SimpleFeature, FeatureWritable>
 {
 	private final static Logger LOGGER = Logger.getLogger(FeatureDataAdapter.class);
+	// the version of the persisted format that follows the lengths of the
+	// type data, which is only written when the original format is not
+	// sufficient
+	private final static int FORMAT_VERSION = 2;
+	// the format version that persisted the attribute statistics as a comma
+	// delimited list
+	private final static int DELIMITED_ATTRIBUTE_STATISTICS_FORMAT_VERSION = 1;
+	private final static int NO_GEOMETRY_PRECISION = -1;
 	// the original coordinate system will always be represented internally by
 	// the persisted type
 	private SimpleFeatureType persistedType;
@@ -103,15 +134,44 @@ public class FeatureDataAdapter extends
 	private SimpleFeatureType reprojectedType;
 	private MathTransform transform;
 
-	private final static ByteArrayId[] SUPPORTED_STATS_IDS = new ByteArrayId[] {
+	private final static ByteArrayId[] DEFAULT_STATS_IDS = new ByteArrayId[] {
 		BoundingBoxDataStatistics.STATS_ID,
 		CountDataStatistics.STATS_ID
 	};
+	/**
+	 * the temporal bins of the time range statistic, which are finer than the
+	 * bins of the default temporal index so that empty bins can be skipped
+	 */
+	private final static Unit TIME_RANGE_STATS_UNIT = Unit.MONTH;
 	private final static DataStatisticsVisibilityHandler<SimpleFeature> GEOMETRY_VISIBILITY_HANDLER = new FieldTypeStatisticVisibility<SimpleFeature>(
 			GeometryWrapper.class);
 
+	/**
+	 * If the default geometry attribute of the feature type has an Integer
+	 * value for this user data key, the default geometry is persisted using
+	 * the compact geometry encoding retaining that number of decimal digits
+	 */
+	public final static String GEOMETRY_PRECISION_KEY = "precision";
+	/**
+	 * If an attribute of the feature type has Boolean.TRUE for this user data
+	 * key, a histogram of its values is kept as a statistic
+	 */
+	public final static String NUMERIC_HISTOGRAM_KEY = "histogram";
+	/**
+	 * If an attribute of the feature type has Boolean.TRUE for this user data
+	 * key, an estimate of its number of distinct values is kept as a statistic
+	 */
+	public final static String DISTINCT_COUNT_KEY = "distinct";
+	private final static String[] ATTRIBUTE_STATISTICS_KEYS = new String[] {
+		NUMERIC_HISTOGRAM_KEY,
+		DISTINCT_COUNT_KEY
+	};
+
 	private String visibilityAttributeName = "GEOWAVE_VISIBILITY";
 	private VisibilityManagement<SimpleFeature> fieldVisibilityManagement;
+	private ByteArrayId[] supportedStatsIds;
+	// the attribute statistics by statistics ID
+	private Map<ByteArrayId, AttributeStatistic> attributeStatistics;
 
 	protected FeatureDataAdapter() {}
 
@@ -191,6 +251,145 @@ public class FeatureDataAdapter extends
 		else {
 			reprojectedType = persistedType;
 		}
+		final Integer geometryPrecision = getGeometryPrecision(persistedType);
+		if ((geometryPrecision != null) && (reprojectedType.getGeometryDescriptor() != null)) {
+			reprojectedType.getGeometryDescriptor().getUserData().put(
+					GEOMETRY_PRECISION_KEY,
+					geometryPrecision);
+		}
+		// the statistics depend on the time attributes, which are not
+		// determined until the adapter is fully constructed
+		supportedStatsIds = null;
+		attributeStatistics = null;
+	}
+
+	private static boolean isUserDataEnabled(
+			final AttributeDescriptor attrDesc,
+			final String key ) {
+		final Object value = attrDesc.getUserData().get(
+				key);
+		return (value != null) && Boolean.valueOf(value.toString());
+	}
+
+	/**
+	 * The attribute statistics are persisted as a list of length prefixed key
+	 * and attribute name pairs because the encoded feature type does not
+	 * retain user data
+	 */
+	private static byte[] attributeStatisticsToBinary(
+			final SimpleFeatureType type ) {
+		final List<byte[]> keyAndNameBinaries = new ArrayList<byte[]>();
+		int byteBufferLength = 4;
+		for (final AttributeDescriptor attrDesc : type.getAttributeDescriptors()) {
+			for (final String key : ATTRIBUTE_STATISTICS_KEYS) {
+				if (isUserDataEnabled(
+						attrDesc,
+						key)) {
+					final byte[] keyBinary = StringUtils.stringToBinary(key);
+					final byte[] nameBinary = StringUtils.stringToBinary(attrDesc.getLocalName());
+					byteBufferLength += 8 + keyBinary.length + nameBinary.length;
+					keyAndNameBinaries.add(keyBinary);
+					keyAndNameBinaries.add(nameBinary);
+				}
+			}
+		}
+		if (keyAndNameBinaries.isEmpty()) {
+			return new byte[0];
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(byteBufferLength);
+		buf.putInt(keyAndNameBinaries.size() / 2);
+		for (final byte[] binary : keyAndNameBinaries) {
+			buf.putInt(binary.length);
+			buf.put(binary);
+		}
+		return buf.array();
+	}
+
+	private static void attributeStatisticsFromBinary(
+			final SimpleFeatureType type,
+			final byte[] bytes,
+			final int formatVersion ) {
+		if (bytes.length == 0) {
+			return;
+		}
+		if (formatVersion == DELIMITED_ATTRIBUTE_STATISTICS_FORMAT_VERSION) {
+			// a comma delimited list of 'key:attributeName' entries
+			for (final String entry : StringUtils.stringFromBinary(
+					bytes).split(
+					",")) {
+				final int separator = entry.indexOf(':');
+				enableUserData(
+						type,
+						entry.substring(
+								0,
+								separator),
+						entry.substring(separator + 1));
+			}
+			return;
+		}
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		final int count = buf.getInt();
+		for (int i = 0; i < count; i++) {
+			final byte[] keyBinary = new byte[buf.getInt()];
+			buf.get(keyBinary);
+			final byte[] nameBinary = new byte[buf.getInt()];
+			buf.get(nameBinary);
+			enableUserData(
+					type,
+					StringUtils.stringFromBinary(keyBinary),
+					StringUtils.stringFromBinary(nameBinary));
+		}
+	}
+
+	private static void enableUserData(
+			final SimpleFeatureType type,
+			final String key,
+			final String attributeName ) {
+		final AttributeDescriptor attrDesc = type.getDescriptor(attributeName);
+		if (attrDesc != null) {
+			attrDesc.getUserData().put(
+					key,
+					Boolean.TRUE);
+		}
+	}
+
+	private static Integer getGeometryPrecision(
+			final SimpleFeatureType type ) {
+		if (type.getGeometryDescriptor() == null) {
+			return null;
+		}
+		final Object precision = type.getGeometryDescriptor().getUserData().get(
+				GEOMETRY_PRECISION_KEY);
+		if (precision == null) {
+			return null;
+		}
+		final int value;
+		if (precision instanceof Number) {
+			value = ((Number) precision).intValue();
+		}
+		else {
+			try {
+				value = Integer.parseInt(precision.toString().trim());
+			}
+			catch (final NumberFormatException e) {
+				LOGGER.warn("Geometry precision '" + precision + "' is not an integer, geometries will be persisted as well known binary");
+				return null;
+			}
+		}
+		if ((value < 0) || (value > CompactGeometryCodec.MAX_PRECISION)) {
+			LOGGER.warn("Geometry precision " + value + " is not between 0 and " + CompactGeometryCodec.MAX_PRECISION + ", geometries will be persisted as well known binary");
+			return null;
+		}
+		return value;
+	}
+
+	/**
+	 * @return the number of decimal digits retained by the compact geometry
+	 *         encoding, or null if geometries are persisted as well known
+	 *         binary
+	 */
+	public Integer getGeometryPrecision() {
+		return getGeometryPrecision(persistedType);
 	}
 	private static List<NativeFieldHandler<SimpleFeature, Object>> typeToFieldHandlers(
 			final SimpleFeatureType type ) {
@@ -244,7 +443,8 @@ public class FeatureDataAdapter extends
 					internalType.getGeometryDescriptor(),
 					new AdaptorProxyFieldLevelVisibilityHandler(
 							internalType.getGeometryDescriptor().getLocalName(),
-							this)));
+							this),
+					getGeometryPrecision(internalType)));
 			return defaultHandlers;
 		}
 		LOGGER.warn("Simple Feature Type could not be used for handling the indexed data");
@@ -276,8 +476,16 @@ public class FeatureDataAdapter extends
 		final AttributeDescriptor descriptor = reprojectedType.getDescriptor(StringUtils.stringFromBinary(fieldId.getBytes()));
 
 		final Class<?> bindingClass = descriptor.getType().getBinding();
+		// only the default geometry uses the compact encoding
+		final Integer geometryPrecision = descriptor.equals(reprojectedType.getGeometryDescriptor()) ? getGeometryPrecision() : null;
 		FieldWriter<SimpleFeature, Object> basicWriter;
-		if (fieldVisiblityHandler != null) {
+		if ((geometryPrecision != null) && Geometry.class.isAssignableFrom(bindingClass)) {
+			basicWriter = new BasicWriter<SimpleFeature, Object>(
+					(FieldWriter<?, Object>) (FieldWriter<?, ?>) new GeometryWriter(
+							geometryPrecision),
+					fieldVisiblityHandler);
+		}
+		else if (fieldVisiblityHandler != null) {
 			basicWriter = (FieldWriter<SimpleFeature, Object>) FieldUtils.getDefaultWriterForClass(
 					bindingClass,
 					fieldVisiblityHandler);
@@ -313,17 +521,42 @@ public class FeatureDataAdapter extends
 			namespaceBytes = new byte[0];
 		}
 		final byte[] encodedTypeBytes = StringUtils.stringToBinary(encodedType);
-		final ByteBuffer buf = ByteBuffer.allocate(encodedTypeBytes.length + typeNameBytes.length + namespaceBytes.length + fieldVisibilityAtributeNameBytes.length + visibilityManagementClassNameBytes.length + timeAndRangeBytes.length + 20);
-		buf.putInt(typeNameBytes.length);
+		final Integer geometryPrecision = getGeometryPrecision(persistedType);
+		final byte[] attributeStatisticsBytes = attributeStatisticsToBinary(persistedType);
+		final boolean hasAttributeStatistics = attributeStatisticsBytes.length > 0;
+		// the original format is still written when it is sufficient, so that
+		// prior versions can read it
+		final int extendedHeaderLength;
+		if (hasAttributeStatistics || (geometryPrecision != null)) {
+			extendedHeaderLength = 12 + attributeStatisticsBytes.length;
+		}
+		else {
+			extendedHeaderLength = 0;
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(encodedTypeBytes.length + typeNameBytes.length + namespaceBytes.length + fieldVisibilityAtributeNameBytes.length + visibilityManagementClassNameBytes.length + timeAndRangeBytes.length + 20 + extendedHeaderLength);
+		if (extendedHeaderLength > 0) {
+			// a negative type name length marks that a format version follows
+			// the lengths, which the original format never has
+			buf.putInt(-typeNameBytes.length - 1);
+		}
+		else {
+			buf.putInt(typeNameBytes.length);
+		}
 		buf.putInt(namespaceBytes.length);
 		buf.putInt(fieldVisibilityAtributeNameBytes.length);
 		buf.putInt(visibilityManagementClassNameBytes.length);
 		buf.putInt(timeAndRangeBytes.length);
+		if (extendedHeaderLength > 0) {
+			buf.putInt(FORMAT_VERSION);
+			buf.putInt(geometryPrecision != null ? geometryPrecision : NO_GEOMETRY_PRECISION);
+			buf.putInt(attributeStatisticsBytes.length);
+		}
 		buf.put(typeNameBytes);
 		buf.put(namespaceBytes);
 		buf.put(fieldVisibilityAtributeNameBytes);
 		buf.put(visibilityManagementClassNameBytes);
 		buf.put(timeAndRangeBytes);
+		buf.put(attributeStatisticsBytes);
 		buf.put(encodedTypeBytes);
 
 		return buf.array();
@@ -335,16 +568,40 @@ public class FeatureDataAdapter extends
 			final byte[] bytes ) {
 		// deserialize the feature type
 		final ByteBuffer buf = ByteBuffer.wrap(bytes);
-		final byte[] typeNameBytes = new byte[buf.getInt()];
+		final int typeNameLength = buf.getInt();
+		final boolean hasExtendedHeader = typeNameLength < 0;
+		final byte[] typeNameBytes = new byte[hasExtendedHeader ? -typeNameLength - 1 : typeNameLength];
 		final byte[] namespaceBytes = new byte[buf.getInt()];
 		final byte[] fieldVisibilityAtributeNameBytes = new byte[buf.getInt()];
 		final byte[] visibilityManagementClassNameBytes = new byte[buf.getInt()];
 		final byte[] timeAndRangeBytes = new byte[buf.getInt()];
+		Integer geometryPrecision = null;
+		byte[] attributeStatisticsBytes = new byte[0];
+		int extendedHeaderLength = 0;
+		int formatVersion = FORMAT_VERSION;
+		if (hasExtendedHeader) {
+			formatVersion = buf.getInt();
+			switch (formatVersion) {
+				case DELIMITED_ATTRIBUTE_STATISTICS_FORMAT_VERSION:
+				case FORMAT_VERSION:
+					final int precision = buf.getInt();
+					if (precision != NO_GEOMETRY_PRECISION) {
+						geometryPrecision = precision;
+					}
+					attributeStatisticsBytes = new byte[buf.getInt()];
+					extendedHeaderLength = 12 + attributeStatisticsBytes.length;
+					break;
+				default:
+					throw new IllegalArgumentException(
+							"Unsupported feature data adapter format version " + formatVersion);
+			}
+		}
 		buf.get(typeNameBytes);
 		buf.get(namespaceBytes);
 		buf.get(fieldVisibilityAtributeNameBytes);
 		buf.get(visibilityManagementClassNameBytes);
 		buf.get(timeAndRangeBytes);
+		buf.get(attributeStatisticsBytes);
 
 		final String typeName = StringUtils.stringFromBinary(typeNameBytes);
 		final String namespace = StringUtils.stringFromBinary(namespaceBytes);
@@ -360,15 +617,25 @@ public class FeatureDataAdapter extends
 					ex);
 		}
 
-		final byte[] encodedTypeBytes = new byte[bytes.length - typeNameBytes.length - namespaceBytes.length - fieldVisibilityAtributeNameBytes.length - visibilityManagementClassNameBytes.length - timeAndRangeBytes.length - 20];
+		final byte[] encodedTypeBytes = new byte[bytes.length - typeNameBytes.length - namespaceBytes.length - fieldVisibilityAtributeNameBytes.length - visibilityManagementClassNameBytes.length - timeAndRangeBytes.length - 20 - extendedHeaderLength];
 		buf.get(encodedTypeBytes);
 
 		final String encodedType = StringUtils.stringFromBinary(encodedTypeBytes);
 		try {
-			setFeatureType(DataUtilities.createType(
+			final SimpleFeatureType type = DataUtilities.createType(
 					namespace,
 					typeName,
-					encodedType));
+					encodedType);
+			if ((geometryPrecision != null) && (type.getGeometryDescriptor() != null)) {
+				type.getGeometryDescriptor().getUserData().put(
+						GEOMETRY_PRECISION_KEY,
+						geometryPrecision);
+			}
+			attributeStatisticsFromBinary(
+					type,
+					attributeStatisticsBytes,
+					formatVersion);
+			setFeatureType(type);
 			final TimeDescriptors timeDescriptors = new TimeDescriptors();
 			timeDescriptors.fromBinary(
 					persistedType,
@@ -480,7 +747,47 @@ public class FeatureDataAdapter extends
 
 	@Override
 	public ByteArrayId[] getSupportedStatisticsIds() {
-		return SUPPORTED_STATS_IDS;
+		if (supportedStatsIds == null) {
+			final List<ByteArrayId> statsIds = new ArrayList<ByteArrayId>(
+					Arrays.asList(DEFAULT_STATS_IDS));
+			if (getStartTimeAttributeName() != null) {
+				statsIds.add(TimeRangeDataStatistics.STATS_ID);
+			}
+			statsIds.addAll(getAttributeStatistics().keySet());
+			supportedStatsIds = statsIds.toArray(new ByteArrayId[statsIds.size()]);
+		}
+		return supportedStatsIds;
+	}
+
+	private Map<ByteArrayId, AttributeStatistic> getAttributeStatistics() {
+		if (attributeStatistics == null) {
+			// to maintain the order of the attributes use a linked hashmap
+			final Map<ByteArrayId, AttributeStatistic> statistics = new LinkedHashMap<ByteArrayId, AttributeStatistic>();
+			for (final AttributeDescriptor attrDesc : persistedType.getAttributeDescriptors()) {
+				final ByteArrayId fieldId = new ByteArrayId(
+						StringUtils.stringToBinary(attrDesc.getLocalName()));
+				if (isUserDataEnabled(
+						attrDesc,
+						NUMERIC_HISTOGRAM_KEY)) {
+					statistics.put(
+							NumericHistogramStatistics.composeId(fieldId),
+							new AttributeStatistic(
+									NUMERIC_HISTOGRAM_KEY,
+									fieldId));
+				}
+				if (isUserDataEnabled(
+						attrDesc,
+						DISTINCT_COUNT_KEY)) {
+					statistics.put(
+							DistinctCountStatistics.composeId(fieldId),
+							new AttributeStatistic(
+									DISTINCT_COUNT_KEY,
+									fieldId));
+				}
+			}
+			attributeStatistics = statistics;
+		}
+		return attributeStatistics;
 	}
 
 	@Override
@@ -494,13 +801,74 @@ public class FeatureDataAdapter extends
 			return new CountDataStatistics(
 					getAdapterId());
 		}
-		return null;
+		else if (TimeRangeDataStatistics.STATS_ID.equals(statisticsId)) {
+			final String startAttribute = getStartTimeAttributeName();
+			if (startAttribute == null) {
+				return null;
+			}
+			final String endAttribute = getEndTimeAttributeName();
+			return new FeatureTimeRangeStatistics(
+					getAdapterId(),
+					new TemporalBinningStrategy(
+							TIME_RANGE_STATS_UNIT),
+					startAttribute,
+					startAttribute.equals(endAttribute) ? null : endAttribute);
+		}
+		final AttributeStatistic attributeStatistic = getAttributeStatistics().get(
+				statisticsId);
+		if (attributeStatistic == null) {
+			return null;
+		}
+		if (NUMERIC_HISTOGRAM_KEY.equals(attributeStatistic.key)) {
+			return new NumericHistogramStatistics<SimpleFeature>(
+					getAdapterId(),
+					attributeStatistic.fieldId);
+		}
+		return new DistinctCountStatistics<SimpleFeature>(
+				getAdapterId(),
+				attributeStatistic.fieldId);
 	}
 
 	@Override
 	public DataStatisticsVisibilityHandler<SimpleFeature> getVisibilityHandler(
 			final ByteArrayId statisticsId ) {
-	   return GEOMETRY_VISIBILITY_HANDLER;
+		final AttributeStatistic attributeStatistic = getAttributeStatistics().get(
+				statisticsId);
+		if (attributeStatistic != null) {
+			// attribute statistics take on the visibility of the attribute
+			return attributeStatistic.visibilityHandler;
+		}
+		return GEOMETRY_VISIBILITY_HANDLER;
+	}
+
+	/**
+	 * @return the name of the time attribute or the attribute of the start of
+	 *         the time range, or null if the features are not temporal
+	 */
+	public String getStartTimeAttributeName() {
+		final TimeDescriptors timeDescriptors = inferTimeAttributeDescriptor(persistedType);
+		if (timeDescriptors.time != null) {
+			return timeDescriptors.time.getLocalName();
+		}
+		else if ((timeDescriptors.startRange != null) && (timeDescriptors.endRange != null)) {
+			return timeDescriptors.startRange.getLocalName();
+		}
+		return null;
+	}
+
+	/**
+	 * @return the name of the time attribute or the attribute of the end of
+	 *         the time range, or null if the features are not temporal
+	 */
+	public String getEndTimeAttributeName() {
+		final TimeDescriptors timeDescriptors = inferTimeAttributeDescriptor(persistedType);
+		if (timeDescriptors.time != null) {
+			return timeDescriptors.time.getLocalName();
+		}
+		else if ((timeDescriptors.startRange != null) && (timeDescriptors.endRange != null)) {
+			return timeDescriptors.endRange.getLocalName();
+		}
+		return null;
 	}
 
 	public boolean hasTemporalConstraints() {
@@ -647,4 +1015,21 @@ public class FeatureDataAdapter extends
 			final FeatureWritable writable ) {
 		return writable.getFeature();
 	}
+
+	private static class AttributeStatistic
+	{
+		// the user data key that enables the statistic
+		private final String key;
+		private final ByteArrayId fieldId;
+		private final DataStatisticsVisibilityHandler<SimpleFeature> visibilityHandler;
+
+		private AttributeStatistic(
+				final String key,
+				final ByteArrayId fieldId ) {
+			this.key = key;
+			this.fieldId = fieldId;
+			visibilityHandler = new FieldIdStatisticVisibility<SimpleFeature>(
+					fieldId);
+		}
+	}
 }
@@ -21,6 +21,7 @@ public class FeatureGeometryHandler implements
 {
 	private final FeatureAttributeHandler nativeGeometryHandler;
 	private final FieldVisibilityHandler<SimpleFeature, Object> visibilityHandler;
+	private final Integer compactPrecision;
 
 	public FeatureGeometryHandler(
 			final AttributeDescriptor geometryAttrDesc ) {
@@ -32,9 +33,30 @@ public class FeatureGeometryHandler implements
 	public FeatureGeometryHandler(
 			final AttributeDescriptor geometryAttrDesc,
 			final FieldVisibilityHandler<SimpleFeature, Object> visibilityHandler ) {
+		this(
+				geometryAttrDesc,
+				visibilityHandler,
+				null);
+	}
+
+	/**
+	 * 
+	 * @param geometryAttrDesc
+	 *            the geometry attribute
+	 * @param visibilityHandler
+	 *            the visibility handler, can be null
+	 * @param compactPrecision
+	 *            the precision of the compact geometry encoding, or null to
+	 *            persist the geometry as well known binary
+	 */
+	public FeatureGeometryHandler(
+			final AttributeDescriptor geometryAttrDesc,
+			final FieldVisibilityHandler<SimpleFeature, Object> visibilityHandler,
+			final Integer compactPrecision ) {
 		nativeGeometryHandler = new FeatureAttributeHandler(
 				geometryAttrDesc);
 		this.visibilityHandler = visibilityHandler;
+		this.compactPrecision = compactPrecision;
 	}
 
 	@Override
@@ -58,9 +80,11 @@ public class FeatureGeometryHandler implements
 		else {
 			visibility = new byte[] {};
 		}
-		return new GeometryWrapper(
+		final GeometryWrapper wrapper = new GeometryWrapper(
 				geometry,
 				visibility);
+		wrapper.setCompactPrecision(compactPrecision);
+		return wrapper;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.vector.plugin;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -9,7 +10,12 @@ import mil.nga.giat.geowave.store.CloseableIterator;
 import mil.nga.giat.geowave.store.adapter.statistics.BoundingBoxDataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.TimeRangeDataStatistics;
 import mil.nga.giat.geowave.store.query.TemporalConstraints;
+import mil.nga.giat.geowave.store.query.aggregate.Aggregation;
+import mil.nga.giat.geowave.store.query.aggregate.BoundingBoxAggregation;
+import mil.nga.giat.geowave.store.query.aggregate.CountAggregation;
+import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
 import mil.nga.giat.geowave.vector.wms.DistributableRenderer;
 import mil.nga.giat.geowave.vector.wms.accumulo.RenderedMaster;
 
@@ -20,13 +26,21 @@ import org.geotools.data.store.DataFeatureCollection;
 import org.geotools.factory.Hints;
 import org.geotools.feature.FeatureIterator;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.feature.visitor.MaxVisitor;
+import org.geotools.feature.visitor.MinVisitor;
+import org.geotools.filter.FidFilterImpl;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.FeatureVisitor;
 import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.filter.Filter;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.PropertyName;
 import org.opengis.geometry.BoundingBox;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.ProgressListener;
 
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
@@ -82,6 +96,17 @@ public class GeoWaveFeatureCollection extends
 				Filter.EXCLUDE)) {
 			return 0;
 		}
+		if (isAggregationSupported()) {
+			try {
+				return (int) aggregate(
+						new CountAggregation()).getCount();
+			}
+			catch (final Exception e) {
+				LOGGER.warn(
+						"Unable to aggregate count, counting features instead",
+						e);
+			}
+		}
 
 		// fallback
 		int count = 0;
@@ -118,6 +143,19 @@ public class GeoWaveFeatureCollection extends
 						stats.getMaxY(),
 						GeoWaveGTDataStore.DEFAULT_CRS);
 			}
+			if (isAggregationSupported()) {
+				final BoundingBoxAggregation bbox = aggregate(new BoundingBoxAggregation());
+				// the bounds are unset if nothing matches or if the current
+				// index does not contain the geometry
+				if (bbox.isSet()) {
+					return new ReferencedEnvelope(
+							bbox.getMinX(),
+							bbox.getMaxX(),
+							bbox.getMinY(),
+							bbox.getMaxY(),
+							GeoWaveGTDataStore.DEFAULT_CRS);
+				}
+			}
 			final Iterator<SimpleFeature> iterator = openIterator();
 			if (!iterator.hasNext()) {
 				return null;
@@ -160,6 +198,65 @@ public class GeoWaveFeatureCollection extends
 
 	}
 
+	@Override
+	public void accepts(
+			final FeatureVisitor visitor,
+			final ProgressListener progress )
+			throws IOException {
+		// the time extent of a layer is requested as the minimum of the start
+		// time and the maximum of the end time over all features, which is
+		// answered by the time range statistic
+		if (query.getFilter().equals(
+				Filter.INCLUDE) && reader.getTransaction().isEmpty()) {
+			final FeatureDataAdapter adapter = reader.getComponents().getAdapter();
+			if ((visitor instanceof MinVisitor) && isTimeAttribute(
+					((MinVisitor) visitor).getExpression(),
+					adapter.getStartTimeAttributeName())) {
+				final TimeRangeDataStatistics<?> stats = getTimeRangeStatistics();
+				if (stats != null) {
+					((MinVisitor) visitor).setValue(stats.getMinTime());
+					return;
+				}
+			}
+			else if ((visitor instanceof MaxVisitor) && isTimeAttribute(
+					((MaxVisitor) visitor).getExpression(),
+					adapter.getEndTimeAttributeName())) {
+				final TimeRangeDataStatistics<?> stats = getTimeRangeStatistics();
+				if (stats != null) {
+					((MaxVisitor) visitor).setValue(stats.getMaxTime());
+					return;
+				}
+			}
+		}
+		super.accepts(
+				visitor,
+				progress);
+	}
+
+	private boolean isTimeAttribute(
+			final Expression expression,
+			final String timeAttribute ) {
+		if ((timeAttribute == null) || !(expression instanceof PropertyName)) {
+			return false;
+		}
+		final AttributeDescriptor attrDesc = reader.getFeatureType().getDescriptor(
+				timeAttribute);
+		return ((PropertyName) expression).getPropertyName().equals(
+				timeAttribute) && (attrDesc != null) && Date.class.isAssignableFrom(attrDesc.getType().getBinding());
+	}
+
+	private TimeRangeDataStatistics<?> getTimeRangeStatistics() {
+		final Map<ByteArrayId, DataStatistics<SimpleFeature>> statsMap = reader.getComponents().getDataStatistics(
+				reader.getTransaction());
+		final DataStatistics<SimpleFeature> stats = statsMap.get(TimeRangeDataStatistics.STATS_ID);
+		final DataStatistics<SimpleFeature> countStats = statsMap.get(CountDataStatistics.STATS_ID);
+		// the time extent is only known if the statistic has seen every entry
+		if ((stats instanceof TimeRangeDataStatistics) && ((TimeRangeDataStatistics<?>) stats).isSet() && (countStats instanceof CountDataStatistics) && ((TimeRangeDataStatistics<?>) stats).isComplete((CountDataStatistics<?>) countStats)) {
+			return (TimeRangeDataStatistics<?>) stats;
+		}
+		return null;
+	}
+
 	@Override
 	public SimpleFeatureType getSchema() {
 		if (isDistributedRenderQuery()) {
@@ -212,6 +309,34 @@ public class GeoWaveFeatureCollection extends
 		return reader.getComponents().getAdapter().getType();
 	}
 
+	/**
+	 * Aggregations are computed within the tablet servers, so they are only
+	 * used for plain queries without uncommitted transaction changes
+	 */
+	private boolean isAggregationSupported() {
+		if (!reader.getTransaction().isEmpty() || (getLimit(query) != null)) {
+			return false;
+		}
+		if ((query.getFilter() == Filter.EXCLUDE) || (query.getFilter() instanceof FidFilterImpl)) {
+			return false;
+		}
+		return !isDistributedRenderQuery() && (getStatsQueryName() == null) && !query.getHints().containsKey(
+				DecimationProcess.OUTPUT_BBOX);
+	}
+
+	private <R extends Aggregation> R aggregate(
+			final R aggregation )
+			throws TransformException,
+			FactoryException {
+		return reader.aggregate(
+				getBBox(
+						query,
+						getEnvelope(query)),
+				getBoundedTime(query),
+				query.getFilter(),
+				aggregation);
+	}
+
 	@Override
 	protected Iterator<SimpleFeature> openIterator() {
 		Geometry jtsBounds;
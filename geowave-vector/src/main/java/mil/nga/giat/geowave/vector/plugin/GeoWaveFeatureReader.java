@@ -1,22 +1,31 @@
 package mil.nga.giat.geowave.vector.plugin;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
+import mil.nga.giat.geowave.accumulo.util.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.StringUtils;
 import mil.nga.giat.geowave.store.CloseableIterator;
 import mil.nga.giat.geowave.store.adapter.statistics.BoundingBoxDataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.TimeRangeDataStatistics;
+import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.store.query.BasicQuery;
 import mil.nga.giat.geowave.store.query.SpatialQuery;
 import mil.nga.giat.geowave.store.query.SpatialTemporalQuery;
 import mil.nga.giat.geowave.store.query.TemporalConstraints;
 import mil.nga.giat.geowave.store.query.TemporalQuery;
+import mil.nga.giat.geowave.store.query.TemporalRange;
+import mil.nga.giat.geowave.store.query.aggregate.Aggregation;
 import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
 import mil.nga.giat.geowave.vector.plugin.transaction.GeoWaveTransaction;
 import mil.nga.giat.geowave.vector.wms.DistributableRenderer;
@@ -29,6 +38,7 @@ import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.Filter;
 
+import com.google.common.collect.Iterators;
 import com.vividsolutions.jts.geom.Geometry;
 
 /**
@@ -150,11 +160,15 @@ public class GeoWaveFeatureReader implements
 			final TemporalConstraints timeBounds,
 			final Filter filter,
 			final DistributableRenderer renderer ) {
+		final List<TemporalConstraints> timeRanges = splitTimeBounds(timeBounds);
+		if (timeRanges.isEmpty()) {
+			return interweaveTransaction(getNoData());
+		}
 		return interweaveTransaction(components.getDataStore().query(
 				components.getAdapter(),
 				composeQuery(
 						jtsBounds.getGeometryN(0),
-						timeBounds),
+						mergeTimeBounds(timeRanges)),
 				filter,
 				renderer,
 				transaction.composeAuthorizations()));
@@ -169,11 +183,15 @@ public class GeoWaveFeatureReader implements
 			final Filter filter,
 			final ReferencedEnvelope envelope,
 			final Integer limit ) {
+		final List<TemporalConstraints> timeRanges = splitTimeBounds(timeBounds);
+		if (timeRanges.isEmpty()) {
+			return interweaveTransaction(getNoData());
+		}
 		return interweaveTransaction(components.getDataStore().query(
 				components.getAdapter(),
 				composeQuery(
 						jtsBounds.getGeometryN(0),
-						timeBounds),
+						mergeTimeBounds(timeRanges)),
 				width,
 				height,
 				pixelSize,
@@ -187,12 +205,17 @@ public class GeoWaveFeatureReader implements
 			final Geometry jtsBounds,
 			final TemporalConstraints timeBounds,
 			final Integer limit ) {
+		final List<TemporalConstraints> timeRanges = splitTimeBounds(timeBounds);
+		if (timeRanges.isEmpty()) {
+			return interweaveTransaction(getNoData());
+		}
+		final TemporalConstraints constrainedTimeBounds = mergeTimeBounds(timeRanges);
 		if ((limit != null) && (limit >= 0)) {
 			return components.getDataStore().query(
 					components.getAdapter(),
 					composeQuery(
 							jtsBounds,
-							timeBounds),
+							constrainedTimeBounds),
 					null,
 					limit,
 					transaction.composeAuthorizations());
@@ -201,7 +224,7 @@ public class GeoWaveFeatureReader implements
 				components.getAdapter(),
 				composeQuery(
 						jtsBounds,
-						timeBounds),
+						constrainedTimeBounds),
 				(Filter) null,
 				(Integer) null,
 				transaction.composeAuthorizations()));
@@ -212,23 +235,63 @@ public class GeoWaveFeatureReader implements
 			final TemporalConstraints timeBounds,
 			final Filter filter,
 			final Integer limit ) {
+		final List<TemporalConstraints> timeRanges = splitTimeBounds(timeBounds);
+		if (timeRanges.size() == 1) {
+			return interweaveTransaction(queryData(
+					jtsBounds,
+					timeRanges.get(0),
+					filter,
+					limit));
+		}
+		// query each time range containing data separately so that the empty
+		// temporal bins between them are not scanned, an entry can not be in
+		// two of the time ranges because the bins between them are empty
+		final List<CloseableIterator<SimpleFeature>> results = new ArrayList<CloseableIterator<SimpleFeature>>();
+		for (final TemporalConstraints timeRange : timeRanges) {
+			results.add(queryData(
+					jtsBounds,
+					timeRange,
+					filter,
+					limit));
+		}
+		final Iterator<SimpleFeature> it = Iterators.concat(results.iterator());
+		return interweaveTransaction(new CloseableIteratorWrapper<SimpleFeature>(
+				new Closeable() {
+					@Override
+					public void close()
+							throws IOException {
+						for (final CloseableIterator<SimpleFeature> result : results) {
+							result.close();
+						}
+					}
+				},
+				(limit != null) && (limit >= 0) ? Iterators.limit(
+						it,
+						limit) : it));
+	}
+
+	private CloseableIterator<SimpleFeature> queryData(
+			final Geometry jtsBounds,
+			final TemporalConstraints timeBounds,
+			final Filter filter,
+			final Integer limit ) {
 		if ((limit != null) && (limit >= 0)) {
-			return interweaveTransaction(components.getDataStore().query(
+			return components.getDataStore().query(
 					components.getAdapter(),
 					composeQuery(
 							jtsBounds,
 							timeBounds),
 					filter,
-					limit));
+					limit);
 		}
-		return interweaveTransaction(components.getDataStore().query(
+		return components.getDataStore().query(
 				components.getAdapter(),
 				composeQuery(
 						jtsBounds,
 						timeBounds),
 				filter,
 				(Integer) null,
-				transaction.composeAuthorizations()));
+				transaction.composeAuthorizations());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -248,6 +311,42 @@ public class GeoWaveFeatureReader implements
 
 	}
 
+	/**
+	 * Aggregate the features of the current index within the tablet servers.
+	 * The features of the transaction are not included so this should only be
+	 * used when the transaction is empty.
+	 */
+	public <R extends Aggregation> R aggregate(
+			final Geometry jtsBounds,
+			final TemporalConstraints timeBounds,
+			final Filter filter,
+			final R aggregation ) {
+		final Index index = components.getCurrentIndex();
+		final List<TemporalConstraints> timeRanges = splitTimeBounds(timeBounds);
+		if (timeRanges.isEmpty()) {
+			// no data can match
+			return aggregation;
+		}
+		final TemporalConstraints constrainedTimeBounds = mergeTimeBounds(timeRanges);
+		BasicQuery query = null;
+		if ((jtsBounds != null) || (constrainedTimeBounds != null)) {
+			query = composeQuery(
+					jtsBounds,
+					constrainedTimeBounds);
+			if (!query.isSupported(index)) {
+				// the filter still contains the constraints
+				query = null;
+			}
+		}
+		return components.getDataStore().aggregate(
+				components.getAdapter(),
+				index,
+				query,
+				filter,
+				aggregation,
+				transaction.composeAuthorizations());
+	}
+
 	public GeoWaveFeatureCollection getFeatureCollection() {
 		return featureCollection;
 	}
@@ -258,6 +357,65 @@ public class GeoWaveFeatureReader implements
 
 	}
 
+	/**
+	 * Narrow the time bounds to the time ranges that contain data according to
+	 * the time range statistic. The time bounds are only narrowed if the
+	 * statistic has accounted for every entry counted by the count statistic,
+	 * as entries written while the statistic was not maintained would
+	 * otherwise be excluded.
+	 *
+	 * @param timeBounds
+	 *            the time bounds, null if the query is not constrained by time
+	 * @return the time bounds of each time range containing data, which is
+	 *         empty if no data can match, or the original time bounds if they
+	 *         can not be narrowed
+	 */
+	private List<TemporalConstraints> splitTimeBounds(
+			final TemporalConstraints timeBounds ) {
+		if (timeBounds == null) {
+			return Collections.singletonList(null);
+		}
+		final DataStatistics<?> stats = components.getDataStore().getStatsStore().getDataStatistics(
+				components.getAdapter().getAdapterId(),
+				TimeRangeDataStatistics.STATS_ID,
+				transaction.composeAuthorizations());
+		if (!(stats instanceof TimeRangeDataStatistics)) {
+			return Collections.singletonList(timeBounds);
+		}
+		final DataStatistics<?> countStats = components.getDataStore().getStatsStore().getDataStatistics(
+				components.getAdapter().getAdapterId(),
+				CountDataStatistics.STATS_ID,
+				transaction.composeAuthorizations());
+		if (!(countStats instanceof CountDataStatistics) || !((TimeRangeDataStatistics<?>) stats).isComplete((CountDataStatistics<?>) countStats)) {
+			return Collections.singletonList(timeBounds);
+		}
+		final TemporalConstraints constrainedTimeBounds = ((TimeRangeDataStatistics<?>) stats).constrain(timeBounds);
+		if (constrainedTimeBounds == null) {
+			return Collections.emptyList();
+		}
+		final List<TemporalConstraints> timeRanges = new ArrayList<TemporalConstraints>();
+		for (final TemporalRange range : constrainedTimeBounds.getRanges()) {
+			final TemporalConstraints timeRange = new TemporalConstraints();
+			timeRange.add(range);
+			timeRanges.add(timeRange);
+		}
+		return timeRanges;
+	}
+
+	private static TemporalConstraints mergeTimeBounds(
+			final List<TemporalConstraints> timeRanges ) {
+		if (timeRanges.size() == 1) {
+			return timeRanges.get(0);
+		}
+		final TemporalConstraints timeBounds = new TemporalConstraints();
+		for (final TemporalConstraints timeRange : timeRanges) {
+			for (final TemporalRange range : timeRange.getRanges()) {
+				timeBounds.add(range);
+			}
+		}
+		return timeBounds;
+	}
+
 	private BasicQuery composeQuery(
 			final Geometry jtsBounds,
 			final TemporalConstraints timeBounds ) {
@@ -138,16 +138,14 @@ public class GeoWaveFeatureSource extends
 			return (int) ((CountDataStatistics) countStats).getCount();
 		}
 		else {
-			final FeatureReader<SimpleFeatureType, SimpleFeature> reader = new GeoWaveFeatureReader(
+			final GeoWaveFeatureReader reader = new GeoWaveFeatureReader(
 					query,
 					new GeoWaveEmptyTransaction(
 							this.components),
 					this.components);
-			int count = 0;
-			while (reader.hasNext()) {
-				reader.next();
-				count++;
-			}
+			// the feature collection counts within the tablet servers when
+			// possible
+			final int count = reader.getFeatureCollection().getCount();
 			reader.close();
 			return count;
 		}
@@ -164,7 +164,14 @@ TransactionNotification
 
 	@Override
 	public void dispose() {
-		// TODO are there any native resources we need to dispose of
+		// send the entries and statistics buffered by the stores and release
+		// their writers
+		if (dataStore != null) {
+			dataStore.close();
+		}
+		if (statsDataStore != null) {
+			statsDataStore.close();
+		}
 	}
 
 	public AuthorizationSPI getAuthorizationSPI() {
@@ -0,0 +1,92 @@
+package mil.nga.giat.geowave.vector.query;
+
+import mil.nga.giat.geowave.accumulo.query.AccumuloAggregationQuery;
+import mil.nga.giat.geowave.accumulo.query.AggregationIterator;
+import mil.nga.giat.geowave.index.ByteArrayUtils;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.store.filter.DistributableFilterList;
+import mil.nga.giat.geowave.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.query.Query;
+import mil.nga.giat.geowave.store.query.aggregate.Aggregation;
+import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
+import mil.nga.giat.geowave.vector.query.cql.FilterToCQLTool;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.opengis.filter.Filter;
+
+/**
+ * This class extends the capabilities of an aggregation query to support
+ * GeoTools' CQL filters within the tablet servers.
+ */
+public class AccumuloCqlAggregationQuery extends
+		AccumuloAggregationQuery
+{
+	private final Filter cqlFilter;
+
+	public AccumuloCqlAggregationQuery(
+			final FeatureDataAdapter adapter,
+			final Index index,
+			final Query query,
+			final Filter cqlFilter,
+			final Aggregation aggregation,
+			final String... authorizations ) {
+		super(
+				adapter,
+				index,
+				query,
+				aggregation,
+				authorizations);
+		// an include filter accepts every feature so it is not worth decoding
+		this.cqlFilter = Filter.INCLUDE.equals(cqlFilter) ? null : cqlFilter;
+	}
+
+	@Override
+	protected Class<? extends AggregationIterator> getIteratorClass() {
+		return CqlQueryAggregationIterator.class;
+	}
+
+	@Override
+	protected void addAggregationIteratorOptions(
+			final IteratorSetting iteratorSettings ) {
+		super.addAggregationIteratorOptions(iteratorSettings);
+		if (cqlFilter != null) {
+			iteratorSettings.addOption(
+					CqlQueryAggregationIterator.CQL_FILTER,
+					FilterToCQLTool.toCQL(cqlFilter));
+		}
+	}
+
+	@Override
+	protected void addScanIteratorSettings(
+			final ScannerBase scanner ) {
+		if (!isAggregationDistributed() && (cqlFilter != null)) {
+			// the rows are aggregated on the client, but the CQL filter can
+			// still be applied within the tablet servers
+			final IteratorSetting iteratorSettings = new IteratorSetting(
+					CqlQueryFilterIterator.CQL_QUERY_ITERATOR_PRIORITY,
+					CqlQueryFilterIterator.CQL_QUERY_ITERATOR_NAME,
+					CqlQueryFilterIterator.class);
+			iteratorSettings.addOption(
+					CqlQueryFilterIterator.CQL_FILTER,
+					FilterToCQLTool.toCQL(cqlFilter));
+			iteratorSettings.addOption(
+					CqlQueryFilterIterator.DATA_ADAPTER,
+					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(adapter)));
+			iteratorSettings.addOption(
+					CqlQueryFilterIterator.MODEL,
+					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexModel())));
+
+			final DistributableQueryFilter filterList = new DistributableFilterList(
+					distributableFilters);
+			iteratorSettings.addOption(
+					CqlQueryFilterIterator.GEOWAVE_FILTER,
+					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(filterList)));
+			scanner.addScanIterator(iteratorSettings);
+		}
+		else {
+			super.addScanIteratorSettings(scanner);
+		}
+	}
+}
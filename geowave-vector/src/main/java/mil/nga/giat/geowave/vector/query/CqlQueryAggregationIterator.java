@@ -0,0 +1,70 @@
+package mil.nga.giat.geowave.vector.query;
+
+import java.io.IOException;
+import java.util.Map;
+
+import mil.nga.giat.geowave.accumulo.query.AggregationIterator;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.geotools.filter.text.ecql.ECQL;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.Filter;
+
+/**
+ * This class extends the aggregation iterator to only aggregate the
+ * SimpleFeatures that are accepted by a CQL filter. The feature is only decoded
+ * for rows that have been accepted by the distributable filter.
+ */
+public class CqlQueryAggregationIterator extends
+		AggregationIterator
+{
+	public static final String CQL_FILTER = "cql_filter";
+	private Filter gtFilter;
+
+	@Override
+	protected boolean accept(
+			final IndexedAdapterPersistenceEncoding encoding ) {
+		if ((gtFilter == null) || !(dataAdapter instanceof FeatureDataAdapter)) {
+			return true;
+		}
+		final SimpleFeature feature = ((FeatureDataAdapter) dataAdapter).decode(
+				encoding,
+				new Index(
+						null, // the feature data adapter only uses the common
+								// index model to decode the simple feature
+						model));
+		if (feature == null) {
+			return false;
+		}
+		return gtFilter.evaluate(feature);
+	}
+
+	@Override
+	public void init(
+			final SortedKeyValueIterator<Key, Value> source,
+			final Map<String, String> options,
+			final IteratorEnvironment env )
+			throws IOException {
+		super.init(
+				source,
+				options,
+				env);
+		CqlQueryFilterIterator.initClassLoader(getClass());
+		try {
+			final String gtFilterStr = options.get(CQL_FILTER);
+			if (gtFilterStr != null) {
+				gtFilter = ECQL.toFilter(gtFilterStr);
+			}
+		}
+		catch (final Exception e) {
+			throw new IllegalArgumentException(
+					e);
+		}
+	}
+}
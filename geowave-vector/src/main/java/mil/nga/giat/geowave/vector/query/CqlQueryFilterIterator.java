@@ -12,12 +12,12 @@ import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
-import mil.nga.giat.geowave.store.data.PersistentDataset;
-import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.data.LazyPersistentDataset;
 import mil.nga.giat.geowave.store.data.field.FieldReader;
 import mil.nga.giat.geowave.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.store.index.CommonIndexModel;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.CommonIndexValueReader;
 import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
 
@@ -74,8 +74,12 @@ public class CqlQueryFilterIterator extends
 		if ((gtFilter != null) && (model != null) && (dataAdapter != null)) {
 			final AccumuloRowId rowId = new AccumuloRowId(
 					currentRow.copyBytes());
-			final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
-			final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+			// fields are only decoded once they are accessed, so rows rejected
+			// by the distributable filter never decode the extended data
+			final LazyPersistentDataset<CommonIndexValue> commonData = new LazyPersistentDataset<CommonIndexValue>(
+					model.getFieldOrdinals());
+			final LazyPersistentDataset<Object> extendedData = new LazyPersistentDataset<Object>(
+					dataAdapter.getNativeFieldOrdinals());
 			for (int i = 0; (i < keys.size()) && (i < values.size()); i++) {
 				final Key key = keys.get(i);
 				final ByteArrayId fieldId = new ByteArrayId(
@@ -87,19 +91,20 @@ public class CqlQueryFilterIterator extends
 					if (extReader == null) {
 						continue;
 					}
-					final Object fieldValue = extReader.readField(values.get(
-							i).get());
-					extendedData.addValue(new PersistentValue<Object>(
+					extendedData.addEncodedValue(
 							fieldId,
-							fieldValue));
+							values.get(
+									i).get(),
+							extReader);
 				}
 				else {
-					final CommonIndexValue fieldValue = reader.readField(values.get(
-							i).get());
-					fieldValue.setVisibility(key.getColumnVisibilityData().getBackingArray());
-					commonData.addValue(new PersistentValue<CommonIndexValue>(
+					commonData.addEncodedValue(
 							fieldId,
-							fieldValue));
+							values.get(
+									i).get(),
+							new CommonIndexValueReader(
+									reader,
+									key.getColumnVisibilityData().getBackingArray()));
 				}
 			}
 			final IndexedAdapterPersistenceEncoding encoding = new IndexedAdapterPersistenceEncoding(
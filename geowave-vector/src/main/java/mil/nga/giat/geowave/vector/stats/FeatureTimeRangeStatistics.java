@@ -0,0 +1,72 @@
+package mil.nga.giat.geowave.vector.stats;
+
+import java.util.Date;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
+import mil.nga.giat.geowave.store.TimeUtils;
+import mil.nga.giat.geowave.store.adapter.statistics.TimeRangeDataStatistics;
+import mil.nga.giat.geowave.store.query.TemporalRange;
+
+import org.opengis.feature.simple.SimpleFeature;
+
+public class FeatureTimeRangeStatistics extends
+		TimeRangeDataStatistics<SimpleFeature>
+{
+	// the attributes are only needed to ingest features, so they are not
+	// persisted
+	private String startAttribute;
+	private String endAttribute;
+
+	protected FeatureTimeRangeStatistics() {
+		super();
+	}
+
+	/**
+	 * @param dataAdapterId
+	 *            the adapter
+	 * @param binningStrategy
+	 *            the temporal bins to track the time range of, or null to only
+	 *            track the overall time range
+	 * @param startAttribute
+	 *            the time attribute, or the start of the time range
+	 * @param endAttribute
+	 *            the end of the time range, or null for a single time attribute
+	 */
+	public FeatureTimeRangeStatistics(
+			final ByteArrayId dataAdapterId,
+			final TemporalBinningStrategy binningStrategy,
+			final String startAttribute,
+			final String endAttribute ) {
+		super(
+				dataAdapterId,
+				binningStrategy);
+		this.startAttribute = startAttribute;
+		this.endAttribute = endAttribute;
+	}
+
+	@Override
+	protected TemporalRange getTimeRange(
+			final SimpleFeature entry ) {
+		final Object start = entry.getAttribute(startAttribute);
+		if (start == null) {
+			return null;
+		}
+		final long startMillis = TimeUtils.getTimeMillis(start);
+		long endMillis = startMillis;
+		if (endAttribute != null) {
+			final Object end = entry.getAttribute(endAttribute);
+			if (end != null) {
+				endMillis = Math.max(
+						startMillis,
+						TimeUtils.getTimeMillis(end));
+			}
+		}
+		return new TemporalRange(
+				new Date(
+						startMillis),
+				new Date(
+						endMillis));
+	}
+
+}
@@ -2,16 +2,25 @@ package mil.nga.giat.geowave.vector.adapter;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 
+import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.store.adapter.IndexFieldHandler;
+import mil.nga.giat.geowave.store.adapter.statistics.DistinctCountStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.FieldIdStatisticVisibility;
+import mil.nga.giat.geowave.store.adapter.statistics.NumericHistogramStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.TimeRangeDataStatistics;
 import mil.nga.giat.geowave.store.data.visibility.GlobalVisibilityHandler;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.vector.stats.FeatureTimeRangeStatistics;
 import mil.nga.giat.geowave.vector.utils.DateUtilities;
 
 import org.apache.accumulo.core.client.AccumuloException;
@@ -363,4 +372,83 @@ public class FeatureDataAdapterTest
 		assertTrue(found);
 	}
 
+
+	@Test
+	public void testAttributeStatistics() {
+		schema.getDescriptor(
+				"pop").getUserData().put(
+				FeatureDataAdapter.NUMERIC_HISTOGRAM_KEY,
+				Boolean.TRUE);
+		schema.getDescriptor(
+				"pid").getUserData().put(
+				FeatureDataAdapter.DISTINCT_COUNT_KEY,
+				Boolean.TRUE);
+
+		final FeatureDataAdapter dataAdapter = new FeatureDataAdapter(
+				schema);
+		final byte[] binary = dataAdapter.toBinary();
+
+		final FeatureDataAdapter dataAdapterCopy = new FeatureDataAdapter();
+		dataAdapterCopy.fromBinary(binary);
+
+		final List<ByteArrayId> statsIds = Arrays.asList(dataAdapterCopy.getSupportedStatisticsIds());
+		// the count, bounding box and time range as well as the attributes
+		assertEquals(
+				5,
+				statsIds.size());
+		final ByteArrayId histogramId = NumericHistogramStatistics.composeId(new ByteArrayId(
+				"pop"));
+		final ByteArrayId distinctId = DistinctCountStatistics.composeId(new ByteArrayId(
+				"pid"));
+		assertTrue(statsIds.contains(histogramId));
+		assertTrue(statsIds.contains(distinctId));
+		assertTrue(dataAdapterCopy.createDataStatistics(histogramId) instanceof NumericHistogramStatistics);
+		assertTrue(dataAdapterCopy.createDataStatistics(distinctId) instanceof DistinctCountStatistics);
+		assertTrue(dataAdapterCopy.createDataStatistics(TimeRangeDataStatistics.STATS_ID) instanceof FeatureTimeRangeStatistics);
+		// attribute statistics share the visibility handler of the attribute
+		assertTrue(dataAdapterCopy.getVisibilityHandler(histogramId) instanceof FieldIdStatisticVisibility);
+		assertSame(
+				dataAdapterCopy.getVisibilityHandler(histogramId),
+				dataAdapterCopy.getVisibilityHandler(histogramId));
+	}
+
+	@Test
+	public void testGeometryPrecision() {
+		schema.getGeometryDescriptor().getUserData().put(
+				FeatureDataAdapter.GEOMETRY_PRECISION_KEY,
+				"6");
+		schema.getDescriptor(
+				"pop").getUserData().put(
+				FeatureDataAdapter.NUMERIC_HISTOGRAM_KEY,
+				Boolean.TRUE);
+		final FeatureDataAdapter dataAdapter = new FeatureDataAdapter(
+				schema);
+		assertEquals(
+				Integer.valueOf(6),
+				dataAdapter.getGeometryPrecision());
+
+		final FeatureDataAdapter dataAdapterCopy = new FeatureDataAdapter();
+		dataAdapterCopy.fromBinary(dataAdapter.toBinary());
+		assertEquals(
+				Integer.valueOf(6),
+				dataAdapterCopy.getGeometryPrecision());
+		assertTrue(Arrays.asList(
+				dataAdapterCopy.getSupportedStatisticsIds()).contains(
+				NumericHistogramStatistics.composeId(new ByteArrayId(
+						"pop"))));
+	}
+
+	@Test
+	public void testInvalidGeometryPrecision() {
+		schema.getGeometryDescriptor().getUserData().put(
+				FeatureDataAdapter.GEOMETRY_PRECISION_KEY,
+				"six");
+		assertNull(new FeatureDataAdapter(
+				schema).getGeometryPrecision());
+		schema.getGeometryDescriptor().getUserData().put(
+				FeatureDataAdapter.GEOMETRY_PRECISION_KEY,
+				-1);
+		assertNull(new FeatureDataAdapter(
+				schema).getGeometryPrecision());
+	}
 }